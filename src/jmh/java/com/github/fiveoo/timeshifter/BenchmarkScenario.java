@@ -0,0 +1,93 @@
+package com.github.fiveoo.timeshifter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
+
+/**
+ * Configurations and matching input rows the benchmarks are run with.
+ */
+public enum BenchmarkScenario
+{
+    /** ExifTool layouts, offset taken from each row (<code>-iox</code>) */
+    DEFAULT( "yyyy:MM:dd HH:mm:ssXXX", null, "yyyy:MM:dd HH:mm:ssXXX", null ),
+
+    /** patterns not covered by the specialized parser/formatter */
+    CUSTOM_PATTERNS( "dd.MM.yyyy HH:mm:ssXXX", null, "yyyy-MM-dd'T'HH:mm:ssXXX", null ),
+
+    /** local date/times resolved by <code>-isz</code> */
+    ZONE( "yyyy:MM:dd HH:mm:ss", ZoneId.of( "Europe/Berlin" ), "yyyy:MM:dd HH:mm:ssXXX", null ),
+
+    /** fixed offset (<code>-oso</code>) instead of the one of each row */
+    FIXED_OFFSET( "yyyy:MM:dd HH:mm:ssXXX", null, "yyyy:MM:dd HH:mm:ssXXX", ZoneOffset.ofHours( 2 ) );
+
+    private final String     inPattern;
+    private final ZoneId     inZone;
+    private final String     outPattern;
+    private final ZoneOffset outOffset;
+
+    BenchmarkScenario( final String inPattern, final ZoneId inZone, final String outPattern,
+            final ZoneOffset outOffset )
+    {
+        this.inPattern = inPattern;
+        this.inZone = inZone;
+        this.outPattern = outPattern;
+        this.outOffset = outOffset;
+    }
+
+    MutableTimeshifterConfig createConfig()
+    {
+        final MutableTimeshifterConfig config = new MutableTimeshifterConfig();
+        config.setInDateShiftFormat( inPattern );
+        config.setInDateShiftZone( inZone );
+        config.setOutDateShiftedFormat( outPattern );
+        config.setOutDateShiftedOffset( outOffset );
+
+        return config;
+    }
+
+    /**
+     * @return rows of ExifTool output (file name, date/time to shift, date/time
+     *         to take the offset from) spread over a month
+     */
+    String[][] createRows( final int count )
+    {
+        final DateTimeFormatter inFormatter = DateTimeFormatter.ofPattern( inPattern );
+        final DateTimeFormatter offsetFormatter = MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER;
+        final Random random = new Random( 20190317L );
+        final LocalDateTime start = LocalDateTime.of( 2019, 3, 1, 0, 0 );
+
+        final String[][] rows = new String[count][];
+        for( int i = 0; i < count; i++ )
+        {
+            final LocalDateTime dateTime = start.plusSeconds( random.nextInt( 31 * 86400 ) );
+            final String dateTimeToShift =
+                    inZone == null ? dateTime.atOffset( ZoneOffset.UTC ).format( inFormatter )
+                            : dateTime.format( inFormatter );
+            final String offsetDateTime =
+                    dateTime.atOffset( ZoneOffset.ofHours( 1 + i % 3 ) ).format( offsetFormatter );
+
+            rows[i] = new String[] { "NewImages/DSC" + ( 10000 + i ) + ".jpg", dateTimeToShift, offsetDateTime };
+        }
+
+        return rows;
+    }
+
+    /**
+     * @return the rows as CSV input
+     */
+    String createCsv( final int count )
+    {
+        final StringBuilder csv = new StringBuilder( count * 80 );
+        for( final String[] row : createRows( count ) )
+        {
+            csv.append( String.join( ",", row ) ).append( '\n' );
+        }
+
+        return csv.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+
+/**
+ * Reading of ExifTool CSV output by {@link CsvTokenizer} compared to the
+ * opencsv reader; both read all rows, convert the two date/time fields to
+ * strings and copy the others to a line like the shifter does.
+ *
+ * The benchmark profile runs the gc profiler to compare the allocation rates,
+ * e.g. <code>mvn -Pbenchmark test-compile exec:exec -DaBenchmark.args="CsvTokenizer"</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvTokenizerBenchmark
+{
+    private static final int ROWS = 10_000;
+
+    private String input;
+
+    @Setup
+    public void setUp()
+    {
+        final StringBuilder b = new StringBuilder( "SourceFile,GPSDateTime,DateTimeOriginal,Make,Model\n" );
+        for( int i = 0; i < ROWS; i++ )
+        {
+            final int day = 1 + i % 28;
+            b.append( i % 10 == 0 ? "\"New Images/DSC" : "NewImages/DSC" ).append( 10000 + i );
+            b.append( i % 10 == 0 ? ".jpg\"," : ".jpg," );
+            b.append( "2019:03:" ).append( day < 10 ? "0" : "" ).append( day ).append( " 17:58:00Z," );
+            b.append( "2019:03:" ).append( day < 10 ? "0" : "" ).append( day ).append( " 18:57:30+01:00," );
+            b.append( "SONY,ILCE-6000\n" );
+        }
+        input = b.toString();
+    }
+
+    @Benchmark
+    public void csvTokenizer( final Blackhole blackhole )
+        throws IOException
+    {
+        final StringBuilder line = new StringBuilder( 256 );
+        try (final CsvTokenizer tokenizer = new CsvTokenizer( new StringReader( input ), 1 ))
+        {
+            while( tokenizer.next() )
+            {
+                blackhole.consume( tokenizer.getString( 1 ) );
+                blackhole.consume( tokenizer.getString( 2 ) );
+
+                line.setLength( 0 );
+                for( int i = 0; i < tokenizer.size(); i++ )
+                {
+                    tokenizer.appendTo( i, line );
+                }
+                blackhole.consume( line.length() );
+            }
+        }
+    }
+
+    @Benchmark
+    public void openCsv( final Blackhole blackhole )
+        throws IOException
+    {
+        final StringBuilder line = new StringBuilder( 256 );
+        try (final CSVReader reader = new CSVReaderBuilder( new StringReader( input ) )
+                .withCSVParser( new CSVParserBuilder().withSeparator( ',' ).withQuoteChar( '"' ).build() )
+                .withSkipLines( 1 ).build())
+        {
+            String[] values;
+            while( ( values = reader.readNext() ) != null )
+            {
+                blackhole.consume( values[1] );
+                blackhole.consume( values[2] );
+
+                line.setLength( 0 );
+                for( final String value : values )
+                {
+                    line.append( value );
+                }
+                blackhole.consume( line.length() );
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Timeshifter#shiftCsv(java.io.Reader, java.io.Writer)} of a complete
+ * CSV input held in memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShiftCsvBenchmark
+{
+    @Param({ "DEFAULT", "CUSTOM_PATTERNS", "ZONE", "FIXED_OFFSET" })
+    public BenchmarkScenario scenario;
+
+    @Param({ "10000" })
+    public int rows;
+
+    private Timeshifter shifter;
+    private String      input;
+
+    @Setup
+    public void setUp()
+    {
+        shifter = new Timeshifter( scenario.createConfig() );
+        input = scenario.createCsv( rows );
+    }
+
+    @Benchmark
+    public int shiftCsv()
+        throws IOException
+    {
+        final StringWriter out = new StringWriter( 2 * input.length() );
+        shifter.shiftCsv( new StringReader( input ), out );
+
+        return out.getBuffer().length();
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.fiveoo.timeshifter;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The single stages of shifting a row: parsing the date/time to shift and the
+ * offset, applying the offset and formatting the output line, as well as all
+ * of them together.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeshifterStagesBenchmark
+{
+    private static final int ROWS = 1024;
+
+    @Param({ "DEFAULT", "CUSTOM_PATTERNS", "ZONE", "FIXED_OFFSET" })
+    public BenchmarkScenario scenario;
+
+    private Timeshifter      shifter;
+    private String[][]       rows;
+    private OffsetDateTime[] parsed;
+    private ZoneOffset[]     offsets;
+    private OffsetDateTime[] shifted;
+    private StringBuilder    line;
+    private int              idx;
+
+    @Setup
+    public void setUp()
+    {
+        shifter = new Timeshifter( scenario.createConfig() );
+        rows = scenario.createRows( ROWS );
+        parsed = new OffsetDateTime[ROWS];
+        offsets = new ZoneOffset[ROWS];
+        shifted = new OffsetDateTime[ROWS];
+        for( int i = 0; i < ROWS; i++ )
+        {
+            parsed[i] = shifter.parseDateTimeToShift( rows[i][1] );
+            offsets[i] = shifter.getPlan().isFixedOffset() ? shifter.getPlan().getOutDateShiftedOffset()
+                    : shifter.parseOffset( rows[i][2] );
+            shifted[i] = shifter.createShiftedTime( rows[i] );
+        }
+        line = new StringBuilder( 256 );
+    }
+
+    @Benchmark
+    public OffsetDateTime parse()
+    {
+        return shifter.parseDateTimeToShift( rows[next()][1] );
+    }
+
+    @Benchmark
+    public ZoneOffset parseOffset()
+    {
+        return shifter.parseOffset( rows[next()][2] );
+    }
+
+    @Benchmark
+    public OffsetDateTime applyOffset()
+    {
+        final int i = next();
+
+        return shifter.applyOffset( parsed[i], offsets[i] );
+    }
+
+    /**
+     * Parsing and applying the offset; compare {@link BenchmarkScenario#DEFAULT}
+     * (<code>-iox</code>) with {@link BenchmarkScenario#FIXED_OFFSET}
+     * (<code>-oso</code>).
+     */
+    @Benchmark
+    public OffsetDateTime createShiftedTime()
+    {
+        return shifter.createShiftedTime( rows[next()] );
+    }
+
+    @Benchmark
+    public int formatOutputLine()
+    {
+        final int i = next();
+        line.setLength( 0 );
+        shifter.formatOutputLine( rows[i], shifted[i], line );
+
+        return line.length();
+    }
+
+    @Benchmark
+    public boolean transformLine()
+    {
+        line.setLength( 0 );
+
+        return shifter.transformLine( rows[next()], line );
+    }
+
+    private int next()
+    {
+        idx = ( idx + 1 ) & ( ROWS - 1 );
+
+        return idx;
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.fiveoo.timeshifter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Resolution of local date/times (<code>-isz</code>) by {@link ZoneTransitionTable}
+ * compared to {@link LocalDateTime#atZone(ZoneId)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZoneResolutionBenchmark
+{
+    private static final int VALUES = 1024;
+
+    @Param({ "Europe/Berlin", "America/New_York", "Asia/Kathmandu" })
+    public String zoneId;
+
+    private ZoneId              zone;
+    private ZoneTransitionTable zoneTable;
+    private long[]              localEpochSeconds;
+    private int                 idx;
+
+    @Setup
+    public void setUp()
+    {
+        zone = ZoneId.of( zoneId );
+        zoneTable = ZoneTransitionTable.of( zone );
+
+        final Random random = new Random( 20190315L );
+        final long start = LocalDateTime.of( 2015, 1, 1, 0, 0 ).toEpochSecond( ZoneOffset.UTC );
+        localEpochSeconds = new long[VALUES];
+        for( int i = 0; i < VALUES; i++ )
+        {
+            localEpochSeconds[i] = start + random.nextInt( 5 * 365 * 86400 );
+        }
+    }
+
+    @Benchmark
+    public void atZone( final Blackhole blackhole )
+    {
+        final long localEpochSecond = next();
+        blackhole.consume( LocalDateTime.ofEpochSecond( localEpochSecond, 0, ZoneOffset.UTC ).atZone( zone )
+                .toOffsetDateTime() );
+    }
+
+    @Benchmark
+    public void zoneTransitionTable( final Blackhole blackhole )
+    {
+        final long localEpochSecond = next();
+        blackhole.consume( zoneTable.toEpochSecond( localEpochSecond ) );
+        blackhole.consume( zoneTable.getOffsetSeconds( localEpochSecond ) );
+    }
+
+    private long next()
+    {
+        idx = ( idx + 1 ) & ( VALUES - 1 );
+
+        return localEpochSeconds[idx];
+    }
+}
@@ -0,0 +1,478 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shifts many input files on a pool of worker threads, one file per thread.
+ *
+ * All files are shifted by the same {@link ShiftPlan}. Each file is written
+ * to its own output or, if a job has no output, merged into one output in the
+ * order of the jobs: the merged files are shifted to temporary files
+ * concurrently and appended to the output one after the other, with header
+ * and footer written only once.
+ *
+ * A file that fails doesn't stop the others; its error is part of its
+ * {@link FileResult}. Only a limited number of files is processed or waiting
+ * to be merged at the same time.
+ */
+public class BatchTimeshifter
+{
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    /** seconds to wait for the running files after an error of the merged output */
+    private static final long ABORT_TIMEOUT_SECONDS = 10;
+
+    private final ShiftPlan plan;
+    private final int       threads;
+    private final int       outBufferSize;
+    private final Writer    rejectWriter;
+
+    /**
+     * @param threads number of files shifted at the same time
+     * @param rejectWriter writer of the rows that can't be shifted of all
+     *            files; may be <code>null</code>
+     */
+    public BatchTimeshifter( final ShiftPlan plan, final int threads, final int outBufferSize,
+            final Writer rejectWriter )
+    {
+        this.plan = plan;
+        this.threads = Math.max( 1, threads );
+        this.outBufferSize = outBufferSize;
+        this.rejectWriter = rejectWriter;
+    }
+
+    /**
+     * Input file and the file to write its shifted rows to.
+     */
+    public static final class Job
+    {
+        private final Path input;
+        private final Path output;
+
+        /**
+         * @param output <code>null</code> to merge the shifted rows into the
+         *            output of the batch
+         */
+        public Job( final Path input, final Path output )
+        {
+            this.input = input;
+            this.output = output;
+        }
+
+        public Path getInput()
+        {
+            return input;
+        }
+
+        public Path getOutput()
+        {
+            return output;
+        }
+    }
+
+    /**
+     * Rows and time of a shifted file.
+     */
+    public static final class FileResult
+    {
+        private final Job       job;
+        private final long      rowsIn;
+        private final long      rowsOut;
+        private final long      rowsFailed;
+        private final long      nanos;
+        private final Exception error;
+
+        FileResult( final Job job, final TimeshifterMetrics metrics, final long nanos, final Exception error )
+        {
+            this.job = job;
+            this.rowsIn = metrics.getRowsIn();
+            this.rowsOut = metrics.getRowsOut();
+            this.rowsFailed = metrics.getRowsFailed();
+            this.nanos = nanos;
+            this.error = error;
+        }
+
+        public Job getJob()
+        {
+            return job;
+        }
+
+        public long getRowsIn()
+        {
+            return rowsIn;
+        }
+
+        public long getRowsOut()
+        {
+            return rowsOut;
+        }
+
+        public long getRowsFailed()
+        {
+            return rowsFailed;
+        }
+
+        public long getNanos()
+        {
+            return nanos;
+        }
+
+        /**
+         * @return error the file couldn't be processed by or
+         *         <code>null</code> if it was processed completely
+         */
+        public Exception getError()
+        {
+            return error;
+        }
+
+        /**
+         * @return line summarizing the result
+         */
+        public String toSummaryLine()
+        {
+            return String.format( Locale.ROOT, "%s: %d rows in, %d rows out, %d rows failed, %.3f s%s",
+                    job.getInput(), rowsIn, rowsOut, rowsFailed, nanos / 1e9,
+                    error == null ? "" : ", ERROR: " + error );
+        }
+    }
+
+    /**
+     * Shifts the input files of all jobs.
+     *
+     * @param mergedOut output of the jobs without output; may be
+     *            <code>null</code> if all jobs have an output
+     *
+     * @return results in the order of the jobs
+     */
+    public List<FileResult> shift( final List<Job> jobs, final BufferedChannelWriter mergedOut )
+        throws IOException
+    {
+        final boolean merging = jobs.stream().anyMatch( job -> job.getOutput() == null );
+        final Timeshifter mergedShifter = createShifter( null, TimeshifterMetrics.DISABLED );
+        final List<FileResult> results = new ArrayList<>( jobs.size() );
+        final Deque<Future<ShiftedFile>> pending = new ArrayDeque<>();
+        final AtomicBoolean abandoned = new AtomicBoolean();
+        final ExecutorService executor = Executors.newFixedThreadPool( threads, createThreadFactory() );
+        try
+        {
+            if( merging )
+            {
+                mergedShifter.writeHeader( mergedOut );
+            }
+            for( final Job job : jobs )
+            {
+                if( pending.size() >= maxPendingFiles() )
+                {
+                    results.add( complete( await( pending.removeFirst() ), mergedOut ) );
+                }
+                pending.addLast( executor.submit( () -> shiftFile( job, abandoned ) ) );
+            }
+            while( !pending.isEmpty() )
+            {
+                results.add( complete( await( pending.removeFirst() ), mergedOut ) );
+            }
+            if( merging )
+            {
+                mergedShifter.writeFooter( mergedOut );
+            }
+        }
+        finally
+        {
+            abandoned.set( true );
+            for( final Runnable notStarted : executor.shutdownNow() )
+            {
+                ( (Future<?>) notStarted ).cancel( false );
+            }
+            awaitTermination( executor );
+            for( final Future<ShiftedFile> future : pending )
+            {
+                deleteMergePart( future );
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Shifts one input file to its output or, if it is merged, to a temporary
+     * file without header and footer.
+     *
+     * @param abandoned set if the batch ended early; the temporary file is
+     *            deleted then as nobody merges it
+     */
+    private ShiftedFile shiftFile( final Job job, final AtomicBoolean abandoned )
+    {
+        final TimeshifterMetrics metrics = TimeshifterMetrics.countersOnly();
+        final long start = System.nanoTime();
+        Path mergePart = null;
+        Exception error = null;
+        try
+        {
+            if( job.getOutput() == null )
+            {
+                mergePart = createMergePart();
+            }
+
+            try (Reader in = createReader( job.getInput() );
+                    Writer out = createWriter( mergePart == null ? job.getOutput() : mergePart ))
+            {
+                final Timeshifter shifter = createShifter( job.getInput(), metrics );
+                if( mergePart == null )
+                {
+                    shifter.shiftCsv( in, out );
+                }
+                else
+                {
+                    shifter.shiftRows( in, out );
+                    shifter.reportRejects();
+                }
+            }
+        }
+        catch( final IOException | RuntimeException e )
+        {
+            error = e;
+        }
+        if( mergePart != null && abandoned.get() )
+        {
+            deleteQuietly( mergePart );
+        }
+
+        return new ShiftedFile( new FileResult( job, metrics, System.nanoTime() - start, error ), mergePart );
+    }
+
+    /**
+     * Creates the shifter of a file; rows that can't be shifted are logged
+     * with the name of the file.
+     */
+    protected Timeshifter createShifter( final Path input, final TimeshifterMetrics metrics )
+    {
+        return new Timeshifter( plan, metrics, rejectWriter )
+        {
+            @Override
+            protected void logError( final String msg )
+            {
+                super.logError( input + ": " + msg );
+            }
+        };
+    }
+
+    /**
+     * Creates the temporary file a merged file is shifted to.
+     */
+    protected Path createMergePart()
+        throws IOException
+    {
+        return Files.createTempFile( "timeshifter-", ".part" );
+    }
+
+    /**
+     * Decompresses files with the extension .gz and memory maps other files
+     * of the default file system; other file systems are read as stream.
+     */
+    protected Reader createReader( final Path path )
+        throws IOException
+    {
+        if( GzipStreams.isGzip( path ) )
+        {
+            return GzipStreams.newReader( Files.newInputStream( path ) );
+        }
+        if( path.getFileSystem() == FileSystems.getDefault() )
+        {
+            return new MappedFileReader( path );
+        }
+
+        return Files.newBufferedReader( path, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Creates the writer of an output file including missing parent
+     * directories; files with the extension .gz are compressed on a thread of
+     * their own.
+     */
+    protected BufferedChannelWriter createWriter( final Path path )
+        throws IOException
+    {
+        if( path.getParent() != null )
+        {
+            Files.createDirectories( path.getParent() );
+        }
+        if( GzipStreams.isGzip( path ) )
+        {
+            return new BufferedChannelWriter( new ParallelGzipOutputStream( Files.newOutputStream( path ), 1 ),
+                    StandardCharsets.UTF_8, outBufferSize );
+        }
+
+        return new BufferedChannelWriter( Files.newByteChannel( path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE ), StandardCharsets.UTF_8,
+                outBufferSize );
+    }
+
+    /**
+     * Appends a merged file to the output and deletes its temporary file.
+     */
+    private static FileResult complete( final ShiftedFile shifted, final BufferedChannelWriter mergedOut )
+        throws IOException
+    {
+        if( shifted.mergePart == null )
+        {
+            return shifted.result;
+        }
+
+        try
+        {
+            if( shifted.result.getError() == null )
+            {
+                try (FileChannel in = FileChannel.open( shifted.mergePart ))
+                {
+                    mergedOut.transferFrom( in );
+                }
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists( shifted.mergePart );
+        }
+
+        return shifted.result;
+    }
+
+    /**
+     * Waits a limited time for the files being shifted when the batch ends
+     * early; files still running afterwards delete their temporary file
+     * themselves.
+     */
+    private static void awaitTermination( final ExecutorService executor )
+    {
+        try
+        {
+            executor.awaitTermination( ABORT_TIMEOUT_SECONDS, TimeUnit.SECONDS );
+        }
+        catch( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Deletes the temporary file of a finished file not merged; cancelled or
+     * still running files have none to delete here.
+     */
+    private static void deleteMergePart( final Future<ShiftedFile> future )
+    {
+        if( !future.isDone() || future.isCancelled() )
+        {
+            return;
+        }
+
+        try
+        {
+            final Path mergePart = future.get().mergePart;
+            if( mergePart != null )
+            {
+                deleteQuietly( mergePart );
+            }
+        }
+        catch( final ExecutionException e )
+        {
+            // nothing to delete
+        }
+        catch( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void deleteQuietly( final Path path )
+    {
+        try
+        {
+            Files.deleteIfExists( path );
+        }
+        catch( final IOException e )
+        {
+            // left in the temporary directory
+        }
+    }
+
+    /**
+     * @return number of files being processed or waiting to be merged before
+     *         further files are submitted
+     */
+    private int maxPendingFiles()
+    {
+        return 2 * threads;
+    }
+
+    private static ShiftedFile await( final Future<ShiftedFile> future )
+    {
+        try
+        {
+            return future.get();
+        }
+        catch( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw TimeshifterException.interrupted( e );
+        }
+        catch( final ExecutionException e )
+        {
+            if( e.getCause() instanceof Error )
+            {
+                throw (Error) e.getCause();
+            }
+            throw TimeshifterException.errorProcessingInput( e.getCause() );
+        }
+    }
+
+    private static ThreadFactory createThreadFactory()
+    {
+        final int pool = POOL_COUNT.incrementAndGet();
+        final AtomicInteger threadCount = new AtomicInteger();
+
+        return runnable -> {
+            final Thread thread =
+                    new Thread( runnable, "timeshifter-batch-" + pool + "-worker-" + threadCount.incrementAndGet() );
+            thread.setDaemon( true );
+
+            return thread;
+        };
+    }
+
+    /**
+     * Result of a file and, if it is merged, the temporary file holding its
+     * rows.
+     */
+    private static final class ShiftedFile
+    {
+        private final FileResult result;
+        private final Path       mergePart;
+
+        ShiftedFile( final FileResult result, final Path mergePart )
+        {
+            this.result = result;
+            this.mergePart = mergePart;
+        }
+    }
+}
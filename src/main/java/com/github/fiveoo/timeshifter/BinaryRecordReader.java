@@ -0,0 +1,310 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Reads the records written by {@link BinaryRecordWriter} from memory mapped
+ * windows of the file.
+ *
+ * {@link #next()} moves to the next record; the getters return the values of
+ * the current record. A record is always mapped as a whole, so a window
+ * larger than the default is mapped for records exceeding it.
+ */
+public class BinaryRecordReader
+    implements
+        Closeable
+{
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final Path        path;
+    private final FileChannel channel;
+    private final long        size;
+    private final int         windowSize;
+    private final int[]       shiftedColumnIdxs;
+
+    private MappedByteBuffer window;
+    private long             windowStart;
+
+    /** file position of the next record */
+    private long position;
+
+    /** position of the current record in the window */
+    private int recordStart = -1;
+
+    /** positions of the length of each field of the current record */
+    private int[] fieldStarts = new int[16];
+    private int   fieldCount;
+
+    public BinaryRecordReader( final Path path )
+        throws IOException
+    {
+        this( path, DEFAULT_WINDOW_SIZE );
+    }
+
+    /**
+     * Reads the header.
+     *
+     * @throws TimeshifterException if the file was not written by
+     *             {@link BinaryRecordWriter}
+     */
+    public BinaryRecordReader( final Path path, final int windowSize )
+        throws IOException
+    {
+        this.path = path;
+        this.channel = FileChannel.open( path, StandardOpenOption.READ );
+        try
+        {
+            this.size = channel.size();
+            this.windowSize = Math.max( 16, windowSize );
+
+            final int headerLength = BinaryRecordWriter.MAGIC.length + 8;
+            final ByteBuffer header = map( 0, headerLength );
+            final byte[] magic = new byte[BinaryRecordWriter.MAGIC.length];
+            header.get( magic );
+            if( !Arrays.equals( magic, BinaryRecordWriter.MAGIC ) )
+            {
+                throw TimeshifterException.invalidBinaryFile( path, "magic bytes are missing" );
+            }
+            final int version = header.getInt();
+            if( version != BinaryRecordWriter.VERSION )
+            {
+                throw TimeshifterException.invalidBinaryFile( path, "version " + version + " is not supported" );
+            }
+            final int columns = header.getInt();
+            if( columns < 0 )
+            {
+                throw TimeshifterException.invalidBinaryFile( path, "number of columns is negative" );
+            }
+
+            final ByteBuffer idxs = map( headerLength, 4L * columns );
+            shiftedColumnIdxs = new int[columns];
+            for( int i = 0; i < columns; i++ )
+            {
+                shiftedColumnIdxs[i] = idxs.getInt();
+            }
+            position = headerLength + 4L * columns;
+        }
+        catch( final IOException | RuntimeException e )
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of shifted date/times of each record
+     */
+    public int getShiftedColumnCount()
+    {
+        return shiftedColumnIdxs.length;
+    }
+
+    /**
+     * @return index of the input field the shifted date/time with the given
+     *         index was read from
+     */
+    public int getShiftedColumnIdx( final int column )
+    {
+        return shiftedColumnIdxs[column];
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return <code>false</code> at the end of the file
+     *
+     * @throws TimeshifterException if the record is truncated or corrupt
+     */
+    public boolean next()
+        throws IOException
+    {
+        if( position == size )
+        {
+            recordStart = -1;
+
+            return false;
+        }
+
+        final int length = map( position, 4 ).getInt();
+        final int fixedLength = 4 + shiftedColumnIdxs.length * BinaryRecordWriter.SHIFTED_TIME_BYTES + 4;
+        if( length < fixedLength )
+        {
+            throw TimeshifterException.invalidBinaryFile( path, "record at " + position + " is too short" );
+        }
+        final ByteBuffer record = map( position, 4L + length );
+        recordStart = record.position();
+        final int end = recordStart + 4 + length;
+
+        int pos = recordStart + 4 + fixedLength;
+        fieldCount = record.getInt( pos - 4 );
+        if( fieldCount < 0 )
+        {
+            throw TimeshifterException.invalidBinaryFile( path, "record at " + position + " is corrupt" );
+        }
+        if( fieldStarts.length < fieldCount )
+        {
+            fieldStarts = new int[Math.max( fieldCount, 2 * fieldStarts.length )];
+        }
+        for( int i = 0; i < fieldCount; i++ )
+        {
+            if( pos + 4 > end )
+            {
+                throw TimeshifterException.invalidBinaryFile( path, "record at " + position + " is corrupt" );
+            }
+            fieldStarts[i] = pos;
+            pos += 4 + Math.max( 0, record.getInt( pos ) );
+        }
+        if( pos != end )
+        {
+            throw TimeshifterException.invalidBinaryFile( path, "record at " + position + " is corrupt" );
+        }
+        position += 4L + length;
+
+        return true;
+    }
+
+    /**
+     * @return offset of the shifted date/times in seconds
+     */
+    public int getOffsetSeconds()
+    {
+        return window.getInt( checkRecord() + 4 );
+    }
+
+    /**
+     * @return epoch second of the shifted date/time with the given index
+     */
+    public long getEpochSecond( final int column )
+    {
+        return window.getLong( shiftedTimeStart( column ) );
+    }
+
+    /**
+     * @return epoch second of the local shifted date/time with the given index
+     *         as if it was UTC
+     */
+    public long getLocalEpochSecond( final int column )
+    {
+        return window.getLong( shiftedTimeStart( column ) + 8 );
+    }
+
+    /**
+     * @return nano of second of the shifted date/time with the given index
+     */
+    public int getNano( final int column )
+    {
+        return window.getInt( shiftedTimeStart( column ) + 16 );
+    }
+
+    /**
+     * @return the shifted date/time with the given index
+     */
+    public OffsetDateTime getShiftedTime( final int column )
+    {
+        final ZoneOffset offset = ZoneOffset.ofTotalSeconds( getOffsetSeconds() );
+
+        return OffsetDateTime.of( LocalDateTime.ofEpochSecond( getEpochSecond( column ), getNano( column ), offset ),
+                offset );
+    }
+
+    /**
+     * @return number of input fields of the record
+     */
+    public int getFieldCount()
+    {
+        checkRecord();
+
+        return fieldCount;
+    }
+
+    /**
+     * @return the input field with the given index; <code>null</code> if it
+     *         was missing
+     */
+    public String getField( final int idx )
+    {
+        checkRecord();
+        if( idx < 0 || idx >= fieldCount )
+        {
+            throw new IndexOutOfBoundsException( "Field " + idx + " of " + fieldCount );
+        }
+
+        final int length = window.getInt( fieldStarts[idx] );
+        if( length < 0 )
+        {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        final ByteBuffer field = window.duplicate();
+        field.position( fieldStarts[idx] + 4 );
+        field.get( bytes );
+
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        channel.close();
+    }
+
+    private int shiftedTimeStart( final int column )
+    {
+        if( column < 0 || column >= shiftedColumnIdxs.length )
+        {
+            throw new IndexOutOfBoundsException( "Shifted column " + column + " of " + shiftedColumnIdxs.length );
+        }
+
+        return checkRecord() + 8 + column * BinaryRecordWriter.SHIFTED_TIME_BYTES;
+    }
+
+    private int checkRecord()
+    {
+        if( recordStart < 0 )
+        {
+            throw new IllegalStateException( "No current record" );
+        }
+
+        return recordStart;
+    }
+
+    /**
+     * Maps a window containing the given range of the file unless the current
+     * window contains it.
+     *
+     * @return the window positioned at the start of the range
+     */
+    private ByteBuffer map( final long start, final long length )
+        throws IOException
+    {
+        if( start + length > size )
+        {
+            throw TimeshifterException.invalidBinaryFile( path, "file ends within the record at " + start );
+        }
+        if( window == null || start < windowStart || start + length > windowStart + window.capacity() )
+        {
+            if( length > Integer.MAX_VALUE )
+            {
+                throw TimeshifterException.invalidBinaryFile( path, "record at " + start + " is too large" );
+            }
+            windowStart = start;
+            window = channel.map( FileChannel.MapMode.READ_ONLY, start,
+                    Math.min( size - start, Math.max( windowSize, length ) ) );
+        }
+        window.position( (int) ( start - windowStart ) );
+
+        return window;
+    }
+}
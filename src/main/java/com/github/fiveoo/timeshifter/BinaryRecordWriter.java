@@ -0,0 +1,241 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Writes shifted rows as binary records instead of text lines, so consumers
+ * get the shifted date/times as numbers without parsing text again; read by
+ * {@link BinaryRecordReader}.
+ *
+ * All numbers are big-endian. The output starts with a header describing the
+ * schema:
+ * <ul>
+ * <li>the magic bytes <code>TSHB</code> and the <code>int</code> version
+ * {@value #VERSION}</li>
+ * <li><code>int</code> number of shifted columns, followed by the
+ * <code>int</code> index of the input field of each</li>
+ * </ul>
+ * Each record consists of
+ * <ul>
+ * <li><code>int</code> number of bytes of the rest of the record</li>
+ * <li><code>int</code> offset of the shifted date/times in seconds</li>
+ * <li>for each shifted column the <code>long</code> epoch second of the
+ * shifted date/time, the <code>long</code> epoch second of its local
+ * date/time as if it was UTC and the <code>int</code> nano of second</li>
+ * <li><code>int</code> number of input fields, each given as <code>int</code>
+ * number of UTF-8 bytes followed by the bytes</li>
+ * </ul>
+ * The fixed width part of a record has the same layout in all records, so a
+ * consumer may map the file into memory and access the numbers directly.
+ */
+public class BinaryRecordWriter
+    implements
+        Flushable,
+        Closeable
+{
+    public static final int VERSION = 1;
+
+    static final byte[] MAGIC = { 'T', 'S', 'H', 'B' };
+
+    /** bytes of the shifted date/time of one column */
+    static final int SHIFTED_TIME_BYTES = 8 + 8 + 4;
+
+    private final OutputStream out;
+    private final int          bufferSize;
+    private final int          shiftedColumns;
+    private ByteBuffer         buffer;
+    private long               bytesWritten;
+
+    /**
+     * Writes the header.
+     *
+     * @param columns shifted columns in the order of the shifted date/times of
+     *            the records
+     * @param bufferSize number of bytes collected before they are written as
+     *            one block
+     */
+    public BinaryRecordWriter( final OutputStream out, final List<ShiftColumn> columns, final int bufferSize )
+    {
+        this.out = out;
+        this.bufferSize = bufferSize;
+        this.shiftedColumns = columns.size();
+        this.buffer = ByteBuffer.allocate( Math.max( bufferSize, 256 ) );
+
+        buffer.put( MAGIC ).putInt( VERSION ).putInt( columns.size() );
+        ensureRemaining( 4 * columns.size() );
+        for( final ShiftColumn column : columns )
+        {
+            buffer.putInt( column.getIdx() );
+        }
+    }
+
+    /**
+     * Appends the record of a shifted row.
+     *
+     * @param shiftedTimes shifted date/time of each column; all have the same
+     *            offset
+     */
+    public void write( final CsvRow fields, final OffsetDateTime[] shiftedTimes )
+        throws IOException
+    {
+        write( fields, ShiftedTimes.of( shiftedTimes ) );
+    }
+
+    /**
+     * Appends the record of a shifted row given by primitives.
+     */
+    void write( final CsvRow fields, final ShiftedTimes shiftedTimes )
+        throws IOException
+    {
+        if( shiftedTimes.size() != shiftedColumns )
+        {
+            throw new IllegalArgumentException(
+                    shiftedColumns + " shifted date/times expected but " + shiftedTimes.size() + " given" );
+        }
+
+        final int start = buffer.position();
+        try
+        {
+            ensureRemaining( 4 + 4 + shiftedColumns * SHIFTED_TIME_BYTES + 4 );
+            buffer.position( start + 4 );
+            final int offsetSeconds = shiftedTimes.getOffsetSeconds();
+            buffer.putInt( offsetSeconds );
+            for( int i = 0; i < shiftedColumns; i++ )
+            {
+                final long epochSecond = shiftedTimes.getEpochSecond( i );
+                buffer.putLong( epochSecond ).putLong( epochSecond + offsetSeconds )
+                        .putInt( shiftedTimes.getNano( i ) );
+            }
+
+            buffer.putInt( fields.size() );
+            for( int i = 0; i < fields.size(); i++ )
+            {
+                putField( fields.get( i ) );
+            }
+            buffer.putInt( start, buffer.position() - start - 4 );
+        }
+        catch( final RuntimeException e )
+        {
+            buffer.position( start );
+            throw e;
+        }
+
+        if( buffer.position() >= bufferSize )
+        {
+            writeBuffer();
+        }
+    }
+
+    /**
+     * @return number of bytes written to the stream so far
+     */
+    public long getBytesWritten()
+    {
+        return bytesWritten;
+    }
+
+    @Override
+    public void flush()
+        throws IOException
+    {
+        writeBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        try
+        {
+            writeBuffer();
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Puts the length and the UTF-8 bytes of the field; a length of -1 denotes
+     * a missing field. Unpaired surrogates are replaced by <code>?</code> like
+     * {@link String#getBytes(java.nio.charset.Charset)} does.
+     */
+    private void putField( final CharSequence value )
+    {
+        if( value == null )
+        {
+            ensureRemaining( 4 );
+            buffer.putInt( -1 );
+            return;
+        }
+
+        final int length = value.length();
+        ensureRemaining( 4 + 3 * length );
+        final int lengthPos = buffer.position();
+        buffer.position( lengthPos + 4 );
+        for( int i = 0; i < length; i++ )
+        {
+            final char c = value.charAt( i );
+            if( c < 0x80 )
+            {
+                buffer.put( (byte) c );
+            }
+            else if( c < 0x800 )
+            {
+                buffer.put( (byte) ( 0xc0 | c >> 6 ) ).put( (byte) ( 0x80 | c & 0x3f ) );
+            }
+            else if( Character.isHighSurrogate( c ) && i + 1 < length
+                    && Character.isLowSurrogate( value.charAt( i + 1 ) ) )
+            {
+                final int codePoint = Character.toCodePoint( c, value.charAt( ++i ) );
+                buffer.put( (byte) ( 0xf0 | codePoint >> 18 ) ).put( (byte) ( 0x80 | codePoint >> 12 & 0x3f ) )
+                        .put( (byte) ( 0x80 | codePoint >> 6 & 0x3f ) ).put( (byte) ( 0x80 | codePoint & 0x3f ) );
+            }
+            else if( Character.isSurrogate( c ) )
+            {
+                buffer.put( (byte) '?' );
+            }
+            else
+            {
+                buffer.put( (byte) ( 0xe0 | c >> 12 ) ).put( (byte) ( 0x80 | c >> 6 & 0x3f ) )
+                        .put( (byte) ( 0x80 | c & 0x3f ) );
+            }
+        }
+        buffer.putInt( lengthPos, buffer.position() - lengthPos - 4 );
+    }
+
+    /**
+     * Grows the buffer if less than the given number of bytes are remaining;
+     * the record being written stays in the buffer.
+     */
+    private void ensureRemaining( final int bytes )
+    {
+        if( buffer.remaining() < bytes )
+        {
+            final ByteBuffer grown =
+                    ByteBuffer.allocate( Math.max( 2 * buffer.capacity(), buffer.position() + bytes ) );
+            buffer.flip();
+            grown.put( buffer );
+            buffer = grown;
+        }
+    }
+
+    private void writeBuffer()
+        throws IOException
+    {
+        out.write( buffer.array(), 0, buffer.position() );
+        bytesWritten += buffer.position();
+        buffer.clear();
+        if( buffer.capacity() > 2 * Math.max( bufferSize, 256 ) )
+        {
+            buffer = ByteBuffer.allocate( Math.max( bufferSize, 256 ) );
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writer collecting the output in a large char buffer; a full buffer is
+ * encoded in one go and written to the channel as one block.
+ *
+ * Everything written is passed to the channel by {@link #flush()} or
+ * {@link #close()} at the latest. If the channel fails, the exception is
+ * thrown by the call that caused the block to be written; the chars not
+ * written by then are lost and the writer must not be used any longer except
+ * for closing it. {@link #close()} closes the channel in any case.
+ *
+ * Unmappable or malformed characters are replaced like
+ * {@link java.io.OutputStreamWriter} does.
+ */
+public class BufferedChannelWriter
+    extends
+        Writer
+{
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int MIN_BUFFER_SIZE = 16;
+
+    private final WritableByteChannel channel;
+    private final OutputStream        stream;
+    private final CharsetEncoder      encoder;
+    private final CharBuffer          chars;
+    private final ByteBuffer          bytes;
+    private boolean                   closed;
+    private long                      bytesWritten;
+
+    public BufferedChannelWriter( final WritableByteChannel channel )
+    {
+        this( channel, StandardCharsets.UTF_8, DEFAULT_BUFFER_SIZE );
+    }
+
+    /**
+     * @param bufferSize size of the buffer in chars
+     */
+    public BufferedChannelWriter( final WritableByteChannel channel, final Charset charset, final int bufferSize )
+    {
+        this( channel, null, charset, bufferSize );
+    }
+
+    /**
+     * Creates a writer for the given stream (e.g. stdout) which is flushed
+     * after each block.
+     */
+    public BufferedChannelWriter( final OutputStream stream, final Charset charset, final int bufferSize )
+    {
+        this( Channels.newChannel( stream ), stream, charset, bufferSize );
+    }
+
+    private BufferedChannelWriter( final WritableByteChannel channel, final OutputStream stream,
+            final Charset charset, final int bufferSize )
+    {
+        this.channel = channel;
+        this.stream = stream;
+        this.encoder = charset.newEncoder().onMalformedInput( CodingErrorAction.REPLACE )
+                .onUnmappableCharacter( CodingErrorAction.REPLACE );
+
+        final int size = Math.max( MIN_BUFFER_SIZE, bufferSize );
+        this.chars = CharBuffer.allocate( size );
+        this.bytes = ByteBuffer.allocate( (int) Math.ceil( size * (double) encoder.maxBytesPerChar() ) );
+    }
+
+    @Override
+    public void write( final int c )
+        throws IOException
+    {
+        ensureOpen();
+        if( !chars.hasRemaining() )
+        {
+            writeBlock( false );
+        }
+        chars.put( (char) c );
+    }
+
+    @Override
+    public void write( final char[] cbuf, final int off, final int len )
+        throws IOException
+    {
+        ensureOpen();
+        int pos = off;
+        final int end = off + len;
+        while( pos < end )
+        {
+            if( !chars.hasRemaining() )
+            {
+                writeBlock( false );
+            }
+            final int count = Math.min( end - pos, chars.remaining() );
+            chars.put( cbuf, pos, count );
+            pos += count;
+        }
+    }
+
+    @Override
+    public void write( final String str, final int off, final int len )
+        throws IOException
+    {
+        append( str, off, off + len );
+    }
+
+    @Override
+    public Writer append( final CharSequence csq )
+        throws IOException
+    {
+        final CharSequence value = csq == null ? "null" : csq;
+
+        return append( value, 0, value.length() );
+    }
+
+    /**
+     * Copies the chars directly into the buffer; strings and string builders
+     * are not copied to an intermediate string before.
+     */
+    @Override
+    public Writer append( final CharSequence csq, final int start, final int end )
+        throws IOException
+    {
+        ensureOpen();
+        final CharSequence value = csq == null ? "null" : csq;
+        int pos = start;
+        while( pos < end )
+        {
+            if( !chars.hasRemaining() )
+            {
+                writeBlock( false );
+            }
+            final int count = Math.min( end - pos, chars.remaining() );
+            final int offset = chars.arrayOffset() + chars.position();
+            if( value instanceof String )
+            {
+                ( (String) value ).getChars( pos, pos + count, chars.array(), offset );
+            }
+            else if( value instanceof StringBuilder )
+            {
+                ( (StringBuilder) value ).getChars( pos, pos + count, chars.array(), offset );
+            }
+            else
+            {
+                for( int i = 0; i < count; i++ )
+                {
+                    chars.array()[offset + i] = value.charAt( pos + i );
+                }
+            }
+            chars.position( chars.position() + count );
+            pos += count;
+        }
+
+        return this;
+    }
+
+    @Override
+    public void flush()
+        throws IOException
+    {
+        ensureOpen();
+        writeBlock( false );
+        if( stream != null )
+        {
+            stream.flush();
+        }
+    }
+
+    /**
+     * Writes the remaining chars and closes the channel, even if writing
+     * fails.
+     */
+    @Override
+    public void close()
+        throws IOException
+    {
+        if( closed )
+        {
+            return;
+        }
+
+        try
+        {
+            writeBlock( true );
+            if( stream != null )
+            {
+                stream.flush();
+            }
+        }
+        finally
+        {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    /**
+     * Encodes the buffered chars and writes them to the channel. A high
+     * surrogate at the end is kept for the next block unless this is the
+     * last one.
+     */
+    private void writeBlock( final boolean last )
+        throws IOException
+    {
+        chars.flip();
+        try
+        {
+            CoderResult result;
+            do
+            {
+                result = encoder.encode( chars, bytes, last );
+                if( last && result.isUnderflow() )
+                {
+                    result = encoder.flush( bytes );
+                }
+                writeBytes();
+            }
+            while( result.isOverflow() );
+        }
+        finally
+        {
+            chars.compact();
+        }
+        if( last )
+        {
+            encoder.reset();
+        }
+    }
+
+    /**
+     * Writes the buffered chars followed by all bytes of the given channel,
+     * which have to be encoded by the charset of this writer already (e.g.
+     * the output of another writer).
+     */
+    public void transferFrom( final ReadableByteChannel in )
+        throws IOException
+    {
+        ensureOpen();
+        writeBlock( false );
+        while( in.read( bytes ) >= 0 )
+        {
+            writeBytes();
+        }
+    }
+
+    /**
+     * @return number of bytes written to the channel so far
+     */
+    public long getBytesWritten()
+    {
+        return bytesWritten;
+    }
+
+    private void writeBytes()
+        throws IOException
+    {
+        bytes.flip();
+        bytesWritten += bytes.remaining();
+        while( bytes.hasRemaining() )
+        {
+            channel.write( bytes );
+        }
+        bytes.clear();
+    }
+
+    private void ensureOpen()
+        throws IOException
+    {
+        if( closed )
+        {
+            throw new IOException( "Stream closed" );
+        }
+    }
+}
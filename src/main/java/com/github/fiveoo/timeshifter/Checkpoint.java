@@ -0,0 +1,146 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Progress of a run committed to the output: the input up to
+ * {@link #getInputOffset()} is shifted and written to the output up to
+ * {@link #getOutputLength()}; the rows rejected so far are written to the
+ * reject file up to {@link #getRejectLength()}.
+ *
+ * It is stored as properties file next to the output; a new checkpoint
+ * replaces the previous one atomically.
+ */
+public final class Checkpoint
+{
+    private static final String INPUT         = "input";
+    private static final String INPUT_OFFSET  = "inputOffset";
+    private static final String ROWS          = "rows";
+    private static final String OUTPUT_LENGTH = "outputLength";
+    private static final String REJECT_LENGTH = "rejectLength";
+
+    private final String input;
+    private final long   inputOffset;
+    private final long   rows;
+    private final long   outputLength;
+    private final long   rejectLength;
+
+    public Checkpoint( final String input, final long inputOffset, final long rows, final long outputLength )
+    {
+        this( input, inputOffset, rows, outputLength, 0 );
+    }
+
+    /**
+     * @param input absolute path of the input file
+     * @param inputOffset byte position of the first row not shifted yet in
+     *            the (uncompressed) input
+     * @param rows number of rows read up to the input offset
+     * @param outputLength number of bytes written to the output
+     * @param rejectLength number of bytes written to the reject file; 0 if
+     *            there is none
+     */
+    public Checkpoint( final String input, final long inputOffset, final long rows, final long outputLength,
+            final long rejectLength )
+    {
+        this.input = input;
+        this.inputOffset = inputOffset;
+        this.rows = rows;
+        this.outputLength = outputLength;
+        this.rejectLength = rejectLength;
+    }
+
+    public String getInput()
+    {
+        return input;
+    }
+
+    public long getInputOffset()
+    {
+        return inputOffset;
+    }
+
+    public long getRows()
+    {
+        return rows;
+    }
+
+    public long getOutputLength()
+    {
+        return outputLength;
+    }
+
+    public long getRejectLength()
+    {
+        return rejectLength;
+    }
+
+    /**
+     * @return checkpoint stored in the given file or <code>null</code> if
+     *         there is none
+     *
+     * @throws TimeshifterException if the file is no checkpoint
+     */
+    public static Checkpoint read( final Path file )
+        throws IOException
+    {
+        final Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader( file, StandardCharsets.UTF_8 ))
+        {
+            properties.load( in );
+        }
+        catch( final NoSuchFileException e )
+        {
+            return null;
+        }
+
+        try
+        {
+            return new Checkpoint( properties.getProperty( INPUT ),
+                    Long.parseLong( properties.getProperty( INPUT_OFFSET ) ),
+                    Long.parseLong( properties.getProperty( ROWS ) ),
+                    Long.parseLong( properties.getProperty( OUTPUT_LENGTH ) ),
+                    Long.parseLong( properties.getProperty( REJECT_LENGTH, "0" ) ) );
+        }
+        catch( final NumberFormatException e )
+        {
+            throw TimeshifterException.invalidCheckpoint( file, e );
+        }
+    }
+
+    /**
+     * Stores the checkpoint in the given file by writing a temporary file and
+     * moving it over the file.
+     */
+    public void write( final Path file )
+        throws IOException
+    {
+        final Properties properties = new Properties();
+        properties.setProperty( INPUT, input );
+        properties.setProperty( INPUT_OFFSET, Long.toString( inputOffset ) );
+        properties.setProperty( ROWS, Long.toString( rows ) );
+        properties.setProperty( OUTPUT_LENGTH, Long.toString( outputLength ) );
+        properties.setProperty( REJECT_LENGTH, Long.toString( rejectLength ) );
+
+        final Path tempFile = file.resolveSibling( file.getFileName() + ".tmp" );
+        try (Writer out = Files.newBufferedWriter( tempFile, StandardCharsets.UTF_8 ))
+        {
+            properties.store( out, "timeshifter checkpoint" );
+        }
+        Files.move( tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    }
+
+    @Override
+    public String toString()
+    {
+        return input + " at byte " + inputOffset + " (row " + rows + "), output at byte " + outputLength
+                + ( rejectLength > 0 ? ", rejects at byte " + rejectLength : "" );
+    }
+}
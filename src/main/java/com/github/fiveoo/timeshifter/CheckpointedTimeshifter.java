@@ -0,0 +1,231 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shifts an input file to an output file recording {@link Checkpoint}s, so a
+ * run that is aborted can be continued where it stopped.
+ *
+ * A checkpoint is taken after a row once the interval elapsed: the output is
+ * flushed and forced to the storage, then the byte position of the next row
+ * in the input and the length of the output are stored. Resuming truncates
+ * the output to the stored length and continues reading at the stored input
+ * position, so rows written after the checkpoint are neither duplicated nor
+ * lost. The reject file, if any, is flushed and truncated the same way; it
+ * has to be opened for appending when resuming. The header and the lines to skip are part of the output and input
+ * before the checkpoint already. The checkpoint is deleted when the run is
+ * finished.
+ *
+ * The input has to be UTF-8 and may be GZIP compressed; its position is the
+ * position in the uncompressed data.
+ */
+public class CheckpointedTimeshifter
+{
+    public static final long DEFAULT_INTERVAL_SECONDS = 60;
+
+    /** rows between checks whether a checkpoint is due */
+    private static final int CHECK_ROWS = 4096;
+
+    private final Timeshifter shifter;
+    private final Path        checkpointFile;
+    private final long        intervalNanos;
+    private final int         outBufferSize;
+    private final Path        rejectFile;
+
+    public CheckpointedTimeshifter( final Timeshifter shifter, final Path checkpointFile, final long intervalSeconds,
+            final int outBufferSize )
+    {
+        this( shifter, checkpointFile, intervalSeconds, outBufferSize, null );
+    }
+
+    /**
+     * @param checkpointFile file the checkpoints are stored in
+     * @param intervalSeconds minimal time between two checkpoints
+     * @param rejectFile file the reject writer of the shifter writes to;
+     *            <code>null</code> if there is none
+     */
+    public CheckpointedTimeshifter( final Timeshifter shifter, final Path checkpointFile, final long intervalSeconds,
+            final int outBufferSize, final Path rejectFile )
+    {
+        this.shifter = shifter;
+        this.checkpointFile = checkpointFile;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos( intervalSeconds );
+        this.outBufferSize = outBufferSize;
+        this.rejectFile = rejectFile;
+    }
+
+    /**
+     * Shifts the input file to the output file.
+     *
+     * @param gzipInput <code>true</code> if the input is GZIP compressed
+     *            regardless of its name
+     * @param resume <code>true</code> to continue at the checkpoint of an
+     *            aborted run; without checkpoint the run starts at the
+     *            beginning
+     *
+     * @return the checkpoint the run continued at or <code>null</code> if it
+     *         started at the beginning
+     *
+     * @throws TimeshifterException if the checkpoint was recorded for another
+     *             input
+     */
+    public Checkpoint shiftFile( final Path input, final boolean gzipInput, final Path output, final boolean resume )
+        throws IOException
+    {
+        final String inputName = input.toAbsolutePath().toString();
+        final Checkpoint start = resume ? Checkpoint.read( checkpointFile ) : null;
+        if( start != null && !inputName.equals( start.getInput() ) )
+        {
+            throw TimeshifterException.checkpointMismatch( checkpointFile, input );
+        }
+        final long inputStart = start == null ? 0 : start.getInputOffset();
+        final long outputStart = start == null ? 0 : start.getOutputLength();
+        truncateRejects( start == null ? 0 : start.getRejectLength() );
+
+        final FileChannel outChannel = FileChannel.open( output, StandardOpenOption.CREATE, StandardOpenOption.WRITE );
+        try (BufferedChannelWriter out = new BufferedChannelWriter( outChannel, StandardCharsets.UTF_8,
+                outBufferSize ); CsvTokenizer tokenizer = createTokenizer( input, gzipInput, inputStart ))
+        {
+            outChannel.truncate( outputStart ).position( outputStart );
+            tokenizer.countBytes();
+            if( start == null )
+            {
+                shifter.writeHeader( out );
+            }
+
+            final StringBuilder line = new StringBuilder( 256 );
+            long rows = start == null ? 0 : start.getRows();
+            long nextCheckpoint = System.nanoTime() + intervalNanos;
+            while( shifter.next( tokenizer ) )
+            {
+                rows++;
+                line.setLength( 0 );
+                if( shifter.appendLine( tokenizer, line ) )
+                {
+                    shifter.write( line, out );
+                }
+
+                if( rows % CHECK_ROWS == 0 && System.nanoTime() - nextCheckpoint >= 0 )
+                {
+                    out.flush();
+                    outChannel.force( false );
+                    new Checkpoint( inputName, inputStart + tokenizer.getBytePosition(), rows,
+                            outputStart + out.getBytesWritten(), flushRejects() ).write( checkpointFile );
+                    nextCheckpoint = System.nanoTime() + intervalNanos;
+                }
+            }
+
+            shifter.writeFooter( out );
+            shifter.reportRejects();
+        }
+        Files.deleteIfExists( checkpointFile );
+
+        return start;
+    }
+
+    /**
+     * Drops the rejects written after the checkpoint.
+     */
+    private void truncateRejects( final long length )
+        throws IOException
+    {
+        if( rejectFile == null || !Files.exists( rejectFile ) )
+        {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open( rejectFile, StandardOpenOption.WRITE ))
+        {
+            if( channel.size() > length )
+            {
+                channel.truncate( length );
+            }
+        }
+    }
+
+    /**
+     * Writes the rejects to the storage.
+     *
+     * @return length of the reject file
+     */
+    private long flushRejects()
+        throws IOException
+    {
+        shifter.getRejectedRows().flush();
+        if( rejectFile == null )
+        {
+            return 0;
+        }
+
+        try (FileChannel channel = FileChannel.open( rejectFile, StandardOpenOption.WRITE ))
+        {
+            channel.force( false );
+
+            return channel.size();
+        }
+    }
+
+    /**
+     * Creates the tokenizer reading the input from the given byte position;
+     * the lines to skip are only skipped at the beginning.
+     */
+    private CsvTokenizer createTokenizer( final Path input, final boolean gzipInput, final long position )
+        throws IOException
+    {
+        if( !gzipInput && !GzipStreams.isGzip( input ) && input.getFileSystem() == FileSystems.getDefault() )
+        {
+            final MappedFileReader reader = new MappedFileReader( input );
+            reader.seek( position );
+
+            return position == 0 ? shifter.createTokenizer( reader ) : new CsvTokenizer( reader );
+        }
+
+        final InputStream file = Files.newInputStream( input );
+        final InputStream in = gzipInput || GzipStreams.isGzip( input ) ? GzipStreams.newInputStream( file ) : file;
+        try
+        {
+            skip( in, position );
+        }
+        catch( final IOException e )
+        {
+            in.close();
+            throw e;
+        }
+        final Reader reader = new InputStreamReader( in, StandardCharsets.UTF_8 );
+
+        return position == 0 ? shifter.createTokenizer( reader ) : new CsvTokenizer( reader );
+    }
+
+    private static void skip( final InputStream in, final long bytes )
+        throws IOException
+    {
+        long remaining = bytes;
+        while( remaining > 0 )
+        {
+            final long skipped = in.skip( remaining );
+            if( skipped > 0 )
+            {
+                remaining -= skipped;
+            }
+            else if( in.read() >= 0 )
+            {
+                remaining--;
+            }
+            else
+            {
+                throw new EOFException( "Input ends before the checkpoint" );
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.fiveoo.timeshifter;
+
+import java.time.DateTimeException;
+
+/**
+ * Allocation free conversions between ISO calendar fields and epoch values.
+ *
+ * The calculations are the same as the ones of {@link java.time.LocalDate}
+ * without creating any objects. A timestamp is given by its epoch second,
+ * nano of second and offset in seconds; its local date/time is given by the
+ * local epoch second, i.e. the epoch second of the local date/time as if it
+ * was UTC.
+ */
+public final class CivilTime
+{
+    public static final int SECONDS_PER_MINUTE = 60;
+    public static final int SECONDS_PER_HOUR   = 60 * SECONDS_PER_MINUTE;
+    public static final int SECONDS_PER_DAY    = 24 * SECONDS_PER_HOUR;
+
+    /** maximal offset in seconds like supported by {@link java.time.ZoneOffset} */
+    public static final int MAX_OFFSET_SECONDS = 18 * SECONDS_PER_HOUR;
+
+    private static final int  DAYS_PER_CYCLE    = 146097;
+    private static final long DAYS_0000_TO_1970 = ( DAYS_PER_CYCLE * 5L ) - ( 30L * 365L + 7L );
+
+    private CivilTime()
+    {
+    }
+
+    public static boolean isLeapYear( final long year )
+    {
+        return ( year & 3 ) == 0 && ( year % 100 != 0 || year % 400 == 0 );
+    }
+
+    public static int lengthOfMonth( final long year, final int month )
+    {
+        switch( month )
+        {
+            case 2:
+                return isLeapYear( year ) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * @see java.time.LocalDate#toEpochDay()
+     */
+    public static long toEpochDay( final long year, final int month, final int dayOfMonth )
+    {
+        long total = 365 * year;
+        if( year >= 0 )
+        {
+            total += ( year + 3 ) / 4 - ( year + 99 ) / 100 + ( year + 399 ) / 400;
+        }
+        else
+        {
+            total -= year / -4 - year / -100 + year / -400;
+        }
+        total += ( 367 * month - 362 ) / 12;
+        total += dayOfMonth - 1;
+        if( month > 2 )
+        {
+            total--;
+            if( !isLeapYear( year ) )
+            {
+                total--;
+            }
+        }
+
+        return total - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Converts an epoch day into year, month and day-of-month.
+     *
+     * @return <code>year * 10000 + month * 100 + dayOfMonth</code>
+     *
+     * @see java.time.LocalDate#ofEpochDay(long)
+     */
+    public static long toYearMonthDay( final long epochDay )
+    {
+        long zeroDay = epochDay + DAYS_0000_TO_1970 - 60;
+        long adjust = 0;
+        if( zeroDay < 0 )
+        {
+            final long adjustCycles = ( zeroDay + 1 ) / DAYS_PER_CYCLE - 1;
+            adjust = adjustCycles * 400;
+            zeroDay += -adjustCycles * DAYS_PER_CYCLE;
+        }
+        long yearEst = ( 400 * zeroDay + 591 ) / DAYS_PER_CYCLE;
+        long doyEst = zeroDay - ( 365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400 );
+        if( doyEst < 0 )
+        {
+            yearEst--;
+            doyEst = zeroDay - ( 365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400 );
+        }
+        yearEst += adjust;
+
+        final int marchDoy0 = (int) doyEst;
+        final int marchMonth0 = ( marchDoy0 * 5 + 2 ) / 153;
+        final int month = ( marchMonth0 + 2 ) % 12 + 1;
+        final int dayOfMonth = marchDoy0 - ( marchMonth0 * 306 + 5 ) / 10 + 1;
+        yearEst += marchMonth0 / 10;
+
+        return yearEst * 10000 + month * 100 + dayOfMonth;
+    }
+
+    public static long toEpochSecond( final long epochDay, final int hour, final int minute, final int second )
+    {
+        return epochDay * SECONDS_PER_DAY + hour * SECONDS_PER_HOUR + minute * SECONDS_PER_MINUTE + second;
+    }
+
+    /**
+     * @return local epoch second of the given instant in the given offset
+     *
+     * @throws DateTimeException if the offset is out of range
+     */
+    public static long toLocalEpochSecond( final long epochSecond, final int offsetSeconds )
+    {
+        if( offsetSeconds < -MAX_OFFSET_SECONDS || offsetSeconds > MAX_OFFSET_SECONDS )
+        {
+            throw new DateTimeException( "Zone offset not in valid range: " + offsetSeconds + " seconds" );
+        }
+
+        return epochSecond + offsetSeconds;
+    }
+
+    /**
+     * @return epoch day of the given local epoch second
+     */
+    public static long toEpochDay( final long localEpochSecond )
+    {
+        return Math.floorDiv( localEpochSecond, SECONDS_PER_DAY );
+    }
+
+    /**
+     * @return second of day of the given local epoch second
+     */
+    public static int toSecondOfDay( final long localEpochSecond )
+    {
+        return (int) Math.floorMod( localEpochSecond, SECONDS_PER_DAY );
+    }
+}
@@ -0,0 +1,178 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Splits a UTF-8 CSV file into chunks of complete records by scanning the
+ * memory mapped bytes, without decoding them.
+ *
+ * Quotes, escapes, separators and line breaks are ASCII and never part of a
+ * multi-byte UTF-8 sequence, so the bytes are scanned by the same rules
+ * {@link CsvTokenizer} splits records by; a line break within a quoted field
+ * doesn't end a record. Each chunk can then be read on its own by a
+ * {@link MappedFileReader} limited to its byte range.
+ */
+final class CsvRecordSplitter
+{
+    private static final byte SEPARATOR = ',';
+    private static final byte QUOTE     = '"';
+    private static final byte ESCAPE    = '\\';
+
+    private final FileChannel channel;
+    private final long        size;
+    private final int         windowSize;
+
+    private MappedByteBuffer window;
+    private long             windowStart;
+
+    private CsvRecordSplitter( final FileChannel channel, final int windowSize )
+        throws IOException
+    {
+        this.channel = channel;
+        this.size = channel.size();
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Returns the byte positions the chunks start at, followed by the size of
+     * the file; chunks are at least <code>chunkSize</code> bytes except the
+     * last one.
+     *
+     * @param linesToSkip physical lines at the beginning of the file that are
+     *            not part of the first chunk
+     */
+    static long[] split( final Path path, final int linesToSkip, final long chunkSize )
+        throws IOException
+    {
+        return split( path, linesToSkip, chunkSize, MappedFileReader.DEFAULT_WINDOW_SIZE );
+    }
+
+    static long[] split( final Path path, final int linesToSkip, final long chunkSize, final int windowSize )
+        throws IOException
+    {
+        try (final FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ))
+        {
+            return new CsvRecordSplitter( channel, Math.max( 16, windowSize ) ).split( linesToSkip,
+                    Math.max( 1, chunkSize ) );
+        }
+    }
+
+    private long[] split( final int linesToSkip, final long chunkSize )
+        throws IOException
+    {
+        long[] bounds = new long[16];
+        int count = 0;
+
+        long pos = 0;
+        for( int i = 0; i < linesToSkip && pos < size; i++ )
+        {
+            pos = skipLine( pos );
+        }
+        bounds[count++] = pos;
+
+        long chunkStart = pos;
+        boolean inQuotes = false;
+        boolean inField = false;
+        while( pos < size )
+        {
+            final byte b = byteAt( pos++ );
+            if( b == '\n' || b == '\r' )
+            {
+                if( b == '\r' && pos < size && byteAt( pos ) == '\n' )
+                {
+                    pos++;
+                }
+                if( !inQuotes )
+                {
+                    inField = false;
+                    if( pos - chunkStart >= chunkSize && pos < size )
+                    {
+                        if( count == bounds.length )
+                        {
+                            bounds = Arrays.copyOf( bounds, 2 * count );
+                        }
+                        bounds[count++] = pos;
+                        chunkStart = pos;
+                    }
+                }
+            }
+            else if( b == ESCAPE )
+            {
+                if( ( inQuotes || inField ) && pos < size && ( byteAt( pos ) == QUOTE || byteAt( pos ) == ESCAPE ) )
+                {
+                    pos++;
+                }
+            }
+            else if( b == QUOTE )
+            {
+                if( ( inQuotes || inField ) && pos < size && byteAt( pos ) == QUOTE )
+                {
+                    pos++;
+                }
+                else
+                {
+                    inQuotes = !inQuotes;
+                }
+                inField = !inField;
+            }
+            else if( b == SEPARATOR && !inQuotes )
+            {
+                inField = false;
+            }
+            else
+            {
+                inField = true;
+            }
+        }
+
+        final long[] result = Arrays.copyOf( bounds, count + 1 );
+        result[count] = size;
+
+        return result;
+    }
+
+    /**
+     * @return position after the line break of the line starting at the
+     *         given position
+     */
+    private long skipLine( final long start )
+        throws IOException
+    {
+        long pos = start;
+        while( pos < size )
+        {
+            final byte b = byteAt( pos++ );
+            if( b == '\n' )
+            {
+                break;
+            }
+            if( b == '\r' )
+            {
+                if( pos < size && byteAt( pos ) == '\n' )
+                {
+                    pos++;
+                }
+                break;
+            }
+        }
+
+        return pos;
+    }
+
+    private byte byteAt( final long pos )
+        throws IOException
+    {
+        if( window == null || pos < windowStart || pos >= windowStart + window.limit() )
+        {
+            windowStart = pos;
+            window = channel.map( FileChannel.MapMode.READ_ONLY, pos, Math.min( windowSize, size - pos ) );
+        }
+
+        return window.get( (int) ( pos - windowStart ) );
+    }
+}
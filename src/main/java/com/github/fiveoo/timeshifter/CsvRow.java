@@ -0,0 +1,58 @@
+package com.github.fiveoo.timeshifter;
+
+/**
+ * Fields of a CSV row.
+ *
+ * A row may be a view that is reused for the next row (see
+ * {@link CsvTokenizer}); its fields are only valid until then.
+ */
+public interface CsvRow
+{
+    int size();
+
+    CharSequence get( int idx );
+
+    /**
+     * Appends the field with the given index to <code>out</code>.
+     */
+    default void appendTo( final int idx, final StringBuilder out )
+    {
+        out.append( get( idx ) );
+    }
+
+    /**
+     * @return the fields joined by <code>,</code> (without quoting)
+     */
+    default String join()
+    {
+        final StringBuilder b = new StringBuilder( 128 );
+        for( int i = 0; i < size(); i++ )
+        {
+            if( i > 0 )
+            {
+                b.append( ',' );
+            }
+            appendTo( i, b );
+        }
+
+        return b.toString();
+    }
+
+    static CsvRow of( final String... values )
+    {
+        return new CsvRow()
+        {
+            @Override
+            public int size()
+            {
+                return values.length;
+            }
+
+            @Override
+            public CharSequence get( final int idx )
+            {
+                return values[idx];
+            }
+        };
+    }
+}
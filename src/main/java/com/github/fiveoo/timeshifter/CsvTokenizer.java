@@ -0,0 +1,481 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads CSV records exposing the fields as {@link CharSequence} views over a
+ * reused buffer; no object is created per row or field unless a field is
+ * explicitly converted to a {@link String}.
+ *
+ * Fields are split exactly like the opencsv <code>CSVReader</code> does with
+ * its default parser settings (separator <code>,</code>, quote
+ * <code>"</code>, escape <code>\</code>, leading white space before a quote
+ * within a field ignored): quoted fields may contain line breaks, which are
+ * returned as <code>\n</code>; <code>""</code> and <code>\"</code> within a
+ * field are a quote, <code>\\</code> is a backslash and any other backslash
+ * is dropped. The lines to skip are physical lines.
+ *
+ * The tokenizer itself is the row view of the current record.
+ */
+public class CsvTokenizer
+    implements
+        CsvRow,
+        Closeable
+{
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE     = '"';
+    private static final char ESCAPE    = '\\';
+
+    private final Reader in;
+    private int          linesToSkip;
+
+    private char[]  buffer = new char[8192];
+    private int     pos;
+    private int     limit;
+    private int     lineStart;
+    private int     lineEnd;
+    private boolean endOfInput;
+    private boolean skipLineFeed;
+
+    /** UTF-8 length of the input before the buffer; -1 if not counted */
+    private long bytesBeforeBuffer = -1;
+
+    /** unescaped content of all fields of the current record */
+    private char[]      chars     = new char[256];
+    private int         length;
+    private int         fieldStart;
+    private int[]       fieldEnds = new int[16];
+    private int         count;
+    private FieldView[] views     = new FieldView[16];
+
+    /** like opencsv a quote within an unquoted field is escapable */
+    private boolean inField;
+
+    public CsvTokenizer( final Reader in )
+    {
+        this( in, 0 );
+    }
+
+    public CsvTokenizer( final Reader in, final int linesToSkip )
+    {
+        this.in = in;
+        this.linesToSkip = linesToSkip;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return <code>false</code> at the end of the input
+     *
+     * @throws IOException if reading fails or the input ends within a quoted
+     *             field
+     */
+    public boolean next()
+        throws IOException
+    {
+        for( ; linesToSkip > 0; linesToSkip-- )
+        {
+            nextLine();
+        }
+
+        count = 0;
+        length = 0;
+        fieldStart = 0;
+        if( !nextLine() )
+        {
+            return false;
+        }
+
+        boolean inQuotes = parseLine( false );
+        while( inQuotes )
+        {
+            // quoted field continued on the next line
+            append( '\n' );
+            if( !nextLine() )
+            {
+                throw new IOException( "Unterminated quoted field at end of CSV line. Beginning of lost text: ["
+                        + new String( chars, fieldStart, Math.min( length - fieldStart, 100 ) ) + "]" );
+            }
+            inQuotes = parseLine( true );
+        }
+
+        return true;
+    }
+
+    /**
+     * Starts counting the UTF-8 bytes of the input for
+     * {@link #getBytePosition()}; has to be called before the first record
+     * is read.
+     */
+    public void countBytes()
+    {
+        bytesBeforeBuffer = 0;
+    }
+
+    /**
+     * @return number of bytes the input has in UTF-8 up to the end of the
+     *         current record including its line break; the input continues at
+     *         this position with the next record
+     *
+     * @see #countBytes()
+     */
+    public long getBytePosition()
+        throws IOException
+    {
+        if( bytesBeforeBuffer < 0 )
+        {
+            throw new IllegalStateException( "Bytes are not counted" );
+        }
+        if( skipLineFeed && ( pos < limit || fill() ) )
+        {
+            // take the line feed of a \r\n line break
+            skipLineFeed = false;
+            if( buffer[pos] == '\n' )
+            {
+                pos++;
+            }
+        }
+
+        return bytesBeforeBuffer + utf8Length( buffer, 0, pos );
+    }
+
+    @Override
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * @return view of the field with the given index; valid until the next
+     *         call of {@link #next()}
+     */
+    @Override
+    public CharSequence get( final int idx )
+    {
+        checkIndex( idx );
+        if( idx >= views.length )
+        {
+            views = Arrays.copyOf( views, Math.max( idx + 1, 2 * views.length ) );
+        }
+        if( views[idx] == null )
+        {
+            views[idx] = new FieldView( idx );
+        }
+
+        return views[idx];
+    }
+
+    @Override
+    public void appendTo( final int idx, final StringBuilder out )
+    {
+        checkIndex( idx );
+        out.append( chars, start( idx ), fieldEnds[idx] - start( idx ) );
+    }
+
+    /**
+     * @return the field with the given index as string
+     */
+    public String getString( final int idx )
+    {
+        checkIndex( idx );
+
+        return new String( chars, start( idx ), fieldEnds[idx] - start( idx ) );
+    }
+
+    /**
+     * @return all fields of the current record as strings
+     */
+    public String[] toArray()
+    {
+        final String[] values = new String[count];
+        for( int i = 0; i < count; i++ )
+        {
+            values[i] = getString( i );
+        }
+
+        return values;
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        in.close();
+    }
+
+    /**
+     * Splits the current line into fields.
+     *
+     * @param continued <code>true</code> if the line continues a quoted field
+     *
+     * @return <code>true</code> if the line ends within a quoted field
+     */
+    private boolean parseLine( final boolean continued )
+    {
+        final char[] line = buffer;
+        final int end = lineEnd;
+        boolean inQuotes = continued;
+        int i = lineStart;
+        while( i < end )
+        {
+            final char c = line[i++];
+            if( c == ESCAPE )
+            {
+                if( ( inQuotes || inField ) && i < end && ( line[i] == QUOTE || line[i] == ESCAPE ) )
+                {
+                    append( line[i++] );
+                }
+            }
+            else if( c == QUOTE )
+            {
+                if( ( inQuotes || inField ) && i < end && line[i] == QUOTE )
+                {
+                    append( line[i++] );
+                }
+                else
+                {
+                    inQuotes = !inQuotes;
+                    // quote within a field like in a,bc"d"ef,g is kept
+                    if( i - lineStart > 3 && line[i - 2] != SEPARATOR && i < end && line[i] != SEPARATOR )
+                    {
+                        if( length > fieldStart && isWhitespace( fieldStart, length ) )
+                        {
+                            length = fieldStart;
+                        }
+                        else
+                        {
+                            append( QUOTE );
+                        }
+                    }
+                }
+                inField = !inField;
+            }
+            else if( c == SEPARATOR && !inQuotes )
+            {
+                endField();
+                inField = false;
+            }
+            else
+            {
+                append( c );
+                inField = true;
+            }
+        }
+
+        if( !inQuotes )
+        {
+            inField = false;
+            endField();
+        }
+
+        return inQuotes;
+    }
+
+    /**
+     * Moves to the next physical line; it ends at <code>\n</code>,
+     * <code>\r</code> or <code>\r\n</code> like
+     * {@link java.io.BufferedReader#readLine()} does.
+     *
+     * @return <code>false</code> at the end of the input
+     */
+    private boolean nextLine()
+        throws IOException
+    {
+        if( skipLineFeed )
+        {
+            skipLineFeed = false;
+            if( ( pos < limit || fill() ) && buffer[pos] == '\n' )
+            {
+                pos++;
+            }
+        }
+
+        int i = pos;
+        for( ;; )
+        {
+            if( i == limit )
+            {
+                final int scanned = i - pos;
+                if( !fill() )
+                {
+                    if( pos == limit )
+                    {
+                        return false;
+                    }
+                    lineStart = pos;
+                    lineEnd = limit;
+                    pos = limit;
+
+                    return true;
+                }
+                i = pos + scanned;
+            }
+
+            final char c = buffer[i];
+            if( c == '\n' || c == '\r' )
+            {
+                lineStart = pos;
+                lineEnd = i;
+                pos = i + 1;
+                skipLineFeed = c == '\r';
+
+                return true;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Reads more input keeping the unread part of the buffer.
+     *
+     * @return <code>false</code> at the end of the input
+     */
+    private boolean fill()
+        throws IOException
+    {
+        if( endOfInput )
+        {
+            return false;
+        }
+
+        if( pos > 0 )
+        {
+            if( bytesBeforeBuffer >= 0 )
+            {
+                bytesBeforeBuffer += utf8Length( buffer, 0, pos );
+            }
+            System.arraycopy( buffer, pos, buffer, 0, limit - pos );
+            limit -= pos;
+            pos = 0;
+        }
+        if( limit == buffer.length )
+        {
+            buffer = Arrays.copyOf( buffer, 2 * buffer.length );
+        }
+
+        int read;
+        while( ( read = in.read( buffer, limit, buffer.length - limit ) ) == 0 )
+        {
+            // nothing read yet
+        }
+        if( read < 0 )
+        {
+            endOfInput = true;
+            return false;
+        }
+        limit += read;
+
+        return true;
+    }
+
+    /**
+     * @return number of bytes the chars have in UTF-8; each half of a
+     *         surrogate pair counts two bytes
+     */
+    private static long utf8Length( final char[] cbuf, final int start, final int end )
+    {
+        long bytes = end - start;
+        for( int i = start; i < end; i++ )
+        {
+            final char c = cbuf[i];
+            if( c >= 0x80 )
+            {
+                bytes += c < 0x800 || Character.isSurrogate( c ) ? 1 : 2;
+            }
+        }
+
+        return bytes;
+    }
+
+    private void append( final char c )
+    {
+        if( length == chars.length )
+        {
+            chars = Arrays.copyOf( chars, 2 * chars.length );
+        }
+        chars[length++] = c;
+    }
+
+    private void endField()
+    {
+        if( count == fieldEnds.length )
+        {
+            fieldEnds = Arrays.copyOf( fieldEnds, 2 * fieldEnds.length );
+        }
+        fieldEnds[count++] = length;
+        fieldStart = length;
+    }
+
+    private boolean isWhitespace( final int start, final int end )
+    {
+        for( int i = start; i < end; i++ )
+        {
+            if( !Character.isWhitespace( chars[i] ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int start( final int idx )
+    {
+        return idx == 0 ? 0 : fieldEnds[idx - 1];
+    }
+
+    private void checkIndex( final int idx )
+    {
+        if( idx < 0 || idx >= count )
+        {
+            throw new IndexOutOfBoundsException( "Index: " + idx + ", Size: " + count );
+        }
+    }
+
+    /**
+     * View of a field of the current record.
+     */
+    private final class FieldView
+        implements
+            CharSequence
+    {
+        private final int idx;
+
+        FieldView( final int idx )
+        {
+            this.idx = idx;
+        }
+
+        @Override
+        public int length()
+        {
+            return fieldEnds[idx] - start( idx );
+        }
+
+        @Override
+        public char charAt( final int index )
+        {
+            if( index < 0 || index >= length() )
+            {
+                throw new StringIndexOutOfBoundsException( index );
+            }
+
+            return chars[start( idx ) + index];
+        }
+
+        @Override
+        public CharSequence subSequence( final int start, final int end )
+        {
+            return toString().substring( start, end );
+        }
+
+        @Override
+        public String toString()
+        {
+            return getString( idx );
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.github.fiveoo.timeshifter;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.Temporal;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalField;
+import java.time.temporal.TemporalUnit;
+import java.time.temporal.UnsupportedTemporalTypeException;
+import java.time.temporal.ValueRange;
+import java.util.Map;
+
+/**
+ * Date/times given as number of seconds, milliseconds or microseconds since
+ * 1970-01-01T00:00:00Z, selected by the pseudo patterns
+ * <code>epochSeconds</code>, <code>epochMillis</code> and
+ * <code>epochMicros</code> instead of a {@link DateTimeFormatter} pattern.
+ *
+ * The numbers denote an instant, so no zone is needed to read them. The local
+ * form counts the units up to the local date/time as if it was UTC.
+ *
+ * Each unit provides {@link DateTimeFormatter}s for the general code paths;
+ * {@link #parseUnits(CharSequence)}, {@link #parse(String)} and
+ * {@link #appendTo(StringBuilder, long, int)} handle the numbers by long
+ * arithmetic without them.
+ */
+public enum EpochUnit
+{
+    SECONDS( "epochSeconds", 1 ),
+
+    MILLIS( "epochMillis", 1000 ),
+
+    MICROS( "epochMicros", 1000000 );
+
+    /** Result of {@link #parseUnits(CharSequence)} for invalid text. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final int  NANOS_PER_SECOND = 1000000000;
+    private static final long MIN_EPOCH_SECOND = LocalDateTime.MIN.toEpochSecond( ZoneOffset.UTC );
+    private static final long MAX_EPOCH_SECOND = LocalDateTime.MAX.toEpochSecond( ZoneOffset.UTC );
+
+    private final String            pattern;
+    private final long              unitsPerSecond;
+    private final DateTimeFormatter formatter;
+    private final DateTimeFormatter formatterLocal;
+
+    EpochUnit( final String pattern, final long unitsPerSecond )
+    {
+        this.pattern = pattern;
+        this.unitsPerSecond = unitsPerSecond;
+        this.formatter = new DateTimeFormatterBuilder()
+                .appendValue( new EpochField( pattern, unitsPerSecond, false ), 1, 19, SignStyle.NORMAL )
+                .toFormatter().withResolverStyle( ResolverStyle.STRICT ).withZone( ZoneOffset.UTC );
+        this.formatterLocal = new DateTimeFormatterBuilder()
+                .appendValue( new EpochField( pattern + "Local", unitsPerSecond, true ), 1, 19, SignStyle.NORMAL )
+                .toFormatter().withResolverStyle( ResolverStyle.STRICT );
+    }
+
+    /**
+     * @return unit selected by the given pattern or <code>null</code> if it's
+     *         a {@link DateTimeFormatter} pattern
+     */
+    public static EpochUnit forPattern( final String pattern )
+    {
+        for( final EpochUnit unit : values() )
+        {
+            if( unit.pattern.equals( pattern ) )
+            {
+                return unit;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return unit the given formatter is reading or writing the instant of or
+     *         <code>null</code> if it's no formatter of a unit
+     */
+    public static EpochUnit of( final DateTimeFormatter formatter )
+    {
+        for( final EpochUnit unit : values() )
+        {
+            if( unit.formatter == formatter )
+            {
+                return unit;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the unit of the given pair of formatters.
+     *
+     * @param formatter formatter of the shifted date/time
+     * @param formatterLocal formatter of the shifted date/time without zone
+     *
+     * @return <code>null</code> if the formatters are no formatters of the
+     *         same unit
+     */
+    public static EpochUnit forFormatters( final DateTimeFormatter formatter,
+            final DateTimeFormatter formatterLocal )
+    {
+        final EpochUnit unit = of( formatter );
+
+        return unit != null && unit.formatterLocal == formatterLocal ? unit : null;
+    }
+
+    public String getPattern()
+    {
+        return pattern;
+    }
+
+    /**
+     * @return formatter of the instant; parsing results in UTC
+     */
+    public DateTimeFormatter getFormatter()
+    {
+        return formatter;
+    }
+
+    /**
+     * @return formatter of the local date/time
+     */
+    public DateTimeFormatter getFormatterLocal()
+    {
+        return formatterLocal;
+    }
+
+    /**
+     * Parses the given number of units like {@link #getFormatter()} does.
+     *
+     * @return the instant in UTC or <code>null</code> if the text isn't a
+     *         number in the range of {@link LocalDateTime}
+     */
+    public OffsetDateTime parse( final String text )
+    {
+        final long units = parseUnits( text );
+
+        return units == INVALID ? null
+                : OffsetDateTime.of( LocalDateTime.ofEpochSecond( toEpochSecond( units ), toNano( units ),
+                        ZoneOffset.UTC ), ZoneOffset.UTC );
+    }
+
+    /**
+     * Parses the given number of units without creating objects.
+     *
+     * @return the number or {@link #INVALID} if the text isn't a number in the
+     *         range of {@link LocalDateTime}
+     */
+    public long parseUnits( final CharSequence text )
+    {
+        final int length = text.length();
+        final boolean negative = length > 0 && text.charAt( 0 ) == '-';
+        int pos = negative ? 1 : 0;
+        if( pos == length || length - pos > 19 )
+        {
+            return INVALID;
+        }
+
+        long value = 0;
+        for( ; pos < length; pos++ )
+        {
+            final int digit = text.charAt( pos ) - '0';
+            if( digit < 0 || digit > 9 )
+            {
+                return INVALID;
+            }
+            value = 10 * value + digit;
+            if( value < 0 )
+            {
+                return INVALID;
+            }
+        }
+        if( negative )
+        {
+            value = -value;
+        }
+
+        final long epochSecond = toEpochSecond( value );
+
+        return epochSecond < MIN_EPOCH_SECOND || epochSecond > MAX_EPOCH_SECOND ? INVALID : value;
+    }
+
+    /**
+     * @return epoch second of the given number of units
+     */
+    public long toEpochSecond( final long units )
+    {
+        return Math.floorDiv( units, unitsPerSecond );
+    }
+
+    /**
+     * @return nano of second of the given number of units
+     */
+    public int toNano( final long units )
+    {
+        return (int) ( Math.floorMod( units, unitsPerSecond ) * ( NANOS_PER_SECOND / unitsPerSecond ) );
+    }
+
+    /**
+     * Appends the number of units of the given date/time; sub-units are
+     * truncated like by {@link #getFormatter()}.
+     *
+     * @param epochSecond seconds of the instant or, for the local form, of the
+     *            local date/time as if it was UTC
+     *
+     * @throws ArithmeticException if the number exceeds a long
+     */
+    public void appendTo( final StringBuilder out, final long epochSecond, final int nanos )
+    {
+        out.append( toUnits( epochSecond, nanos, unitsPerSecond ) );
+    }
+
+    private static long toUnits( final long epochSecond, final long nanos, final long unitsPerSecond )
+    {
+        return Math.addExact( Math.multiplyExact( epochSecond, unitsPerSecond ),
+                nanos / ( NANOS_PER_SECOND / unitsPerSecond ) );
+    }
+
+    /**
+     * Field of the number of units of the instant or local date/time; parsed
+     * values resolve to {@link ChronoField#INSTANT_SECONDS} or
+     * {@link ChronoField#EPOCH_DAY} and the time of day.
+     */
+    private static final class EpochField
+        implements
+            TemporalField
+    {
+        private final String  name;
+        private final long    unitsPerSecond;
+        private final boolean local;
+
+        EpochField( final String name, final long unitsPerSecond, final boolean local )
+        {
+            this.name = name;
+            this.unitsPerSecond = unitsPerSecond;
+            this.local = local;
+        }
+
+        @Override
+        public TemporalUnit getBaseUnit()
+        {
+            return unitsPerSecond == 1 ? ChronoUnit.SECONDS
+                    : unitsPerSecond == 1000 ? ChronoUnit.MILLIS : ChronoUnit.MICROS;
+        }
+
+        @Override
+        public TemporalUnit getRangeUnit()
+        {
+            return ChronoUnit.FOREVER;
+        }
+
+        @Override
+        public ValueRange range()
+        {
+            return ValueRange.of( Long.MIN_VALUE, Long.MAX_VALUE );
+        }
+
+        @Override
+        public boolean isDateBased()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isTimeBased()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isSupportedBy( final TemporalAccessor temporal )
+        {
+            return local
+                    ? temporal.isSupported( ChronoField.EPOCH_DAY ) && temporal.isSupported( ChronoField.NANO_OF_DAY )
+                    : temporal.isSupported( ChronoField.INSTANT_SECONDS );
+        }
+
+        @Override
+        public ValueRange rangeRefinedBy( final TemporalAccessor temporal )
+        {
+            return range();
+        }
+
+        @Override
+        public long getFrom( final TemporalAccessor temporal )
+        {
+            final long epochSecond = local
+                    ? temporal.getLong( ChronoField.EPOCH_DAY ) * CivilTime.SECONDS_PER_DAY
+                            + temporal.getLong( ChronoField.SECOND_OF_DAY )
+                    : temporal.getLong( ChronoField.INSTANT_SECONDS );
+
+            return toUnits( epochSecond, temporal.getLong( ChronoField.NANO_OF_SECOND ), unitsPerSecond );
+        }
+
+        @Override
+        public <R extends Temporal> R adjustInto( final R temporal, final long newValue )
+        {
+            throw new UnsupportedTemporalTypeException( "Unsupported field: " + name );
+        }
+
+        @Override
+        public TemporalAccessor resolve( final Map<TemporalField, Long> fieldValues,
+                final TemporalAccessor partialTemporal, final ResolverStyle resolverStyle )
+        {
+            final long value = fieldValues.remove( this );
+            final long epochSecond = Math.floorDiv( value, unitsPerSecond );
+            final long nanos = Math.floorMod( value, unitsPerSecond ) * ( NANOS_PER_SECOND / unitsPerSecond );
+            if( local )
+            {
+                fieldValues.put( ChronoField.EPOCH_DAY, Math.floorDiv( epochSecond, CivilTime.SECONDS_PER_DAY ) );
+                fieldValues.put( ChronoField.NANO_OF_DAY,
+                        Math.floorMod( epochSecond, CivilTime.SECONDS_PER_DAY ) * NANOS_PER_SECOND + nanos );
+            }
+            else
+            {
+                fieldValues.put( ChronoField.INSTANT_SECONDS, epochSecond );
+                fieldValues.put( ChronoField.NANO_OF_SECOND, nanos );
+            }
+
+            return null;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name;
+        }
+    }
+}
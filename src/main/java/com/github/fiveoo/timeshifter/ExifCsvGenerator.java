@@ -0,0 +1,274 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
+
+/**
+ * Generates synthetic CSV data shaped like the ExifTool output in
+ * <code>doc/examples/example.csv</code>: the file name, the GPS date/time to
+ * shift and the date/time of the camera to take the offset from, optionally
+ * followed by further columns passed through unchanged.
+ *
+ * The GPS date/times are spread randomly over a time span starting at
+ * {@link #setStart(LocalDateTime)}; the camera date/times are the same
+ * instants (plus some seconds of clock drift) in one of the configured zones.
+ * A ratio of the rows may contain a date/time that can't be parsed.
+ *
+ * The data only depends on the settings and the seed, so it is the same for
+ * every run.
+ */
+public class ExifCsvGenerator
+{
+    public static final long DEFAULT_SPREAD_SECONDS = 30L * CivilTime.SECONDS_PER_DAY;
+
+    private static final int MAX_DRIFT_SECONDS = 60;
+
+    private static final String[] EXTRA_VALUES =
+            { "Canon", "Canon EOS 5D Mark IV", "NIKON CORPORATION", "NIKON D850", "SONY", "ILCE-7M3", "1/250",
+                "f/5.6", "ISO 400", "Landscape (8 bit)" };
+
+    private final long rows;
+
+    private LocalDateTime     start           = LocalDateTime.of( 2019, 3, 1, 0, 0 );
+    private long              spreadSeconds   = DEFAULT_SPREAD_SECONDS;
+    private List<ZoneId>      zones           = Collections.singletonList( ZoneOffset.ofHours( 1 ) );
+    private double            errorRatio      = 0;
+    private int               extraColumns    = 0;
+    private long              seed            = 20190309L;
+    private List<ShiftColumn> shiftColumns    = Collections.singletonList(
+            new ShiftColumn( 1, MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER, null ) );
+    private DateTimeFormatter offsetFormatter = MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER;
+    private int               offsetIdx       = 2;
+
+    /**
+     * @param rows number of rows to generate
+     */
+    public ExifCsvGenerator( final long rows )
+    {
+        this.rows = rows;
+    }
+
+    /**
+     * Creates a generator for input the given configuration is able to shift:
+     * the date/times are formatted and placed like the configuration expects
+     * them.
+     */
+    public static ExifCsvGenerator forConfig( final TimeshifterConfig config, final long rows )
+    {
+        final ExifCsvGenerator generator = new ExifCsvGenerator( rows );
+        generator.setShiftFields( config.getInDateShiftColumns() );
+        generator.setOffsetField( config.getInDateOffsetIdx(), config.getInDateOffsetFormatter() );
+
+        return generator;
+    }
+
+    public long getRows()
+    {
+        return rows;
+    }
+
+    /**
+     * @param start earliest GPS date/time (UTC)
+     */
+    public void setStart( final LocalDateTime start )
+    {
+        this.start = start;
+    }
+
+    /**
+     * @param spreadSeconds length of the time span the GPS date/times are
+     *            spread over
+     */
+    public void setSpreadSeconds( final long spreadSeconds )
+    {
+        this.spreadSeconds = Math.max( 1, spreadSeconds );
+    }
+
+    /**
+     * @param zones zones (or fixed offsets) the camera date/times are taken
+     *            in; each row uses one of them by random
+     */
+    public void setZones( final List<ZoneId> zones )
+    {
+        if( zones.isEmpty() )
+        {
+            throw new IllegalArgumentException( "At least one zone is required" );
+        }
+        this.zones = new ArrayList<>( zones );
+    }
+
+    /**
+     * @param errorRatio ratio of rows (0 to 1) with a date/time that can't be
+     *            parsed
+     */
+    public void setErrorRatio( final double errorRatio )
+    {
+        this.errorRatio = Math.min( 1, Math.max( 0, errorRatio ) );
+    }
+
+    /**
+     * @param extraColumns number of columns appended to each row
+     */
+    public void setExtraColumns( final int extraColumns )
+    {
+        this.extraColumns = Math.max( 0, extraColumns );
+    }
+
+    public void setSeed( final long seed )
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * @param zone zone the GPS date/time is written in; <code>null</code> for
+     *            UTC
+     */
+    public void setShiftField( final int idx, final DateTimeFormatter formatter, final ZoneId zone )
+    {
+        setShiftFields( Collections.singletonList( new ShiftColumn( idx, formatter, zone ) ) );
+    }
+
+    /**
+     * @param columns fields holding the GPS date/time, each formatted by the
+     *            formatter and in the zone (<code>null</code> for UTC) of the
+     *            column
+     */
+    public void setShiftFields( final List<ShiftColumn> columns )
+    {
+        if( columns.isEmpty() )
+        {
+            throw new IllegalArgumentException( "At least one shift field is required" );
+        }
+        this.shiftColumns = new ArrayList<>( columns );
+    }
+
+    public void setOffsetField( final int idx, final DateTimeFormatter formatter )
+    {
+        this.offsetIdx = idx;
+        this.offsetFormatter = formatter;
+    }
+
+    /**
+     * @return names of the columns
+     */
+    public String[] getHeader()
+    {
+        final String[] header = new String[getColumns()];
+        final int baseColumns = header.length - extraColumns;
+        for( int i = 0; i < header.length; i++ )
+        {
+            header[i] = i < baseColumns ? "Column" + i : "Extra" + ( i - baseColumns + 1 );
+        }
+        header[0] = "SourceFile";
+        for( int i = shiftColumns.size() - 1; i >= 0; i-- )
+        {
+            header[shiftColumns.get( i ).getIdx()] = i == 0 ? "GPSDateTime" : "GPSDateTime" + ( i + 1 );
+        }
+        header[offsetIdx] = "DateTimeDigitized";
+
+        return header;
+    }
+
+    /**
+     * @return the rows (without header)
+     */
+    public Stream<String[]> rows()
+    {
+        return LongStream.range( 0, rows ).mapToObj( this::createRow );
+    }
+
+    /**
+     * Writes the header and all rows as CSV.
+     */
+    public void writeCsv( final Writer out )
+        throws IOException
+    {
+        final StringBuilder line = new StringBuilder( 256 );
+        appendCsvLine( getHeader(), line );
+        out.append( line );
+
+        for( long i = 0; i < rows; i++ )
+        {
+            line.setLength( 0 );
+            appendCsvLine( createRow( i ), line );
+            out.append( line );
+        }
+    }
+
+    /**
+     * @return the row with the given index
+     */
+    public String[] createRow( final long index )
+    {
+        final SplittableRandom random = new SplittableRandom( seed + index );
+        final String[] row = new String[getColumns()];
+        final int baseColumns = row.length - extraColumns;
+        for( int i = 0; i < row.length; i++ )
+        {
+            row[i] = i < baseColumns ? "" : EXTRA_VALUES[random.nextInt( EXTRA_VALUES.length )];
+        }
+
+        final Instant gpsTime = start.toInstant( ZoneOffset.UTC ).plusSeconds( random.nextLong( spreadSeconds ) );
+        final Instant cameraTime = gpsTime.plusSeconds( random.nextInt( -MAX_DRIFT_SECONDS, MAX_DRIFT_SECONDS ) );
+        final ZoneId zone = zones.get( random.nextInt( zones.size() ) );
+
+        row[0] = "NewImages/DSC" + Long.toString( 100000 + index % 100000 ).substring( 1 ) + ".jpg";
+        for( final ShiftColumn column : shiftColumns )
+        {
+            row[column.getIdx()] = column.getFormatter()
+                    .format( gpsTime.atZone( column.getZone() == null ? ZoneOffset.UTC : column.getZone() ) );
+        }
+        row[offsetIdx] = offsetFormatter.format( cameraTime.atZone( zone ) );
+        if( random.nextDouble() < errorRatio )
+        {
+            row[random.nextBoolean() ? shiftColumns.get( 0 ).getIdx() : offsetIdx] = "0000:00:00 00:00:00";
+        }
+
+        return row;
+    }
+
+    private int getColumns()
+    {
+        int maxIdx = offsetIdx;
+        for( final ShiftColumn column : shiftColumns )
+        {
+            maxIdx = Math.max( maxIdx, column.getIdx() );
+        }
+
+        return Math.max( 3, maxIdx + 1 ) + extraColumns;
+    }
+
+    private static void appendCsvLine( final String[] values, final StringBuilder out )
+    {
+        for( int i = 0; i < values.length; i++ )
+        {
+            if( i > 0 )
+            {
+                out.append( ',' );
+            }
+            final String value = values[i];
+            if( value.indexOf( ',' ) < 0 && value.indexOf( '"' ) < 0 )
+            {
+                out.append( value );
+            }
+            else
+            {
+                out.append( '"' ).append( value.replace( "\"", "\"\"" ) ).append( '"' );
+            }
+        }
+        out.append( '\n' );
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.fiveoo.timeshifter;
+
+import java.time.chrono.IsoChronology;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DecimalStyle;
+import java.time.format.ResolverStyle;
+
+/**
+ * Fixed date/time layouts used by ExifTool which are handled without
+ * {@link DateTimeFormatter}.
+ */
+enum ExifLayout
+{
+    /** <code>yyyy:MM:dd HH:mm:ss</code> */
+    LOCAL( "yyyy:MM:dd HH:mm:ss" ),
+
+    /** <code>yyyy:MM:dd HH:mm:ssXXX</code> */
+    OFFSET( "yyyy:MM:dd HH:mm:ssXXX" );
+
+    /** length of the layout without offset */
+    static final int LOCAL_LENGTH = LOCAL.pattern.length();
+
+    private final String pattern;
+    private final String description;
+
+    ExifLayout( final String pattern )
+    {
+        this.pattern = pattern;
+        this.description = DateTimeFormatter.ofPattern( pattern ).toString();
+    }
+
+    /**
+     * Returns the layout of the given formatter.
+     *
+     * Only formatters created like {@link DateTimeFormatter#ofPattern(String)}
+     * using ISO chronology and standard digits are taken into account.
+     *
+     * @return <code>null</code> if the formatter doesn't use one of the layouts
+     */
+    static ExifLayout of( final DateTimeFormatter formatter )
+    {
+        if( formatter == null || formatter.getResolverStyle() != ResolverStyle.SMART
+                || formatter.getResolverFields() != null || formatter.getZone() != null
+                || !DecimalStyle.STANDARD.equals( formatter.getDecimalStyle() )
+                || ( formatter.getChronology() != null && formatter.getChronology() != IsoChronology.INSTANCE ) )
+        {
+            return null;
+        }
+
+        final String layout = formatter.toString();
+        for( final ExifLayout candidate : values() )
+        {
+            if( candidate.description.equals( layout ) )
+            {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.fiveoo.timeshifter;
+
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formatter for the fixed ExifTool layouts <code>yyyy:MM:dd HH:mm:ssXXX</code>
+ * (shifted date/time) and <code>yyyy:MM:dd HH:mm:ss</code> (shifted local
+ * date/time) appending the digits directly to the output.
+ *
+ * The local form is the prefix of the zoned form. As the dates of a batch of
+ * photos are usually close together the rendered date part is cached per day
+ * and the offset part per offset.
+ *
+ * Instances are thread-safe; the caches only hold immutable values.
+ */
+public final class FastDateTimeFormatter
+{
+    private static final int DAY_CACHE_SIZE = 64;
+
+    private static final int MAX_OFFSET_MINUTES = 18 * 60;
+
+    private static final long MIN_EPOCH_DAY = CivilTime.toEpochDay( 1, 1, 1 );
+    private static final long MAX_EPOCH_DAY = CivilTime.toEpochDay( 9999, 12, 31 );
+
+    private final CachedDay[] dayCache    = new CachedDay[DAY_CACHE_SIZE];
+    private final String[]    offsetCache = new String[2 * MAX_OFFSET_MINUTES + 1];
+
+    private FastDateTimeFormatter()
+    {
+    }
+
+    /**
+     * Returns a formatter for the given pair of formatters.
+     *
+     * @param formatter formatter of the shifted date/time
+     * @param formatterLocal formatter of the shifted date/time without zone
+     *
+     * @return <code>null</code> if the formatters don't use the supported
+     *         layouts
+     */
+    public static FastDateTimeFormatter forFormatters( final DateTimeFormatter formatter,
+            final DateTimeFormatter formatterLocal )
+    {
+        if( ExifLayout.of( formatter ) != ExifLayout.OFFSET || ExifLayout.of( formatterLocal ) != ExifLayout.LOCAL )
+        {
+            return null;
+        }
+
+        return new FastDateTimeFormatter();
+    }
+
+    /**
+     * Appends the date/time given by <code>epochSecond</code> in the zone
+     * offset given by <code>offsetSeconds</code>.
+     *
+     * @param withOffset <code>true</code> to append the zoned form;
+     *            <code>false</code> to append the local form
+     *
+     * @return <code>false</code> if the year is not within 1 and 9999; nothing
+     *         is appended in that case
+     */
+    public boolean appendTo( final StringBuilder out, final long epochSecond, final int offsetSeconds,
+            final boolean withOffset )
+    {
+        final long localEpochSecond = epochSecond + offsetSeconds;
+        final long epochDay = CivilTime.toEpochDay( localEpochSecond );
+        if( epochDay < MIN_EPOCH_DAY || epochDay > MAX_EPOCH_DAY )
+        {
+            return false;
+        }
+
+        final int secondOfDay = CivilTime.toSecondOfDay( localEpochSecond );
+        out.append( date( epochDay ) );
+        appendTwoDigits( out, secondOfDay / CivilTime.SECONDS_PER_HOUR ).append( ':' );
+        appendTwoDigits( out, secondOfDay / CivilTime.SECONDS_PER_MINUTE % 60 ).append( ':' );
+        appendTwoDigits( out, secondOfDay % CivilTime.SECONDS_PER_MINUTE );
+        if( withOffset )
+        {
+            out.append( offset( offsetSeconds ) );
+        }
+
+        return true;
+    }
+
+    /**
+     * @return <code>yyyy:MM:dd </code> of the given day
+     */
+    private char[] date( final long epochDay )
+    {
+        final int slot = (int) ( epochDay & ( DAY_CACHE_SIZE - 1 ) );
+        final CachedDay cached = dayCache[slot];
+        if( cached != null && cached.epochDay == epochDay )
+        {
+            return cached.text;
+        }
+
+        final long yearMonthDay = CivilTime.toYearMonthDay( epochDay );
+        final int year = (int) ( yearMonthDay / 10000 );
+        final StringBuilder b = new StringBuilder( 11 );
+        appendTwoDigits( b, year / 100 );
+        appendTwoDigits( b, year % 100 ).append( ':' );
+        appendTwoDigits( b, (int) ( yearMonthDay / 100 % 100 ) ).append( ':' );
+        appendTwoDigits( b, (int) ( yearMonthDay % 100 ) ).append( ' ' );
+
+        final CachedDay day = new CachedDay( epochDay, b.toString().toCharArray() );
+        dayCache[slot] = day;
+
+        return day.text;
+    }
+
+    /**
+     * @return offset like <code>XXX</code> is printing it
+     */
+    private String offset( final int offsetSeconds )
+    {
+        if( offsetSeconds % CivilTime.SECONDS_PER_MINUTE != 0 )
+        {
+            return formatOffset( offsetSeconds );
+        }
+
+        final int slot = offsetSeconds / CivilTime.SECONDS_PER_MINUTE + MAX_OFFSET_MINUTES;
+        String text = offsetCache[slot];
+        if( text == null )
+        {
+            text = formatOffset( offsetSeconds );
+            offsetCache[slot] = text;
+        }
+
+        return text;
+    }
+
+    private static String formatOffset( final int offsetSeconds )
+    {
+        final int absSeconds = Math.abs( offsetSeconds );
+        if( absSeconds < CivilTime.SECONDS_PER_MINUTE )
+        {
+            // like XXX print offsets without hours and minutes as Z
+            return "Z";
+        }
+
+        final StringBuilder b = new StringBuilder( 6 ).append( offsetSeconds < 0 ? '-' : '+' );
+        appendTwoDigits( b, absSeconds / CivilTime.SECONDS_PER_HOUR ).append( ':' );
+        appendTwoDigits( b, absSeconds / CivilTime.SECONDS_PER_MINUTE % 60 );
+
+        return b.toString();
+    }
+
+    private static StringBuilder appendTwoDigits( final StringBuilder out, final int value )
+    {
+        return out.append( (char) ( '0' + value / 10 ) ).append( (char) ( '0' + value % 10 ) );
+    }
+
+    private static final class CachedDay
+    {
+        private final long   epochDay;
+        private final char[] text;
+
+        CachedDay( final long epochDay, final char[] text )
+        {
+            this.epochDay = epochDay;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.github.fiveoo.timeshifter;
+
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+
+/**
+ * Parser for the fixed ExifTool date/time layouts
+ * <code>yyyy:MM:dd HH:mm:ssXXX</code> and <code>yyyy:MM:dd HH:mm:ss</code>
+ * reading the digits directly from the text.
+ *
+ * The parser neither creates objects nor throws exceptions. It only handles
+ * the regular form of the layout; if it can't handle the text it returns
+ * {@link #INVALID} and the caller has to use the {@link DateTimeFormatter}
+ * instead. This way errors are reported exactly as before.
+ */
+public final class FastDateTimeParser
+{
+    /** Result of the parse methods if the text can't be handled. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    /** Result of {@link #parseOffsetSeconds(CharSequence)} if the offset can't be handled. */
+    public static final int INVALID_OFFSET = Integer.MIN_VALUE;
+
+    private static final int LOCAL_LENGTH = ExifLayout.LOCAL_LENGTH;
+
+    private static final int MAX_OFFSET_MINUTES = 18 * 60;
+    private static final int MAX_OFFSET_SECONDS = MAX_OFFSET_MINUTES * CivilTime.SECONDS_PER_MINUTE;
+
+    /** interned offsets indexed by minutes + {@link #MAX_OFFSET_MINUTES} */
+    private static final ZoneOffset[] OFFSET_CACHE = new ZoneOffset[2 * MAX_OFFSET_MINUTES + 1];
+
+    private static final FastDateTimeParser LOCAL  = new FastDateTimeParser( false );
+    private static final FastDateTimeParser OFFSET = new FastDateTimeParser( true );
+
+    private final boolean withOffset;
+
+    private FastDateTimeParser( final boolean withOffset )
+    {
+        this.withOffset = withOffset;
+    }
+
+    /**
+     * Returns the parser for the layout of the given formatter.
+     *
+     * @return <code>null</code> if the formatter doesn't use one of the
+     *         supported layouts
+     */
+    public static FastDateTimeParser forFormatter( final DateTimeFormatter formatter )
+    {
+        final ExifLayout layout = ExifLayout.of( formatter );
+        if( layout == null )
+        {
+            return null;
+        }
+
+        return layout == ExifLayout.OFFSET ? OFFSET : LOCAL;
+    }
+
+    /**
+     * @return <code>true</code> if the layout ends with a zone offset
+     */
+    public boolean hasOffset()
+    {
+        return withOffset;
+    }
+
+    /**
+     * Parses date and time of the text ignoring any zone offset.
+     *
+     * Like {@link ResolverStyle#SMART} a day-of-month exceeding the length of
+     * the month is set to the last day of the month.
+     *
+     * @return seconds since 1970-01-01T00:00:00 in local time or
+     *         {@link #INVALID}
+     */
+    public long parseLocalEpochSecond( final CharSequence text )
+    {
+        final int length = text.length();
+        if( ( withOffset ? length <= LOCAL_LENGTH : length != LOCAL_LENGTH ) || text.charAt( 4 ) != ':'
+                || text.charAt( 7 ) != ':' || text.charAt( 10 ) != ' ' || text.charAt( 13 ) != ':'
+                || text.charAt( 16 ) != ':' )
+        {
+            return INVALID;
+        }
+
+        final int year = digits4( text, 0 );
+        final int month = digits2( text, 5 );
+        int day = digits2( text, 8 );
+        final int hour = digits2( text, 11 );
+        final int minute = digits2( text, 14 );
+        final int second = digits2( text, 17 );
+        if( year < 1 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23 || minute < 0
+                || minute > 59 || second < 0 || second > 59 )
+        {
+            return INVALID;
+        }
+
+        day = Math.min( day, CivilTime.lengthOfMonth( year, month ) );
+
+        return CivilTime.toEpochSecond( CivilTime.toEpochDay( year, month, day ), hour, minute, second );
+    }
+
+    /**
+     * Parses the zone offset (<code>Z</code> or <code>&plusmn;HH:MM</code>)
+     * following date and time.
+     *
+     * @return offset in seconds or {@link #INVALID_OFFSET}
+     */
+    public int parseOffsetSeconds( final CharSequence text )
+    {
+        if( !withOffset )
+        {
+            return INVALID_OFFSET;
+        }
+
+        return parseOffsetSeconds( text, LOCAL_LENGTH );
+    }
+
+    /**
+     * Extracts the zone offset of the text by reading only its suffix.
+     *
+     * In contrast to {@link #parseLocalEpochSecond(CharSequence)} the digits of
+     * date and time are not validated; only the separators are checked to make
+     * sure the offset is located where the layout expects it.
+     *
+     * @return interned offset or <code>null</code> if it can't be extracted
+     */
+    public ZoneOffset parseOffset( final CharSequence text )
+    {
+        final int offsetSeconds = extractOffsetSeconds( text );
+
+        return offsetSeconds == INVALID_OFFSET ? null : toZoneOffset( offsetSeconds );
+    }
+
+    /**
+     * Like {@link #parseOffset(CharSequence)} but without creating an object.
+     *
+     * @return offset in seconds or {@link #INVALID_OFFSET}
+     */
+    public int extractOffsetSeconds( final CharSequence text )
+    {
+        if( !withOffset || text.length() <= LOCAL_LENGTH || text.charAt( 4 ) != ':' || text.charAt( 7 ) != ':'
+                || text.charAt( 10 ) != ' ' || text.charAt( 13 ) != ':' || text.charAt( 16 ) != ':' )
+        {
+            return INVALID_OFFSET;
+        }
+
+        return parseOffsetSeconds( text, LOCAL_LENGTH );
+    }
+
+    /**
+     * @return offset of the given number of seconds; offsets of whole minutes
+     *         are taken from a cache
+     */
+    static ZoneOffset toZoneOffset( final int offsetSeconds )
+    {
+        if( offsetSeconds % CivilTime.SECONDS_PER_MINUTE != 0 )
+        {
+            return ZoneOffset.ofTotalSeconds( offsetSeconds );
+        }
+
+        final int slot = offsetSeconds / CivilTime.SECONDS_PER_MINUTE + MAX_OFFSET_MINUTES;
+        ZoneOffset offset = OFFSET_CACHE[slot];
+        if( offset == null )
+        {
+            offset = ZoneOffset.ofTotalSeconds( offsetSeconds );
+            OFFSET_CACHE[slot] = offset;
+        }
+
+        return offset;
+    }
+
+    /**
+     * Parses a zone offset (<code>Z</code> or <code>&plusmn;HH:MM</code>)
+     * reaching from <code>start</code> to the end of the text.
+     *
+     * @return offset in seconds or {@link #INVALID_OFFSET}
+     */
+    static int parseOffsetSeconds( final CharSequence text, final int start )
+    {
+        final int length = text.length() - start;
+        if( length == 1 && text.charAt( start ) == 'Z' )
+        {
+            return 0;
+        }
+        if( length != 6 || text.charAt( start + 3 ) != ':' )
+        {
+            return INVALID_OFFSET;
+        }
+
+        final char sign = text.charAt( start );
+        final int hours = digits2( text, start + 1 );
+        final int minutes = digits2( text, start + 4 );
+        if( ( sign != '+' && sign != '-' ) || hours < 0 || minutes < 0 || minutes > 59 )
+        {
+            return INVALID_OFFSET;
+        }
+
+        final int seconds = hours * CivilTime.SECONDS_PER_HOUR + minutes * CivilTime.SECONDS_PER_MINUTE;
+        if( seconds > MAX_OFFSET_SECONDS )
+        {
+            return INVALID_OFFSET;
+        }
+
+        return sign == '-' ? -seconds : seconds;
+    }
+
+    /**
+     * @return value of the two digits or a negative value if there's a
+     *         non-digit
+     */
+    private static int digits2( final CharSequence text, final int pos )
+    {
+        final int d1 = text.charAt( pos ) - '0';
+        final int d2 = text.charAt( pos + 1 ) - '0';
+        if( d1 < 0 || d1 > 9 || d2 < 0 || d2 > 9 )
+        {
+            return -1;
+        }
+
+        return d1 * 10 + d2;
+    }
+
+    private static int digits4( final CharSequence text, final int pos )
+    {
+        final int high = digits2( text, pos );
+        final int low = digits2( text, pos + 2 );
+        if( high < 0 || low < 0 )
+        {
+            return -1;
+        }
+
+        return high * 100 + low;
+    }
+}
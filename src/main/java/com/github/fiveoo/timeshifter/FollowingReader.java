@@ -0,0 +1,313 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reader following a growing UTF-8 file like <code>tail -F</code> does: at the
+ * end of the file it waits for lines appended to it instead of ending.
+ *
+ * Only complete lines are returned; a line is returned as soon as its line
+ * break is written. Before waiting for more data the output is flushed, so
+ * shifted lines appear without delay. The directory of the file is watched by
+ * a {@link WatchService}, which is polled as well in case a change isn't
+ * reported.
+ *
+ * A file shorter than the position read so far was truncated and is read
+ * again from the beginning. If another file appears under the name (e.g. the
+ * file was rotated), the rest of the old file is read, an unterminated last
+ * line of it is ended, and the new file is read from the beginning. Rotation
+ * is detected by the file key and thus not on file systems without one.
+ *
+ * The reader ends once {@link #stop()} is called and all complete lines are
+ * read; an unterminated last line is dropped.
+ */
+public class FollowingReader
+    extends
+        Reader
+{
+    private static final int  BUFFER_SIZE = 64 * 1024;
+    private static final long POLL_MILLIS = 250;
+
+    private final Path           path;
+    private final Flushable      output;
+    private final CharsetDecoder decoder;
+    private final WatchService   watcher;
+    private final ByteBuffer     bytes = ByteBuffer.allocate( BUFFER_SIZE );
+
+    /** decoded chars; the ones before <code>complete</code> end a line */
+    private char[] chars = new char[BUFFER_SIZE];
+    private int    charPos;
+    private int    charLimit;
+    private int    complete;
+
+    private FileChannel channel;
+    private Object      fileKey;
+
+    private volatile boolean stopped;
+
+    /**
+     * @param output flushed each time the reader waits for more data
+     */
+    public FollowingReader( final Path path, final Flushable output )
+        throws IOException
+    {
+        this.path = path.toAbsolutePath();
+        this.output = output;
+        this.decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput( CodingErrorAction.REPLACE )
+                .onUnmappableCharacter( CodingErrorAction.REPLACE );
+        this.watcher = this.path.getFileSystem().newWatchService();
+        this.path.getParent().register( watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE );
+    }
+
+    /**
+     * Makes the reader end at the end of the complete lines written so far;
+     * may be called by any thread.
+     */
+    public void stop()
+    {
+        stopped = true;
+    }
+
+    @Override
+    public int read( final char[] cbuf, final int off, final int len )
+        throws IOException
+    {
+        if( len == 0 )
+        {
+            return 0;
+        }
+
+        while( charPos == complete )
+        {
+            if( !readLines() )
+            {
+                return -1;
+            }
+        }
+
+        final int count = Math.min( len, complete - charPos );
+        System.arraycopy( chars, charPos, cbuf, off, count );
+        charPos += count;
+
+        return count;
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        try
+        {
+            watcher.close();
+        }
+        finally
+        {
+            if( channel != null )
+            {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Reads until at least one more line is complete, waiting for data at the
+     * end of the file.
+     *
+     * @return <code>false</code> if the reader is stopped
+     */
+    private boolean readLines()
+        throws IOException
+    {
+        compactChars();
+        for( ;; )
+        {
+            if( channel == null && !open() )
+            {
+                if( stopped )
+                {
+                    return false;
+                }
+                await();
+                continue;
+            }
+
+            if( channel.read( bytes ) > 0 )
+            {
+                decode();
+                if( complete > charPos )
+                {
+                    return true;
+                }
+                continue;
+            }
+
+            if( channel.size() < channel.position() )
+            {
+                // truncated; the chars of an unterminated line are gone
+                channel.position( 0 );
+                restart();
+                charLimit = complete;
+                continue;
+            }
+            if( isRotated() )
+            {
+                channel.close();
+                channel = null;
+                restart();
+                if( charLimit > complete )
+                {
+                    appendLineBreak();
+                    return true;
+                }
+                continue;
+            }
+
+            if( stopped )
+            {
+                return false;
+            }
+            output.flush();
+            await();
+        }
+    }
+
+    /**
+     * Opens the file if it exists.
+     *
+     * @return <code>false</code> if there is no file yet
+     */
+    private boolean open()
+        throws IOException
+    {
+        try
+        {
+            channel = FileChannel.open( path, StandardOpenOption.READ );
+        }
+        catch( final NoSuchFileException e )
+        {
+            return false;
+        }
+        fileKey = getFileKey();
+
+        return true;
+    }
+
+    /**
+     * @return <code>true</code> if another file than the one read exists
+     *         under the name
+     */
+    private boolean isRotated()
+        throws IOException
+    {
+        if( fileKey == null || !Files.exists( path ) )
+        {
+            return false;
+        }
+
+        return !fileKey.equals( getFileKey() );
+    }
+
+    private Object getFileKey()
+        throws IOException
+    {
+        try
+        {
+            return Files.readAttributes( path, BasicFileAttributes.class ).fileKey();
+        }
+        catch( final NoSuchFileException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Drops the bytes of the previous content and resets the decoder.
+     */
+    private void restart()
+    {
+        bytes.clear();
+        decoder.reset();
+    }
+
+    private void decode()
+    {
+        bytes.flip();
+        if( charLimit + bytes.remaining() > chars.length )
+        {
+            chars = Arrays.copyOf( chars, Math.max( 2 * chars.length, charLimit + bytes.remaining() ) );
+        }
+        final CharBuffer out = CharBuffer.wrap( chars, charLimit, chars.length - charLimit );
+        decoder.decode( bytes, out, false );
+        bytes.compact();
+
+        final int start = charLimit;
+        charLimit = out.position();
+        for( int i = charLimit - 1; i >= start; i-- )
+        {
+            if( chars[i] == '\n' || chars[i] == '\r' )
+            {
+                complete = i + 1;
+                break;
+            }
+        }
+    }
+
+    private void appendLineBreak()
+    {
+        if( charLimit == chars.length )
+        {
+            chars = Arrays.copyOf( chars, 2 * chars.length );
+        }
+        chars[charLimit++] = '\n';
+        complete = charLimit;
+    }
+
+    private void compactChars()
+    {
+        System.arraycopy( chars, charPos, chars, 0, charLimit - charPos );
+        charLimit -= charPos;
+        complete -= charPos;
+        charPos = 0;
+    }
+
+    /**
+     * Waits for a change in the directory of the file or the poll interval.
+     */
+    private void await()
+        throws IOException
+    {
+        try
+        {
+            final WatchKey key = watcher.poll( POLL_MILLIS, TimeUnit.MILLISECONDS );
+            if( key != null )
+            {
+                key.pollEvents();
+                key.reset();
+            }
+        }
+        catch( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw TimeshifterException.interrupted( e );
+        }
+    }
+}
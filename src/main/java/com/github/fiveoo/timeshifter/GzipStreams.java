@@ -0,0 +1,56 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reading of GZIP compressed data; see {@link ParallelGzipOutputStream} for
+ * writing it.
+ */
+public final class GzipStreams
+{
+    public static final String EXTENSION = ".gz";
+
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+
+    private GzipStreams()
+    {
+    }
+
+    /**
+     * @return <code>true</code> if the file name has the extension of GZIP
+     *         files
+     */
+    public static boolean isGzip( final Path path )
+    {
+        final Path fileName = path.getFileName();
+
+        return fileName != null && fileName.toString().toLowerCase( Locale.ROOT ).endsWith( EXTENSION );
+    }
+
+    /**
+     * Creates a reader decompressing the UTF-8 data of the stream while it is
+     * read.
+     */
+    public static Reader newReader( final InputStream in )
+        throws IOException
+    {
+        return new InputStreamReader( newInputStream( in ), StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Creates a stream decompressing the data of the given stream while it is
+     * read; concatenated GZIP members are read one after the other.
+     */
+    public static InputStream newInputStream( final InputStream in )
+        throws IOException
+    {
+        return new GZIPInputStream( in, INPUT_BUFFER_SIZE );
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader decoding a file directly from memory mapped windows of it.
+ *
+ * The bytes are decoded straight into the buffer of the caller; there is no
+ * intermediate copy like in a stream based reader. Characters split at the
+ * end of a window are handled by mapping the next window starting at the
+ * first byte not decoded yet. Malformed input is reported like
+ * {@link java.nio.file.Files#newBufferedReader(Path, Charset)} does.
+ *
+ * A reader may be limited to a byte range of the file, e.g. a chunk of
+ * records found by {@link CsvRecordSplitter}, so a file can be read by
+ * several readers concurrently.
+ *
+ * Only files of the default file system can be mapped.
+ */
+public class MappedFileReader
+    extends
+        Reader
+{
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final int MIN_WINDOW_SIZE = 16;
+
+    private final FileChannel    channel;
+    private final long           size;
+    private final int            windowSize;
+    private final CharsetDecoder decoder;
+
+    private MappedByteBuffer window;
+    private long             windowStart;
+    private boolean          finished;
+
+    /** low surrogate not fitting into the buffer of the caller */
+    private int leftover = -1;
+
+    public MappedFileReader( final Path path )
+        throws IOException
+    {
+        this( path, StandardCharsets.UTF_8, DEFAULT_WINDOW_SIZE );
+    }
+
+    public MappedFileReader( final Path path, final Charset charset, final int windowSize )
+        throws IOException
+    {
+        this( path, charset, windowSize, 0, Long.MAX_VALUE );
+    }
+
+    /**
+     * Reads the bytes from <code>start</code> up to <code>end</code> only.
+     *
+     * @param start byte position to start at; has to be the start of a
+     *            character
+     * @param end byte position to end at; has to be the end of a character
+     */
+    public MappedFileReader( final Path path, final Charset charset, final int windowSize, final long start,
+            final long end )
+        throws IOException
+    {
+        this.channel = FileChannel.open( path, StandardOpenOption.READ );
+        this.windowSize = Math.max( MIN_WINDOW_SIZE, windowSize );
+        this.decoder = charset.newDecoder();
+        try
+        {
+            this.size = Math.min( end, channel.size() );
+            seek( start );
+        }
+        catch( final IOException | RuntimeException e )
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read( final char[] cbuf, final int off, final int len )
+        throws IOException
+    {
+        if( !channel.isOpen() )
+        {
+            throw new IOException( "Stream closed" );
+        }
+        if( len == 0 )
+        {
+            return 0;
+        }
+
+        if( leftover >= 0 )
+        {
+            cbuf[off] = (char) leftover;
+            leftover = -1;
+
+            return 1;
+        }
+        if( len == 1 )
+        {
+            // a surrogate pair needs room for two chars
+            final char[] pair = new char[2];
+            final int count = read( pair, 0, 2 );
+            if( count > 0 )
+            {
+                cbuf[off] = pair[0];
+                leftover = count == 2 ? pair[1] : -1;
+            }
+
+            return Math.min( count, 1 );
+        }
+
+        final CharBuffer out = CharBuffer.wrap( cbuf, off, len );
+        while( out.position() == off )
+        {
+            if( finished )
+            {
+                return -1;
+            }
+            if( window == null )
+            {
+                map( 0 );
+            }
+
+            final boolean lastWindow = windowStart + window.limit() >= size;
+            CoderResult result = decoder.decode( window, out, lastWindow );
+            if( result.isUnderflow() )
+            {
+                if( lastWindow )
+                {
+                    result = decoder.flush( out );
+                    finished = true;
+                }
+                else
+                {
+                    map( windowStart + window.position() );
+                }
+            }
+            if( result.isError() )
+            {
+                result.throwException();
+            }
+        }
+
+        return out.position() - off;
+    }
+
+    /**
+     * Continues reading at the given byte position of the file, which has to
+     * be the start of a character.
+     */
+    public void seek( final long position )
+        throws IOException
+    {
+        decoder.reset();
+        leftover = -1;
+        finished = position >= size;
+        window = null;
+        if( !finished )
+        {
+            map( position );
+        }
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        window = null;
+        channel.close();
+    }
+
+    private void map( final long start )
+        throws IOException
+    {
+        windowStart = start;
+        window = channel.map( FileChannel.MapMode.READ_ONLY, start, Math.min( windowSize, size - start ) );
+    }
+}
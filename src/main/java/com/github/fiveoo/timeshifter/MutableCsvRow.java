@@ -0,0 +1,102 @@
+package com.github.fiveoo.timeshifter;
+
+import java.util.Arrays;
+
+/**
+ * Row whose fields are set by the caller, so one instance can be reused for
+ * all rows pushed to a {@link ShiftSession}. The fields are referenced, not
+ * copied; they must not change until the row is pushed.
+ */
+public final class MutableCsvRow
+    implements
+        CsvRow
+{
+    private CharSequence[] fields;
+    private int            size;
+
+    public MutableCsvRow()
+    {
+        this( 16 );
+    }
+
+    /**
+     * @param capacity number of fields the row can hold before it grows
+     */
+    public MutableCsvRow( final int capacity )
+    {
+        this.fields = new CharSequence[Math.max( capacity, 1 )];
+    }
+
+    /**
+     * Removes all fields.
+     */
+    public MutableCsvRow clear()
+    {
+        Arrays.fill( fields, 0, size, null );
+        size = 0;
+
+        return this;
+    }
+
+    /**
+     * Appends a field; <code>null</code> denotes a missing field.
+     */
+    public MutableCsvRow add( final CharSequence value )
+    {
+        if( size == fields.length )
+        {
+            fields = Arrays.copyOf( fields, 2 * size );
+        }
+        fields[size++] = value;
+
+        return this;
+    }
+
+    /**
+     * Replaces all fields by the given values.
+     */
+    public MutableCsvRow setAll( final CharSequence... values )
+    {
+        clear();
+        if( fields.length < values.length )
+        {
+            fields = new CharSequence[values.length];
+        }
+        System.arraycopy( values, 0, fields, 0, values.length );
+        size = values.length;
+
+        return this;
+    }
+
+    /**
+     * Replaces the field with the given index.
+     */
+    public MutableCsvRow set( final int idx, final CharSequence value )
+    {
+        fields[checkIdx( idx )] = value;
+
+        return this;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public CharSequence get( final int idx )
+    {
+        return fields[checkIdx( idx )];
+    }
+
+    private int checkIdx( final int idx )
+    {
+        if( idx < 0 || idx >= size )
+        {
+            throw new IndexOutOfBoundsException( "Field " + idx + " of " + size );
+        }
+
+        return idx;
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.fiveoo.timeshifter;
+
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import java.util.MissingFormatArgumentException;
+
+/**
+ * Output line pattern (see {@link TimeshifterConfig#getOutputLineFormat()})
+ * compiled once into a list of literal and field reference segments.
+ *
+ * Only the subset <code>%N$s</code>, <code>%n</code> and <code>%%</code> of
+ * the {@link Formatter} syntax is compiled. Patterns using anything else are
+ * delegated to {@link Formatter} so the result is always the same as
+ * {@link String#format(String, Object...)}.
+ */
+public abstract class OutputLineTemplate
+{
+    /**
+     * Values an output line is built of.
+     */
+    public interface Fields
+    {
+        int size();
+
+        void appendTo( int idx, StringBuilder out );
+    }
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /**
+     * Compiles the given pattern.
+     *
+     * @param pattern output line pattern; <code>null</code> for the default
+     *            line containing all fields separated by comma
+     *
+     * @return the compiled template
+     */
+    public static OutputLineTemplate compile( final String pattern )
+    {
+        if( pattern == null )
+        {
+            return new DefaultTemplate();
+        }
+
+        final List<String> literals = new ArrayList<>();
+        final List<Integer> segments = new ArrayList<>();
+        final List<String> specifiers = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+
+        int pos = 0;
+        while( pos < pattern.length() )
+        {
+            final char c = pattern.charAt( pos );
+            if( c != '%' )
+            {
+                literal.append( c );
+                pos++;
+                continue;
+            }
+            if( pos + 1 >= pattern.length() )
+            {
+                return new FormatterTemplate( pattern );
+            }
+
+            final char conversion = pattern.charAt( pos + 1 );
+            if( conversion == '%' )
+            {
+                literal.append( '%' );
+                pos += 2;
+            }
+            else if( conversion == 'n' )
+            {
+                literal.append( LINE_SEPARATOR );
+                pos += 2;
+            }
+            else
+            {
+                final int end = findArgumentIndexEnd( pattern, pos + 1 );
+                if( end < 0 )
+                {
+                    return new FormatterTemplate( pattern );
+                }
+
+                if( literal.length() > 0 )
+                {
+                    segments.add( -( literals.size() + 1 ) );
+                    literals.add( literal.toString() );
+                    literal.setLength( 0 );
+                }
+                segments.add( Integer.parseInt( pattern.substring( pos + 1, end ) ) - 1 );
+                specifiers.add( pattern.substring( pos, end + 2 ) );
+                pos = end + 2;
+            }
+        }
+        if( literal.length() > 0 )
+        {
+            segments.add( -( literals.size() + 1 ) );
+            literals.add( literal.toString() );
+        }
+
+        return new CompiledTemplate( literals, segments, specifiers );
+    }
+
+    /**
+     * Returns the position of the <code>$</code> of a <code>N$s</code>
+     * specifier starting at <code>start</code> or -1 if there is none.
+     */
+    private static int findArgumentIndexEnd( final String pattern, final int start )
+    {
+        int pos = start;
+        while( pos < pattern.length() && pattern.charAt( pos ) >= '0' && pattern.charAt( pos ) <= '9' )
+        {
+            pos++;
+        }
+
+        final int digits = pos - start;
+        if( digits == 0 || digits > 9 || pattern.charAt( start ) == '0' )
+        {
+            return -1;
+        }
+        if( pos + 1 >= pattern.length() || pattern.charAt( pos ) != '$' || pattern.charAt( pos + 1 ) != 's' )
+        {
+            return -1;
+        }
+
+        return pos;
+    }
+
+    /**
+     * Appends the formatted line to <code>out</code>.
+     *
+     * @throws java.util.IllegalFormatException if the pattern references a
+     *             field not contained in <code>fields</code>
+     */
+    public abstract void appendTo( StringBuilder out, Fields fields );
+
+    public String format( final Fields fields )
+    {
+        final StringBuilder out = new StringBuilder();
+        appendTo( out, fields );
+
+        return out.toString();
+    }
+
+    private static final class DefaultTemplate
+        extends
+            OutputLineTemplate
+    {
+        @Override
+        public void appendTo( final StringBuilder out, final Fields fields )
+        {
+            final int size = fields.size();
+            for( int i = 0; i < size; i++ )
+            {
+                if( i > 0 )
+                {
+                    out.append( ',' );
+                }
+                fields.appendTo( i, out );
+            }
+            if( size > 0 )
+            {
+                out.append( LINE_SEPARATOR );
+            }
+        }
+    }
+
+    private static final class CompiledTemplate
+        extends
+            OutputLineTemplate
+    {
+        private final String[] literals;
+
+        /** field index if &gt;= 0, -(literal index + 1) otherwise */
+        private final int[] segments;
+
+        private final String[] specifiers;
+
+        CompiledTemplate( final List<String> literals, final List<Integer> segments, final List<String> specifiers )
+        {
+            this.literals = literals.toArray( new String[literals.size()] );
+            this.segments = segments.stream().mapToInt( Integer::intValue ).toArray();
+            this.specifiers = specifiers.toArray( new String[specifiers.size()] );
+        }
+
+        @Override
+        public void appendTo( final StringBuilder out, final Fields fields )
+        {
+            final int size = fields.size();
+            int fieldRef = 0;
+            for( final int segment : segments )
+            {
+                if( segment < 0 )
+                {
+                    out.append( literals[-segment - 1] );
+                }
+                else
+                {
+                    if( segment >= size )
+                    {
+                        throw new MissingFormatArgumentException( specifiers[fieldRef] );
+                    }
+                    fields.appendTo( segment, out );
+                    fieldRef++;
+                }
+            }
+        }
+    }
+
+    private static final class FormatterTemplate
+        extends
+            OutputLineTemplate
+    {
+        private final String pattern;
+
+        FormatterTemplate( final String pattern )
+        {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public void appendTo( final StringBuilder out, final Fields fields )
+        {
+            final Object[] args = new Object[fields.size()];
+            final StringBuilder field = new StringBuilder();
+            for( int i = 0; i < args.length; i++ )
+            {
+                field.setLength( 0 );
+                fields.appendTo( i, field );
+                args[i] = field.toString();
+            }
+
+            new Formatter( out ).format( pattern, args );
+        }
+    }
+}
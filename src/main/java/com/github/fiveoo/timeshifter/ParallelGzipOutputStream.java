@@ -0,0 +1,313 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Output stream writing the GZIP format, compressing blocks of the data on
+ * several threads like pigz does.
+ *
+ * The data is split into blocks which are deflated concurrently, each
+ * primed with the last 32 KiB of the previous block as dictionary and ended
+ * by a sync flush, so the compressed blocks simply concatenate to one deflate
+ * stream. The blocks are written in order; the CRC of the data is computed
+ * while the blocks are collected.
+ *
+ * {@link #flush()} compresses the data not making up a complete block yet
+ * as a block of its own and writes all blocks, so a reader can decompress
+ * everything written so far; frequent flushes cost compression ratio and
+ * parallelism.
+ */
+public class ParallelGzipOutputStream
+    extends
+        OutputStream
+{
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final OutputStream          out;
+    private final int                   level;
+    private final int                   threads;
+    private final ExecutorService       executor;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final CRC32                 crc     = new CRC32();
+    private byte[]                      block;
+    private int                         blockLength;
+    private byte[]                      dictionary;
+    private long                        length;
+    private boolean                     headerWritten;
+    private boolean                     closed;
+
+    public ParallelGzipOutputStream( final OutputStream out, final int threads )
+    {
+        this( out, threads, Deflater.DEFAULT_COMPRESSION, DEFAULT_BLOCK_SIZE );
+    }
+
+    /**
+     * @param threads number of blocks compressed at the same time
+     * @param level compression level of {@link Deflater}
+     * @param blockSize size of the blocks compressed independently
+     */
+    public ParallelGzipOutputStream( final OutputStream out, final int threads, final int level,
+            final int blockSize )
+    {
+        this.out = out;
+        this.level = level;
+        this.threads = Math.max( 1, threads );
+        this.executor = Executors.newFixedThreadPool( this.threads, createThreadFactory() );
+        this.block = new byte[Math.max( DICTIONARY_SIZE, blockSize )];
+    }
+
+    @Override
+    public void write( final int b )
+        throws IOException
+    {
+        ensureOpen();
+        if( blockLength == block.length )
+        {
+            submitBlock( false );
+        }
+        block[blockLength++] = (byte) b;
+    }
+
+    @Override
+    public void write( final byte[] b, final int off, final int len )
+        throws IOException
+    {
+        ensureOpen();
+        int pos = off;
+        final int end = off + len;
+        while( pos < end )
+        {
+            if( blockLength == block.length )
+            {
+                submitBlock( false );
+            }
+            final int count = Math.min( end - pos, block.length - blockLength );
+            System.arraycopy( b, pos, block, blockLength, count );
+            blockLength += count;
+            pos += count;
+        }
+    }
+
+    /**
+     * Compresses the data collected so far, ended by a sync flush, and waits
+     * for all blocks to be written.
+     */
+    @Override
+    public void flush()
+        throws IOException
+    {
+        ensureOpen();
+        if( blockLength > 0 )
+        {
+            submitBlock( false );
+        }
+        while( !pending.isEmpty() )
+        {
+            writeNextBlock();
+        }
+        out.flush();
+    }
+
+    /**
+     * Compresses the remaining data, writes the GZIP trailer and closes the
+     * underlying stream, even if compressing fails.
+     */
+    @Override
+    public void close()
+        throws IOException
+    {
+        if( closed )
+        {
+            return;
+        }
+
+        try
+        {
+            submitBlock( true );
+            while( !pending.isEmpty() )
+            {
+                writeNextBlock();
+            }
+            writeTrailer();
+            out.flush();
+        }
+        finally
+        {
+            closed = true;
+            executor.shutdownNow();
+            out.close();
+        }
+    }
+
+    /**
+     * Hands the collected block over to a worker thread; waits for the
+     * oldest block first if too many are pending.
+     */
+    private void submitBlock( final boolean last )
+        throws IOException
+    {
+        if( !headerWritten )
+        {
+            out.write( HEADER );
+            headerWritten = true;
+        }
+        if( pending.size() >= maxPendingBlocks() )
+        {
+            writeNextBlock();
+        }
+
+        final byte[] data = block;
+        final int dataLength = blockLength;
+        final byte[] dict = dictionary;
+        crc.update( data, 0, dataLength );
+        length += dataLength;
+        pending.addLast( executor.submit( () -> deflate( data, dataLength, dict, last ) ) );
+
+        dictionary = nextDictionary( dict, data, dataLength );
+        block = new byte[block.length];
+        blockLength = 0;
+    }
+
+    /**
+     * @return the last 32 KiB of the data so far; blocks submitted by
+     *         {@link #flush()} may be shorter
+     */
+    private static byte[] nextDictionary( final byte[] dict, final byte[] data, final int dataLength )
+    {
+        if( dataLength >= DICTIONARY_SIZE || dict == null )
+        {
+            return Arrays.copyOfRange( data, Math.max( 0, dataLength - DICTIONARY_SIZE ), dataLength );
+        }
+
+        final int kept = Math.min( dict.length, DICTIONARY_SIZE - dataLength );
+        final byte[] next = new byte[kept + dataLength];
+        System.arraycopy( dict, dict.length - kept, next, 0, kept );
+        System.arraycopy( data, 0, next, kept, dataLength );
+
+        return next;
+    }
+
+    private byte[] deflate( final byte[] data, final int dataLength, final byte[] dict, final boolean last )
+    {
+        final Deflater deflater = new Deflater( level, true );
+        try
+        {
+            if( dict != null && dict.length > 0 )
+            {
+                deflater.setDictionary( dict );
+            }
+            deflater.setInput( data, 0, dataLength );
+            if( last )
+            {
+                deflater.finish();
+            }
+
+            byte[] compressed = new byte[dataLength / 2 + 64];
+            int compressedLength = 0;
+            while( true )
+            {
+                if( compressedLength == compressed.length )
+                {
+                    compressed = Arrays.copyOf( compressed, compressed.length * 2 );
+                }
+                final int count = deflater.deflate( compressed, compressedLength, compressed.length - compressedLength,
+                        last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH );
+                compressedLength += count;
+                if( last ? deflater.finished() : compressedLength < compressed.length && deflater.needsInput() )
+                {
+                    return Arrays.copyOf( compressed, compressedLength );
+                }
+            }
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    private void writeNextBlock()
+        throws IOException
+    {
+        out.write( await( pending.removeFirst() ) );
+    }
+
+    private void writeTrailer()
+        throws IOException
+    {
+        final long value = crc.getValue();
+        out.write( new byte[] { (byte) value, (byte) ( value >> 8 ), (byte) ( value >> 16 ), (byte) ( value >> 24 ),
+                (byte) length, (byte) ( length >> 8 ), (byte) ( length >> 16 ), (byte) ( length >> 24 ) } );
+    }
+
+    /**
+     * @return number of blocks being compressed or waiting to be written
+     *         before further writes wait
+     */
+    private int maxPendingBlocks()
+    {
+        return 2 * threads;
+    }
+
+    private static byte[] await( final Future<byte[]> future )
+        throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw TimeshifterException.interrupted( e );
+        }
+        catch( final ExecutionException e )
+        {
+            if( e.getCause() instanceof Error )
+            {
+                throw (Error) e.getCause();
+            }
+            throw new IOException( "Could not compress output", e.getCause() );
+        }
+    }
+
+    private void ensureOpen()
+        throws IOException
+    {
+        if( closed )
+        {
+            throw new IOException( "Stream closed" );
+        }
+    }
+
+    private static ThreadFactory createThreadFactory()
+    {
+        final int pool = POOL_COUNT.incrementAndGet();
+        final AtomicInteger threadCount = new AtomicInteger();
+
+        return runnable -> {
+            final Thread thread =
+                    new Thread( runnable, "timeshifter-gzip-" + pool + "-worker-" + threadCount.incrementAndGet() );
+            thread.setDaemon( true );
+
+            return thread;
+        };
+    }
+}
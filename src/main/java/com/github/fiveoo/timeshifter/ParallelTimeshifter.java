@@ -0,0 +1,304 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shifts CSV input on several threads.
+ *
+ * The input is read sequentially and split into batches of complete rows
+ * (so quoted fields containing line breaks are never torn apart). The batches
+ * are shifted on a pool of worker threads and written in input order or, if
+ * requested, in the order they are finished.
+ *
+ * Files of the default file system can instead be split into chunks of
+ * complete records by scanning their memory mapped bytes
+ * ({@link #shiftFile(Path, Writer)}); each chunk is then read and tokenized
+ * by its worker, so reading doesn't limit the throughput to one thread.
+ *
+ * Header, footer and the lines to skip are handled exactly like
+ * {@link Timeshifter#shiftCsv(Reader, Writer)} does.
+ */
+public class ParallelTimeshifter
+{
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    public static final long DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    /** Upper limit of the initial capacity of the output of a chunk. */
+    private static final int MAX_CHUNK_CAPACITY = 1024 * 1024;
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final Timeshifter shifter;
+    private final int         threads;
+    private final boolean     ordered;
+    private final int         batchSize;
+    private final long        chunkSize;
+
+    /**
+     * @param threads number of worker threads
+     * @param ordered <code>true</code> to write the output lines in the order
+     *            of the input lines
+     */
+    public ParallelTimeshifter( final Timeshifter shifter, final int threads, final boolean ordered )
+    {
+        this( shifter, threads, ordered, DEFAULT_BATCH_SIZE );
+    }
+
+    public ParallelTimeshifter( final Timeshifter shifter, final int threads, final boolean ordered,
+            final int batchSize )
+    {
+        this( shifter, threads, ordered, batchSize, DEFAULT_CHUNK_SIZE );
+    }
+
+    /**
+     * @param batchSize number of rows per batch read by
+     *            {@link #shiftCsv(Reader, Writer)}
+     * @param chunkSize minimal number of bytes per chunk of
+     *            {@link #shiftFile(Path, Writer)}
+     */
+    public ParallelTimeshifter( final Timeshifter shifter, final int threads, final boolean ordered,
+            final int batchSize, final long chunkSize )
+    {
+        this.shifter = shifter;
+        this.threads = Math.max( 1, threads );
+        this.ordered = ordered;
+        this.batchSize = Math.max( 1, batchSize );
+        this.chunkSize = Math.max( 1, chunkSize );
+    }
+
+    public void shiftCsv( final Reader in, final Writer out )
+        throws IOException
+    {
+        try (final CsvTokenizer tokenizer = shifter.createTokenizer( in ))
+        {
+            shift( () -> {
+                final List<String[]> rows = readBatch( tokenizer );
+
+                return rows.isEmpty() ? null : () -> transform( rows );
+            }, out );
+        }
+    }
+
+    /**
+     * Shifts the UTF-8 CSV file of the default file system like
+     * {@link #shiftCsv(Reader, Writer)} but reads it in chunks of complete
+     * records on the worker threads.
+     */
+    public void shiftFile( final Path input, final Writer out )
+        throws IOException
+    {
+        final long[] bounds = CsvRecordSplitter.split( input, shifter.getPlan().getInLinesSkip(), chunkSize );
+        final int[] next = new int[1];
+        shift( () -> {
+            final int chunk = next[0]++;
+
+            return chunk + 1 < bounds.length && bounds[chunk] < bounds[chunk + 1]
+                    ? () -> transform( input, bounds[chunk], bounds[chunk + 1] ) : null;
+        }, out );
+    }
+
+    private void shift( final BatchSource batches, final Writer out )
+        throws IOException
+    {
+        final ExecutorService executor = Executors.newFixedThreadPool( threads, createThreadFactory() );
+        try
+        {
+            shifter.writeHeader( out );
+            if( ordered )
+            {
+                shiftOrdered( batches, out, executor );
+            }
+            else
+            {
+                shiftUnordered( batches, out, executor );
+            }
+            shifter.writeFooter( out );
+            shifter.reportRejects();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private void shiftOrdered( final BatchSource batches, final Writer out, final ExecutorService executor )
+        throws IOException
+    {
+        final Deque<Future<CharSequence>> pending = new ArrayDeque<>();
+
+        Callable<CharSequence> batch;
+        while( ( batch = batches.next() ) != null )
+        {
+            if( pending.size() >= maxPendingBatches() )
+            {
+                shifter.write( await( pending.removeFirst() ), out );
+            }
+            pending.addLast( executor.submit( batch ) );
+        }
+
+        while( !pending.isEmpty() )
+        {
+            shifter.write( await( pending.removeFirst() ), out );
+        }
+    }
+
+    private void shiftUnordered( final BatchSource batches, final Writer out, final ExecutorService executor )
+        throws IOException
+    {
+        final CompletionService<CharSequence> completionService = new ExecutorCompletionService<>( executor );
+        int pending = 0;
+
+        Callable<CharSequence> batch;
+        while( ( batch = batches.next() ) != null )
+        {
+            if( pending >= maxPendingBatches() )
+            {
+                shifter.write( await( take( completionService ) ), out );
+                pending--;
+            }
+            completionService.submit( batch );
+            pending++;
+        }
+
+        for( ; pending > 0; pending-- )
+        {
+            shifter.write( await( take( completionService ) ), out );
+        }
+    }
+
+    private List<String[]> readBatch( final CsvTokenizer tokenizer )
+        throws IOException
+    {
+        final List<String[]> batch = new ArrayList<>( batchSize );
+        while( batch.size() < batchSize && shifter.next( tokenizer ) )
+        {
+            batch.add( tokenizer.toArray() );
+        }
+
+        return batch;
+    }
+
+    private CharSequence transform( final List<String[]> rows )
+    {
+        final StringBuilder lines = new StringBuilder( rows.size() * 128 );
+        for( final String[] values : rows )
+        {
+            shifter.appendLine( values, lines );
+        }
+
+        return lines;
+    }
+
+    /**
+     * Shifts the records of a chunk of the file.
+     */
+    private CharSequence transform( final Path input, final long start, final long end )
+        throws IOException
+    {
+        // output lines are longer than the input; the builder grows as needed
+        final StringBuilder lines = new StringBuilder( (int) Math.min( MAX_CHUNK_CAPACITY, end - start ) );
+        try (final CsvTokenizer tokenizer = new CsvTokenizer( new MappedFileReader( input, StandardCharsets.UTF_8,
+                (int) Math.min( MappedFileReader.DEFAULT_WINDOW_SIZE, end - start ), start, end ) ))
+        {
+            while( shifter.next( tokenizer ) )
+            {
+                shifter.appendLine( tokenizer, lines );
+            }
+        }
+
+        return lines;
+    }
+
+    /**
+     * @return number of batches being processed or waiting to be written
+     *         before reading of the input is paused
+     */
+    private int maxPendingBatches()
+    {
+        return 2 * threads;
+    }
+
+    private static Future<CharSequence> take( final CompletionService<CharSequence> completionService )
+    {
+        try
+        {
+            return completionService.take();
+        }
+        catch( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw TimeshifterException.interrupted( e );
+        }
+    }
+
+    private static CharSequence await( final Future<CharSequence> future )
+    {
+        try
+        {
+            return future.get();
+        }
+        catch( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw TimeshifterException.interrupted( e );
+        }
+        catch( final ExecutionException e )
+        {
+            if( e.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            if( e.getCause() instanceof Error )
+            {
+                throw (Error) e.getCause();
+            }
+            throw TimeshifterException.errorProcessingInput( e.getCause() );
+        }
+    }
+
+    /**
+     * Source of the batches to shift read on the calling thread.
+     */
+    @FunctionalInterface
+    private interface BatchSource
+    {
+        /**
+         * @return the task shifting the next batch; <code>null</code> at the
+         *         end of the input
+         */
+        Callable<CharSequence> next()
+            throws IOException;
+    }
+
+    private static ThreadFactory createThreadFactory()
+    {
+        final int pool = POOL_COUNT.incrementAndGet();
+        final AtomicInteger threadCount = new AtomicInteger();
+
+        return runnable -> {
+            final Thread thread =
+                    new Thread( runnable, "timeshifter-" + pool + "-worker-" + threadCount.incrementAndGet() );
+            thread.setDaemon( true );
+
+            return thread;
+        };
+    }
+}
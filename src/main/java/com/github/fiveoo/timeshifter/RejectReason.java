@@ -0,0 +1,19 @@
+package com.github.fiveoo.timeshifter;
+
+/**
+ * Reasons a row of the input can't be shifted.
+ */
+public enum RejectReason
+{
+    /** the row doesn't contain the fields to read the date/times from */
+    TOO_FEW_FIELDS,
+
+    /** the date/time to shift can't be parsed */
+    INVALID_DATE_TIME_TO_SHIFT,
+
+    /** the date/time to take the offset from can't be parsed */
+    INVALID_OFFSET_DATE_TIME,
+
+    /** any other error while shifting or formatting the row */
+    ERROR
+}
@@ -0,0 +1,186 @@
+package com.github.fiveoo.timeshifter;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Reports the rows that can't be shifted.
+ *
+ * Only the first rows of each {@link RejectReason} are logged with their
+ * content. The following ones are just counted and logged as summary at most
+ * once per interval and on {@link #flush()}, so dirty input doesn't flood the
+ * log.
+ *
+ * If a reject writer is given every rejected row is written to it as CSV line
+ * followed by the reason and the details of the error.
+ *
+ * Instances are thread-safe.
+ */
+public class RejectedRows
+    implements
+        Flushable
+{
+    public static final int DEFAULT_LOGGED_ROWS_PER_REASON = 10;
+
+    private static final long SUMMARY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos( 1 );
+
+    private static final RejectReason[] REASONS = RejectReason.values();
+
+    private final Consumer<String> log;
+    private final Writer           rejectWriter;
+    private final int              loggedRowsPerReason;
+
+    private final AtomicLongArray counts     = new AtomicLongArray( REASONS.length );
+    private final AtomicLongArray unreported = new AtomicLongArray( REASONS.length );
+
+    private volatile long nextSummary = System.nanoTime() + SUMMARY_INTERVAL_NANOS;
+
+    /**
+     * @param log receiver of the log messages
+     * @param rejectWriter writer of the rejected rows; may be <code>null</code>
+     */
+    public RejectedRows( final Consumer<String> log, final Writer rejectWriter )
+    {
+        this( log, rejectWriter, DEFAULT_LOGGED_ROWS_PER_REASON );
+    }
+
+    public RejectedRows( final Consumer<String> log, final Writer rejectWriter, final int loggedRowsPerReason )
+    {
+        this.log = log;
+        this.rejectWriter = rejectWriter;
+        this.loggedRowsPerReason = loggedRowsPerReason;
+    }
+
+    /**
+     * Reports a row that couldn't be shifted.
+     *
+     * @param detail description of the error
+     */
+    public void reject( final CsvRow row, final RejectReason reason, final String detail )
+    {
+        final long count = counts.incrementAndGet( reason.ordinal() );
+        if( count <= loggedRowsPerReason )
+        {
+            log.accept( "Could not shift time of input data: " + row.join() + "  " + reason + ": " + detail
+                    + ( count == loggedRowsPerReason ? " (further rows rejected for this reason are summarized)"
+                            : "" ) );
+        }
+        else
+        {
+            unreported.incrementAndGet( reason.ordinal() );
+            if( System.nanoTime() - nextSummary >= 0 )
+            {
+                logSummary();
+            }
+        }
+
+        if( rejectWriter != null )
+        {
+            writeReject( row, reason, detail );
+        }
+    }
+
+    /**
+     * @return number of rows rejected for the given reason
+     */
+    public long getCount( final RejectReason reason )
+    {
+        return counts.get( reason.ordinal() );
+    }
+
+    /**
+     * Logs the rows not reported yet and flushes the reject writer.
+     */
+    @Override
+    public void flush()
+        throws IOException
+    {
+        logSummary();
+        if( rejectWriter != null )
+        {
+            synchronized( rejectWriter )
+            {
+                rejectWriter.flush();
+            }
+        }
+    }
+
+    private synchronized void logSummary()
+    {
+        nextSummary = System.nanoTime() + SUMMARY_INTERVAL_NANOS;
+
+        final StringBuilder summary = new StringBuilder();
+        for( final RejectReason reason : REASONS )
+        {
+            final long count = unreported.getAndSet( reason.ordinal(), 0 );
+            if( count > 0 )
+            {
+                summary.append( summary.length() == 0 ? "Further rows rejected: " : ", " ).append( count )
+                        .append( " x " ).append( reason );
+            }
+        }
+        if( summary.length() > 0 )
+        {
+            log.accept( summary.toString() );
+        }
+    }
+
+    private void writeReject( final CsvRow row, final RejectReason reason, final String detail )
+    {
+        final StringBuilder line = new StringBuilder( 256 );
+        for( int i = 0; i < row.size(); i++ )
+        {
+            appendCsvField( line, row.get( i ) ).append( ',' );
+        }
+        line.append( reason ).append( ',' );
+        appendCsvField( line, detail ).append( System.lineSeparator() );
+
+        try
+        {
+            synchronized( rejectWriter )
+            {
+                rejectWriter.append( line );
+            }
+        }
+        catch( final IOException e )
+        {
+            throw TimeshifterException.errorWritingOutput( e );
+        }
+    }
+
+    private static StringBuilder appendCsvField( final StringBuilder out, final CharSequence value )
+    {
+        if( value == null )
+        {
+            return out;
+        }
+
+        boolean quote = false;
+        for( int i = 0; i < value.length() && !quote; i++ )
+        {
+            final char c = value.charAt( i );
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if( !quote )
+        {
+            return out.append( value );
+        }
+
+        out.append( '"' );
+        for( int i = 0; i < value.length(); i++ )
+        {
+            final char c = value.charAt( i );
+            out.append( c );
+            if( c == '"' )
+            {
+                out.append( '"' );
+            }
+        }
+
+        return out.append( '"' );
+    }
+}
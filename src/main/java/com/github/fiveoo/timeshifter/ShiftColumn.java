@@ -0,0 +1,96 @@
+package com.github.fiveoo.timeshifter;
+
+import java.text.Format;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Field of the input holding a date/time to shift, with the format and zone
+ * to read it and the parsers for them created once.
+ *
+ * All columns of a row are shifted to the same offset, which is taken from
+ * one field of the row or fixed (see {@link ShiftPlan#isFixedOffset()}).
+ * Instances are immutable.
+ */
+public final class ShiftColumn
+{
+    private final int                 idx;
+    private final DateTimeFormatter   formatter;
+    private final ZoneId              zone;
+    private final Format              parseFormat;
+    private final FastDateTimeParser  parser;
+    private final EpochUnit           epochUnit;
+    private final ZoneTransitionTable zoneTable;
+
+    /**
+     * @param idx 0-based index of the field
+     * @param zone zone of the date/time if not contained in the field itself;
+     *            may be <code>null</code> and is ignored for the formatter of
+     *            an {@link EpochUnit}, whose numbers denote an instant
+     */
+    public ShiftColumn( final int idx, final DateTimeFormatter formatter, final ZoneId zone )
+    {
+        this.idx = idx;
+        this.formatter = formatter;
+        epochUnit = EpochUnit.of( formatter );
+        this.zone = epochUnit == null ? zone : null;
+        parseFormat = this.zone == null ? formatter.toFormat( OffsetDateTime::from )
+                : formatter.toFormat( LocalDateTime::from );
+        parser = FastDateTimeParser.forFormatter( formatter );
+        zoneTable = this.zone == null ? null : ZoneTransitionTable.of( this.zone );
+    }
+
+    public int getIdx()
+    {
+        return idx;
+    }
+
+    public DateTimeFormatter getFormatter()
+    {
+        return formatter;
+    }
+
+    public ZoneId getZone()
+    {
+        return zone;
+    }
+
+    /**
+     * @return format parsing by {@link #getFormatter()} without throwing
+     *         exceptions; the result is an {@link OffsetDateTime} or, if
+     *         {@link #getZone()} is set, a {@link LocalDateTime}
+     */
+    public Format getParseFormat()
+    {
+        return parseFormat;
+    }
+
+    /**
+     * @return parser for the layout of {@link #getFormatter()} or
+     *         <code>null</code> if there's no specialized parser for it
+     */
+    public FastDateTimeParser getParser()
+    {
+        return parser;
+    }
+
+    /**
+     * @return unit of the numbers read by {@link #getFormatter()} or
+     *         <code>null</code> if the field holds a formatted date/time
+     */
+    public EpochUnit getEpochUnit()
+    {
+        return epochUnit;
+    }
+
+    /**
+     * @return precomputed transitions of {@link #getZone()} or
+     *         <code>null</code> if no zone is set
+     */
+    public ZoneTransitionTable getZoneTable()
+    {
+        return zoneTable;
+    }
+}
@@ -0,0 +1,263 @@
+package com.github.fiveoo.timeshifter;
+
+import java.text.Format;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of a {@link TimeshifterConfig} with all formatters and
+ * the output line template created once.
+ *
+ * A plan never changes after creation, so it (and the {@link Timeshifter}
+ * using it) can be shared between threads.
+ */
+public final class ShiftPlan
+{
+    private final List<ShiftColumn> inDateShiftColumns;
+
+    private final DateTimeFormatter  inDateOffsetFormatter;
+    private final Format             inDateOffsetParseFormat;
+    private final FastDateTimeParser inDateOffsetParser;
+    private final int                inDateOffsetIdx;
+
+    private final int inLinesSkip;
+    private final int requiredFields;
+
+    private final ZoneOffset            outDateShiftedOffset;
+    private final DateTimeFormatter     outDateShiftedFormatter;
+    private final DateTimeFormatter     outDateShiftedFormatterLocal;
+    private final FastDateTimeFormatter outDateShiftedFastFormatter;
+    private final EpochUnit             outDateShiftedEpochUnit;
+    private final boolean               outOffsetSeconds;
+
+    private final OutputLineTemplate outputLineTemplate;
+    private final String             outHeaderFormat;
+    private final String             outFooterFormat;
+
+    private final int shiftCacheSize;
+
+    public ShiftPlan( final TimeshifterConfig config )
+    {
+        inDateShiftColumns = Collections.unmodifiableList( new ArrayList<>( config.getInDateShiftColumns() ) );
+        if( inDateShiftColumns.isEmpty() )
+        {
+            throw new IllegalArgumentException( "At least one column to shift is required" );
+        }
+
+        inDateOffsetFormatter = config.getInDateOffsetFormatter();
+        inDateOffsetParseFormat = inDateOffsetFormatter.toFormat( OffsetDateTime::from );
+        inDateOffsetParser = FastDateTimeParser.forFormatter( inDateOffsetFormatter );
+        inDateOffsetIdx = config.getInDateOffsetIdx();
+
+        inLinesSkip = config.getInLinesSkip();
+
+        outDateShiftedOffset = config.getOutDateShiftedOffset();
+        outDateShiftedFormatter = config.getOutDateShiftedFormatter();
+        outDateShiftedFormatterLocal = config.getOutDateShiftedFormatterLocal();
+        outDateShiftedFastFormatter =
+                FastDateTimeFormatter.forFormatters( outDateShiftedFormatter, outDateShiftedFormatterLocal );
+        outDateShiftedEpochUnit = EpochUnit.forFormatters( outDateShiftedFormatter, outDateShiftedFormatterLocal );
+        outOffsetSeconds = config.isOutOffsetSeconds();
+
+        outputLineTemplate = OutputLineTemplate.compile( config.getOutputLineFormat() );
+        outHeaderFormat = config.getOutHeaderFormat();
+        outFooterFormat = config.getOutFooterFormat();
+
+        shiftCacheSize = config.getShiftCacheSize();
+
+        int maxIdx = isFixedOffset() ? 0 : inDateOffsetIdx;
+        for( final ShiftColumn column : inDateShiftColumns )
+        {
+            maxIdx = Math.max( maxIdx, column.getIdx() );
+        }
+        requiredFields = maxIdx + 1;
+    }
+
+    /**
+     * @return the columns to shift; all of them are shifted by the same offset
+     *         and each adds a field with and one without zone to the output
+     *         line
+     */
+    public List<ShiftColumn> getInDateShiftColumns()
+    {
+        return inDateShiftColumns;
+    }
+
+    /**
+     * @return the first column to shift
+     */
+    public ShiftColumn getInDateShiftColumn()
+    {
+        return inDateShiftColumns.get( 0 );
+    }
+
+    public DateTimeFormatter getInDateShiftFormatter()
+    {
+        return getInDateShiftColumn().getFormatter();
+    }
+
+    /**
+     * @return format parsing by {@link #getInDateShiftFormatter()} without
+     *         throwing exceptions; the result is an {@link OffsetDateTime} or,
+     *         if {@link #getInDateShiftZone()} is set, a {@link LocalDateTime}
+     */
+    public Format getInDateShiftParseFormat()
+    {
+        return getInDateShiftColumn().getParseFormat();
+    }
+
+    /**
+     * @return parser for the layout of {@link #getInDateShiftFormatter()} or
+     *         <code>null</code> if there's no specialized parser for it
+     */
+    public FastDateTimeParser getInDateShiftParser()
+    {
+        return getInDateShiftColumn().getParser();
+    }
+
+    public ZoneId getInDateShiftZone()
+    {
+        return getInDateShiftColumn().getZone();
+    }
+
+    /**
+     * @return precomputed transitions of {@link #getInDateShiftZone()} or
+     *         <code>null</code> if no zone is set
+     */
+    public ZoneTransitionTable getInDateShiftZoneTable()
+    {
+        return getInDateShiftColumn().getZoneTable();
+    }
+
+    public int getInDateShiftIdx()
+    {
+        return getInDateShiftColumn().getIdx();
+    }
+
+    public DateTimeFormatter getInDateOffsetFormatter()
+    {
+        return inDateOffsetFormatter;
+    }
+
+    /**
+     * @return format parsing by {@link #getInDateOffsetFormatter()} to an
+     *         {@link OffsetDateTime} without throwing exceptions
+     */
+    public Format getInDateOffsetParseFormat()
+    {
+        return inDateOffsetParseFormat;
+    }
+
+    /**
+     * @return parser for the layout of {@link #getInDateOffsetFormatter()} or
+     *         <code>null</code> if there's no specialized parser for it
+     */
+    public FastDateTimeParser getInDateOffsetParser()
+    {
+        return inDateOffsetParser;
+    }
+
+    public int getInDateOffsetIdx()
+    {
+        return inDateOffsetIdx;
+    }
+
+    public int getInLinesSkip()
+    {
+        return inLinesSkip;
+    }
+
+    /**
+     * @return number of fields a row needs to contain all columns to shift
+     *         and the field to take the offset from
+     */
+    public int getRequiredFields()
+    {
+        return requiredFields;
+    }
+
+    /**
+     * @return <code>true</code> if all lines are shifted to
+     *         {@link #getOutDateShiftedOffset()}; <code>false</code> if the
+     *         offset is taken from field {@link #getInDateOffsetIdx()}
+     */
+    public boolean isFixedOffset()
+    {
+        return outDateShiftedOffset != null;
+    }
+
+    public ZoneOffset getOutDateShiftedOffset()
+    {
+        return outDateShiftedOffset;
+    }
+
+    public DateTimeFormatter getOutDateShiftedFormatter()
+    {
+        return outDateShiftedFormatter;
+    }
+
+    public DateTimeFormatter getOutDateShiftedFormatterLocal()
+    {
+        return outDateShiftedFormatterLocal;
+    }
+
+    /**
+     * @return formatter writing {@link #getOutDateShiftedFormatter()} and
+     *         {@link #getOutDateShiftedFormatterLocal()} directly or
+     *         <code>null</code> if there's no specialized formatter for them
+     */
+    public FastDateTimeFormatter getOutDateShiftedFastFormatter()
+    {
+        return outDateShiftedFastFormatter;
+    }
+
+    /**
+     * @return unit of the numbers written by
+     *         {@link #getOutDateShiftedFormatter()} and
+     *         {@link #getOutDateShiftedFormatterLocal()} or <code>null</code>
+     *         if they write formatted date/times
+     */
+    public EpochUnit getOutDateShiftedEpochUnit()
+    {
+        return outDateShiftedEpochUnit;
+    }
+
+    /**
+     * @return <code>true</code> if the offset of the shifted date/times in
+     *         seconds follows the shifted fields of the output line
+     */
+    public boolean isOutOffsetSeconds()
+    {
+        return outOffsetSeconds;
+    }
+
+    public OutputLineTemplate getOutputLineTemplate()
+    {
+        return outputLineTemplate;
+    }
+
+    public String getOutHeaderFormat()
+    {
+        return outHeaderFormat;
+    }
+
+    public String getOutFooterFormat()
+    {
+        return outFooterFormat;
+    }
+
+    /**
+     * @return maximal number of shifted date/times cached per thread; 0 if
+     *         nothing is cached
+     */
+    public int getShiftCacheSize()
+    {
+        return shiftCacheSize;
+    }
+}
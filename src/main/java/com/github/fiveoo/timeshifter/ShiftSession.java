@@ -0,0 +1,69 @@
+package com.github.fiveoo.timeshifter;
+
+/**
+ * Push style access to a {@link Timeshifter}: the caller feeds rows, e.g.
+ * through a reused {@link MutableCsvRow}, and receives each shifted row by a
+ * {@link ShiftedRowSink}.
+ *
+ * <pre>
+ * session.begin();
+ * while( ... )
+ * {
+ *     session.push( row.setAll( fields ) );
+ * }
+ * session.end();
+ * </pre>
+ *
+ * A session reuses its {@link ShiftedRow} and is not thread safe; each thread
+ * opens a session of its own by {@link Timeshifter#openSession(ShiftedRowSink)}.
+ *
+ * A session in line mode ({@link Timeshifter#openLineSession(ShiftedRowSink)})
+ * shifts each row to its output line only, so the cache of shifted date/times
+ * applies; its rows give the input and the line.
+ */
+public final class ShiftSession
+{
+    private final Timeshifter    shifter;
+    private final ShiftedRowSink sink;
+    private final ShiftedRow     row;
+    /** <code>null</code> unless in line mode */
+    private final StringBuilder  line;
+
+    ShiftSession( final Timeshifter shifter, final ShiftedRowSink sink, final boolean lineMode )
+    {
+        this.shifter = shifter;
+        this.sink = sink;
+        this.row = new ShiftedRow( shifter );
+        this.line = lineMode ? new StringBuilder( 256 ) : null;
+    }
+
+    /**
+     * Begins a batch passing the output header to the sink.
+     */
+    public void begin()
+    {
+        sink.beginBatch( shifter.formatFixPattern( shifter.getPlan().getOutHeaderFormat() ) );
+    }
+
+    /**
+     * Shifts the row and passes it to the sink; the row may be reused as soon
+     * as this returns.
+     *
+     * @return <code>false</code> if the row was rejected; in line mode also
+     *         if its line is blank
+     */
+    public boolean push( final CsvRow values )
+    {
+        return line != null ? shifter.pushLine( values, line, row, sink ) : shifter.pushRow( values, row, sink );
+    }
+
+    /**
+     * Ends a batch passing the output footer to the sink and reports the
+     * rejected rows.
+     */
+    public void end()
+    {
+        sink.endBatch( shifter.formatFixPattern( shifter.getPlan().getOutFooterFormat() ) );
+        shifter.reportRejects();
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.fiveoo.timeshifter;
+
+import java.time.OffsetDateTime;
+
+/**
+ * View of a row shifted by a {@link ShiftSession}: the input fields, the
+ * shifted date/time of each column to shift and its offset. The shifted
+ * date/times are given as numbers or appended in the output format, so a
+ * consumer needs no intermediate strings.
+ *
+ * The view is reused for the next row; it's only valid during
+ * {@link ShiftedRowSink#accept(ShiftedRow)}. Rows of a session opened by
+ * {@link Timeshifter#openLineSession(ShiftedRowSink)} only provide the input
+ * and the output line; the shifted date/times throw an
+ * {@link IllegalStateException}.
+ */
+public final class ShiftedRow
+{
+    private final Timeshifter shifter;
+    private CsvRow            input;
+    private ShiftedTimes      shiftedTimes;
+    private CharSequence      line;
+
+    ShiftedRow( final Timeshifter shifter )
+    {
+        this.shifter = shifter;
+    }
+
+    ShiftedRow set( final CsvRow input, final ShiftedTimes shiftedTimes )
+    {
+        this.input = input;
+        this.shiftedTimes = shiftedTimes;
+        this.line = null;
+
+        return this;
+    }
+
+    ShiftedRow setLine( final CsvRow input, final CharSequence line )
+    {
+        this.input = input;
+        this.shiftedTimes = null;
+        this.line = line;
+
+        return this;
+    }
+
+    /**
+     * @return the input fields
+     */
+    public CsvRow getInput()
+    {
+        return input;
+    }
+
+    /**
+     * @return number of shifted date/times; one per column to shift
+     */
+    public int getShiftedCount()
+    {
+        return shiftedTimes().size();
+    }
+
+    /**
+     * @return the shifted date/time with the given index in the order of
+     *         {@link ShiftPlan#getInDateShiftColumns()}; created on each call
+     */
+    public OffsetDateTime getShiftedTime( final int column )
+    {
+        return shiftedTimes().toOffsetDateTime( column );
+    }
+
+    /**
+     * @return epoch second of the shifted date/time with the given index
+     */
+    public long getEpochSecond( final int column )
+    {
+        return shiftedTimes().getEpochSecond( column );
+    }
+
+    /**
+     * @return nano of second of the shifted date/time with the given index
+     */
+    public int getNano( final int column )
+    {
+        return shiftedTimes().getNano( column );
+    }
+
+    /**
+     * @return offset of the shifted date/times in seconds
+     */
+    public int getOffsetSeconds()
+    {
+        return shiftedTimes().getOffsetSeconds();
+    }
+
+    /**
+     * Appends the shifted date/time with the given index in the output format
+     * with or without zone.
+     */
+    public void appendShiftedTime( final int column, final boolean withOffset, final StringBuilder out )
+    {
+        final ShiftedTimes times = shiftedTimes();
+        shifter.appendShiftedTime( times.getEpochSecond( column ), times.getNano( column ), times.getOffsetSeconds(),
+                withOffset, out );
+    }
+
+    /**
+     * Appends the output line of the row as written by
+     * {@link Timeshifter#shiftCsv(java.io.Reader, java.io.Writer)}.
+     */
+    public void appendLine( final StringBuilder out )
+    {
+        if( line != null )
+        {
+            out.append( line );
+        }
+        else
+        {
+            shifter.appendShiftedLine( input, shiftedTimes, out );
+        }
+    }
+
+    private ShiftedTimes shiftedTimes()
+    {
+        if( shiftedTimes == null )
+        {
+            throw new IllegalStateException( "Rows of a line session only provide the input and the line" );
+        }
+
+        return shiftedTimes;
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.fiveoo.timeshifter;
+
+/**
+ * Receives the rows shifted by a {@link ShiftSession}.
+ *
+ * A batch is started by {@link ShiftSession#begin()} and ended by
+ * {@link ShiftSession#end()}; rows that can't be shifted are reported to the
+ * {@link RejectedRows} of the {@link Timeshifter} instead.
+ */
+@FunctionalInterface
+public interface ShiftedRowSink
+{
+    /**
+     * Called at the beginning of a batch.
+     *
+     * @param header the formatted output header; empty if none
+     */
+    default void beginBatch( final CharSequence header )
+    {
+    }
+
+    /**
+     * Called for each row shifted. The row is a view that is reused for the
+     * next row; it's only valid during this call.
+     *
+     * A runtime exception thrown rejects the row with
+     * {@link RejectReason#ERROR}.
+     */
+    void accept( ShiftedRow row );
+
+    /**
+     * Called at the end of a batch.
+     *
+     * @param footer the formatted output footer; empty if none
+     */
+    default void endBatch( final CharSequence footer )
+    {
+    }
+}
@@ -0,0 +1,212 @@
+package com.github.fiveoo.timeshifter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the formatted shifted date/times by the raw date/time to
+ * shift, its column and the raw offset field; rows of burst shots or tagged
+ * by GPS tools repeat these values a lot.
+ *
+ * Entries are evicted by the CLOCK algorithm: a hit marks an entry, the hand
+ * passes marked entries once (clearing the mark) and evicts the first entry
+ * not marked. Looking up an entry creates no objects; the fields are compared
+ * to the keys directly.
+ *
+ * A cache is not thread safe; each thread uses a cache of its own.
+ */
+final class ShiftedTimeCache
+{
+    private final Map<Key, Entry> entries;
+    private final Entry[]         clock;
+    private final Probe           probe = new Probe();
+    private int                   hand;
+    private int                   size;
+
+    /**
+     * @param capacity maximal number of entries
+     */
+    ShiftedTimeCache( final int capacity )
+    {
+        this.entries = new HashMap<>( 2 * capacity );
+        this.clock = new Entry[capacity];
+    }
+
+    /**
+     * @param offset raw offset field; <code>null</code> for a fixed offset
+     *
+     * @return entry of the given date/time or <code>null</code> if not cached
+     */
+    Entry get( final int column, final CharSequence dateTime, final CharSequence offset )
+    {
+        final Entry entry = entries.get( probe.set( column, dateTime, offset ) );
+        if( entry != null )
+        {
+            entry.referenced = true;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Adds the formatted shifted date/time, evicting another entry if the
+     * cache is full.
+     *
+     * @param offsetSeconds offset of the shifted date/time
+     */
+    void put( final int column, final String dateTime, final String offset, final String withOffset,
+            final String local, final int offsetSeconds )
+    {
+        final Entry entry = new Entry( column, dateTime, offset, withOffset, local, offsetSeconds );
+        if( size < clock.length )
+        {
+            clock[size++] = entry;
+        }
+        else
+        {
+            while( clock[hand].referenced )
+            {
+                clock[hand].referenced = false;
+                hand = ( hand + 1 ) % clock.length;
+            }
+            entries.remove( clock[hand] );
+            clock[hand] = entry;
+            hand = ( hand + 1 ) % clock.length;
+        }
+        entries.put( entry, entry );
+    }
+
+    int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Column, date/time to shift and offset field; keys are equal if their
+     * chars are equal.
+     */
+    private abstract static class Key
+    {
+        int          column;
+        CharSequence dateTime;
+        CharSequence offset;
+        int          hash;
+
+        final void init( final int column, final CharSequence dateTime, final CharSequence offset )
+        {
+            this.column = column;
+            this.dateTime = dateTime;
+            this.offset = offset;
+            this.hash = 31 * ( 31 * column + hash( dateTime ) ) + hash( offset );
+        }
+
+        @Override
+        public final int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public final boolean equals( final Object obj )
+        {
+            if( !( obj instanceof Key ) )
+            {
+                return false;
+            }
+
+            final Key other = (Key) obj;
+
+            return hash == other.hash && column == other.column && contentEquals( dateTime, other.dateTime )
+                    && contentEquals( offset, other.offset );
+        }
+
+        private static int hash( final CharSequence value )
+        {
+            if( value == null )
+            {
+                return 0;
+            }
+
+            int h = 0;
+            for( int i = 0; i < value.length(); i++ )
+            {
+                h = 31 * h + value.charAt( i );
+            }
+
+            return h;
+        }
+
+        private static boolean contentEquals( final CharSequence a, final CharSequence b )
+        {
+            if( a == null || b == null )
+            {
+                return a == b;
+            }
+            if( a.length() != b.length() )
+            {
+                return false;
+            }
+            for( int i = 0; i < a.length(); i++ )
+            {
+                if( a.charAt( i ) != b.charAt( i ) )
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Reused key of a lookup referring to the fields of the current row.
+     */
+    private static final class Probe
+        extends
+            Key
+    {
+        Probe set( final int column, final CharSequence dateTime, final CharSequence offset )
+        {
+            init( column, dateTime, offset );
+
+            return this;
+        }
+    }
+
+    /**
+     * Cached key and formatted shifted date/time with and without zone.
+     */
+    static final class Entry
+        extends
+            Key
+    {
+        private final String withOffset;
+        private final String local;
+        private final int    offsetSeconds;
+        private boolean      referenced;
+
+        Entry( final int column, final String dateTime, final String offset, final String withOffset,
+                final String local, final int offsetSeconds )
+        {
+            init( column, dateTime, offset );
+            this.withOffset = withOffset;
+            this.local = local;
+            this.offsetSeconds = offsetSeconds;
+        }
+
+        String getWithOffset()
+        {
+            return withOffset;
+        }
+
+        String getLocal()
+        {
+            return local;
+        }
+
+        int getOffsetSeconds()
+        {
+            return offsetSeconds;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.fiveoo.timeshifter;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Shifted date/times of a row given by the epoch second and nano of each
+ * instant and the offset they share; shifting a row fills these primitives
+ * instead of creating a date/time per column.
+ *
+ * The arrays are reused for the next row, so the times are not thread safe;
+ * each thread of a {@link Timeshifter} uses times of its own.
+ */
+final class ShiftedTimes
+{
+    private final long[] epochSeconds;
+    private final int[]  nanos;
+    private int          offsetSeconds;
+
+    /**
+     * @param size number of date/times; one per column to shift
+     */
+    ShiftedTimes( final int size )
+    {
+        this.epochSeconds = new long[size];
+        this.nanos = new int[size];
+    }
+
+    /**
+     * @return times holding the instants and the offset of the given
+     *         date/times; the offset is taken from the first one
+     */
+    static ShiftedTimes of( final OffsetDateTime[] dateTimes )
+    {
+        final ShiftedTimes times = new ShiftedTimes( dateTimes.length );
+        for( int i = 0; i < dateTimes.length; i++ )
+        {
+            times.set( i, dateTimes[i].toEpochSecond(), dateTimes[i].getNano() );
+        }
+        if( dateTimes.length > 0 )
+        {
+            times.setOffsetSeconds( dateTimes[0].getOffset().getTotalSeconds() );
+        }
+
+        return times;
+    }
+
+    int size()
+    {
+        return epochSeconds.length;
+    }
+
+    long getEpochSecond( final int idx )
+    {
+        return epochSeconds[idx];
+    }
+
+    int getNano( final int idx )
+    {
+        return nanos[idx];
+    }
+
+    int getOffsetSeconds()
+    {
+        return offsetSeconds;
+    }
+
+    void set( final int idx, final long epochSecond, final int nano )
+    {
+        epochSeconds[idx] = epochSecond;
+        nanos[idx] = nano;
+    }
+
+    void setOffsetSeconds( final int offsetSeconds )
+    {
+        this.offsetSeconds = offsetSeconds;
+    }
+
+    /**
+     * @return the date/time with the given index in the offset of the times
+     *
+     * @throws java.time.DateTimeException if the date/time exceeds the range of
+     *             {@link LocalDateTime}
+     */
+    OffsetDateTime toOffsetDateTime( final int idx )
+    {
+        final ZoneOffset offset = FastDateTimeParser.toZoneOffset( offsetSeconds );
+
+        return OffsetDateTime.of( LocalDateTime.ofEpochSecond( epochSeconds[idx], nanos[idx], offset ), offset );
+    }
+
+    /**
+     * @return all date/times in the offset of the times
+     */
+    OffsetDateTime[] toOffsetDateTimes()
+    {
+        final OffsetDateTime[] dateTimes = new OffsetDateTime[epochSeconds.length];
+        for( int i = 0; i < dateTimes.length; i++ )
+        {
+            dateTimes[i] = toOffsetDateTime( i );
+        }
+
+        return dateTimes;
+    }
+}
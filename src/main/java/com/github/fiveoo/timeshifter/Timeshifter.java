@@ -4,54 +4,287 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.text.Format;
+import java.text.ParsePosition;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
 import java.util.Formatter;
+import java.util.List;
+import java.util.Objects;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
-import com.opencsv.CSVParserBuilder;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
+import com.github.fiveoo.timeshifter.TimeshifterMetrics.Stage;
 
 public class Timeshifter
 {
-    private final TimeshifterConfig config;
+    private final ShiftPlan          plan;
+    private final TimeshifterMetrics metrics;
+    private final RejectedRows       rejectedRows;
 
+    /** cache of each thread; <code>null</code> if disabled */
+    private final ThreadLocal<ShiftedTimeCache> caches;
+
+    /** shifted date/times of the current row of each thread */
+    private final ThreadLocal<ShiftedTimes> shiftedTimes;
+
+    /**
+     * Creates a shifter for the given configuration.
+     *
+     * The configuration is evaluated once; later changes of it don't affect
+     * the created shifter.
+     */
     public Timeshifter( final TimeshifterConfig config )
     {
-        this.config = config;
+        this( new ShiftPlan( config ) );
     }
 
+    public Timeshifter( final ShiftPlan plan )
+    {
+        this( plan, TimeshifterMetrics.DISABLED );
+    }
+
+    /**
+     * Creates a shifter recording the rows and the time spent in each stage
+     * to the given metrics.
+     */
+    public Timeshifter( final ShiftPlan plan, final TimeshifterMetrics metrics )
+    {
+        this( plan, metrics, null );
+    }
+
+    /**
+     * Creates a shifter additionally writing the rows that can't be shifted
+     * to the given writer.
+     *
+     * @see RejectedRows
+     */
+    public Timeshifter( final ShiftPlan plan, final TimeshifterMetrics metrics, final Writer rejectWriter )
+    {
+        this.plan = plan;
+        this.metrics = metrics;
+        this.rejectedRows = new RejectedRows( this::logError, rejectWriter );
+        this.caches = plan.getShiftCacheSize() > 0
+                ? ThreadLocal.withInitial( () -> new ShiftedTimeCache( plan.getShiftCacheSize() ) ) : null;
+        this.shiftedTimes = ThreadLocal.withInitial( () -> new ShiftedTimes( plan.getInDateShiftColumns().size() ) );
+    }
+
+    public ShiftPlan getPlan()
+    {
+        return plan;
+    }
+
+    public TimeshifterMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    public RejectedRows getRejectedRows()
+    {
+        return rejectedRows;
+    }
+
+    /**
+     * Shifts the CSV input; only the fields holding the date/times are
+     * converted to strings, all others are copied to the output directly.
+     */
     public void shiftCsv( final Reader in, final Writer out )
         throws IOException
     {
-        try (final CSVReader cvsReader = new CSVReaderBuilder( in )
-                .withCSVParser( new CSVParserBuilder().withSeparator( ',' ).withQuoteChar( '"' ).build() )
-                .withSkipLines( config.getInLinesSkip() ).build())
+        writeHeader( out );
+        shiftRows( in, out );
+        writeFooter( out );
+        reportRejects();
+    }
+
+    /**
+     * Shifts the rows of the CSV input like
+     * {@link #shiftCsv(Reader, Writer)} but without header and footer.
+     */
+    protected void shiftRows( final Reader in, final Writer out )
+        throws IOException
+    {
+        try (final CsvTokenizer tokenizer = createTokenizer( in ))
         {
-            shift( StreamSupport.stream( cvsReader.spliterator(), false ), out );
+            final StringBuilder line = new StringBuilder( 256 );
+            while( next( tokenizer ) )
+            {
+                line.setLength( 0 );
+                if( appendLine( tokenizer, line ) )
+                {
+                    write( line, out );
+                }
+            }
+        }
+    }
+
+    /**
+     * Shifts the CSV input to binary records instead of text lines; header,
+     * footer and output line format don't apply. The writer is flushed but
+     * not closed.
+     */
+    public void shiftCsvToBinary( final Reader in, final BinaryRecordWriter out )
+        throws IOException
+    {
+        try (final CsvTokenizer tokenizer = createTokenizer( in ))
+        {
+            while( next( tokenizer ) )
+            {
+                writeRecord( tokenizer, out );
+            }
         }
+        out.flush();
+        reportRejects();
     }
 
+    /**
+     * Shifts the rows of the stream by a session in line mode writing the
+     * output lines, header and footer to <code>out</code>.
+     */
     public void shift( final Stream<String[]> dataStream, final Writer out )
     {
-        try (final Stream<String> streamOfLines = shift( dataStream ))
+        final StringBuilder line = new StringBuilder( 256 );
+        final ShiftSession session = openLineSession( new ShiftedRowSink()
+        {
+            @Override
+            public void beginBatch( final CharSequence header )
+            {
+                write( header, out );
+            }
+
+            @Override
+            public void accept( final ShiftedRow row )
+            {
+                line.setLength( 0 );
+                row.appendLine( line );
+            }
+
+            @Override
+            public void endBatch( final CharSequence footer )
+            {
+                write( footer, out );
+            }
+        } );
+
+        session.begin();
+        final MutableCsvRow row = new MutableCsvRow();
+        try (final Stream<String[]> data = dataStream)
         {
-            streamOfLines.forEach( line -> write( line, out ) );
+            // written here, so a failing writer isn't taken for a rejected row
+            data.forEachOrdered( values -> {
+                if( session.push( row.setAll( values ) ) )
+                {
+                    write( line, out );
+                }
+            } );
         }
+        session.end();
     }
 
+    /**
+     * Shifts the rows of the stream lazily by sessions in line mode, one per
+     * thread of a parallel stream; the header is the first element and the
+     * footer the last one.
+     */
     public Stream<String> shift( final Stream<String[]> dataStream )
     {
-        final Stream<String> headerLineStream = Stream.of( config.getOutHeaderFormat() ).map( this::formatFixPattern );
-        final Stream<String> footerLineStream = Stream.of( config.getOutFooterFormat() ).map( this::formatFixPattern );
+        final ThreadLocal<LineCollector> collectors = ThreadLocal.withInitial( LineCollector::new );
+
+        return Stream.concat( Stream.concat( Stream.of( collectors ).map( c -> c.get().begin() ),
+                dataStream.map( values -> collectors.get().shift( values ) ).filter( Objects::nonNull ) ),
+                Stream.of( collectors ).map( c -> c.get().end() ) ).onClose( this::reportRejects );
+    }
 
-        return Stream.concat( Stream.concat( headerLineStream, transformLines( dataStream ) ), footerLineStream );
+    /**
+     * Opens a session shifting the rows pushed by the caller to the given sink.
+     */
+    public ShiftSession openSession( final ShiftedRowSink sink )
+    {
+        return new ShiftSession( this, sink, false );
+    }
+
+    /**
+     * Opens a session in line mode: the rows pushed are shifted to their
+     * output lines only, using the cache of shifted date/times, and passed to
+     * the sink as rows providing just the input and the line.
+     */
+    public ShiftSession openLineSession( final ShiftedRowSink sink )
+    {
+        return new ShiftSession( this, sink, true );
+    }
+
+    /**
+     * Moves the tokenizer to the next row recording the time as
+     * {@link Stage#READ}.
+     */
+    protected boolean next( final CsvTokenizer tokenizer )
+        throws IOException
+    {
+        final long start = metrics.start();
+        final boolean hasNext = tokenizer.next();
+        metrics.record( Stage.READ, start );
+
+        return hasNext;
+    }
+
+    /**
+     * Creates the tokenizer used by {@link #shiftCsv(Reader, Writer)}; the
+     * lines to skip at the beginning of the input are already skipped.
+     */
+    protected CsvTokenizer createTokenizer( final Reader in )
+    {
+        return new CsvTokenizer( in, plan.getInLinesSkip() );
+    }
+
+    protected void writeHeader( final Writer out )
+    {
+        write( formatFixPattern( plan.getOutHeaderFormat() ), out );
+    }
+
+    protected void writeFooter( final Writer out )
+    {
+        write( formatFixPattern( plan.getOutFooterFormat() ), out );
+    }
+
+    /**
+     * Logs the summary of the rejected rows not reported yet and flushes the
+     * reject writer; called when all rows are shifted.
+     */
+    protected void reportRejects()
+    {
+        try
+        {
+            rejectedRows.flush();
+        }
+        catch( final IOException e )
+        {
+            throw TimeshifterException.errorWritingOutput( e );
+        }
+    }
+
+    /**
+     * Appends the output line for the given input values to <code>out</code>
+     * unless the values could not be shifted or the line is blank.
+     *
+     * @return <code>true</code> if a line was appended
+     */
+    protected boolean appendLine( final String[] values, final StringBuilder out )
+    {
+        return appendLine( CsvRow.of( values ), out );
+    }
+
+    protected boolean appendLine( final CsvRow values, final StringBuilder out )
+    {
+        final int start = out.length();
+        if( transformLine( values, out ) && !isBlank( out, start ) )
+        {
+            return true;
+        }
+        out.setLength( start );
+
+        return false;
     }
 
     protected Stream<String> transformLines( final Stream<String[]> dataStream )
@@ -61,86 +294,761 @@ public class Timeshifter
 
     protected String transformLine( final String[] values )
     {
+        final StringBuilder line = new StringBuilder( 256 );
+
+        return transformLine( values, line ) ? line.toString() : "";
+    }
+
+    /**
+     * Appends the output line for the given input values to <code>out</code>.
+     *
+     * @return <code>false</code> if the values could not be shifted; nothing is
+     *         appended in that case
+     */
+    protected boolean transformLine( final String[] values, final StringBuilder out )
+    {
+        return transformLine( CsvRow.of( values ), out );
+    }
+
+    protected boolean transformLine( final CsvRow values, final StringBuilder out )
+    {
+        metrics.rowIn();
+        final int start = out.length();
+        try
+        {
+            if( caches != null )
+            {
+                final String[] formattedTimes = shiftRowCached( values );
+                if( formattedTimes == null )
+                {
+                    return false;
+                }
+
+                final long formatStart = metrics.start();
+                plan.getOutputLineTemplate().appendTo( out, new LineFields( values, null, formattedTimes ) );
+                metrics.record( Stage.FORMAT, formatStart );
+                metrics.rowOut();
+
+                return true;
+            }
+
+            final ShiftedTimes shifted = shiftedTimes.get();
+            if( !shiftRow( values, shifted ) )
+            {
+                return false;
+            }
+
+            final long formatStart = metrics.start();
+            formatOutputLine( values, shifted, out );
+            metrics.record( Stage.FORMAT, formatStart );
+            metrics.rowOut();
+
+            return true;
+        }
+        catch( final RuntimeException e )
+        {
+            out.setLength( start );
+            reject( values, RejectReason.ERROR, e.toString() );
+        }
+
+        return false;
+    }
+
+    /**
+     * Writes the binary record for the given input values to
+     * <code>out</code> like {@link #transformLine(CsvRow, StringBuilder)}
+     * appends the text line.
+     *
+     * @return <code>false</code> if the values could not be shifted; nothing is
+     *         written in that case
+     */
+    protected boolean writeRecord( final CsvRow values, final BinaryRecordWriter out )
+        throws IOException
+    {
+        metrics.rowIn();
         try
         {
-            return formatOutputLine( values, createShiftedTime( values ) );
+            final ShiftedTimes shifted = shiftedTimes.get();
+            if( !shiftRow( values, shifted ) )
+            {
+                return false;
+            }
+
+            final long formatStart = metrics.start();
+            out.write( values, shifted );
+            metrics.record( Stage.FORMAT, formatStart );
+            metrics.rowOut();
+
+            return true;
         }
         catch( final RuntimeException e )
         {
-            logError( "Could not shift time of input data: " + String.join( ",", values ), e );
+            reject( values, RejectReason.ERROR, e.toString() );
         }
 
-        return "";
+        return false;
     }
 
-    protected String formatOutputLine( final String[] inputFields, final OffsetDateTime shiftedTime )
+    /**
+     * Passes the shifted row to the sink like
+     * {@link #transformLine(CsvRow, StringBuilder)} appends the text line; the
+     * cache of shifted date/times doesn't apply since the sink gets the
+     * date/times, not their text.
+     *
+     * @return <code>false</code> if the values could not be shifted or the sink
+     *         failed
+     */
+    protected boolean pushRow( final CsvRow values, final ShiftedRow row, final ShiftedRowSink sink )
     {
-        final Object[] outData = Arrays.copyOf( inputFields, inputFields.length + 2 );
-        outData[outData.length - 2] = shiftedTime.format( config.getOutDateShiftedFormatter() );
-        outData[outData.length - 1] = shiftedTime.format( config.getOutDateShiftedFormatterLocal() );
+        metrics.rowIn();
+        try
+        {
+            final ShiftedTimes shifted = shiftedTimes.get();
+            if( !shiftRow( values, shifted ) )
+            {
+                return false;
+            }
+
+            sink.accept( row.set( values, shifted ) );
+            metrics.rowOut();
+
+            return true;
+        }
+        catch( final RuntimeException e )
+        {
+            reject( values, RejectReason.ERROR, e.toString() );
+        }
+        finally
+        {
+            row.set( null, null );
+        }
+
+        return false;
+    }
+
+    /**
+     * Passes the output line of the row to the sink; the line is appended like
+     * {@link #appendLine(CsvRow, StringBuilder)} does, so the cache of shifted
+     * date/times applies.
+     *
+     * @return <code>false</code> if the values could not be shifted, the line
+     *         is blank or the sink failed
+     */
+    protected boolean pushLine( final CsvRow values, final StringBuilder line, final ShiftedRow row,
+            final ShiftedRowSink sink )
+    {
+        line.setLength( 0 );
+        if( !appendLine( values, line ) )
+        {
+            return false;
+        }
+
+        try
+        {
+            sink.accept( row.setLine( values, line ) );
+
+            return true;
+        }
+        catch( final RuntimeException e )
+        {
+            reject( values, RejectReason.ERROR, e.toString() );
+        }
+        finally
+        {
+            row.set( null, null );
+        }
+
+        return false;
+    }
+
+    /**
+     * Shifts date/times given as columns of primitives without creating an
+     * object per date/time. Shifting keeps the instant, so the shifted
+     * date/times are given by their local epoch seconds in the target offsets;
+     * the nanos of second don't change.
+     *
+     * @param epochSeconds instants to shift
+     * @param targetOffsets offset in seconds of each shifted date/time;
+     *            <code>null</code> to use the fixed output offset of the plan
+     * @param localEpochSeconds receives the local epoch second of each
+     *            shifted date/time; may be <code>epochSeconds</code> itself
+     *
+     * @throws java.time.DateTimeException if an offset is out of range
+     */
+    public void shiftAll( final long[] epochSeconds, final int[] targetOffsets, final long[] localEpochSeconds )
+    {
+        if( targetOffsets != null && targetOffsets.length != epochSeconds.length
+                || localEpochSeconds.length != epochSeconds.length )
+        {
+            throw new IllegalArgumentException( "Arrays of different length" );
+        }
+        if( targetOffsets == null && plan.getOutDateShiftedOffset() == null )
+        {
+            throw new IllegalArgumentException( "Target offsets are required without a fixed output offset" );
+        }
+
+        final long start = metrics.start();
+        if( targetOffsets == null )
+        {
+            final int offsetSeconds = plan.getOutDateShiftedOffset().getTotalSeconds();
+            for( int i = 0; i < epochSeconds.length; i++ )
+            {
+                localEpochSeconds[i] = CivilTime.toLocalEpochSecond( epochSeconds[i], offsetSeconds );
+            }
+        }
+        else
+        {
+            for( int i = 0; i < epochSeconds.length; i++ )
+            {
+                localEpochSeconds[i] = CivilTime.toLocalEpochSecond( epochSeconds[i], targetOffsets[i] );
+            }
+        }
+        metrics.record( Stage.SHIFT, start );
+    }
+
+    /**
+     * Parses and shifts date/times given as columns of text like the fields of
+     * the rows shifted by {@link #shiftCsv(Reader, Writer)}, without a row per
+     * date/time and without creating an object per date/time unless a layout
+     * needs a {@link DateTimeFormatter}. The time is recorded as
+     * {@link Stage#PARSE}.
+     *
+     * @param column index in {@link ShiftPlan#getInDateShiftColumns()} of the
+     *            column giving the layout and zone of <code>dateTimes</code>
+     * @param dateTimes texts of the date/times to shift
+     * @param offsetFields texts to take the offset of each date/time from in
+     *            the layout of the offset field; <code>null</code> to use the
+     *            fixed output offset of the plan
+     * @param epochSeconds receives the epoch second of each shifted date/time
+     * @param nanos receives the nano of second of each shifted date/time
+     * @param offsetSeconds receives the offset of each shifted date/time or
+     *            {@link FastDateTimeParser#INVALID_OFFSET} if the date/time or
+     *            its offset could not be parsed
+     *
+     * @return number of date/times that could not be parsed
+     */
+    public int shiftAll( final int column, final CharSequence[] dateTimes, final CharSequence[] offsetFields,
+            final long[] epochSeconds, final int[] nanos, final int[] offsetSeconds )
+    {
+        if( offsetFields != null && offsetFields.length != dateTimes.length
+                || epochSeconds.length != dateTimes.length || nanos.length != dateTimes.length
+                || offsetSeconds.length != dateTimes.length )
+        {
+            throw new IllegalArgumentException( "Arrays of different length" );
+        }
+        if( offsetFields == null && !plan.isFixedOffset() )
+        {
+            throw new IllegalArgumentException( "Offset fields are required without a fixed output offset" );
+        }
+
+        final long start = metrics.start();
+        final ShiftColumn shiftColumn = plan.getInDateShiftColumns().get( column );
+        final ShiftedTimes parsed = new ShiftedTimes( 1 );
+        int invalid = 0;
+        for( int i = 0; i < dateTimes.length; i++ )
+        {
+            final int offset = offsetFields == null ? plan.getOutDateShiftedOffset().getTotalSeconds()
+                    : tryParseOffsetSeconds( sanitizeField( toString( offsetFields[i] ) ) );
+            if( offset == FastDateTimeParser.INVALID_OFFSET
+                    || !tryParseDateTimeToShift( sanitizeField( toString( dateTimes[i] ) ), shiftColumn, parsed, 0 ) )
+            {
+                offsetSeconds[i] = FastDateTimeParser.INVALID_OFFSET;
+                invalid++;
+                continue;
+            }
+
+            epochSeconds[i] = parsed.getEpochSecond( 0 );
+            nanos[i] = parsed.getNano( 0 );
+            offsetSeconds[i] = offset;
+        }
+        metrics.record( Stage.PARSE, start );
+
+        return invalid;
+    }
+
+    /**
+     * Shifts the date/times of all columns of the given row by the offset of
+     * the row; adapter for subclasses, the rows shifted by this class carry
+     * the date/times as primitives and don't pass it.
+     *
+     * @return the shifted date/times in the order of
+     *         {@link ShiftPlan#getInDateShiftColumns()} or <code>null</code> if
+     *         the row was rejected
+     */
+    protected OffsetDateTime[] shiftRow( final CsvRow values )
+    {
+        final ShiftedTimes shifted = new ShiftedTimes( plan.getInDateShiftColumns().size() );
+
+        return shiftRow( values, shifted ) ? shifted.toOffsetDateTimes() : null;
+    }
+
+    /**
+     * Shifts the date/times of all columns of the given row by the offset of
+     * the row into the given times. Unlike {@link #createShiftedTime(CsvRow)}
+     * invalid input doesn't throw an exception but is passed to
+     * {@link #reject(CsvRow, RejectReason, String)}.
+     *
+     * @return <code>false</code> if the row was rejected
+     */
+    private boolean shiftRow( final CsvRow values, final ShiftedTimes shifted )
+    {
+        if( values.size() < plan.getRequiredFields() )
+        {
+            reject( values, RejectReason.TOO_FEW_FIELDS,
+                    plan.getRequiredFields() + " fields are required but only " + values.size() + " are given" );
+
+            return false;
+        }
+
+        final long start = metrics.start();
+        int offsetSeconds;
+        if( plan.isFixedOffset() )
+        {
+            offsetSeconds = plan.getOutDateShiftedOffset().getTotalSeconds();
+        }
+        else
+        {
+            final String offsetStr = sanitizeField( toString( values.get( plan.getInDateOffsetIdx() ) ) );
+            offsetSeconds = tryParseOffsetSeconds( offsetStr );
+            if( offsetSeconds == FastDateTimeParser.INVALID_OFFSET )
+            {
+                reject( values, RejectReason.INVALID_OFFSET_DATE_TIME, "Text '" + offsetStr + "' could not be parsed" );
+
+                return false;
+            }
+        }
 
-        String format = config.getOutputLineFormat();
-        if( format == null )
+        final List<ShiftColumn> columns = plan.getInDateShiftColumns();
+        for( int i = 0; i < columns.size(); i++ )
         {
-            format = createDefaultOutputFormat( outData.length );
+            final ShiftColumn column = columns.get( i );
+            final String dateTimeToShiftStr = sanitizeField( toString( values.get( column.getIdx() ) ) );
+            if( !tryParseDateTimeToShift( dateTimeToShiftStr, column, shifted, i ) )
+            {
+                reject( values, RejectReason.INVALID_DATE_TIME_TO_SHIFT,
+                        "Text '" + dateTimeToShiftStr + "' of field " + column.getIdx() + " could not be parsed" );
+
+                return false;
+            }
         }
-        return String.format( format, outData );
+        final long shiftStart = metrics.record( Stage.PARSE, start );
+
+        applyOffset( shifted, offsetSeconds );
+        metrics.record( Stage.SHIFT, shiftStart );
+
+        return true;
     }
 
-    protected String createDefaultOutputFormat( final int length )
+    /**
+     * Like {@link #shiftRow(CsvRow, ShiftedTimes)} but takes the formatted
+     * shifted date/times from the cache of the thread if the row repeats the
+     * date/time to shift and the offset field of a previous one; the time of
+     * the lookups and of shifting and formatting the missing ones is recorded
+     * as {@link Stage#PARSE}.
+     *
+     * @return the shifted date/times with and without zone of each column,
+     *         followed by the offset in seconds if
+     *         {@link ShiftPlan#isOutOffsetSeconds()}, or <code>null</code> if
+     *         the row was rejected
+     */
+    private String[] shiftRowCached( final CsvRow values )
     {
-        final StringBuilder b = new StringBuilder();
-        for( int i = 0; i < length; i++ )
+        if( values.size() < plan.getRequiredFields() )
         {
-            if( i > 0 )
+            reject( values, RejectReason.TOO_FEW_FIELDS,
+                    plan.getRequiredFields() + " fields are required but only " + values.size() + " are given" );
+
+            return null;
+        }
+
+        final long start = metrics.start();
+        final ShiftedTimeCache cache = caches.get();
+        final ShiftedTimes shifted = shiftedTimes.get();
+        final CharSequence offsetField = plan.isFixedOffset() ? null : values.get( plan.getInDateOffsetIdx() );
+        String offsetFieldStr = null;
+        int shiftOffsetSeconds = plan.isFixedOffset() ? plan.getOutDateShiftedOffset().getTotalSeconds()
+                : FastDateTimeParser.INVALID_OFFSET;
+        final List<ShiftColumn> columns = plan.getInDateShiftColumns();
+        final String[] formattedTimes = new String[2 * columns.size() + ( plan.isOutOffsetSeconds() ? 1 : 0 )];
+        int offsetSeconds = 0;
+        for( int i = 0; i < columns.size(); i++ )
+        {
+            final ShiftColumn column = columns.get( i );
+            final CharSequence dateTimeField = values.get( column.getIdx() );
+            final ShiftedTimeCache.Entry cached = cache.get( i, dateTimeField, offsetField );
+            if( cached != null )
+            {
+                metrics.cacheHit();
+                formattedTimes[2 * i] = cached.getWithOffset();
+                formattedTimes[2 * i + 1] = cached.getLocal();
+                offsetSeconds = cached.getOffsetSeconds();
+                continue;
+            }
+            metrics.cacheMiss();
+
+            if( shiftOffsetSeconds == FastDateTimeParser.INVALID_OFFSET )
             {
-                b.append( ',' );
+                offsetFieldStr = toString( offsetField );
+                final String offsetStr = sanitizeField( offsetFieldStr );
+                shiftOffsetSeconds = tryParseOffsetSeconds( offsetStr );
+                if( shiftOffsetSeconds == FastDateTimeParser.INVALID_OFFSET )
+                {
+                    reject( values, RejectReason.INVALID_OFFSET_DATE_TIME,
+                            "Text '" + offsetStr + "' could not be parsed" );
+
+                    return null;
+                }
             }
-            b.append( '%' ).append( i + 1 ).append( "$s" );
+
+            final String dateTimeFieldStr = toString( dateTimeField );
+            final String dateTimeToShiftStr = sanitizeField( dateTimeFieldStr );
+            if( !tryParseDateTimeToShift( dateTimeToShiftStr, column, shifted, i ) )
+            {
+                reject( values, RejectReason.INVALID_DATE_TIME_TO_SHIFT,
+                        "Text '" + dateTimeToShiftStr + "' of field " + column.getIdx() + " could not be parsed" );
+
+                return null;
+            }
+
+            applyOffset( shifted, shiftOffsetSeconds );
+            offsetSeconds = shiftOffsetSeconds;
+            final StringBuilder formatted = new StringBuilder( 64 );
+            appendShiftedTime( shifted.getEpochSecond( i ), shifted.getNano( i ), offsetSeconds, true, formatted );
+            formattedTimes[2 * i] = formatted.toString();
+            formatted.setLength( 0 );
+            appendShiftedTime( shifted.getEpochSecond( i ), shifted.getNano( i ), offsetSeconds, false, formatted );
+            formattedTimes[2 * i + 1] = formatted.toString();
+            cache.put( i, dateTimeFieldStr, offsetFieldStr, formattedTimes[2 * i], formattedTimes[2 * i + 1],
+                    offsetSeconds );
         }
-        if( length > 0 )
+        if( plan.isOutOffsetSeconds() )
         {
-            b.append( "%n" );
+            formattedTimes[2 * columns.size()] = Integer.toString( offsetSeconds );
         }
+        metrics.record( Stage.PARSE, start );
+
+        return formattedTimes;
+    }
 
-        return b.toString();
+    /**
+     * Counts and reports a row that can't be shifted.
+     *
+     * @param detail description of the error
+     */
+    protected void reject( final CsvRow values, final RejectReason reason, final String detail )
+    {
+        metrics.rowFailed( reason );
+        rejectedRows.reject( values, reason, detail );
+    }
+
+    protected String formatOutputLine( final String[] inputFields, final OffsetDateTime shiftedTime )
+    {
+        final StringBuilder line = new StringBuilder( 256 );
+        formatOutputLine( inputFields, shiftedTime, line );
+
+        return line.toString();
+    }
+
+    protected void formatOutputLine( final String[] inputFields, final OffsetDateTime shiftedTime,
+            final StringBuilder out )
+    {
+        formatOutputLine( CsvRow.of( inputFields ), shiftedTime, out );
+    }
+
+    protected void formatOutputLine( final CsvRow inputFields, final OffsetDateTime shiftedTime,
+            final StringBuilder out )
+    {
+        formatOutputLine( inputFields, new OffsetDateTime[] { shiftedTime }, out );
+    }
+
+    /**
+     * @param shiftedTimes shifted date/times of all columns to shift
+     */
+    protected void formatOutputLine( final CsvRow inputFields, final OffsetDateTime[] shiftedTimes,
+            final StringBuilder out )
+    {
+        formatOutputLine( inputFields, ShiftedTimes.of( shiftedTimes ), out );
+    }
+
+    private void formatOutputLine( final CsvRow inputFields, final ShiftedTimes shiftedTimes,
+            final StringBuilder out )
+    {
+        plan.getOutputLineTemplate().appendTo( out, new LineFields( inputFields, shiftedTimes, null ) );
+    }
+
+    /**
+     * Appends the output line of a shifted row recording the time as
+     * {@link Stage#FORMAT}.
+     */
+    void appendShiftedLine( final CsvRow inputFields, final ShiftedTimes shiftedTimes, final StringBuilder out )
+    {
+        final long formatStart = metrics.start();
+        formatOutputLine( inputFields, shiftedTimes, out );
+        metrics.record( Stage.FORMAT, formatStart );
     }
 
     protected OffsetDateTime createShiftedTime( final String[] values )
     {
-        if( config.getInDateShiftIdx() >= values.length )
+        return createShiftedTime( CsvRow.of( values ) );
+    }
+
+    protected OffsetDateTime createShiftedTime( final CsvRow values )
+    {
+        if( plan.getInDateShiftIdx() >= values.size() )
         {
-            throw TimeshifterException.tooLessFields( values.length, config.getInDateShiftIdx() + 1 );
+            throw TimeshifterException.tooLessFields( values.size(), plan.getInDateShiftIdx() + 1 );
         }
 
-        if( config.getOutDateShiftedOffset() == null )
+        final String dateTimeToShiftStr = toString( values.get( plan.getInDateShiftIdx() ) );
+        if( !plan.isFixedOffset() )
         {
-            if( config.getInDateOffsetIdx() >= values.length )
+            if( plan.getInDateOffsetIdx() >= values.size() )
             {
-                throw TimeshifterException.tooLessFields( values.length, config.getInDateOffsetIdx() + 1 );
+                throw TimeshifterException.tooLessFields( values.size(), plan.getInDateOffsetIdx() + 1 );
             }
 
-            return createShiftedTime( values[config.getInDateShiftIdx()], values[config.getInDateOffsetIdx()] );
+            return createShiftedTime( dateTimeToShiftStr, toString( values.get( plan.getInDateOffsetIdx() ) ) );
         }
         else
         {
-            return createShiftedTime( values[config.getInDateShiftIdx()], config.getOutDateShiftedOffset() );
+            return createShiftedTime( dateTimeToShiftStr, plan.getOutDateShiftedOffset() );
         }
     }
 
     protected OffsetDateTime createShiftedTime( final String dateTimeToShiftStr,
             final String dateTimeToTakeZoneOffsetStr )
     {
-        final ZoneOffset offset = OffsetDateTime
-                .parse( sanitizeField( dateTimeToTakeZoneOffsetStr ), config.getInDateOffsetFormatter() ).getOffset();
+        return createShiftedTime( dateTimeToShiftStr, parseOffset( sanitizeField( dateTimeToTakeZoneOffsetStr ) ) );
+    }
+
+    /**
+     * Takes the zone offset of the given date/time. If the layout of the date
+     * has the offset at its end only that suffix is read; otherwise the whole
+     * date is parsed.
+     */
+    protected ZoneOffset parseOffset( final String dateTimeStr )
+    {
+        final ZoneOffset offset = tryParseOffset( dateTimeStr );
+        if( offset != null )
+        {
+            return offset;
+        }
 
-        return createShiftedTime( dateTimeToShiftStr, offset );
+        // throws the exception describing the error
+        return OffsetDateTime.parse( dateTimeStr, plan.getInDateOffsetFormatter() ).getOffset();
+    }
+
+    /**
+     * Like {@link #parseOffset(String)} but without throwing an exception.
+     *
+     * @return <code>null</code> if the text can't be parsed
+     */
+    protected ZoneOffset tryParseOffset( final String dateTimeStr )
+    {
+        final int offsetSeconds = tryParseOffsetSeconds( dateTimeStr );
+
+        return offsetSeconds == FastDateTimeParser.INVALID_OFFSET ? null
+                : FastDateTimeParser.toZoneOffset( offsetSeconds );
+    }
+
+    /**
+     * Like {@link #tryParseOffset(String)} but giving the offset in seconds.
+     *
+     * @return {@link FastDateTimeParser#INVALID_OFFSET} if the text can't be
+     *         parsed
+     */
+    private int tryParseOffsetSeconds( final String dateTimeStr )
+    {
+        final FastDateTimeParser fastParser = plan.getInDateOffsetParser();
+        if( fastParser != null )
+        {
+            final int offsetSeconds = fastParser.extractOffsetSeconds( dateTimeStr );
+            if( offsetSeconds != FastDateTimeParser.INVALID_OFFSET )
+            {
+                return offsetSeconds;
+            }
+        }
+
+        final OffsetDateTime dateTime = tryParse( plan.getInDateOffsetParseFormat(), dateTimeStr );
+
+        return dateTime == null ? FastDateTimeParser.INVALID_OFFSET : dateTime.getOffset().getTotalSeconds();
     }
 
     protected OffsetDateTime createShiftedTime( final String dateTimeToShiftStr, final ZoneOffset offset )
     {
-        return applyOffset( parse( sanitizeField( dateTimeToShiftStr ), config.getInDateShiftFormatter(),
-                config.getInDateShiftZone() ), offset );
+        return applyOffset( parseDateTimeToShift( sanitizeField( dateTimeToShiftStr ) ), offset );
+    }
+
+    protected OffsetDateTime parseDateTimeToShift( final String dateTimeStr )
+    {
+        final OffsetDateTime dateTime = tryParseDateTimeToShift( dateTimeStr );
+        if( dateTime != null )
+        {
+            return dateTime;
+        }
+
+        // throws the exception describing the error
+        return parse( dateTimeStr, plan.getInDateShiftFormatter(), plan.getInDateShiftZone() );
+    }
+
+    /**
+     * Like {@link #parseDateTimeToShift(String)} but without throwing an
+     * exception.
+     *
+     * @return <code>null</code> if the text can't be parsed
+     */
+    protected OffsetDateTime tryParseDateTimeToShift( final String dateTimeStr )
+    {
+        return tryParseDateTimeToShift( dateTimeStr, plan.getInDateShiftColumn() );
+    }
+
+    /**
+     * Parses the date/time of the given column without throwing an
+     * exception.
+     *
+     * @return <code>null</code> if the text can't be parsed
+     */
+    protected OffsetDateTime tryParseDateTimeToShift( final String dateTimeStr, final ShiftColumn column )
+    {
+        final ShiftedTimes parsed = new ShiftedTimes( 1 );
+
+        return tryParseDateTimeToShift( dateTimeStr, column, parsed, 0 ) ? parsed.toOffsetDateTime( 0 ) : null;
+    }
+
+    /**
+     * Parses the date/time of the given column into the times at the given
+     * index without throwing an exception. The offset of the times is set to
+     * the offset of the text or the zone of the column; shifting replaces it.
+     *
+     * @return <code>false</code> if the text can't be parsed
+     */
+    private boolean tryParseDateTimeToShift( final String dateTimeStr, final ShiftColumn column,
+            final ShiftedTimes parsed, final int idx )
+    {
+        final EpochUnit epochUnit = column.getEpochUnit();
+        if( epochUnit != null )
+        {
+            final long units = epochUnit.parseUnits( dateTimeStr );
+            if( units == EpochUnit.INVALID )
+            {
+                return false;
+            }
+
+            parsed.set( idx, epochUnit.toEpochSecond( units ), epochUnit.toNano( units ) );
+            parsed.setOffsetSeconds( 0 );
+
+            return true;
+        }
+
+        final FastDateTimeParser fastParser = column.getParser();
+        if( fastParser != null && parse( dateTimeStr, fastParser, column.getZoneTable(), parsed, idx ) )
+        {
+            return true;
+        }
+
+        if( column.getZoneTable() != null )
+        {
+            final LocalDateTime localDateTime = tryParse( column.getParseFormat(), dateTimeStr );
+            if( localDateTime == null )
+            {
+                return false;
+            }
+
+            atZone( localDateTime.toEpochSecond( ZoneOffset.UTC ), localDateTime.getNano(), column.getZoneTable(),
+                    parsed, idx );
+
+            return true;
+        }
+
+        final OffsetDateTime dateTime = tryParse( column.getParseFormat(), dateTimeStr );
+        if( dateTime == null )
+        {
+            return false;
+        }
+
+        parsed.set( idx, dateTime.toEpochSecond(), dateTime.getNano() );
+        parsed.setOffsetSeconds( dateTime.getOffset().getTotalSeconds() );
+
+        return true;
+    }
+
+    /**
+     * Parses the whole text by a format created by
+     * {@link DateTimeFormatter#toFormat(java.time.temporal.TemporalQuery)},
+     * which reports errors by the {@link ParsePosition} instead of an
+     * exception.
+     *
+     * @return <code>null</code> if the text can't be parsed
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T tryParse( final Format format, final String text )
+    {
+        final ParsePosition position = new ParsePosition( 0 );
+        final Object result = format.parseObject( text, position );
+
+        return position.getErrorIndex() < 0 && position.getIndex() == text.length() ? (T) result : null;
+    }
+
+    /**
+     * Parses the given text using the specialized parser.
+     *
+     * @param zoneTable zone of the date/time if not contained in the text
+     *
+     * @return <code>null</code> if the parser can't handle the text
+     */
+    protected OffsetDateTime parse( final String dateTimeStr, final FastDateTimeParser parser,
+            final ZoneTransitionTable zoneTable )
+    {
+        final ShiftedTimes parsed = new ShiftedTimes( 1 );
+
+        return parse( dateTimeStr, parser, zoneTable, parsed, 0 ) ? parsed.toOffsetDateTime( 0 ) : null;
+    }
+
+    /**
+     * Like {@link #parse(String, FastDateTimeParser, ZoneTransitionTable)} but
+     * setting the date/time of the times at the given index.
+     *
+     * @return <code>false</code> if the parser can't handle the text
+     */
+    private static boolean parse( final String dateTimeStr, final FastDateTimeParser parser,
+            final ZoneTransitionTable zoneTable, final ShiftedTimes parsed, final int idx )
+    {
+        final long localEpochSecond = parser.parseLocalEpochSecond( dateTimeStr );
+        if( localEpochSecond == FastDateTimeParser.INVALID )
+        {
+            return false;
+        }
+
+        final int offsetSeconds =
+                parser.hasOffset() ? parser.parseOffsetSeconds( dateTimeStr ) : FastDateTimeParser.INVALID_OFFSET;
+        if( parser.hasOffset() && offsetSeconds == FastDateTimeParser.INVALID_OFFSET )
+        {
+            return false;
+        }
+
+        if( zoneTable == null )
+        {
+            if( !parser.hasOffset() )
+            {
+                return false;
+            }
+
+            parsed.set( idx, localEpochSecond - offsetSeconds, 0 );
+            parsed.setOffsetSeconds( offsetSeconds );
+        }
+        else
+        {
+            atZone( localEpochSecond, 0, zoneTable, parsed, idx );
+        }
+
+        return true;
+    }
+
+    private static void atZone( final long localEpochSecond, final int nanos, final ZoneTransitionTable zoneTable,
+            final ShiftedTimes parsed, final int idx )
+    {
+        parsed.set( idx, zoneTable.toEpochSecond( localEpochSecond ), nanos );
+        parsed.setOffsetSeconds( zoneTable.getOffsetSeconds( localEpochSecond ) );
     }
 
     protected OffsetDateTime parse( final String dateTimeStr, final DateTimeFormatter formatter, final ZoneId zoneId )
@@ -160,6 +1068,15 @@ public class Timeshifter
         return dateTime.withOffsetSameInstant( offset );
     }
 
+    /**
+     * Like {@link #applyOffset(OffsetDateTime, ZoneOffset)} for all date/times
+     * of the times; the instants are kept, so only the offset changes.
+     */
+    private static void applyOffset( final ShiftedTimes shifted, final int offsetSeconds )
+    {
+        shifted.setOffsetSeconds( offsetSeconds );
+    }
+
     protected String formatFixPattern( final String pattern )
     {
         if( pattern == null || pattern.isEmpty() )
@@ -176,11 +1093,13 @@ public class Timeshifter
         return writer.toString();
     }
 
-    protected void write( final String line, final Writer out )
+    protected void write( final CharSequence line, final Writer out )
     {
+        final long start = metrics.start();
         try
         {
-            out.write( line );
+            out.append( line );
+            metrics.record( Stage.WRITE, start );
         }
         catch( final IOException e )
         {
@@ -193,8 +1112,168 @@ public class Timeshifter
         return value == null ? "" : value.trim();
     }
 
-    private void logError( final String msg, final Exception e )
+    private static String toString( final CharSequence value )
+    {
+        return value == null ? null : value.toString();
+    }
+
+    private static boolean isBlank( final CharSequence value, final int start )
     {
-        System.err.println( msg + "  " + e );
+        for( int i = start; i < value.length(); i++ )
+        {
+            if( value.charAt( i ) > ' ' )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Appends the shifted date/time given by its epoch second, nano and
+     * offset in the output format with or without zone; epoch numbers and the
+     * ExifTool layouts are appended without creating objects, other formats
+     * create the date/time to format.
+     */
+    public void appendShiftedTime( final long epochSecond, final int nano, final int offsetSeconds,
+            final boolean withOffset, final StringBuilder out )
+    {
+        final EpochUnit epochUnit = plan.getOutDateShiftedEpochUnit();
+        if( epochUnit != null )
+        {
+            epochUnit.appendTo( out,
+                    withOffset ? epochSecond : CivilTime.toLocalEpochSecond( epochSecond, offsetSeconds ), nano );
+            return;
+        }
+
+        final FastDateTimeFormatter fastFormatter = plan.getOutDateShiftedFastFormatter();
+        if( fastFormatter == null || !fastFormatter.appendTo( out, epochSecond, offsetSeconds, withOffset ) )
+        {
+            final ZoneOffset offset = FastDateTimeParser.toZoneOffset( offsetSeconds );
+            out.append( OffsetDateTime.of( LocalDateTime.ofEpochSecond( epochSecond, nano, offset ), offset ).format(
+                    withOffset ? plan.getOutDateShiftedFormatter() : plan.getOutDateShiftedFormatterLocal() ) );
+        }
+    }
+
+    protected void logError( final String msg )
+    {
+        System.err.println( msg );
+    }
+
+    /**
+     * Session in line mode of a thread of {@link #shift(Stream)} keeping the
+     * last text passed to it.
+     */
+    private final class LineCollector
+        implements
+            ShiftedRowSink
+    {
+        private final ShiftSession  session = openLineSession( this );
+        private final MutableCsvRow row     = new MutableCsvRow();
+        private final StringBuilder line    = new StringBuilder( 256 );
+
+        String begin()
+        {
+            session.begin();
+
+            return line.toString();
+        }
+
+        /**
+         * @return the output line; <code>null</code> if there is none
+         */
+        String shift( final String[] values )
+        {
+            return session.push( row.setAll( values ) ) ? line.toString() : null;
+        }
+
+        String end()
+        {
+            session.end();
+
+            return line.toString();
+        }
+
+        @Override
+        public void beginBatch( final CharSequence header )
+        {
+            line.setLength( 0 );
+            line.append( header );
+        }
+
+        @Override
+        public void accept( final ShiftedRow shiftedRow )
+        {
+            line.setLength( 0 );
+            shiftedRow.appendLine( line );
+        }
+
+        @Override
+        public void endBatch( final CharSequence footer )
+        {
+            line.setLength( 0 );
+            line.append( footer );
+        }
+    }
+
+    /**
+     * Input fields followed by the shifted date/time with and without zone of
+     * each column to shift, given as primitives or already formatted, and the
+     * offset in seconds if {@link ShiftPlan#isOutOffsetSeconds()}.
+     */
+    private final class LineFields
+        implements
+            OutputLineTemplate.Fields
+    {
+        private final CsvRow       inputFields;
+        private final ShiftedTimes shiftedTimes;
+        private final String[]     formattedTimes;
+
+        /**
+         * @param shiftedTimes <code>null</code> if formatted times are given
+         * @param formattedTimes shifted date/time with and without zone of
+         *            each column and the offset if requested; <code>null</code>
+         *            if shifted times are given
+         */
+        LineFields( final CsvRow inputFields, final ShiftedTimes shiftedTimes, final String[] formattedTimes )
+        {
+            this.inputFields = inputFields;
+            this.shiftedTimes = shiftedTimes;
+            this.formattedTimes = formattedTimes;
+        }
+
+        @Override
+        public int size()
+        {
+            return inputFields.size() + ( formattedTimes != null ? formattedTimes.length
+                    : 2 * shiftedTimes.size() + ( plan.isOutOffsetSeconds() ? 1 : 0 ) );
+        }
+
+        @Override
+        public void appendTo( final int idx, final StringBuilder out )
+        {
+            if( idx < inputFields.size() )
+            {
+                inputFields.appendTo( idx, out );
+                return;
+            }
+
+            final int shiftedIdx = idx - inputFields.size();
+            if( formattedTimes != null )
+            {
+                out.append( formattedTimes[shiftedIdx] );
+            }
+            else if( shiftedIdx < 2 * shiftedTimes.size() )
+            {
+                final int column = shiftedIdx / 2;
+                appendShiftedTime( shiftedTimes.getEpochSecond( column ), shiftedTimes.getNano( column ),
+                        shiftedTimes.getOffsetSeconds(), shiftedIdx % 2 == 0, out );
+            }
+            else
+            {
+                out.append( shiftedTimes.getOffsetSeconds() );
+            }
+        }
     }
 }
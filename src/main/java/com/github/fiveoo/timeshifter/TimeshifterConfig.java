@@ -3,6 +3,8 @@ package com.github.fiveoo.timeshifter;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
 
 import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
 
@@ -12,6 +14,9 @@ import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
  * For details on the values the methods should return have a look at the
  * corresponding configuration parameters located in
  * {@link MutableTimeshifterConfig}.
+ *
+ * Methods added after the first release have default implementations keeping
+ * the behaviour of that release.
  */
 public interface TimeshifterConfig
 {
@@ -23,6 +28,17 @@ public interface TimeshifterConfig
 
     int getInDateShiftIdx();
 
+    /**
+     * @return all columns to shift; the first one is the column described by
+     *         {@link #getInDateShiftIdx()}, {@link #getInDateShiftFormatter()}
+     *         and {@link #getInDateShiftZone()}; by default that column only
+     */
+    default List<ShiftColumn> getInDateShiftColumns()
+    {
+        return Collections.singletonList(
+                new ShiftColumn( getInDateShiftIdx(), getInDateShiftFormatter(), getInDateShiftZone() ) );
+    }
+
     DateTimeFormatter getInDateOffsetFormatter();
 
     int getInDateOffsetIdx();
@@ -31,15 +47,69 @@ public interface TimeshifterConfig
 
     String getOutputFileName();
 
+    /**
+     * @return file to write rejected rows to; by default <code>null</code> to
+     *         only count them
+     */
+    default String getRejectFileName()
+    {
+        return null;
+    }
+
     ZoneOffset getOutDateShiftedOffset();
 
     DateTimeFormatter getOutDateShiftedFormatter();
 
     DateTimeFormatter getOutDateShiftedFormatterLocal();
 
+    /**
+     * @return <code>true</code> to add the offset of the shifted date/times in
+     *         seconds after the shifted fields of the output line; by
+     *         default <code>false</code>
+     */
+    default boolean isOutOffsetSeconds()
+    {
+        return false;
+    }
+
     String getOutputLineFormat();
 
     String getOutHeaderFormat();
 
     String getOutFooterFormat();
+
+    /**
+     * @return size of the output buffer in bytes
+     */
+    default int getOutBufferSize()
+    {
+        return BufferedChannelWriter.DEFAULT_BUFFER_SIZE;
+    }
+
+    /**
+     * @return number of threads shifting rows; by default 1
+     */
+    default int getThreads()
+    {
+        return 1;
+    }
+
+    /**
+     * @return <code>true</code> to write the output lines of several threads
+     *         as soon as they are shifted; by default <code>false</code> to
+     *         keep the input order
+     */
+    default boolean isUnordered()
+    {
+        return false;
+    }
+
+    /**
+     * @return number of shifted date/times each thread keeps to reuse for
+     *         repeated input values; 0, the default, disables the cache
+     */
+    default int getShiftCacheSize()
+    {
+        return 0;
+    }
 }
@@ -1,6 +1,7 @@
 package com.github.fiveoo.timeshifter;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 public final class TimeshifterException
     extends
@@ -28,9 +29,69 @@ public final class TimeshifterException
         return new TimeshifterException( "Could not write result", e );
     }
 
+    public static TimeshifterException interrupted( final InterruptedException e )
+    {
+        return new TimeshifterException( "Processing was interrupted", e );
+    }
+
+    public static TimeshifterException errorProcessingInput( final Throwable cause )
+    {
+        return new TimeshifterException( "Could not process input", cause );
+    }
+
     public static TimeshifterException tooLessFields( final int currentLength, final int requiredLength )
     {
         return new TimeshifterException( "Could not read input. " + requiredLength + " fields are required but only "
                 + currentLength + " are given." );
     }
+
+    public static TimeshifterException ambiguousOutput( final Path output )
+    {
+        return new TimeshifterException( "Several input files would be written to " + output );
+    }
+
+    public static TimeshifterException outputOverwritesInput( final Path input )
+    {
+        return new TimeshifterException( "Output would overwrite input file " + input );
+    }
+
+    public static TimeshifterException noInputFiles()
+    {
+        return new TimeshifterException( "No input files found" );
+    }
+
+    public static TimeshifterException batchFailed( final int failedFiles, final int files )
+    {
+        return new TimeshifterException( "Could not process " + failedFiles + " of " + files + " input files" );
+    }
+
+    public static TimeshifterException checkpointNotSupported( final String reason )
+    {
+        return new TimeshifterException( "Checkpoints are not supported: " + reason );
+    }
+
+    public static TimeshifterException followNotSupported( final String reason )
+    {
+        return new TimeshifterException( "Following the input is not supported: " + reason );
+    }
+
+    public static TimeshifterException checkpointMismatch( final Path checkpointFile, final Path input )
+    {
+        return new TimeshifterException( "Checkpoint " + checkpointFile + " was not recorded for input " + input );
+    }
+
+    public static TimeshifterException invalidCheckpoint( final Path checkpointFile, final Throwable cause )
+    {
+        return new TimeshifterException( "Could not read checkpoint " + checkpointFile, cause );
+    }
+
+    public static TimeshifterException binaryOutputNotSupported( final String reason )
+    {
+        return new TimeshifterException( "Binary output is not supported: " + reason );
+    }
+
+    public static TimeshifterException invalidBinaryFile( final Path file, final String reason )
+    {
+        return new TimeshifterException( "Invalid binary file " + file + ": " + reason );
+    }
 }
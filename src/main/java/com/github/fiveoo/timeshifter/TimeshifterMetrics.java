@@ -0,0 +1,295 @@
+package com.github.fiveoo.timeshifter;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timers of the stages a row passes while being shifted.
+ *
+ * Counters are {@link LongAdder}s, so threads shifting in parallel don't
+ * contend for them. The durations of the stages are recorded in a
+ * {@link LatencyHistogram} per thread and stage which are only added up for
+ * {@link #toJson()}; call it after the shifting finished to get exact numbers.
+ *
+ * {@link #DISABLED} records nothing and doesn't even read the clock;
+ * {@link #countersOnly()} records the counters but not the durations.
+ */
+public class TimeshifterMetrics
+{
+    /** metrics recording nothing */
+    public static final TimeshifterMetrics DISABLED = new TimeshifterMetrics( false, false );
+
+    public enum Stage
+    {
+        /** reading and tokenizing the input */
+        READ,
+        /** parsing the date/time to shift and the offset */
+        PARSE,
+        /** applying the offset */
+        SHIFT,
+        /** formatting the output line */
+        FORMAT,
+        /** writing output lines */
+        WRITE;
+
+        String jsonName()
+        {
+            return name().toLowerCase( Locale.ROOT );
+        }
+    }
+
+    private final boolean enabled;
+    private final boolean timed;
+    private final long    startNanos = System.nanoTime();
+
+    private final LongAdder rowsIn   = new LongAdder();
+    private final LongAdder rowsOut  = new LongAdder();
+    private final LongAdder bytesIn  = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    private final LongAdder cacheHits   = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    private final Queue<LatencyHistogram[]>       allStageTimes = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<LatencyHistogram[]> stageTimes    = ThreadLocal.withInitial( this::newStageTimes );
+
+    public TimeshifterMetrics()
+    {
+        this( true, true );
+    }
+
+    private TimeshifterMetrics( final boolean enabled, final boolean timed )
+    {
+        this.enabled = enabled;
+        this.timed = timed;
+    }
+
+    /**
+     * @return metrics counting rows and bytes without reading the clock for
+     *         each stage
+     */
+    public static TimeshifterMetrics countersOnly()
+    {
+        return new TimeshifterMetrics( true, false );
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * @return start time of a stage to pass to
+     *         {@link #record(Stage, long)}
+     */
+    public long start()
+    {
+        return timed ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the duration of a stage.
+     *
+     * @param start value of {@link #start()} at the beginning of the stage
+     *
+     * @return end of the stage; may be used as start of the next one
+     */
+    public long record( final Stage stage, final long start )
+    {
+        if( !timed )
+        {
+            return 0;
+        }
+
+        final long end = System.nanoTime();
+        stageTimes.get()[stage.ordinal()].record( end - start );
+
+        return end;
+    }
+
+    public void rowIn()
+    {
+        if( enabled )
+        {
+            rowsIn.increment();
+        }
+    }
+
+    public void rowOut()
+    {
+        if( enabled )
+        {
+            rowsOut.increment();
+        }
+    }
+
+    /**
+     * Counts a row that couldn't be shifted; the rows are grouped by the
+     * reason.
+     */
+    public void rowFailed( final RejectReason reason )
+    {
+        if( enabled )
+        {
+            failures.computeIfAbsent( reason.name(), r -> new LongAdder() ).increment();
+        }
+    }
+
+    public void addBytesIn( final long bytes )
+    {
+        if( enabled )
+        {
+            bytesIn.add( bytes );
+        }
+    }
+
+    public void addBytesOut( final long bytes )
+    {
+        if( enabled )
+        {
+            bytesOut.add( bytes );
+        }
+    }
+
+    /**
+     * Counts a shifted date/time taken from the cache.
+     */
+    public void cacheHit()
+    {
+        if( enabled )
+        {
+            cacheHits.increment();
+        }
+    }
+
+    /**
+     * Counts a shifted date/time not found in the cache.
+     */
+    public void cacheMiss()
+    {
+        if( enabled )
+        {
+            cacheMisses.increment();
+        }
+    }
+
+    public long getCacheHits()
+    {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses()
+    {
+        return cacheMisses.sum();
+    }
+
+    public long getRowsIn()
+    {
+        return rowsIn.sum();
+    }
+
+    public long getRowsOut()
+    {
+        return rowsOut.sum();
+    }
+
+    public long getRowsFailed()
+    {
+        return failures.values().stream().mapToLong( LongAdder::sum ).sum();
+    }
+
+    public long getElapsedNanos()
+    {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * @return durations of the given stage recorded by all threads so far
+     */
+    public LatencyHistogram getStageTimes( final Stage stage )
+    {
+        final LatencyHistogram times = new LatencyHistogram();
+        for( final LatencyHistogram[] threadTimes : allStageTimes )
+        {
+            times.add( threadTimes[stage.ordinal()] );
+        }
+
+        return times;
+    }
+
+    /**
+     * @return progress line with the rows processed so far
+     */
+    public String toProgressLine()
+    {
+        final double seconds = getElapsedNanos() / 1e9;
+        final long in = getRowsIn();
+
+        return String.format( Locale.ROOT, "%.1f s: %d rows in, %d rows out, %d rows failed, %.0f rows/s", seconds,
+                in, getRowsOut(), getRowsFailed(), in / seconds );
+    }
+
+    /**
+     * @return all metrics as JSON object; times are in microseconds
+     */
+    public String toJson()
+    {
+        final StringBuilder json = new StringBuilder( 1024 ).append( "{\n" );
+        json.append( "  \"elapsedMicros\": " ).append( TimeUnit.NANOSECONDS.toMicros( getElapsedNanos() ) )
+                .append( ",\n" );
+        json.append( "  \"rowsIn\": " ).append( getRowsIn() ).append( ",\n" );
+        json.append( "  \"rowsOut\": " ).append( getRowsOut() ).append( ",\n" );
+        json.append( "  \"rowsFailed\": {" );
+        String separator = "";
+        for( final Map.Entry<String, LongAdder> failure : new TreeMap<>( failures ).entrySet() )
+        {
+            json.append( separator ).append( "\"" ).append( failure.getKey() ).append( "\": " )
+                    .append( failure.getValue().sum() );
+            separator = ", ";
+        }
+        json.append( "},\n" );
+        json.append( "  \"bytesIn\": " ).append( bytesIn.sum() ).append( ",\n" );
+        json.append( "  \"bytesOut\": " ).append( bytesOut.sum() ).append( ",\n" );
+        json.append( "  \"cacheHits\": " ).append( getCacheHits() ).append( ",\n" );
+        json.append( "  \"cacheMisses\": " ).append( getCacheMisses() ).append( ",\n" );
+        json.append( "  \"stages\": {\n" );
+        for( final Stage stage : Stage.values() )
+        {
+            final LatencyHistogram times = getStageTimes( stage );
+            json.append( "    \"" ).append( stage.jsonName() ).append( "\": { \"count\": " ).append( times.getCount() )
+                    .append( ", \"totalMicros\": " ).append( toMicros( times.getSum() ) )
+                    .append( ", \"p50Micros\": " ).append( toMicros( times.getPercentile( 50 ) ) )
+                    .append( ", \"p99Micros\": " ).append( toMicros( times.getPercentile( 99 ) ) )
+                    .append( ", \"maxMicros\": " ).append( toMicros( times.getMax() ) ).append( " }" )
+                    .append( stage.ordinal() < Stage.values().length - 1 ? ",\n" : "\n" );
+        }
+        json.append( "  }\n" ).append( "}" );
+
+        return json.toString();
+    }
+
+    private LatencyHistogram[] newStageTimes()
+    {
+        final LatencyHistogram[] times = new LatencyHistogram[Stage.values().length];
+        for( int i = 0; i < times.length; i++ )
+        {
+            times[i] = new LatencyHistogram();
+        }
+        allStageTimes.add( times );
+
+        return times;
+    }
+
+    private static String toMicros( final long nanos )
+    {
+        return String.format( Locale.ROOT, "%.3f", nanos / 1e3 );
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.fiveoo.timeshifter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transitions of a zone precomputed for a range of years, so a local date/time
+ * (given as local epoch second) is resolved to an offset by a single binary
+ * search.
+ *
+ * Gaps and overlaps are handled like {@link ZonedDateTime#of(LocalDateTime, ZoneId)}
+ * does: a local date/time within a gap is moved forward by the length of the
+ * gap, within an overlap the earlier offset is used. Local date/times outside
+ * the precomputed range are resolved by the {@link ZoneRules} of the zone.
+ *
+ * Instances are immutable and thread-safe.
+ */
+public final class ZoneTransitionTable
+{
+    /** first year covered by default */
+    public static final int DEFAULT_MIN_YEAR = 1900;
+
+    /** last year covered by default */
+    public static final int DEFAULT_MAX_YEAR = 2100;
+
+    private final ZoneId zone;
+    private final long   rangeStart;
+    private final long   rangeEnd;
+    private final int    initialOffset;
+
+    /** local epoch second a transition starts to have an effect */
+    private final long[] localStarts;
+
+    /** local epoch second the gap/overlap of a transition ends */
+    private final long[] localEnds;
+
+    private final int[] offsetsBefore;
+    private final int[] offsetsAfter;
+
+    private ZoneTransitionTable( final ZoneId zone, final long rangeStart, final long rangeEnd,
+            final int initialOffset, final List<ZoneOffsetTransition> transitions )
+    {
+        this.zone = zone;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.initialOffset = initialOffset;
+
+        final int count = transitions.size();
+        localStarts = new long[count];
+        localEnds = new long[count];
+        offsetsBefore = new int[count];
+        offsetsAfter = new int[count];
+        for( int i = 0; i < count; i++ )
+        {
+            final ZoneOffsetTransition transition = transitions.get( i );
+            final long epochSecond = transition.toEpochSecond();
+            offsetsBefore[i] = transition.getOffsetBefore().getTotalSeconds();
+            offsetsAfter[i] = transition.getOffsetAfter().getTotalSeconds();
+            localStarts[i] = epochSecond + Math.min( offsetsBefore[i], offsetsAfter[i] );
+            localEnds[i] = epochSecond + Math.max( offsetsBefore[i], offsetsAfter[i] );
+        }
+    }
+
+    public static ZoneTransitionTable of( final ZoneId zone )
+    {
+        return of( zone, DEFAULT_MIN_YEAR, DEFAULT_MAX_YEAR );
+    }
+
+    /**
+     * Creates the table for the given zone covering the years from
+     * <code>minYear</code> to <code>maxYear</code> (both inclusive).
+     */
+    public static ZoneTransitionTable of( final ZoneId zone, final int minYear, final int maxYear )
+    {
+        final ZoneRules rules = zone.getRules();
+        final long rangeStart = LocalDateTime.of( minYear, 1, 1, 0, 0 ).toEpochSecond( ZoneOffset.UTC );
+        final long rangeEnd = LocalDateTime.of( maxYear + 1, 1, 1, 0, 0 ).toEpochSecond( ZoneOffset.UTC );
+
+        // one day of margin covers every possible offset
+        final Instant first = Instant.ofEpochSecond( rangeStart - CivilTime.SECONDS_PER_DAY );
+        final Instant last = Instant.ofEpochSecond( rangeEnd + CivilTime.SECONDS_PER_DAY );
+
+        final List<ZoneOffsetTransition> transitions = new ArrayList<>();
+        ZoneOffsetTransition transition = rules.nextTransition( first );
+        while( transition != null && transition.getInstant().isBefore( last ) )
+        {
+            transitions.add( transition );
+            transition = rules.nextTransition( transition.getInstant() );
+        }
+
+        return new ZoneTransitionTable( zone, rangeStart, rangeEnd, rules.getOffset( first ).getTotalSeconds(),
+                transitions );
+    }
+
+    public ZoneId getZone()
+    {
+        return zone;
+    }
+
+    /**
+     * @return epoch second of the given local date/time in this zone
+     */
+    public long toEpochSecond( final long localEpochSecond )
+    {
+        if( localEpochSecond < rangeStart || localEpochSecond >= rangeEnd )
+        {
+            return resolveByRules( localEpochSecond ).toEpochSecond();
+        }
+
+        final int idx = find( localEpochSecond );
+        if( idx < 0 )
+        {
+            return localEpochSecond - initialOffset;
+        }
+
+        // within a gap or overlap the offset before is used for the instant
+        return localEpochSecond - ( localEpochSecond < localEnds[idx] ? offsetsBefore[idx] : offsetsAfter[idx] );
+    }
+
+    /**
+     * @return offset in seconds the given local date/time has in this zone
+     */
+    public int getOffsetSeconds( final long localEpochSecond )
+    {
+        if( localEpochSecond < rangeStart || localEpochSecond >= rangeEnd )
+        {
+            return resolveByRules( localEpochSecond ).getOffset().getTotalSeconds();
+        }
+
+        final int idx = find( localEpochSecond );
+        if( idx < 0 )
+        {
+            return initialOffset;
+        }
+        if( localEpochSecond < localEnds[idx] && offsetsAfter[idx] < offsetsBefore[idx] )
+        {
+            // earlier offset within an overlap
+            return offsetsBefore[idx];
+        }
+
+        return offsetsAfter[idx];
+    }
+
+    /**
+     * @return index of the last transition starting at or before the given
+     *         local date/time; -1 if there's none
+     */
+    private int find( final long localEpochSecond )
+    {
+        int low = 0;
+        int high = localStarts.length - 1;
+        while( low <= high )
+        {
+            final int mid = ( low + high ) >>> 1;
+            if( localStarts[mid] <= localEpochSecond )
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+
+        return high;
+    }
+
+    private ZonedDateTime resolveByRules( final long localEpochSecond )
+    {
+        return LocalDateTime.ofEpochSecond( localEpochSecond, 0, ZoneOffset.UTC ).atZone( zone );
+    }
+}
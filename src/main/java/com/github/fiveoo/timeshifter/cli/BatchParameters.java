@@ -0,0 +1,222 @@
+package com.github.fiveoo.timeshifter.cli;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.beust.jcommander.Parameter;
+import com.github.fiveoo.timeshifter.BatchTimeshifter.Job;
+import com.github.fiveoo.timeshifter.TimeshifterException;
+
+/**
+ * Parameters selecting the input files of the batch mode and their outputs.
+ */
+public class BatchParameters
+{
+    private static final String GLOB_CHARS = "*?[{";
+
+    @Parameter(names = { "--batch" }, splitter = SingleValueSplitter.class,
+            description = "Input files to shift in batch mode: a file, a directory (all files in it) or a glob "
+                    + "pattern like \"exports/**/*.csv\". Repeat the parameter for several inputs. The files are "
+                    + "shifted concurrently by --threads threads and written to --batchOutDir or, if not given, "
+                    + "merged in the given order into the output.")
+    private List<String> inputs = new ArrayList<>();
+
+    @Parameter(names = { "--batchManifest" },
+            description = "File listing the input files to shift in batch mode, one per line, each optionally "
+                    + "followed by a tab and the output file. Relative paths are resolved against the directory "
+                    + "of the manifest; lines starting with # are ignored.")
+    private String manifestFileName;
+
+    @Parameter(names = { "--batchOutDir" },
+            description = "Directory each input file of the batch mode is written to by its own file name.")
+    private String outDirName;
+
+    /**
+     * @return <code>true</code> if the batch mode is requested
+     */
+    public boolean isBatch()
+    {
+        return !inputs.isEmpty() || manifestFileName != null;
+    }
+
+    public void setInputs( final List<String> inputs )
+    {
+        this.inputs = new ArrayList<>( inputs );
+    }
+
+    public void setManifestFileName( final String manifestFileName )
+    {
+        this.manifestFileName = manifestFileName;
+    }
+
+    public void setOutDirName( final String outDirName )
+    {
+        this.outDirName = outDirName;
+    }
+
+    /**
+     * Collects the input files of the manifest and the input patterns.
+     *
+     * @return jobs in the order of the manifest followed by the inputs; jobs
+     *         without output are merged
+     */
+    public List<Job> createJobs()
+        throws IOException
+    {
+        final Path outDir = outDirName == null ? null : TimeshifterCli.toPath( outDirName );
+        if( outDir != null )
+        {
+            Files.createDirectories( outDir );
+        }
+
+        final List<Job> jobs = new ArrayList<>();
+        if( manifestFileName != null )
+        {
+            readManifest( TimeshifterCli.toPath( manifestFileName ), outDir, jobs );
+        }
+        for( final String input : inputs )
+        {
+            expand( input, outDir, jobs );
+        }
+
+        checkJobs( jobs );
+
+        return jobs;
+    }
+
+    private static void readManifest( final Path manifest, final Path outDir, final List<Job> jobs )
+        throws IOException
+    {
+        final Path baseDir = manifest.toAbsolutePath().getParent();
+        for( final String line : Files.readAllLines( manifest, StandardCharsets.UTF_8 ) )
+        {
+            if( line.trim().isEmpty() || line.startsWith( "#" ) )
+            {
+                continue;
+            }
+
+            final String[] files = line.split( "\t", 2 );
+            final Path input = resolve( baseDir, files[0].trim() );
+            final Path output = files.length > 1 && !files[1].trim().isEmpty() ? resolve( baseDir, files[1].trim() )
+                    : createOutput( input, outDir );
+            jobs.add( new Job( input, output ) );
+        }
+    }
+
+    private static Path resolve( final Path baseDir, final String fileName )
+    {
+        final Path path = TimeshifterCli.toPath( fileName );
+
+        return path.isAbsolute() || baseDir == null ? path : baseDir.resolve( fileName );
+    }
+
+    private static Path createOutput( final Path input, final Path outDir )
+    {
+        return outDir == null ? null : outDir.resolve( input.getFileName().toString() );
+    }
+
+    /**
+     * Adds the file, the files of the directory or the files matching the glob
+     * pattern in the order of their names. The outputs keep the path of the
+     * files relative to the directory, or to the part of the pattern before
+     * the first wildcard.
+     */
+    static void expand( final String input, final Path outDir, final List<Job> jobs )
+        throws IOException
+    {
+        final int globStart = indexOfGlob( input );
+        if( globStart < 0 )
+        {
+            final Path path = TimeshifterCli.toPath( input );
+            if( !Files.isDirectory( path ) )
+            {
+                jobs.add( new Job( path, createOutput( path, outDir ) ) );
+                return;
+            }
+            try (Stream<Path> files = Files.list( path ))
+            {
+                files.filter( Files::isRegularFile ).sorted()
+                        .forEachOrdered( p -> jobs.add( new Job( p, createOutput( p, outDir ) ) ) );
+            }
+            return;
+        }
+
+        final int baseEnd = input.lastIndexOf( '/', globStart );
+        final Path baseDir =
+                baseEnd < 0 ? Paths.get( "." ) : TimeshifterCli.toPath( input.substring( 0, baseEnd + 1 ) );
+        final String pattern = input.substring( baseEnd + 1 );
+        final PathMatcher matcher = baseDir.getFileSystem().getPathMatcher( "glob:" + pattern );
+        final int maxDepth = pattern.contains( "**" ) ? Integer.MAX_VALUE : pattern.split( "/" ).length;
+        if( !Files.isDirectory( baseDir ) )
+        {
+            return;
+        }
+        try (Stream<Path> files = Files.walk( baseDir, maxDepth ))
+        {
+            files.filter( p -> Files.isRegularFile( p ) && matcher.matches( baseDir.relativize( p ) ) ).sorted()
+                    .forEachOrdered( p -> {
+                        final Path relative = baseDir.relativize( p );
+                        jobs.add( new Job( baseEnd < 0 ? relative : p,
+                                outDir == null ? null : outDir.resolve( relative.toString() ) ) );
+                    } );
+        }
+    }
+
+    private static int indexOfGlob( final String input )
+    {
+        for( int i = 0; i < input.length(); i++ )
+        {
+            if( GLOB_CHARS.indexOf( input.charAt( i ) ) >= 0 )
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Makes sure no output overwrites an input or the output of another job.
+     */
+    private static void checkJobs( final List<Job> jobs )
+    {
+        if( jobs.isEmpty() )
+        {
+            throw TimeshifterException.noInputFiles();
+        }
+
+        final Set<Path> inputs = new HashSet<>();
+        for( final Job job : jobs )
+        {
+            inputs.add( job.getInput().toAbsolutePath().normalize() );
+        }
+        final Set<Path> outputs = new HashSet<>();
+        for( final Job job : jobs )
+        {
+            if( job.getOutput() == null )
+            {
+                continue;
+            }
+
+            final Path output = job.getOutput().toAbsolutePath().normalize();
+            if( inputs.contains( output ) )
+            {
+                throw TimeshifterException.outputOverwritesInput( job.getOutput() );
+            }
+            if( !outputs.add( output ) )
+            {
+                throw TimeshifterException.ambiguousOutput( job.getOutput() );
+            }
+        }
+    }
+}
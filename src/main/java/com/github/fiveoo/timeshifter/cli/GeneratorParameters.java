@@ -0,0 +1,51 @@
+package com.github.fiveoo.timeshifter.cli;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.validators.PositiveInteger;
+import com.github.fiveoo.timeshifter.ExifCsvGenerator;
+import com.github.fiveoo.timeshifter.TimeshifterConfig;
+
+/**
+ * Parameters of the data generated for <code>--generate</code> and
+ * <code>--benchmark</code>.
+ */
+public class GeneratorParameters
+{
+    @Parameter(names = { "--genSpreadDays" }, validateWith = PositiveInteger.class,
+            description = "Number of days the generated date/times are spread over.")
+    private int spreadDays = (int) TimeUnit.SECONDS.toDays( ExifCsvGenerator.DEFAULT_SPREAD_SECONDS );
+
+    @Parameter(names = { "--genZones" }, converter = ZoneIdConverter.class,
+            description = "Comma separated zones or offsets the generated date/times to take the offset from are "
+                    + "spread over.")
+    private List<ZoneId> zones = new ArrayList<>( Collections.singletonList( ZoneOffset.ofHours( 1 ) ) );
+
+    @Parameter(names = { "--genErrorRatio" },
+            description = "Ratio (0 to 1) of generated rows containing a date/time that can't be parsed.")
+    private double errorRatio = 0;
+
+    @Parameter(names = { "--genExtraColumns" }, validateWith = PositiveInteger.class,
+            description = "Number of generated columns passed through unchanged.")
+    private int extraColumns = 0;
+
+    /**
+     * @return generator of data the given configuration is able to shift
+     */
+    public ExifCsvGenerator createGenerator( final TimeshifterConfig config, final long rows )
+    {
+        final ExifCsvGenerator generator = ExifCsvGenerator.forConfig( config, rows );
+        generator.setSpreadSeconds( TimeUnit.DAYS.toSeconds( spreadDays ) );
+        generator.setZones( zones );
+        generator.setErrorRatio( errorRatio );
+        generator.setExtraColumns( extraColumns );
+
+        return generator;
+    }
+}
@@ -8,9 +8,13 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.validators.PositiveInteger;
+import com.github.fiveoo.timeshifter.BufferedChannelWriter;
+import com.github.fiveoo.timeshifter.EpochUnit;
+import com.github.fiveoo.timeshifter.ShiftColumn;
 import com.github.fiveoo.timeshifter.TimeshifterConfig;
 
 public class MutableTimeshifterConfig
@@ -18,18 +22,26 @@ public class MutableTimeshifterConfig
         TimeshifterConfig
 {
     private static final String PARAM_NAME_IN_LINES_SKIP_LONG       = "--inLinesSkip";
+    private static final String PARAM_NAME_IN_DATE_SHIFT_COL_SHORT  = "-isc";
     private static final String PARAM_NAME_IN_DATE_OFFSET_IDX_SHORT = "-iox";
     private static final String PARAM_NAME_OUTPUT_LINE_SHORT        = "-olf";
+    private static final String PARAM_NAME_THREADS_LONG             = "--threads";
 
     public static final String            DEFAULT_DATE_TIME_PATTERN   = "yyyy:MM:dd HH:mm:ssXXX";
     public static final DateTimeFormatter DEFAULT_DATE_TIME_FORMATTER =
             DateTimeFormatter.ofPattern( DEFAULT_DATE_TIME_PATTERN );
 
+    private static final Pattern SHIFT_COLUMN_SEPARATOR = Pattern.compile( ";" );
+
+    private static final String EPOCH_FORMATS_DESCRIPTION = "epochSeconds, epochMillis and epochMicros denote "
+            + "the number of seconds, milliseconds or microseconds since 1970-01-01T00:00:00Z.";
+
     /* -- Input parameters -- */
     @Parameter(names = { "-i", "--in" }, description = "Source file. Default: stdin")
     private String inputFileName;
 
-    @Parameter(names = { "-isf", "--inDateShiftFormat" }, description = "Format of the date to shift in input data.")
+    @Parameter(names = { "-isf", "--inDateShiftFormat" },
+            description = "Format of the date to shift in input data. " + EPOCH_FORMATS_DESCRIPTION)
     private String inDateShiftFormat = DEFAULT_DATE_TIME_PATTERN;
 
     @Parameter(names = { "-isz", "--inDateShiftZone" },
@@ -42,6 +54,15 @@ public class MutableTimeshifterConfig
             description = "Index of the field containing the date/time to shift in input data. The index is 0-based.")
     private int inDateShiftIdx = 1;
 
+    @Parameter(names = { PARAM_NAME_IN_DATE_SHIFT_COL_SHORT, "--inDateShiftColumn" },
+            splitter = SingleValueSplitter.class, validateWith = ShiftColumnValidator.class,
+            description = "Further field containing a date/time to shift in the same pass, given as "
+                    + "<idx>[;<format>[;<zone>]]. Format and zone default to the ones of the date to shift. Repeat "
+                    + "the parameter for several fields. All fields are shifted by the same offset; each adds a "
+                    + "field with and one without timezone information to the default output line (e.g. "
+                    + PARAM_NAME_IN_DATE_SHIFT_COL_SHORT + " \"3;dd.MM.yyyy HH:mm:ss;Europe/Berlin\").")
+    private List<String> inDateShiftColumns = new ArrayList<>();
+
     @Parameter(names = { "-iof", "--inDateOffsetFormat" },
             description = "Format of the date to take offset from in input data.")
     private String inDateOffsetFormat = DEFAULT_DATE_TIME_PATTERN;
@@ -59,6 +80,12 @@ public class MutableTimeshifterConfig
     @Parameter(names = { "-o", "--out" }, description = "Destination file. Default: stdout")
     private String outputFileName;
 
+    @Parameter(names = { "--rejectFile" },
+            description = "File the input lines that can't be shifted are written to as CSV, each followed by the "
+                    + "reason and a description of the error. The error messages on stderr are limited to the first "
+                    + "lines of each reason anyway.")
+    private String rejectFileName;
+
     @Parameter(names = { "-oso", "--outDateShiftedOffset" },
             description = "Fix zone offset (e.g. +02:00) for all lines. If this is set "
                     + PARAM_NAME_IN_DATE_OFFSET_IDX_SHORT + " will not be evaluated. "
@@ -66,9 +93,16 @@ public class MutableTimeshifterConfig
             converter = ZoneOffsetConverter.class)
     private ZoneOffset outDateShiftedOffset;
 
-    @Parameter(names = { "-osf", "--outDateShiftedFormat" }, description = "Format of shifted dates in output data.")
+    @Parameter(names = { "-osf", "--outDateShiftedFormat" },
+            description = "Format of shifted dates in output data. " + EPOCH_FORMATS_DESCRIPTION
+                    + " The field without timezone information counts up to the local date/time.")
     private String outDateShiftedFormat = DEFAULT_DATE_TIME_PATTERN;
 
+    @Parameter(names = { "-oos", "--outOffsetSeconds" },
+            description = "Adds a field with the offset of the shifted date/times in seconds after the shifted "
+                    + "fields of the output line.")
+    private boolean outOffsetSeconds = false;
+
     @Parameter(names = { PARAM_NAME_OUTPUT_LINE_SHORT, "--outLineFormat" }, variableArity = true,
             description = "Format of an output line. You can pass several parts of the output line as separate "
                     + "parameters (e.g. \"" + PARAM_NAME_OUTPUT_LINE_SHORT + " abc xyz\" is equivalent to \""
@@ -87,6 +121,28 @@ public class MutableTimeshifterConfig
             description = "Footer to be written to the output after the last line of data. %n will trigger a line break.")
     private List<String> outFooterFormat = new ArrayList<>();
 
+    @Parameter(names = { "-obs", "--outBufferSize" }, validateWith = PositiveInteger.class,
+            description = "Number of characters collected before they are encoded and written as one block.")
+    private int outBufferSize = BufferedChannelWriter.DEFAULT_BUFFER_SIZE;
+
+    /* -- Processing parameters -- */
+    @Parameter(names = { "-t", PARAM_NAME_THREADS_LONG }, validateWith = PositiveInteger.class,
+            description = "Number of threads shifting the input in parallel. "
+                    + "Values less than 2 disable parallel processing.")
+    private int threads = 1;
+
+    @Parameter(names = { "--unordered" },
+            description = "Write output lines in the order they are shifted instead of the order of the input "
+                    + "lines. This gives maximum throughput but is only evaluated if " + PARAM_NAME_THREADS_LONG
+                    + " is greater than 1.")
+    private boolean unordered = false;
+
+    @Parameter(names = { "-csz", "--shiftCacheSize" }, validateWith = PositiveInteger.class,
+            description = "Number of shifted date/times each thread keeps to reuse them for rows repeating the "
+                    + "date/time to shift and the offset field (e.g. burst shots). Only pays off if most rows "
+                    + "repeat values, as each miss costs extra time. 0 disables the cache.")
+    private int shiftCacheSize;
+
     @Override
     public String getInputFileName()
     {
@@ -129,6 +185,23 @@ public class MutableTimeshifterConfig
         this.inDateShiftIdx = inDateShiftIdx;
     }
 
+    /**
+     * @return the further columns to shift as given by the parameter
+     */
+    public List<String> getInDateShiftColumnSpecs()
+    {
+        return inDateShiftColumns;
+    }
+
+    public void setInDateShiftColumnSpecs( final String... inDateShiftColumns )
+    {
+        this.inDateShiftColumns = new ArrayList<>();
+        if( inDateShiftColumns != null )
+        {
+            this.inDateShiftColumns.addAll( Arrays.asList( inDateShiftColumns ) );
+        }
+    }
+
     public String getInDateOffsetFormat()
     {
         return inDateOffsetFormat;
@@ -172,6 +245,17 @@ public class MutableTimeshifterConfig
         this.outputFileName = outputFileName;
     }
 
+    @Override
+    public String getRejectFileName()
+    {
+        return rejectFileName;
+    }
+
+    public void setRejectFileName( final String rejectFileName )
+    {
+        this.rejectFileName = rejectFileName;
+    }
+
     @Override
     public ZoneOffset getOutDateShiftedOffset()
     {
@@ -193,6 +277,17 @@ public class MutableTimeshifterConfig
         this.outDateShiftedFormat = outDateShiftedFormat;
     }
 
+    @Override
+    public boolean isOutOffsetSeconds()
+    {
+        return outOffsetSeconds;
+    }
+
+    public void setOutOffsetSeconds( final boolean outOffsetSeconds )
+    {
+        this.outOffsetSeconds = outOffsetSeconds;
+    }
+
     @Override
     public String getOutputLineFormat()
     {
@@ -247,12 +342,90 @@ public class MutableTimeshifterConfig
         }
     }
 
+    @Override
+    public int getOutBufferSize()
+    {
+        return outBufferSize;
+    }
+
+    public void setOutBufferSize( final int outBufferSize )
+    {
+        this.outBufferSize = outBufferSize;
+    }
+
+    @Override
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    public void setThreads( final int threads )
+    {
+        this.threads = threads;
+    }
+
+    @Override
+    public boolean isUnordered()
+    {
+        return unordered;
+    }
+
+    public void setUnordered( final boolean unordered )
+    {
+        this.unordered = unordered;
+    }
+
+    @Override
+    public int getShiftCacheSize()
+    {
+        return shiftCacheSize;
+    }
+
+    public void setShiftCacheSize( final int shiftCacheSize )
+    {
+        this.shiftCacheSize = shiftCacheSize;
+    }
+
     /*-- Calculated values --*/
     @Override
     public DateTimeFormatter getInDateShiftFormatter()
     {
-        return getInDateShiftFormat() == null ? DEFAULT_DATE_TIME_FORMATTER
-                : DateTimeFormatter.ofPattern( getInDateShiftFormat() );
+        return getInDateShiftFormat() == null ? DEFAULT_DATE_TIME_FORMATTER : ofPattern( getInDateShiftFormat() );
+    }
+
+    @Override
+    public List<ShiftColumn> getInDateShiftColumns()
+    {
+        final List<ShiftColumn> columns = new ArrayList<>( 1 + inDateShiftColumns.size() );
+        columns.add( new ShiftColumn( getInDateShiftIdx(), getInDateShiftFormatter(), getInDateShiftZone() ) );
+        for( final String spec : inDateShiftColumns )
+        {
+            columns.add( parseShiftColumn( spec, getInDateShiftFormatter(), getInDateShiftZone() ) );
+        }
+
+        return columns;
+    }
+
+    /**
+     * Parses a column given as <code>&lt;idx&gt;[;&lt;format&gt;[;&lt;zone&gt;]]</code>.
+     *
+     * @param defaultFormatter formatter if the format is missing or empty
+     * @param defaultZone zone if the zone is missing or empty
+     */
+    static ShiftColumn parseShiftColumn( final String spec, final DateTimeFormatter defaultFormatter,
+            final ZoneId defaultZone )
+    {
+        final String[] parts = SHIFT_COLUMN_SEPARATOR.split( spec, 3 );
+        final int idx = Integer.parseInt( parts[0].trim() );
+        if( idx < 0 )
+        {
+            throw new IllegalArgumentException( "Index of column to shift must not be negative: " + idx );
+        }
+        final DateTimeFormatter formatter =
+                parts.length < 2 || parts[1].isEmpty() ? defaultFormatter : ofPattern( parts[1] );
+        final ZoneId zone = parts.length < 3 || parts[2].trim().isEmpty() ? defaultZone : ZoneId.of( parts[2].trim() );
+
+        return new ShiftColumn( idx, formatter, zone );
     }
 
     @Override
@@ -265,17 +438,33 @@ public class MutableTimeshifterConfig
     @Override
     public DateTimeFormatter getOutDateShiftedFormatter()
     {
-        return getOutDateShiftedFormat() == null ? DEFAULT_DATE_TIME_FORMATTER
-                : DateTimeFormatter.ofPattern( getOutDateShiftedFormat() );
+        return getOutDateShiftedFormat() == null ? DEFAULT_DATE_TIME_FORMATTER : ofPattern( getOutDateShiftedFormat() );
     }
 
     @Override
     public DateTimeFormatter getOutDateShiftedFormatterLocal()
     {
+        final EpochUnit epochUnit = EpochUnit.forPattern( getOutDateShiftedFormat() );
+        if( epochUnit != null )
+        {
+            return epochUnit.getFormatterLocal();
+        }
+
         final String outputFormatGlobal =
                 getOutDateShiftedFormat() == null ? DEFAULT_DATE_TIME_PATTERN : getOutDateShiftedFormat();
         final String outputFormatLocal = outputFormatGlobal.replaceAll( "([^'])[0VXxZz]+", "$1" );
 
         return DateTimeFormatter.ofPattern( outputFormatLocal );
     }
+
+    /**
+     * @return formatter of the given pattern or of the {@link EpochUnit} it
+     *         selects
+     */
+    private static DateTimeFormatter ofPattern( final String pattern )
+    {
+        final EpochUnit epochUnit = EpochUnit.forPattern( pattern );
+
+        return epochUnit != null ? epochUnit.getFormatter() : DateTimeFormatter.ofPattern( pattern );
+    }
 }
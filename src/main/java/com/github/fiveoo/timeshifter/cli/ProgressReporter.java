@@ -0,0 +1,37 @@
+package com.github.fiveoo.timeshifter.cli;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.github.fiveoo.timeshifter.TimeshifterMetrics;
+
+/**
+ * Prints a progress line of the given metrics periodically until closed.
+ */
+class ProgressReporter
+    implements
+        Closeable
+{
+    private final ScheduledExecutorService executor;
+
+    ProgressReporter( final TimeshifterMetrics metrics, final PrintStream out, final int periodSeconds )
+    {
+        executor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+            final Thread thread = new Thread( runnable, "timeshifter-progress" );
+            thread.setDaemon( true );
+
+            return thread;
+        } );
+        executor.scheduleAtFixedRate( () -> out.println( metrics.toProgressLine() ), periodSeconds, periodSeconds,
+                TimeUnit.SECONDS );
+    }
+
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.fiveoo.timeshifter.cli;
+
+import com.beust.jcommander.IParameterValidator;
+import com.beust.jcommander.ParameterException;
+
+/**
+ * Checks the index, format and zone of a column to shift given as
+ * <code>&lt;idx&gt;[;&lt;format&gt;[;&lt;zone&gt;]]</code>.
+ */
+public class ShiftColumnValidator
+    implements
+        IParameterValidator
+{
+    @Override
+    public void validate( final String name, final String value )
+    {
+        try
+        {
+            MutableTimeshifterConfig.parseShiftColumn( value, MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER,
+                    null );
+        }
+        catch( final RuntimeException e )
+        {
+            throw new ParameterException( "Parameter " + name + " should be <idx>[;<format>[;<zone>]] (found "
+                    + value + "): " + e.getMessage() );
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.fiveoo.timeshifter.cli;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.beust.jcommander.converters.IParameterSplitter;
+
+/**
+ * Keeps the value of a list parameter in one piece instead of splitting it at
+ * commas, which may be part of a date/time format.
+ */
+public class SingleValueSplitter
+    implements
+        IParameterSplitter
+{
+    @Override
+    public List<String> split( final String value )
+    {
+        return Collections.singletonList( value );
+    }
+}
@@ -0,0 +1,177 @@
+package com.github.fiveoo.timeshifter.cli;
+
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.CharBuffer;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import com.github.fiveoo.timeshifter.CsvRow;
+import com.github.fiveoo.timeshifter.ExifCsvGenerator;
+import com.github.fiveoo.timeshifter.LatencyHistogram;
+import com.github.fiveoo.timeshifter.RejectReason;
+import com.github.fiveoo.timeshifter.Timeshifter;
+import com.github.fiveoo.timeshifter.TimeshifterConfig;
+
+/**
+ * Measures the throughput of {@link Timeshifter#shift(Stream, Writer)} for
+ * generated data written to a sink discarding it.
+ *
+ * To measure the shifter only, a pool of distinct rows is generated up front
+ * and handed out repeatedly until the requested number of rows is reached.
+ * A run over the pool warms up the JIT compiler before the measurement. The
+ * latency of a row is the time from handing it out to the shifter until its
+ * output line arrives at the sink.
+ */
+class TimeshifterBenchmark
+{
+    static final int MAX_POOL_ROWS = 1 << 16;
+
+    private static final double MB = 1024 * 1024;
+
+    private final TimeshifterConfig config;
+    private final ExifCsvGenerator  generator;
+
+    TimeshifterBenchmark( final TimeshifterConfig config, final ExifCsvGenerator generator )
+    {
+        this.config = config;
+        this.generator = generator;
+    }
+
+    /**
+     * Runs the benchmark and prints the results.
+     */
+    void run( final PrintStream out )
+    {
+        final String[][] pool = generator.rows().limit( MAX_POOL_ROWS ).toArray( String[][]::new );
+        final int[] poolLineLengths = new int[pool.length];
+        for( int i = 0; i < pool.length; i++ )
+        {
+            poolLineLengths[i] = String.join( ",", pool[i] ).length() + 1;
+        }
+
+        measure( pool, poolLineLengths, pool.length );
+
+        System.gc();
+        final List<MemoryPoolMXBean> heapPools = getHeapPools();
+        heapPools.forEach( MemoryPoolMXBean::resetPeakUsage );
+
+        final Measurement measurement = measure( pool, poolLineLengths, generator.getRows() );
+
+        final long peakHeap = heapPools.stream().mapToLong( p -> p.getPeakUsage().getUsed() ).sum();
+        measurement.print( out, peakHeap );
+    }
+
+    private Measurement measure( final String[][] pool, final int[] poolLineLengths, final long rows )
+    {
+        final Measurement measurement = new Measurement( rows );
+        final Timeshifter shifter = new Timeshifter( config )
+        {
+            @Override
+            protected void reject( final CsvRow values, final RejectReason reason, final String detail )
+            {
+                measurement.failedRows++;
+                measurement.rowStart = 0;
+            }
+        };
+
+        final Stream<String[]> data = LongStream.range( 0, rows ).mapToObj( i -> {
+            final int idx = (int) ( i % pool.length );
+            measurement.inBytes += poolLineLengths[idx];
+            measurement.rowStart = System.nanoTime();
+
+            return pool[idx];
+        } );
+
+        final long start = System.nanoTime();
+        shifter.shift( data, measurement );
+        measurement.nanos = System.nanoTime() - start;
+
+        return measurement;
+    }
+
+    private static List<MemoryPoolMXBean> getHeapPools()
+    {
+        final List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+        pools.removeIf( p -> p.getType() != MemoryType.HEAP );
+
+        return pools;
+    }
+
+    /**
+     * Sink of the output lines recording the latencies.
+     */
+    private static final class Measurement
+        extends
+            Writer
+    {
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final long             rows;
+
+        private long rowStart;
+        private long failedRows;
+        private long inBytes;
+        private long outChars;
+        private long nanos;
+
+        Measurement( final long rows )
+        {
+            this.rows = rows;
+        }
+
+        @Override
+        public Writer append( final CharSequence csq )
+        {
+            outChars += csq.length();
+            if( rowStart != 0 )
+            {
+                latencies.record( System.nanoTime() - rowStart );
+                rowStart = 0;
+            }
+
+            return this;
+        }
+
+        @Override
+        public void write( final char[] cbuf, final int off, final int len )
+        {
+            append( CharBuffer.wrap( cbuf, off, len ) );
+        }
+
+        @Override
+        public void flush()
+        {
+            // nothing buffered
+        }
+
+        @Override
+        public void close()
+        {
+            // nothing to close
+        }
+
+        void print( final PrintStream out, final long peakHeap )
+        {
+            final double seconds = nanos / 1e9;
+            out.println( format( "rows:       %d (%d failed)", rows, failedRows ) );
+            out.println( format( "time:       %.3f s", seconds ) );
+            out.println( format( "throughput: %.0f rows/s, %.1f MB/s in, %.1f MB/s out", rows / seconds,
+                    inBytes / MB / seconds, outChars / MB / seconds ) );
+            out.println( format( "latency:    p50 %.2f us, p99 %.2f us, max %.2f us",
+                    latencies.getPercentile( 50 ) / 1e3, latencies.getPercentile( 99 ) / 1e3,
+                    latencies.getMax() / 1e3 ) );
+            out.println( format( "heap:       %.1f MB peak, %.1f MB max", peakHeap / MB,
+                    Runtime.getRuntime().maxMemory() / MB ) );
+        }
+
+        private static String format( final String format, final Object... args )
+        {
+            return String.format( Locale.ROOT, format, args );
+        }
+    }
+}
@@ -2,36 +2,148 @@ package com.github.fiveoo.timeshifter.cli;
 
 import static com.github.fiveoo.timeshifter.cli.Constants.JAVADOC_BASE_URL;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.ParametersDelegate;
+import com.beust.jcommander.validators.PositiveInteger;
+import com.github.fiveoo.timeshifter.BatchTimeshifter;
+import com.github.fiveoo.timeshifter.BatchTimeshifter.FileResult;
+import com.github.fiveoo.timeshifter.BatchTimeshifter.Job;
+import com.github.fiveoo.timeshifter.BinaryRecordWriter;
+import com.github.fiveoo.timeshifter.BufferedChannelWriter;
+import com.github.fiveoo.timeshifter.Checkpoint;
+import com.github.fiveoo.timeshifter.CheckpointedTimeshifter;
+import com.github.fiveoo.timeshifter.FollowingReader;
+import com.github.fiveoo.timeshifter.GzipStreams;
+import com.github.fiveoo.timeshifter.MappedFileReader;
+import com.github.fiveoo.timeshifter.ParallelGzipOutputStream;
+import com.github.fiveoo.timeshifter.ParallelTimeshifter;
+import com.github.fiveoo.timeshifter.ShiftPlan;
 import com.github.fiveoo.timeshifter.Timeshifter;
 import com.github.fiveoo.timeshifter.TimeshifterConfig;
+import com.github.fiveoo.timeshifter.TimeshifterException;
+import com.github.fiveoo.timeshifter.TimeshifterMetrics;
 
 public class TimeshifterCli
 {
+    private static final String PARAM_NAME_CLIENT = "--client";
+
+    private static final int EXIT_ERROR = -5;
+
+    /** time the shutdown waits for the footer in follow mode */
+    private static final long SHUTDOWN_SECONDS = 10;
+
     @Parameter(names = { "-h", "--help" }, description = "Shows this help", help = true)
     private boolean help;
 
+    @Parameter(names = { "--daemon" }, validateWith = PositiveInteger.class,
+            description = "Runs as daemon listening on the given local port for data sent by " + PARAM_NAME_CLIENT
+                    + ". All other parameters are passed by the client with each request.")
+    private Integer daemonPort;
+
+    @Parameter(names = { PARAM_NAME_CLIENT }, validateWith = PositiveInteger.class,
+            description = "Sends the data to the daemon listening on the given local port instead of shifting it "
+                    + "in this process. Has to be the first parameter.")
+    private Integer clientPort;
+
+    @Parameter(names = { "--generate" }, validateWith = PositiveInteger.class,
+            description = "Writes the given number of rows of generated data the other parameters are able to "
+                    + "shift instead of shifting input.")
+    private Integer generateRows;
+
+    @Parameter(names = { "--benchmark" }, validateWith = PositiveInteger.class,
+            description = "Shifts the given number of rows of generated data, discards the output and prints "
+                    + "throughput, latency and heap usage instead.")
+    private Integer benchmarkRows;
+
+    @Parameter(names = { "--metrics" },
+            description = "Prints the rows in/out, the rows failed by cause, the bytes in/out, the hits/misses of "
+                    + "the shift cache and the time spent in each stage as JSON to stderr when finished.")
+    private boolean metrics;
+
+    @Parameter(names = { "--metricsFile" },
+            description = "Writes the metrics (see --metrics) to the given file instead of stderr.")
+    private String metricsFileName;
+
+    @Parameter(names = { "--progress" }, validateWith = PositiveInteger.class,
+            description = "Prints the rows processed so far to stderr every given number of seconds.")
+    private Integer progressSeconds;
+
+    @Parameter(names = { "--inGzip" },
+            description = "Reads GZIP compressed input. Implied by an input file with the extension .gz.")
+    private boolean inGzip;
+
+    @Parameter(names = { "--outGzip" },
+            description = "Writes GZIP compressed output, compressed in blocks on all processors. Implied by an "
+                    + "output file with the extension .gz.")
+    private boolean outGzip;
+
+    @Parameter(names = { "--outBinary" },
+            description = "Writes binary records holding the shifted date/times as epoch seconds and the input "
+                    + "fields instead of text lines (see the documentation for the layout). Header, footer and "
+                    + "output line format don't apply; the rows are shifted by one thread.")
+    private boolean outBinary;
+
+    @Parameter(names = { "--checkpoint" },
+            description = "Records the progress in the given file every --checkpointSeconds seconds, so an aborted "
+                    + "run can be continued by --resume. Requires input and output file; the output must not be "
+                    + "compressed and the rows are shifted by one thread.")
+    private String checkpointFileName;
+
+    @Parameter(names = { "--checkpointSeconds" }, validateWith = PositiveInteger.class,
+            description = "Seconds between two checkpoints.")
+    private long checkpointSeconds = CheckpointedTimeshifter.DEFAULT_INTERVAL_SECONDS;
+
+    @Parameter(names = { "--resume" },
+            description = "Continues the run at the last checkpoint of --checkpoint; starts at the beginning if "
+                    + "there is none.")
+    private boolean resume;
+
+    @Parameter(names = { "--follow" },
+            description = "Follows the input file like tail -F: shifts the lines appended to it as soon as they are "
+                    + "complete, also after the file was truncated or rotated, until the process is terminated. The "
+                    + "footer is written on termination.")
+    private boolean follow;
+
     @ParametersDelegate
     private final TimeshifterConfig config = new MutableTimeshifterConfig();
 
+    @ParametersDelegate
+    private final GeneratorParameters generatorParameters = new GeneratorParameters();
+
+    @ParametersDelegate
+    private final BatchParameters batchParameters = new BatchParameters();
+
     public static void main( final String... args )
     {
+        if( args.length > 1 && PARAM_NAME_CLIENT.equals( args[0] ) )
+        {
+            // thin client; skip parsing the parameters, the daemon does it
+            System.exit( runClient( args[1], Arrays.asList( args ).subList( 2, args.length ) ) );
+        }
+
         final TimeshifterCli timeshifterCli = new TimeshifterCli();
         final int parseResult = timeshifterCli.parseParameters( System.err, args );
 
@@ -40,54 +152,503 @@ public class TimeshifterCli
             // exit with error code (< 0) or help (=0)
             System.exit( Math.min( parseResult, 0 ) );
         }
+        if( timeshifterCli.clientPort != null )
+        {
+            System.err.println( PARAM_NAME_CLIENT + " has to be the first parameter" );
+            System.exit( -1 );
+        }
+
+        try
+        {
+            if( timeshifterCli.daemonPort != null )
+            {
+                try (final TimeshifterDaemon daemon = new TimeshifterDaemon( timeshifterCli.daemonPort ))
+                {
+                    daemon.run();
+                }
+            }
+            else if( timeshifterCli.benchmarkRows != null )
+            {
+                timeshifterCli.runBenchmark( System.out );
+            }
+            else if( timeshifterCli.generateRows != null )
+            {
+                timeshifterCli.runGenerate( System.out );
+            }
+            else if( timeshifterCli.batchParameters.isBatch() )
+            {
+                timeshifterCli.runBatch( System.out, System.err );
+            }
+            else
+            {
+                timeshifterCli.runAppl( System.in, System.out );
+            }
+        }
+        catch( final Exception e )
+        {
+            e.printStackTrace( System.err );
+            System.exit( EXIT_ERROR );
+        }
+    }
 
+    private static int runClient( final String port, final List<String> args )
+    {
         try
         {
-            timeshifterCli.runAppl( System.in, System.out );
+            return new TimeshifterClient( Integer.parseInt( port ) ).run( args, System.in, System.out, System.err );
+        }
+        catch( final NumberFormatException e )
+        {
+            System.err.println( "Invalid port for " + PARAM_NAME_CLIENT + ": " + port );
+
+            return -1;
         }
         catch( final Exception e )
         {
             e.printStackTrace( System.err );
-            System.exit( -5 );
+
+            return EXIT_ERROR;
         }
     }
 
     void runAppl( final InputStream stdIn, final PrintStream stdOut )
         throws IOException
     {
-        final Timeshifter shifter = new Timeshifter( config );
+        try (Writer rejectWriter = config.getRejectFileName() == null ? null
+                : createFileWriter( createPath( config.getRejectFileName() ), resume ))
+        {
+            final Timeshifter shifter = new Timeshifter( new ShiftPlan( config ), createMetrics(), rejectWriter );
+            if( outBinary && ( follow || checkpointFileName != null ) )
+            {
+                throw TimeshifterException.binaryOutputNotSupported( "can't be combined with --follow or "
+                        + "--checkpoint" );
+            }
+            if( follow )
+            {
+                runFollow( shifter, stdOut );
+            }
+            else if( checkpointFileName != null )
+            {
+                runCheckpointed( shifter, System.err );
+            }
+            else
+            {
+                runAppl( shifter, stdIn, stdOut, System.err );
+            }
+        }
+    }
+
+    /**
+     * Shifts the lines appended to the input file until the process is
+     * terminated; the shutdown waits for the footer to be written.
+     */
+    void runFollow( final Timeshifter shifter, final OutputStream stdOut )
+        throws IOException
+    {
+        if( config.getInputFileName() == null )
+        {
+            throw TimeshifterException.followNotSupported( "input file is required" );
+        }
+        if( inGzip || config.getThreads() > 1 || checkpointFileName != null )
+        {
+            throw TimeshifterException.followNotSupported( "can't be combined with --inGzip, --threads or "
+                    + "--checkpoint" );
+        }
+
+        final BufferedChannelWriter writer = createWriter( stdOut );
+        final FollowingReader reader;
+        try
+        {
+            reader = new FollowingReader( createPath( config.getInputFileName() ), writer );
+        }
+        catch( final IOException | RuntimeException e )
+        {
+            writer.close();
+            throw e;
+        }
+
+        final CountDownLatch finished = new CountDownLatch( 1 );
+        final Thread shutdownHook = new Thread( () -> {
+            reader.stop();
+            try
+            {
+                finished.await( SHUTDOWN_SECONDS, TimeUnit.SECONDS );
+            }
+            catch( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }, "timeshifter-follow-shutdown" );
+        Runtime.getRuntime().addShutdownHook( shutdownHook );
+        try (Reader r = reader; Writer w = writer)
+        {
+            shifter.shiftCsv( r, w );
+        }
+        finally
+        {
+            finished.countDown();
+            removeShutdownHook( shutdownHook );
+        }
+    }
+
+    private static void removeShutdownHook( final Thread shutdownHook )
+    {
+        try
+        {
+            Runtime.getRuntime().removeShutdownHook( shutdownHook );
+        }
+        catch( final IllegalStateException e )
+        {
+            // shutting down already
+        }
+    }
+
+    /**
+     * Shifts the input file to the output file recording checkpoints and
+     * continuing at the last one if requested.
+     */
+    void runCheckpointed( final Timeshifter shifter, final PrintStream stdErr )
+        throws IOException
+    {
+        if( config.getInputFileName() == null || config.getOutputFileName() == null )
+        {
+            throw TimeshifterException.checkpointNotSupported( "input and output file are required" );
+        }
+        final Path outputPath = createPath( config.getOutputFileName() );
+        if( outGzip || GzipStreams.isGzip( outputPath ) )
+        {
+            throw TimeshifterException.checkpointNotSupported( "compressed output can't be continued" );
+        }
+        if( config.getThreads() > 1 )
+        {
+            throw TimeshifterException.checkpointNotSupported( "rows are shifted by one thread only" );
+        }
+
+        final TimeshifterMetrics shifterMetrics = shifter.getMetrics();
+        try (ProgressReporter p = startProgressReporter( shifterMetrics, stdErr ))
+        {
+            final Checkpoint checkpoint = new CheckpointedTimeshifter( shifter, createPath( checkpointFileName ),
+                    checkpointSeconds, config.getOutBufferSize(),
+                    config.getRejectFileName() == null ? null : createPath( config.getRejectFileName() ) )
+                            .shiftFile( createPath( config.getInputFileName() ), inGzip, outputPath, resume );
+            if( checkpoint != null )
+            {
+                stdErr.println( "Continued at checkpoint: " + checkpoint );
+            }
+        }
+
+        if( shifterMetrics.isEnabled() )
+        {
+            writeMetrics( shifterMetrics, stdErr );
+        }
+    }
+
+    void runAppl( final Timeshifter shifter, final InputStream stdIn, final OutputStream stdOut,
+            final PrintStream stdErr )
+        throws IOException
+    {
+        if( outBinary && config.getThreads() > 1 )
+        {
+            throw TimeshifterException.binaryOutputNotSupported( "rows are shifted by one thread only" );
+        }
 
+        final TimeshifterMetrics shifterMetrics = shifter.getMetrics();
+        Path inputPath = null;
         Reader reader;
         if( config.getInputFileName() == null )
         {
-            reader = new InputStreamReader( stdIn, StandardCharsets.UTF_8 );
+            final InputStream in =
+                    shifterMetrics.isEnabled() ? new CountingInputStream( stdIn, shifterMetrics ) : stdIn;
+            reader = inGzip ? GzipStreams.newReader( in ) : new InputStreamReader( in, StandardCharsets.UTF_8 );
         }
         else
         {
-            reader = Files.newBufferedReader( createPath( config.getInputFileName() ), StandardCharsets.UTF_8 );
+            inputPath = createPath( config.getInputFileName() );
+            shifterMetrics.addBytesIn( Files.size( inputPath ) );
+            reader = inGzip || GzipStreams.isGzip( inputPath ) ? createGzipReader( inputPath )
+                    : createReader( inputPath );
+        }
+        if( outBinary )
+        {
+            runBinary( shifter, reader, stdOut, stdErr );
+            return;
+        }
+        final BufferedChannelWriter writer;
+        try
+        {
+            writer = createWriter( stdOut );
+        }
+        catch( final IOException | RuntimeException e )
+        {
+            reader.close();
+            throw e;
+        }
+
+        try (Reader r = reader; Writer w = writer; ProgressReporter p = startProgressReporter( shifterMetrics, stdErr ))
+        {
+            if( config.getThreads() > 1 && r instanceof MappedFileReader )
+            {
+                // chunks of the mapped file are read by the workers
+                new ParallelTimeshifter( shifter, config.getThreads(), !config.isUnordered() ).shiftFile( inputPath,
+                        w );
+            }
+            else if( config.getThreads() > 1 )
+            {
+                new ParallelTimeshifter( shifter, config.getThreads(), !config.isUnordered() ).shiftCsv( r, w );
+            }
+            else
+            {
+                shifter.shiftCsv( r, w );
+            }
+        }
+
+        if( shifterMetrics.isEnabled() )
+        {
+            shifterMetrics.addBytesOut( writer.getBytesWritten() );
+            writeMetrics( shifterMetrics, stdErr );
+        }
+    }
+
+    /**
+     * Shifts the input to binary records.
+     */
+    private void runBinary( final Timeshifter shifter, final Reader reader, final OutputStream stdOut,
+            final PrintStream stdErr )
+        throws IOException
+    {
+        final TimeshifterMetrics shifterMetrics = shifter.getMetrics();
+        final BinaryRecordWriter writer;
+        try
+        {
+            writer = new BinaryRecordWriter( createOutputStream( stdOut ),
+                    shifter.getPlan().getInDateShiftColumns(), config.getOutBufferSize() );
+        }
+        catch( final IOException | RuntimeException e )
+        {
+            reader.close();
+            throw e;
+        }
+
+        try (Reader r = reader; BinaryRecordWriter w = writer;
+                ProgressReporter p = startProgressReporter( shifterMetrics, stdErr ))
+        {
+            shifter.shiftCsvToBinary( r, w );
+        }
+
+        if( shifterMetrics.isEnabled() )
+        {
+            shifterMetrics.addBytesOut( writer.getBytesWritten() );
+            writeMetrics( shifterMetrics, stdErr );
+        }
+    }
+
+    /**
+     * Shifts the input files of the batch mode and prints a summary line per
+     * file and the totals to <code>stdErr</code>.
+     *
+     * @throws TimeshifterException if any of the files couldn't be processed
+     */
+    void runBatch( final OutputStream stdOut, final PrintStream stdErr )
+        throws IOException
+    {
+        if( outBinary )
+        {
+            throw TimeshifterException.binaryOutputNotSupported( "the batch mode writes text" );
+        }
+
+        final List<Job> jobs = batchParameters.createJobs();
+        final boolean merging = jobs.stream().anyMatch( job -> job.getOutput() == null );
+        final long start = System.nanoTime();
+        final List<FileResult> results;
+        try (Writer rejectWriter = config.getRejectFileName() == null ? null
+                : createFileWriter( createPath( config.getRejectFileName() ) );
+                BufferedChannelWriter mergedOut = merging ? createWriter( stdOut ) : null)
+        {
+            results = new BatchTimeshifter( new ShiftPlan( config ), config.getThreads(), config.getOutBufferSize(),
+                    rejectWriter ).shift( jobs, mergedOut );
+        }
+
+        long rowsIn = 0;
+        long rowsOut = 0;
+        long rowsFailed = 0;
+        int failedFiles = 0;
+        for( final FileResult result : results )
+        {
+            stdErr.println( result.toSummaryLine() );
+            rowsIn += result.getRowsIn();
+            rowsOut += result.getRowsOut();
+            rowsFailed += result.getRowsFailed();
+            failedFiles += result.getError() == null ? 0 : 1;
+        }
+        stdErr.println( String.format( Locale.ROOT,
+                "%d files (%d failed): %d rows in, %d rows out, %d rows failed, %.3f s", results.size(), failedFiles,
+                rowsIn, rowsOut, rowsFailed, ( System.nanoTime() - start ) / 1e9 ) );
+
+        if( failedFiles > 0 )
+        {
+            throw TimeshifterException.batchFailed( failedFiles, results.size() );
+        }
+    }
+
+    /**
+     * @return metrics to record if requested by the parameters
+     */
+    TimeshifterMetrics createMetrics()
+    {
+        return metrics || metricsFileName != null || progressSeconds != null ? new TimeshifterMetrics()
+                : TimeshifterMetrics.DISABLED;
+    }
+
+    private ProgressReporter startProgressReporter( final TimeshifterMetrics shifterMetrics, final PrintStream stdErr )
+    {
+        return progressSeconds == null ? null : new ProgressReporter( shifterMetrics, stdErr, progressSeconds );
+    }
+
+    private void writeMetrics( final TimeshifterMetrics shifterMetrics, final PrintStream stdErr )
+        throws IOException
+    {
+        if( metricsFileName != null )
+        {
+            Files.write( createPath( metricsFileName ), shifterMetrics.toJson().getBytes( StandardCharsets.UTF_8 ) );
+        }
+        else if( metrics )
+        {
+            stdErr.println( shifterMetrics.toJson() );
+        }
+    }
+
+    void runGenerate( final OutputStream stdOut )
+        throws IOException
+    {
+        try (Writer w = createWriter( stdOut ))
+        {
+            generatorParameters.createGenerator( config, generateRows ).writeCsv( w );
         }
-        Writer writer;
+    }
+
+    void runBenchmark( final PrintStream stdOut )
+    {
+        new TimeshifterBenchmark( config, generatorParameters.createGenerator( config, benchmarkRows ) )
+                .run( stdOut );
+    }
+
+    private BufferedChannelWriter createWriter( final OutputStream stdOut )
+        throws IOException
+    {
         if( config.getOutputFileName() == null )
         {
-            writer = new OutputStreamWriter( stdOut, StandardCharsets.UTF_8 );
+            return new BufferedChannelWriter( outGzip ? createGzipStream( stdOut ) : stdOut, StandardCharsets.UTF_8,
+                    config.getOutBufferSize() );
         }
-        else
+
+        final Path outputPath = createPath( config.getOutputFileName() );
+        if( outGzip || GzipStreams.isGzip( outputPath ) )
         {
-            writer = Files.newBufferedWriter( createPath( config.getOutputFileName() ), StandardCharsets.UTF_8 );
+            return new BufferedChannelWriter( createGzipStream( Files.newOutputStream( outputPath ) ),
+                    StandardCharsets.UTF_8, config.getOutBufferSize() );
         }
 
-        try (Reader r = reader; Writer w = writer;)
+        return createFileWriter( outputPath );
+    }
+
+    /**
+     * @return stream of the output file or <code>stdOut</code>, compressed if
+     *         requested
+     */
+    private OutputStream createOutputStream( final OutputStream stdOut )
+        throws IOException
+    {
+        if( config.getOutputFileName() == null )
         {
-            shifter.shiftCsv( r, w );
+            return outGzip ? createGzipStream( stdOut ) : stdOut;
+        }
+
+        final Path outputPath = createPath( config.getOutputFileName() );
+        final OutputStream out = Files.newOutputStream( outputPath );
+
+        return outGzip || GzipStreams.isGzip( outputPath ) ? createGzipStream( out ) : out;
+    }
+
+    private static OutputStream createGzipStream( final OutputStream out )
+    {
+        return new ParallelGzipOutputStream( out, Runtime.getRuntime().availableProcessors() );
+    }
+
+    private BufferedChannelWriter createFileWriter( final Path path )
+        throws IOException
+    {
+        return createFileWriter( path, false );
+    }
+
+    /**
+     * @param append <code>true</code> to append to an existing file
+     */
+    private BufferedChannelWriter createFileWriter( final Path path, final boolean append )
+        throws IOException
+    {
+        return new BufferedChannelWriter( Files.newByteChannel( path, StandardOpenOption.CREATE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE ),
+                StandardCharsets.UTF_8, config.getOutBufferSize() );
+    }
+
+    /**
+     * Memory maps files of the default file system, other file systems (e.g.
+     * reached by an URI) are read as stream.
+     */
+    protected Reader createReader( final Path path )
+        throws IOException
+    {
+        if( path.getFileSystem() == FileSystems.getDefault() )
+        {
+            return new MappedFileReader( path );
+        }
+
+        return Files.newBufferedReader( path, StandardCharsets.UTF_8 );
+    }
+
+    private static Reader createGzipReader( final Path path )
+        throws IOException
+    {
+        final InputStream in = Files.newInputStream( path );
+        try
+        {
+            return GzipStreams.newReader( in );
+        }
+        catch( final IOException | RuntimeException e )
+        {
+            in.close();
+            throw e;
         }
     }
 
     protected Path createPath( final String fileName )
+    {
+        return toPath( fileName );
+    }
+
+    static Path toPath( final String fileName )
     {
         // check if the file name may be an URI
         return fileName.indexOf( ':' ) > 1 ? Paths.get( URI.create( fileName ) ) : Paths.get( fileName );
     }
 
+    TimeshifterConfig getConfig()
+    {
+        return config;
+    }
+
+    /**
+     * @return <code>true</code> if the parameters are allowed for a request
+     *         sent to the daemon
+     */
+    boolean isDaemonRequest()
+    {
+        return config.getInputFileName() == null && config.getOutputFileName() == null
+                && config.getRejectFileName() == null && metricsFileName == null && checkpointFileName == null
+                && daemonPort == null && clientPort == null && generateRows == null && benchmarkRows == null
+                && !batchParameters.isBatch();
+    }
+
     /**
      * Parses the given parameters.
      *
@@ -97,7 +658,20 @@ public class TimeshifterCli
      */
     int parseParameters( final PrintStream out, final String... args )
     {
-        final JCommander parser = new JCommander( this );
+        return parseParameters( out, true, args );
+    }
+
+    /**
+     * Parses the given parameters.
+     *
+     * @param expandAtSign <code>false</code> to take <code>@file</code>
+     *            parameters literally instead of reading the file
+     *
+     * @return &lt;0 in case of an error; 0 if correct; &gt;0 if help was called
+     */
+    int parseParameters( final PrintStream out, final boolean expandAtSign, final String... args )
+    {
+        final JCommander parser = JCommander.newBuilder().addObject( this ).expandAtSign( expandAtSign ).build();
         parser.setColumnSize( 80 );
         parser.setProgramName( "java -jar timeshifter-<version>.jar" );
         try
@@ -142,4 +716,46 @@ public class TimeshifterCli
 
         return result;
     }
+
+    /**
+     * Counts the bytes read from stdin.
+     */
+    private static final class CountingInputStream
+        extends
+            FilterInputStream
+    {
+        private final TimeshifterMetrics metrics;
+
+        CountingInputStream( final InputStream in, final TimeshifterMetrics metrics )
+        {
+            super( in );
+            this.metrics = metrics;
+        }
+
+        @Override
+        public int read()
+            throws IOException
+        {
+            final int b = super.read();
+            if( b >= 0 )
+            {
+                metrics.addBytesIn( 1 );
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read( final byte[] b, final int off, final int len )
+            throws IOException
+        {
+            final int count = super.read( b, off, len );
+            if( count > 0 )
+            {
+                metrics.addBytesIn( count );
+            }
+
+            return count;
+        }
+    }
 }
@@ -0,0 +1,229 @@
+package com.github.fiveoo.timeshifter.cli;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.github.fiveoo.timeshifter.GzipStreams;
+
+/**
+ * Sends the data to shift to a {@link TimeshifterDaemon} and writes its
+ * response, so it can replace a normal call of the CLI in a pipeline.
+ *
+ * Parameter files are read and the input/output files are opened by the
+ * client; all other parameters are passed to the daemon unchanged. The data
+ * of files with the extension <code>.gz</code> is passed as it is, telling
+ * the daemon to decompress respectively compress it like the CLI does. Each
+ * request starts with the access token read from the token file of the
+ * daemon.
+ */
+public class TimeshifterClient
+{
+    private final int  port;
+    private final Path tokenFile;
+
+    /**
+     * Reads the access token from {@link TimeshifterDaemon#getDefaultTokenFile(int)}.
+     */
+    public TimeshifterClient( final int port )
+    {
+        this( port, TimeshifterDaemon.getDefaultTokenFile( port ) );
+    }
+
+    /**
+     * @param tokenFile file the daemon wrote its access token to
+     */
+    public TimeshifterClient( final int port, final Path tokenFile )
+    {
+        this.port = port;
+        this.tokenFile = tokenFile;
+    }
+
+    /**
+     * @return exit code of the request
+     */
+    public int run( final List<String> args, final InputStream stdIn, final OutputStream stdOut,
+            final PrintStream stdErr )
+        throws IOException
+    {
+        final List<String> params = new ArrayList<>();
+        String inputFileName = null;
+        String outputFileName = null;
+        for( final Iterator<String> it = expandParameterFiles( args ).iterator(); it.hasNext(); )
+        {
+            final String arg = it.next();
+            if( ( "-i".equals( arg ) || "--in".equals( arg ) ) && it.hasNext() )
+            {
+                inputFileName = unquote( it.next() );
+            }
+            else if( ( "-o".equals( arg ) || "--out".equals( arg ) ) && it.hasNext() )
+            {
+                outputFileName = unquote( it.next() );
+            }
+            else
+            {
+                params.add( arg );
+            }
+        }
+
+        final Path inputPath = inputFileName == null ? null : TimeshifterCli.toPath( inputFileName );
+        final Path outputPath = outputFileName == null ? null : TimeshifterCli.toPath( outputFileName );
+        if( inputPath != null && GzipStreams.isGzip( inputPath ) && !params.contains( "--inGzip" ) )
+        {
+            params.add( "--inGzip" );
+        }
+        if( outputPath != null && GzipStreams.isGzip( outputPath ) && !params.contains( "--outGzip" ) )
+        {
+            params.add( "--outGzip" );
+        }
+
+        final String token = new String( Files.readAllBytes( tokenFile ), StandardCharsets.UTF_8 ).trim();
+        try (final InputStream in = inputPath == null ? stdIn : Files.newInputStream( inputPath );
+                final OutputStream out = outputPath == null ? null : Files.newOutputStream( outputPath );
+                final Socket socket = new Socket( InetAddress.getLoopbackAddress(), port ))
+        {
+            final AtomicReference<IOException> sendError = new AtomicReference<>();
+            final Thread sender = new Thread( () -> {
+                try
+                {
+                    send( token, params, in, socket );
+                }
+                catch( final IOException e )
+                {
+                    sendError.set( e );
+                }
+            }, "timeshifter-client-sender" );
+            sender.setDaemon( true );
+            sender.start();
+
+            final int exitCode = receive( socket, out == null ? stdOut : out, stdErr );
+            if( sendError.get() != null )
+            {
+                throw sendError.get();
+            }
+
+            return exitCode;
+        }
+    }
+
+    private static void send( final String token, final List<String> params, final InputStream in,
+            final Socket socket )
+        throws IOException
+    {
+        final OutputStream out = new BufferedOutputStream( socket.getOutputStream(), 64 * 1024 );
+        out.write( token.getBytes( StandardCharsets.UTF_8 ) );
+        out.write( '\n' );
+        for( final String param : params )
+        {
+            out.write( param.getBytes( StandardCharsets.UTF_8 ) );
+            out.write( '\n' );
+        }
+        out.write( '\n' );
+
+        final byte[] buffer = new byte[64 * 1024];
+        int read;
+        while( ( read = in.read( buffer ) ) >= 0 )
+        {
+            out.write( buffer, 0, read );
+        }
+        out.flush();
+        socket.shutdownOutput();
+    }
+
+    private static int receive( final Socket socket, final OutputStream out, final PrintStream err )
+        throws IOException
+    {
+        final DataInputStream in = new DataInputStream( socket.getInputStream() );
+        byte[] buffer = new byte[64 * 1024];
+        try
+        {
+            while( true )
+            {
+                final byte type = in.readByte();
+                final int length = in.readInt();
+                if( type == TimeshifterDaemon.FRAME_EXIT )
+                {
+                    out.flush();
+
+                    return in.readInt();
+                }
+
+                if( length > buffer.length )
+                {
+                    buffer = new byte[length];
+                }
+                in.readFully( buffer, 0, length );
+                if( type == TimeshifterDaemon.FRAME_OUT )
+                {
+                    out.write( buffer, 0, length );
+                }
+                else
+                {
+                    err.write( buffer, 0, length );
+                    err.flush();
+                }
+            }
+        }
+        catch( final EOFException e )
+        {
+            throw new IOException( "Daemon closed the connection unexpectedly", e );
+        }
+    }
+
+    /**
+     * Replaces <code>@file</code> parameters by the lines of the file like the
+     * CLI does.
+     */
+    private static List<String> expandParameterFiles( final List<String> args )
+        throws IOException
+    {
+        final List<String> expanded = new ArrayList<>();
+        for( final String arg : args )
+        {
+            if( !arg.startsWith( "@" ) )
+            {
+                expanded.add( arg );
+                continue;
+            }
+
+            for( final String line : Files.readAllLines( TimeshifterCli.toPath( arg.substring( 1 ) ),
+                    Charset.defaultCharset() ) )
+            {
+                if( !line.isEmpty() && !line.trim().startsWith( "#" ) )
+                {
+                    expanded.add( line );
+                }
+            }
+        }
+
+        return expanded;
+    }
+
+    /**
+     * Removes surrounding quotes like the parameter parser does.
+     */
+    private static String unquote( final String value )
+    {
+        final String trimmed = value.trim();
+        if( trimmed.length() > 1 && trimmed.startsWith( "\"" ) && trimmed.endsWith( "\"" ) )
+        {
+            return trimmed.substring( 1, trimmed.length() - 1 );
+        }
+
+        return trimmed;
+    }
+}
@@ -0,0 +1,527 @@
+package com.github.fiveoo.timeshifter.cli;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.fiveoo.timeshifter.ShiftPlan;
+import com.github.fiveoo.timeshifter.Timeshifter;
+
+/**
+ * Resident process shifting CSV data sent by {@link TimeshifterClient}, so
+ * the JVM startup and the setup of the shifter is paid only once.
+ *
+ * The daemon listens on the loopback interface only. A request consists of
+ * the access token, the parameters, one per line like in a parameter file,
+ * terminated by an empty line and followed by the CSV data up to the end of
+ * the stream. The
+ * response is a sequence of frames (type byte, length int, data) holding the
+ * output ({@link #FRAME_OUT}), error messages ({@link #FRAME_ERR}) and
+ * finally the exit code ({@link #FRAME_EXIT}).
+ *
+ * The access token is created randomly at startup and written to a token
+ * file only the user may read, so only processes of the user can send
+ * requests. The token and parameter lines are limited in length and must be
+ * sent within {@link #REQUEST_TIMEOUT_MILLIS}, so connections of other users
+ * can't hold memory or threads of the daemon. The parsed configuration is cached per parameter list. Requests
+ * must not name input, output or parameter files; the client reads and writes
+ * them.
+ */
+public class TimeshifterDaemon
+    implements
+        Closeable
+{
+    public static final byte FRAME_OUT  = 1;
+    public static final byte FRAME_ERR  = 2;
+    public static final byte FRAME_EXIT = 3;
+
+    private static final int CACHE_SIZE = 64;
+
+    private static final int EXIT_ERROR = -5;
+
+    private static final int TOKEN_BYTES = 32;
+
+    /** Maximal length of the token line in bytes; hex digits of the token. */
+    private static final int MAX_TOKEN_LINE = 2 * TOKEN_BYTES;
+
+    /** Maximal length of a parameter line in bytes. */
+    private static final int MAX_PARAMETER_LINE = 4096;
+
+    private static final int MAX_PARAMETERS = 256;
+
+    /**
+     * Time to send the token and the parameters of a request in; the CSV data
+     * may take as long as needed.
+     */
+    public static final int REQUEST_TIMEOUT_MILLIS = 10_000;
+
+    private final ServerSocket    serverSocket;
+    private final ExecutorService executor;
+    private final Path            tokenFile;
+    private final byte[]          token;
+    private volatile int          requestTimeoutMillis = REQUEST_TIMEOUT_MILLIS;
+
+    private final Map<List<String>, CachedRequest> cache =
+            Collections.synchronizedMap( new LinkedHashMap<List<String>, CachedRequest>( 16, 0.75f, true )
+            {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry( final Map.Entry<List<String>, CachedRequest> eldest )
+                {
+                    return size() > CACHE_SIZE;
+                }
+            } );
+
+    /**
+     * Writes the access token to {@link #getDefaultTokenFile(int)}.
+     *
+     * @param port local port to listen on; 0 for any free port
+     */
+    public TimeshifterDaemon( final int port )
+        throws IOException
+    {
+        this( port, null );
+    }
+
+    /**
+     * @param port local port to listen on; 0 for any free port
+     * @param tokenFile file to write the access token to; <code>null</code>
+     *            for {@link #getDefaultTokenFile(int)}
+     */
+    public TimeshifterDaemon( final int port, final Path tokenFile )
+        throws IOException
+    {
+        serverSocket = new ServerSocket( port, 50, InetAddress.getLoopbackAddress() );
+        try
+        {
+            this.tokenFile = tokenFile != null ? tokenFile : getDefaultTokenFile( serverSocket.getLocalPort() );
+            this.token = writeToken( this.tokenFile );
+        }
+        catch( final IOException | RuntimeException e )
+        {
+            serverSocket.close();
+            throw e;
+        }
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newCachedThreadPool( runnable -> {
+            final Thread thread = new Thread( runnable, "timeshifter-daemon-" + threadCount.incrementAndGet() );
+            thread.setDaemon( true );
+
+            return thread;
+        } );
+    }
+
+    public int getPort()
+    {
+        return serverSocket.getLocalPort();
+    }
+
+    void setRequestTimeoutMillis( final int requestTimeoutMillis )
+    {
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    /**
+     * @return file the daemon listening on the given port writes its access
+     *         token to: <code>~/.timeshifter/daemon-&lt;port&gt;.token</code>
+     */
+    public static Path getDefaultTokenFile( final int port )
+    {
+        return Paths.get( System.getProperty( "user.home" ), ".timeshifter", "daemon-" + port + ".token" );
+    }
+
+    /**
+     * Accepts requests until the daemon is closed.
+     */
+    public void run()
+        throws IOException
+    {
+        try
+        {
+            while( true )
+            {
+                final Socket socket = serverSocket.accept();
+                executor.execute( () -> handle( socket ) );
+            }
+        }
+        catch( final SocketException e )
+        {
+            if( !serverSocket.isClosed() )
+            {
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        serverSocket.close();
+        executor.shutdownNow();
+        Files.deleteIfExists( tokenFile );
+    }
+
+    private void handle( final Socket socket )
+    {
+        try (final Socket s = socket;
+                final InputStream in = new BufferedInputStream( s.getInputStream() );
+                final DataOutputStream out = new DataOutputStream( s.getOutputStream() ))
+        {
+            s.setSoTimeout( requestTimeoutMillis );
+            int exitCode = EXIT_ERROR;
+            try
+            {
+                if( isAuthorized( readLine( in, MAX_TOKEN_LINE ) ) )
+                {
+                    final List<String> args = readParameters( in );
+                    s.setSoTimeout( 0 );
+                    exitCode = process( args, in, out );
+                }
+                else
+                {
+                    writeError( "Access denied: invalid token", out );
+                }
+            }
+            catch( final InvalidRequestException e )
+            {
+                writeError( e.getMessage(), out );
+            }
+            synchronized( out )
+            {
+                out.writeByte( FRAME_EXIT );
+                out.writeInt( 4 );
+                out.writeInt( exitCode );
+                out.flush();
+            }
+        }
+        catch( final IOException e )
+        {
+            // client is gone; nothing to report to
+        }
+    }
+
+    private static void writeError( final String msg, final DataOutputStream out )
+        throws IOException
+    {
+        final byte[] message = ( msg + System.lineSeparator() ).getBytes( StandardCharsets.UTF_8 );
+        out.writeByte( FRAME_ERR );
+        out.writeInt( message.length );
+        out.write( message );
+    }
+
+    private int process( final List<String> args, final InputStream in, final DataOutputStream out )
+        throws UnsupportedEncodingException
+    {
+        final PrintStream err = new PrintStream( new FrameOutputStream( out, FRAME_ERR ), true, "UTF-8" );
+        try
+        {
+            final CachedRequest request = getRequest( args, err );
+            if( request.plan == null )
+            {
+                return request.exitCode;
+            }
+
+            final Timeshifter shifter = new Timeshifter( request.plan, request.cli.createMetrics() )
+            {
+                @Override
+                protected void logError( final String msg )
+                {
+                    err.println( msg );
+                }
+            };
+            // closing the streams of the socket would close the socket
+            request.cli.runAppl( shifter, new FilterInputStream( in )
+            {
+                @Override
+                public void close()
+                {
+                    // closed with the socket
+                }
+            }, new FrameOutputStream( out, FRAME_OUT ), err );
+
+            return 0;
+        }
+        catch( final Exception e )
+        {
+            e.printStackTrace( err );
+
+            return EXIT_ERROR;
+        }
+        finally
+        {
+            err.flush();
+        }
+    }
+
+    /**
+     * Returns the parsed request for the given parameters. Requests not to
+     * be processed (help or errors) are not cached; their messages are
+     * written to <code>err</code>.
+     */
+    private CachedRequest getRequest( final List<String> args, final PrintStream err )
+        throws UnsupportedEncodingException
+    {
+        final CachedRequest cached = cache.get( args );
+        if( cached != null )
+        {
+            return cached;
+        }
+
+        final ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        final TimeshifterCli cli = new TimeshifterCli();
+        int parseResult;
+        try (final PrintStream messagesOut = new PrintStream( messages, true, "UTF-8" ))
+        {
+            // parameter files are expanded by the client; the daemon must not read files for it
+            parseResult = cli.parseParameters( messagesOut, false, args.toArray( new String[args.size()] ) );
+            if( parseResult == 0 && !cli.isDaemonRequest() )
+            {
+                messagesOut.println( "Input/output/reject/metrics/checkpoint files and daemon/client/generate/"
+                        + "benchmark/batch parameters are not allowed for requests sent to the daemon" );
+                parseResult = -1;
+            }
+        }
+        if( parseResult != 0 )
+        {
+            // error (< 0) or help (> 0)
+            err.print( new String( messages.toByteArray(), StandardCharsets.UTF_8 ) );
+
+            return new CachedRequest( cli, null, Math.min( parseResult, 0 ) );
+        }
+
+        final CachedRequest request = new CachedRequest( cli, new ShiftPlan( cli.getConfig() ), 0 );
+        cache.put( args, request );
+
+        return request;
+    }
+
+    /**
+     * Compares the token sent in constant time.
+     */
+    private boolean isAuthorized( final String requestToken )
+    {
+        return MessageDigest.isEqual( token, requestToken.trim().getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Creates a random token and writes it to a new file only the owner may
+     * read and write.
+     *
+     * @return the token as hex digits
+     */
+    private static byte[] writeToken( final Path tokenFile )
+        throws IOException
+    {
+        final byte[] random = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes( random );
+        final StringBuilder hex = new StringBuilder( 2 * TOKEN_BYTES );
+        for( final byte b : random )
+        {
+            hex.append( Character.forDigit( b >> 4 & 0xf, 16 ) ).append( Character.forDigit( b & 0xf, 16 ) );
+        }
+        final byte[] token = hex.toString().getBytes( StandardCharsets.UTF_8 );
+
+        if( tokenFile.getParent() != null )
+        {
+            Files.createDirectories( tokenFile.getParent() );
+        }
+        Files.deleteIfExists( tokenFile );
+        if( tokenFile.getFileSystem().supportedFileAttributeViews().contains( "posix" ) )
+        {
+            Files.createFile( tokenFile,
+                    PosixFilePermissions.asFileAttribute( PosixFilePermissions.fromString( "rw-------" ) ) );
+        }
+        else
+        {
+            Files.createFile( tokenFile );
+            if( FileSystems.getDefault().equals( tokenFile.getFileSystem() ) )
+            {
+                final File file = tokenFile.toFile();
+                if( !( file.setReadable( false, false ) && file.setReadable( true, true )
+                        && file.setWritable( false, false ) && file.setWritable( true, true ) ) )
+                {
+                    Files.delete( tokenFile );
+                    throw new IOException( "Could not restrict the access to " + tokenFile );
+                }
+            }
+        }
+        Files.write( tokenFile, token, StandardOpenOption.TRUNCATE_EXISTING );
+
+        return token;
+    }
+
+    /**
+     * Reads the parameter lines of a request. Like in parameter files lines
+     * starting with <code>#</code> are ignored.
+     */
+    private static List<String> readParameters( final InputStream in )
+        throws IOException
+    {
+        final List<String> args = new ArrayList<>();
+        String arg;
+        while( !( arg = readLine( in, MAX_PARAMETER_LINE ) ).isEmpty() )
+        {
+            if( !arg.trim().startsWith( "#" ) )
+            {
+                if( args.size() == MAX_PARAMETERS )
+                {
+                    throw new InvalidRequestException( "More than " + MAX_PARAMETERS + " parameters" );
+                }
+                args.add( arg );
+            }
+        }
+
+        return args;
+    }
+
+    /**
+     * Reads a line of the request without its line separator.
+     *
+     * @param maxLength maximal length of the line in bytes without the line
+     *            separator
+     * @throws InvalidRequestException if the line is longer
+     */
+    private static String readLine( final InputStream in, final int maxLength )
+        throws IOException
+    {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream( Math.min( maxLength, 256 ) + 1 );
+        int b;
+        while( ( b = in.read() ) >= 0 )
+        {
+            if( b == '\n' )
+            {
+                final String text = new String( line.toByteArray(), StandardCharsets.UTF_8 );
+
+                return text.endsWith( "\r" ) ? text.substring( 0, text.length() - 1 ) : text;
+            }
+            // the \r of a \r\n may follow the longest line
+            if( line.size() > maxLength || line.size() == maxLength && b != '\r' )
+            {
+                throw new InvalidRequestException( "Request line longer than " + maxLength + " bytes" );
+            }
+            line.write( b );
+        }
+
+        throw new IOException( "Incomplete request" );
+    }
+
+    /**
+     * Request the daemon refuses to read any further.
+     */
+    private static final class InvalidRequestException
+        extends
+            IOException
+    {
+        private static final long serialVersionUID = 1L;
+
+        InvalidRequestException( final String message )
+        {
+            super( message );
+        }
+    }
+
+    private static final class CachedRequest
+    {
+        private final TimeshifterCli cli;
+        /** <code>null</code> if there's nothing to process */
+        private final ShiftPlan      plan;
+        private final int            exitCode;
+
+        CachedRequest( final TimeshifterCli cli, final ShiftPlan plan, final int exitCode )
+        {
+            this.cli = cli;
+            this.plan = plan;
+            this.exitCode = exitCode;
+        }
+    }
+
+    /**
+     * Sends everything written as frames of the given type.
+     */
+    private static final class FrameOutputStream
+        extends
+            OutputStream
+    {
+        private final DataOutputStream out;
+        private final byte             type;
+
+        FrameOutputStream( final DataOutputStream out, final byte type )
+        {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write( final int b )
+            throws IOException
+        {
+            write( new byte[] { (byte) b }, 0, 1 );
+        }
+
+        @Override
+        public void write( final byte[] b, final int off, final int len )
+            throws IOException
+        {
+            if( len == 0 )
+            {
+                return;
+            }
+            synchronized( out )
+            {
+                out.writeByte( type );
+                out.writeInt( len );
+                out.write( b, off, len );
+            }
+        }
+
+        @Override
+        public void flush()
+            throws IOException
+        {
+            synchronized( out )
+            {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            // the exit frame follows; the socket is closed by the daemon
+            flush();
+        }
+    }
+}
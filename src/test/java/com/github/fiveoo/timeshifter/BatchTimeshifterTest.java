@@ -0,0 +1,210 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.fiveoo.timeshifter.BatchTimeshifter.FileResult;
+import com.github.fiveoo.timeshifter.BatchTimeshifter.Job;
+import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
+
+public class BatchTimeshifterTest
+{
+    private static final String LINE_1 = "a.jpg,2019:03:09 17:58:00Z,2019:03:09 18:57:30+01:00";
+    private static final String LINE_2 = "b.jpg,2019:03:10 13:59:36Z,2019:03:10 14:59:06+01:00";
+    private static final String LINE_3 = "c.jpg,2019:03:11 08:00:00Z,2019:03:11 10:00:00+02:00";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MutableTimeshifterConfig config;
+    private Path                     in1;
+    private Path                     in2;
+    private Path                     parts;
+
+    @Before
+    public void setUp()
+        throws IOException
+    {
+        config = new MutableTimeshifterConfig();
+        config.setOutHeaderFormat( new String[] { "header%n" } );
+        config.setOutFooterFormat( new String[] { "footer%n" } );
+        in1 = write( "in1.csv", LINE_1, LINE_2, "invalid" );
+        in2 = write( "in2.csv", LINE_3 );
+        parts = folder.newFolder( "parts" ).toPath();
+    }
+
+    @Test
+    public void shiftShouldWriteEachFileToItsOutput()
+        throws IOException
+    {
+        final Path out1 = folder.getRoot().toPath().resolve( "out/1.csv" );
+        final Path out2 = folder.getRoot().toPath().resolve( "out/2.csv" );
+
+        final List<FileResult> results =
+                createBatch( 2 ).shift( Arrays.asList( new Job( in1, out1 ), new Job( in2, out2 ) ), null );
+
+        assertThat( Files.readAllLines( out1, StandardCharsets.UTF_8 ),
+                contains( "header", LINE_1 + ",2019:03:09 18:58:00+01:00,2019:03:09 18:58:00",
+                        LINE_2 + ",2019:03:10 14:59:36+01:00,2019:03:10 14:59:36", "footer" ) );
+        assertThat( Files.readAllLines( out2, StandardCharsets.UTF_8 ),
+                contains( "header", LINE_3 + ",2019:03:11 10:00:00+02:00,2019:03:11 10:00:00", "footer" ) );
+        assertThat( results.get( 0 ).getJob().getInput(), equalTo( in1 ) );
+        assertThat( results.get( 0 ).getRowsIn(), is( 3L ) );
+        assertThat( results.get( 0 ).getRowsOut(), is( 2L ) );
+        assertThat( results.get( 0 ).getRowsFailed(), is( 1L ) );
+        assertThat( results.get( 1 ).getRowsOut(), is( 1L ) );
+        assertThat( results.get( 1 ).getError(), nullValue() );
+    }
+
+    @Test
+    public void shiftShouldMergeFilesInOrderOfJobs()
+        throws IOException
+    {
+        final Path out = folder.getRoot().toPath().resolve( "merged.csv" );
+        final List<Job> jobs = Arrays.asList( new Job( in2, null ), new Job( in1, null ), new Job( in2, null ) );
+
+        try (BufferedChannelWriter mergedOut = new BufferedChannelWriter(
+                Files.newByteChannel( out, StandardOpenOption.CREATE, StandardOpenOption.WRITE ) ))
+        {
+            createBatch( 3 ).shift( jobs, mergedOut );
+        }
+
+        assertThat( Files.readAllLines( out, StandardCharsets.UTF_8 ),
+                contains( "header", LINE_3 + ",2019:03:11 10:00:00+02:00,2019:03:11 10:00:00",
+                        LINE_1 + ",2019:03:09 18:58:00+01:00,2019:03:09 18:58:00",
+                        LINE_2 + ",2019:03:10 14:59:36+01:00,2019:03:10 14:59:36",
+                        LINE_3 + ",2019:03:11 10:00:00+02:00,2019:03:11 10:00:00", "footer" ) );
+    }
+
+    @Test
+    public void shiftShouldReportFailedFileAndContinue()
+        throws IOException
+    {
+        final Path missing = folder.getRoot().toPath().resolve( "missing.csv" );
+        final Path out = folder.getRoot().toPath().resolve( "out.csv" );
+
+        final List<Job> jobs =
+                Arrays.asList( new Job( missing, out.resolveSibling( "out0.csv" ) ), new Job( in2, out ) );
+
+        final List<FileResult> results = createBatch( 1 ).shift( jobs, null );
+
+        assertThat( results.get( 0 ).getError(), instanceOf( NoSuchFileException.class ) );
+        assertThat( results.get( 0 ).toSummaryLine(),
+                containsString( "0 rows in, 0 rows out, 0 rows failed, " ) );
+        assertThat( results.get( 0 ).toSummaryLine(), containsString( ", ERROR: java.nio.file.NoSuchFileException" ) );
+        assertThat( results.get( 1 ).getError(), nullValue() );
+        assertThat( Files.readAllLines( out, StandardCharsets.UTF_8 ).size(), is( 3 ) );
+    }
+
+    @Test(timeout = 30000)
+    public void shiftShouldDeleteMergePartsIfMergedOutputFails()
+        throws IOException
+    {
+        final List<Job> jobs = new ArrayList<>( Collections.nCopies( 12, new Job( in1, null ) ) );
+        final WritableByteChannel failing = new WritableByteChannel()
+        {
+            private int writes;
+
+            @Override
+            public int write( final ByteBuffer src )
+                throws IOException
+            {
+                if( src.hasRemaining() && ++writes == 2 )
+                {
+                    throw new IOException( "disk full" );
+                }
+                final int count = src.remaining();
+                src.position( src.limit() );
+
+                return count;
+            }
+
+            @Override
+            public boolean isOpen()
+            {
+                return true;
+            }
+
+            @Override
+            public void close()
+            {
+                // nothing to close
+            }
+        };
+
+        try
+        {
+            createBatch( 3 ).shift( jobs, new BufferedChannelWriter( failing ) );
+            throw new AssertionError( "IOException expected" );
+        }
+        catch( final IOException e )
+        {
+            assertThat( e.getMessage(), equalTo( "disk full" ) );
+        }
+
+        try (Stream<Path> left = Files.list( parts ))
+        {
+            assertThat( left.collect( Collectors.toList() ), is( Collections.<Path> emptyList() ) );
+        }
+    }
+
+    private BatchTimeshifter createBatch( final int threads )
+    {
+        return new BatchTimeshifter( new ShiftPlan( config ), threads, BufferedChannelWriter.DEFAULT_BUFFER_SIZE,
+                null )
+        {
+            @Override
+            protected Timeshifter createShifter( final Path input, final TimeshifterMetrics metrics )
+            {
+                return new Timeshifter( new ShiftPlan( config ), metrics )
+                {
+                    @Override
+                    protected void logError( final String msg )
+                    {
+                        // rejected rows are counted
+                    }
+                };
+            }
+
+            @Override
+            protected Path createMergePart()
+                throws IOException
+            {
+                return Files.createTempFile( parts, "timeshifter-", ".part" );
+            }
+        };
+    }
+
+    private Path write( final String fileName, final String... lines )
+        throws IOException
+    {
+        return Files.write( folder.getRoot().toPath().resolve( fileName ), Arrays.asList( lines ),
+                StandardCharsets.UTF_8 );
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
+
+public class BinaryRecordReaderTest
+{
+    private static final OffsetDateTime TIME =
+            OffsetDateTime.of( 2019, 3, 13, 13, 44, 27, 123000000, ZoneOffset.ofHoursMinutes( 4, 30 ) );
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readerShouldReturnRecordsWritten()
+        throws IOException
+    {
+        final Path file = folder.getRoot().toPath().resolve( "out.bin" );
+        final char[] longField = new char[100];
+        Arrays.fill( longField, 'x' );
+        try (BinaryRecordWriter out = new BinaryRecordWriter( Files.newOutputStream( file ), Arrays.asList(
+                new ShiftColumn( 1, MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER, null ),
+                new ShiftColumn( 3, MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER, null ) ), 16 ))
+        {
+            out.write( CsvRow.of( "Äpfel_€_📷", null, "" ), new OffsetDateTime[] { TIME, TIME.plusHours( 1 ) } );
+            out.write( CsvRow.of( new String( longField ) ), new OffsetDateTime[] { TIME, TIME } );
+        }
+
+        try (BinaryRecordReader in = new BinaryRecordReader( file, 16 ))
+        {
+            assertThat( in.getShiftedColumnCount(), equalTo( 2 ) );
+            assertThat( in.getShiftedColumnIdx( 1 ), equalTo( 3 ) );
+
+            assertThat( in.next(), is( true ) );
+            assertThat( in.getOffsetSeconds(), equalTo( 16200 ) );
+            assertThat( in.getEpochSecond( 0 ), equalTo( TIME.toEpochSecond() ) );
+            assertThat( in.getLocalEpochSecond( 0 ), equalTo( TIME.toEpochSecond() + 16200 ) );
+            assertThat( in.getNano( 0 ), equalTo( 123000000 ) );
+            assertThat( in.getShiftedTime( 1 ), equalTo( TIME.plusHours( 1 ) ) );
+            assertThat( in.getFieldCount(), equalTo( 3 ) );
+            assertThat( in.getField( 0 ), equalTo( "Äpfel_€_📷" ) );
+            assertThat( in.getField( 1 ), nullValue() );
+            assertThat( in.getField( 2 ), equalTo( "" ) );
+
+            assertThat( in.next(), is( true ) );
+            assertThat( in.getField( 0 ), equalTo( new String( longField ) ) );
+            assertThat( in.next(), is( false ) );
+        }
+    }
+
+    @Test
+    public void shiftCsvToBinaryShouldWriteShiftedRowsAndRejectOthers()
+        throws IOException
+    {
+        final Path file = folder.getRoot().toPath().resolve( "out.bin" );
+        final Timeshifter shifter = new Timeshifter( new MutableTimeshifterConfig() );
+        try (BinaryRecordWriter out = new BinaryRecordWriter( Files.newOutputStream( file ),
+                shifter.getPlan().getInDateShiftColumns(), 1024 ))
+        {
+            shifter.shiftCsvToBinary( new StringReader( "a.jpg,2019:03:13 09:14:27.123Z,2019:03:13 10:10:00+04:30\n"
+                    + "b.jpg,2019:03:13 09:14:27Z,2019:03:13 10:10:00+04:30\n" + "c.jpg,-,-\n" ), out );
+        }
+
+        try (BinaryRecordReader in = new BinaryRecordReader( file ))
+        {
+            assertThat( in.next(), is( true ) );
+            assertThat( in.getField( 0 ), equalTo( "b.jpg" ) );
+            assertThat( in.getShiftedTime( 0 ), equalTo( TIME.withNano( 0 ) ) );
+            assertThat( in.next(), is( false ) );
+        }
+        assertThat( shifter.getRejectedRows().getCount( RejectReason.INVALID_DATE_TIME_TO_SHIFT ), equalTo( 1L ) );
+        assertThat( shifter.getRejectedRows().getCount( RejectReason.INVALID_OFFSET_DATE_TIME ), equalTo( 1L ) );
+    }
+
+    @Test
+    public void readerShouldRejectOtherFiles()
+        throws IOException
+    {
+        final Path file = folder.getRoot().toPath().resolve( "out.csv" );
+        try (OutputStream out = Files.newOutputStream( file ))
+        {
+            out.write( "a,b,c,d,e,f,g,h\n".getBytes() );
+        }
+
+        try (BinaryRecordReader in = new BinaryRecordReader( file ))
+        {
+            fail( "TimeshifterException expected" );
+        }
+        catch( final TimeshifterException e )
+        {
+            assertThat( e.getMessage(), containsString( "magic bytes are missing" ) );
+        }
+    }
+}
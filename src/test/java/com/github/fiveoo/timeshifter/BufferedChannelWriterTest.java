@@ -0,0 +1,127 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
+
+public class BufferedChannelWriterTest
+{
+    @Test
+    public void writeShouldEncodeAllCharsInBlocks()
+        throws IOException
+    {
+        final StringBuilder b = new StringBuilder();
+        for( int i = 0; i < 1000; i++ )
+        {
+            b.append( "Bilder/Äpfel_" ).append( i ).append( "_€_📷.jpg" ).append( System.lineSeparator() );
+        }
+        final String text = b.toString();
+
+        for( final int bufferSize : new int[] { 16, 17, 1000, BufferedChannelWriter.DEFAULT_BUFFER_SIZE } )
+        {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (final BufferedChannelWriter writer =
+                    new BufferedChannelWriter( Channels.newChannel( out ), StandardCharsets.UTF_8, bufferSize ))
+            {
+                writer.append( new StringBuilder( text ), 0, 100 );
+                writer.write( text.toCharArray(), 100, 100 );
+                writer.write( text.charAt( 200 ) );
+                writer.write( text, 201, 1000 );
+                writer.append( text.substring( 1201 ) );
+            }
+
+            assertThat( "buffer " + bufferSize, new String( out.toByteArray(), StandardCharsets.UTF_8 ),
+                    equalTo( text ) );
+        }
+    }
+
+    @Test
+    public void flushShouldWriteBufferedChars()
+        throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BufferedChannelWriter writer = new BufferedChannelWriter( out, StandardCharsets.UTF_8, 1024 );
+        writer.append( "abc" );
+        assertThat( out.size(), is( 0 ) );
+
+        writer.flush();
+        assertThat( new String( out.toByteArray(), StandardCharsets.UTF_8 ), equalTo( "abc" ) );
+    }
+
+    @Test
+    public void closeShouldCloseChannelIfWritingFails()
+    {
+        final FailingChannel channel = new FailingChannel();
+        final BufferedChannelWriter writer = new BufferedChannelWriter( channel, StandardCharsets.UTF_8, 1024 );
+        try
+        {
+            writer.append( "abc" );
+            writer.close();
+            fail( "exception expected" );
+        }
+        catch( final IOException e )
+        {
+            assertThat( e.getMessage(), equalTo( "disk full" ) );
+        }
+
+        assertThat( channel.isOpen(), is( false ) );
+    }
+
+    @Test
+    public void shiftCsvShouldReportFailingWriterAsErrorWritingOutput()
+        throws IOException
+    {
+        final Timeshifter shifter = new Timeshifter( new MutableTimeshifterConfig() );
+        final BufferedChannelWriter writer = new BufferedChannelWriter( new FailingChannel(), StandardCharsets.UTF_8, 16 );
+        try
+        {
+            shifter.shiftCsv( new StringReader(
+                    "NewImages/DSC00034.jpg,2019:03:09 17:58:00Z,2019:03:09 18:57:30+01:00\n" ), writer );
+            fail( "exception expected" );
+        }
+        catch( final TimeshifterException e )
+        {
+            assertThat( e.getCause().getMessage(), equalTo( "disk full" ) );
+        }
+    }
+
+    private static final class FailingChannel
+        implements
+            WritableByteChannel
+    {
+        private boolean open = true;
+
+        @Override
+        public int write( final ByteBuffer src )
+            throws IOException
+        {
+            throw new IOException( "disk full" );
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return open;
+        }
+
+        @Override
+        public void close()
+        {
+            open = false;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
+
+public class CheckpointedTimeshifterTest
+{
+    private static final int ROWS = 12000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ShiftPlan plan;
+    private Path      checkpointFile;
+    private Path      output;
+
+    @Before
+    public void setUp()
+    {
+        final MutableTimeshifterConfig config = new MutableTimeshifterConfig();
+        config.setInLinesSkip( 1 );
+        config.setOutHeaderFormat( new String[] { "header%n" } );
+        config.setOutFooterFormat( new String[] { "footer%n" } );
+        plan = new ShiftPlan( config );
+        checkpointFile = folder.getRoot().toPath().resolve( "out.checkpoint" );
+        output = folder.getRoot().toPath().resolve( "out.csv" );
+    }
+
+    @Test
+    public void resumeShouldContinueAtCheckpointWithoutDuplicatingOrLosingRows()
+        throws IOException
+    {
+        final Path input = folder.getRoot().toPath().resolve( "in.csv" );
+        try (Writer out = Files.newBufferedWriter( input, StandardCharsets.UTF_8 ))
+        {
+            writeRows( out );
+        }
+
+        assertResumedOutputIsComplete( input );
+    }
+
+    @Test
+    public void resumeShouldContinueAtCheckpointOfGzipInput()
+        throws IOException
+    {
+        final Path input = folder.getRoot().toPath().resolve( "in.csv.gz" );
+        try (OutputStream out = new GZIPOutputStream( Files.newOutputStream( input ) );
+                Writer w = new OutputStreamWriter( out, StandardCharsets.UTF_8 ))
+        {
+            writeRows( w );
+        }
+
+        assertResumedOutputIsComplete( input );
+    }
+
+    @Test
+    public void resumeWithoutCheckpointShouldStartAtBeginning()
+        throws IOException
+    {
+        final Path input = folder.getRoot().toPath().resolve( "in.csv" );
+        Files.write( input, "skipped\na.jpg,2019:03:09 17:58:00Z,2019:03:09 18:57:30+01:00\n".getBytes() );
+
+        final Checkpoint start = createCheckpointed( new Timeshifter( plan ) ).shiftFile( input, false, output, true );
+
+        assertThat( start, nullValue() );
+        assertThat( new String( Files.readAllBytes( output ), StandardCharsets.UTF_8 ),
+                equalTo( String.format( "header%n" ) + "a.jpg,2019:03:09 17:58:00Z,2019:03:09 18:57:30+01:00,"
+                        + String.format( "2019:03:09 18:58:00+01:00,2019:03:09 18:58:00%nfooter%n" ) ) );
+    }
+
+    @Test
+    public void resumeShouldTruncateRejectFileToCheckpoint()
+        throws IOException
+    {
+        final Path input = folder.getRoot().toPath().resolve( "in.csv" );
+        try (Writer out = Files.newBufferedWriter( input, StandardCharsets.UTF_8 ))
+        {
+            out.write( "SourceFile,GPSDateTime,DateTimeDigitized\n" );
+            for( int i = 0; i < ROWS; i++ )
+            {
+                out.write( "DSC" + i + ".jpg,2019:03:09 17:58:00Z,"
+                        + ( i % 7 == 0 ? "invalid" : "2019:03:09 18:57:30Z" ) + "\n" );
+            }
+        }
+        final Path expectedRejects = folder.getRoot().toPath().resolve( "expected.rejects" );
+        try (Writer rejects = openRejects( expectedRejects, false ))
+        {
+            createCheckpointed( new Timeshifter( plan, TimeshifterMetrics.DISABLED, rejects ), expectedRejects )
+                    .shiftFile( input, false, folder.getRoot().toPath().resolve( "expected.csv" ), false );
+        }
+
+        final Path rejectFile = folder.getRoot().toPath().resolve( "out.rejects" );
+        try (Writer rejects = openRejects( rejectFile, false ))
+        {
+            createCheckpointed( new AbortingTimeshifter( plan, rejects, ROWS / 2 ), rejectFile ).shiftFile( input,
+                    false, output, false );
+            fail( "IllegalStateException expected" );
+        }
+        catch( final IllegalStateException e )
+        {
+            assertThat( e.getMessage(), is( "aborted" ) );
+        }
+        final Checkpoint checkpoint = Checkpoint.read( checkpointFile );
+        assertThat( checkpoint.getRejectLength(), greaterThan( 0L ) );
+        assertThat( Files.size( rejectFile ), greaterThan( checkpoint.getRejectLength() ) );
+
+        try (Writer rejects = openRejects( rejectFile, true ))
+        {
+            createCheckpointed( new Timeshifter( plan, TimeshifterMetrics.DISABLED, rejects ), rejectFile )
+                    .shiftFile( input, false, output, true );
+        }
+
+        assertThat( new String( Files.readAllBytes( rejectFile ), StandardCharsets.UTF_8 ),
+                equalTo( new String( Files.readAllBytes( expectedRejects ), StandardCharsets.UTF_8 ) ) );
+    }
+
+    @Test
+    public void resumeShouldRejectCheckpointOfOtherInput()
+        throws IOException
+    {
+        final Path input = folder.getRoot().toPath().resolve( "in.csv" );
+        Files.write( input, new byte[0] );
+        new Checkpoint( "/other.csv", 10, 1, 10 ).write( checkpointFile );
+
+        try
+        {
+            createCheckpointed( new Timeshifter( plan ) ).shiftFile( input, false, output, true );
+            fail( "TimeshifterException expected" );
+        }
+        catch( final TimeshifterException e )
+        {
+            assertThat( e.getMessage(), containsString( "was not recorded for input" ) );
+        }
+    }
+
+    private void assertResumedOutputIsComplete( final Path input )
+        throws IOException
+    {
+        final Path expectedOutput = folder.getRoot().toPath().resolve( "expected.csv" );
+        createCheckpointed( new Timeshifter( plan ) ).shiftFile( input, false, expectedOutput, false );
+
+        try
+        {
+            createCheckpointed( new AbortingTimeshifter( plan, ROWS / 2 ) ).shiftFile( input, false, output, false );
+            fail( "IllegalStateException expected" );
+        }
+        catch( final IllegalStateException e )
+        {
+            assertThat( e.getMessage(), is( "aborted" ) );
+        }
+        final Checkpoint checkpoint = Checkpoint.read( checkpointFile );
+        assertThat( checkpoint, notNullValue() );
+        assertThat( checkpoint.getRows(), greaterThan( 0L ) );
+        assertThat( Files.size( output ), greaterThan( checkpoint.getOutputLength() ) );
+
+        final Timeshifter resumed = new Timeshifter( plan );
+        final Checkpoint start = createCheckpointed( resumed ).shiftFile( input, false, output, true );
+
+        assertThat( start.getInputOffset(), equalTo( checkpoint.getInputOffset() ) );
+        assertThat( resumed.getRejectedRows().getCount( RejectReason.TOO_FEW_FIELDS ), is( 0L ) );
+        assertThat( new String( Files.readAllBytes( output ), StandardCharsets.UTF_8 ),
+                equalTo( new String( Files.readAllBytes( expectedOutput ), StandardCharsets.UTF_8 ) ) );
+        assertThat( Files.exists( checkpointFile ), is( false ) );
+    }
+
+    private CheckpointedTimeshifter createCheckpointed( final Timeshifter shifter )
+    {
+        return new CheckpointedTimeshifter( shifter, checkpointFile, 0, 1024 );
+    }
+
+    private CheckpointedTimeshifter createCheckpointed( final Timeshifter shifter, final Path rejectFile )
+    {
+        return new CheckpointedTimeshifter( shifter, checkpointFile, 0, 1024, rejectFile );
+    }
+
+    private static Writer openRejects( final Path rejectFile, final boolean append )
+        throws IOException
+    {
+        return new BufferedChannelWriter( Files.newByteChannel( rejectFile, StandardOpenOption.CREATE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE ),
+                StandardCharsets.UTF_8, 1024 );
+    }
+
+    /**
+     * Writes rows with line breaks of all kinds and multi byte chars.
+     */
+    private static void writeRows( final Writer out )
+        throws IOException
+    {
+        out.write( "SourceFile,GPSDateTime,DateTimeDigitized\r\n" );
+        for( int i = 0; i < ROWS; i++ )
+        {
+            out.write( "Bilder/Äpfel_€_📷_" + i + ".jpg,2019:03:09 17:58:00Z,2019:03:09 18:57:30+01:00" );
+            out.write( i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\r" : "\n" );
+        }
+    }
+
+    /**
+     * Shifter failing after the given number of rows.
+     */
+    private static final class AbortingTimeshifter
+        extends
+            Timeshifter
+    {
+        private int rows;
+
+        AbortingTimeshifter( final ShiftPlan plan, final int rows )
+        {
+            this( plan, null, rows );
+        }
+
+        AbortingTimeshifter( final ShiftPlan plan, final Writer rejectWriter, final int rows )
+        {
+            super( plan, TimeshifterMetrics.DISABLED, rejectWriter );
+            this.rows = rows;
+        }
+
+        @Override
+        protected boolean appendLine( final CsvRow values, final StringBuilder out )
+        {
+            if( --rows < 0 )
+            {
+                throw new IllegalStateException( "aborted" );
+            }
+
+            return super.appendLine( values, out );
+        }
+    }
+}
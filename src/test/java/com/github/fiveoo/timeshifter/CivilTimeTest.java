@@ -0,0 +1,74 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import static org.junit.Assert.assertThat;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import org.junit.Test;
+
+public class CivilTimeTest
+{
+    @Test
+    public void toEpochDayShouldMatchLocalDate()
+    {
+        for( LocalDate date = LocalDate.of( -401, 1, 1 ); date.getYear() < 2401; date = date.plusDays( 1 ) )
+        {
+            assertThat( date.toString(), CivilTime.toEpochDay( date.getYear(), date.getMonthValue(),
+                    date.getDayOfMonth() ), equalTo( date.toEpochDay() ) );
+        }
+    }
+
+    @Test
+    public void toYearMonthDayShouldMatchLocalDate()
+    {
+        for( LocalDate date = LocalDate.of( 1, 1, 1 ); date.getYear() < 2401; date = date.plusDays( 1 ) )
+        {
+            assertThat( date.toString(), CivilTime.toYearMonthDay( date.toEpochDay() ),
+                    equalTo( date.getYear() * 10000L + date.getMonthValue() * 100 + date.getDayOfMonth() ) );
+        }
+    }
+
+    @Test
+    public void lengthOfMonthShouldRespectLeapYears()
+    {
+        assertThat( CivilTime.lengthOfMonth( 2019, 2 ), is( 28 ) );
+        assertThat( CivilTime.lengthOfMonth( 2020, 2 ), is( 29 ) );
+        assertThat( CivilTime.lengthOfMonth( 1900, 2 ), is( 28 ) );
+        assertThat( CivilTime.lengthOfMonth( 2000, 2 ), is( 29 ) );
+        assertThat( CivilTime.lengthOfMonth( 2019, 4 ), is( 30 ) );
+        assertThat( CivilTime.lengthOfMonth( 2019, 12 ), is( 31 ) );
+    }
+
+    @Test
+    public void toEpochSecondShouldMatchLocalDateTime()
+    {
+        final LocalDateTime dateTime = LocalDateTime.of( 2019, 3, 9, 18, 57, 30 );
+
+        assertThat( CivilTime.toEpochSecond( dateTime.toLocalDate().toEpochDay(), 18, 57, 30 ),
+                is( dateTime.toEpochSecond( ZoneOffset.UTC ) ) );
+    }
+
+    @Test
+    public void toLocalEpochSecondShouldMatchOffsetDateTime()
+    {
+        final OffsetDateTime dateTime = OffsetDateTime.parse( "1969-12-31T22:30:15-04:30" );
+        final long localEpochSecond = CivilTime.toLocalEpochSecond( dateTime.toEpochSecond(), -16200 );
+
+        assertThat( localEpochSecond, is( dateTime.toLocalDateTime().toEpochSecond( ZoneOffset.UTC ) ) );
+        assertThat( CivilTime.toEpochDay( localEpochSecond ), is( dateTime.toLocalDate().toEpochDay() ) );
+        assertThat( CivilTime.toSecondOfDay( localEpochSecond ), is( dateTime.toLocalTime().toSecondOfDay() ) );
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void toLocalEpochSecondShouldRejectOffsetOutOfRange()
+    {
+        CivilTime.toLocalEpochSecond( 0, CivilTime.MAX_OFFSET_SECONDS + 1 );
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CsvRecordSplitterTest
+{
+    private static final String CSV = "h1,h2\n" // 0
+            + "\"a\nb\",1\r\n" // 6
+            + "\"x\\\"\ny\",2\n" // 15
+            + "c,3\n"; // 25
+
+    @Rule
+    public TemporaryFolder      folder = new TemporaryFolder();
+
+    @Test
+    public void splitShouldNotSplitRecordsAtQuotedLineBreaks()
+        throws IOException
+    {
+        assertThat( CsvRecordSplitter.split( write( CSV ), 1, 1, 16 ), equalTo( new long[] { 6, 15, 25, 29 } ) );
+    }
+
+    @Test
+    public void splitShouldStartNewChunkAfterChunkSize()
+        throws IOException
+    {
+        assertThat( CsvRecordSplitter.split( write( CSV ), 0, 11, 16 ), equalTo( new long[] { 0, 15, 29 } ) );
+        assertThat( CsvRecordSplitter.split( write( CSV ), 1, 1000 ), equalTo( new long[] { 6, 29 } ) );
+    }
+
+    @Test
+    public void splitShouldReturnSingleEmptyChunkIfAllLinesAreSkipped()
+        throws IOException
+    {
+        assertThat( CsvRecordSplitter.split( write( "h1,h2\n" ), 1, 1 ), equalTo( new long[] { 6, 6 } ) );
+    }
+
+    private Path write( final String content )
+        throws IOException
+    {
+        final Path path = folder.newFile().toPath();
+        Files.write( path, content.getBytes( StandardCharsets.UTF_8 ) );
+
+        return path;
+    }
+}
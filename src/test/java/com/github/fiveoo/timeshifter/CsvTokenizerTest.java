@@ -0,0 +1,202 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+
+/**
+ * Compares the records of {@link CsvTokenizer} with the ones of the opencsv
+ * reader set up like the shifter did before.
+ */
+public class CsvTokenizerTest
+{
+    private static final int ITERATIONS = 20_000;
+
+    private static final char[] ALPHABET = { 'a', 'b', '1', ' ', '\t', ',', ',', '"', '"', '\\', '\n', '\r', 'ä' };
+
+    private final Random random = new Random( 20190316L );
+
+    @Test
+    public void nextShouldSplitExifToolOutput()
+        throws IOException
+    {
+        final List<List<String>> records = tokenize(
+                "SourceFile,GPSDateTime\r\n\"New Images/DSC1.jpg\",2019:03:09 17:58:00Z\r\n"
+                        + "\"with \"\"quotes\"\" and\nline break\",b\r\n",
+                1 );
+
+        assertThat( records, equalTo( Arrays.asList( Arrays.asList( "New Images/DSC1.jpg", "2019:03:09 17:58:00Z" ),
+                Arrays.asList( "with \"quotes\" and\nline break", "b" ) ) ) );
+    }
+
+    @Test
+    public void nextShouldHandleEmptyLinesAndFields()
+        throws IOException
+    {
+        assertThat( tokenize( "a,,\n\n,b", 0 ), equalTo(
+                Arrays.asList( Arrays.asList( "a", "", "" ), Arrays.asList( "" ), Arrays.asList( "", "b" ) ) ) );
+    }
+
+    @Test
+    public void getShouldReturnReusedViews()
+        throws IOException
+    {
+        try (final CsvTokenizer tokenizer = new CsvTokenizer( new StringReader( "abc,de\nf,ghij\n" ) ))
+        {
+            assertThat( tokenizer.next(), is( true ) );
+            final CharSequence field = tokenizer.get( 1 );
+            assertThat( field.toString(), equalTo( "de" ) );
+
+            assertThat( tokenizer.next(), is( true ) );
+            assertThat( tokenizer.get( 1 ), sameInstance( field ) );
+            assertThat( field.length(), is( 4 ) );
+            assertThat( field.charAt( 3 ), is( 'j' ) );
+
+            final StringBuilder out = new StringBuilder();
+            tokenizer.appendTo( 0, out );
+            assertThat( out.toString(), equalTo( "f" ) );
+
+            assertThat( tokenizer.next(), is( false ) );
+        }
+    }
+
+    @Test( expected = IOException.class )
+    public void nextShouldReportUnterminatedQuote()
+        throws IOException
+    {
+        try (final CsvTokenizer tokenizer = new CsvTokenizer( new StringReader( "a,\"b\nc" ) ))
+        {
+            tokenizer.next();
+        }
+    }
+
+    @Test
+    public void nextShouldSplitLikeOpenCsv()
+        throws IOException
+    {
+        for( int i = 0; i < ITERATIONS; i++ )
+        {
+            final String input = randomInput();
+            final int skip = random.nextInt( 3 ) == 0 ? 1 : 0;
+
+            assertThat( escape( input ), tokenize( input, skip ), equalTo( tokenizeOpenCsv( input, skip ) ) );
+        }
+    }
+
+    @Test
+    public void nextShouldHandleLinesLongerThanBuffer()
+        throws IOException
+    {
+        final StringBuilder b = new StringBuilder();
+        for( int i = 0; i < 10_000; i++ )
+        {
+            b.append( i % 7 == 0 ? "\"x,\"\"y\"\"\"," : "field" + i + "," );
+        }
+        final String input = b.append( "\r\nlast" ).toString();
+
+        assertThat( tokenize( input, 0 ), equalTo( tokenizeOpenCsv( input, 0 ) ) );
+    }
+
+    private String randomInput()
+    {
+        final char[] text = new char[random.nextInt( 40 )];
+        for( int i = 0; i < text.length; i++ )
+        {
+            text[i] = ALPHABET[random.nextInt( ALPHABET.length )];
+        }
+
+        return new String( text );
+    }
+
+    /**
+     * @return records; <code>null</code> if the input is rejected
+     */
+    private static List<List<String>> tokenize( final String input, final int skip )
+    {
+        final List<List<String>> records = new ArrayList<>();
+        try (final CsvTokenizer tokenizer = new CsvTokenizer( new OneCharReader( input ), skip ))
+        {
+            while( tokenizer.next() )
+            {
+                records.add( Arrays.asList( tokenizer.toArray() ) );
+            }
+        }
+        catch( final IOException e )
+        {
+            return null;
+        }
+
+        return records;
+    }
+
+    private static List<List<String>> tokenizeOpenCsv( final String input, final int skip )
+    {
+        final List<List<String>> records = new ArrayList<>();
+        try (final CSVReader reader = new CSVReaderBuilder( new StringReader( input ) )
+                .withCSVParser( new CSVParserBuilder().withSeparator( ',' ).withQuoteChar( '"' ).build() )
+                .withSkipLines( skip ).build())
+        {
+            String[] values;
+            while( ( values = reader.readNext() ) != null )
+            {
+                records.add( Arrays.asList( values ) );
+            }
+        }
+        catch( final IOException e )
+        {
+            return null;
+        }
+
+        return records;
+    }
+
+    private static String escape( final String input )
+    {
+        return input.replace( "\\", "\\\\" ).replace( "\n", "\\n" ).replace( "\r", "\\r" ).replace( "\t", "\\t" );
+    }
+
+    /**
+     * Delivers the input in small pieces to exercise the buffer handling.
+     */
+    private static final class OneCharReader
+        extends
+            Reader
+    {
+        private final StringReader in;
+        private int                call;
+
+        OneCharReader( final String input )
+        {
+            this.in = new StringReader( input );
+        }
+
+        @Override
+        public int read( final char[] cbuf, final int off, final int len )
+            throws IOException
+        {
+            return in.read( cbuf, off, Math.min( len, 1 + call++ % 3 ) );
+        }
+
+        @Override
+        public void close()
+        {
+            in.close();
+        }
+    }
+}
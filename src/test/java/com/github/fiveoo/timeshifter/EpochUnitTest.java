@@ -0,0 +1,88 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import static org.junit.Assert.assertThat;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.Test;
+
+public class EpochUnitTest
+{
+    private static final OffsetDateTime TIME =
+            OffsetDateTime.of( 2019, 3, 9, 18, 58, 0, 123456789, ZoneOffset.ofHours( 1 ) );
+
+    @Test
+    public void forPatternShouldSelectUnitByName()
+    {
+        assertThat( EpochUnit.forPattern( "epochSeconds" ), is( EpochUnit.SECONDS ) );
+        assertThat( EpochUnit.forPattern( "epochMillis" ), is( EpochUnit.MILLIS ) );
+        assertThat( EpochUnit.forPattern( "epochMicros" ), is( EpochUnit.MICROS ) );
+        assertThat( EpochUnit.forPattern( "yyyy:MM:dd HH:mm:ssXXX" ), nullValue() );
+    }
+
+    @Test
+    public void ofShouldOnlyAcceptFormattersOfUnits()
+    {
+        assertThat( EpochUnit.of( EpochUnit.MILLIS.getFormatter() ), is( EpochUnit.MILLIS ) );
+        assertThat( EpochUnit.of( DateTimeFormatter.ISO_OFFSET_DATE_TIME ), nullValue() );
+        assertThat( EpochUnit.forFormatters( EpochUnit.MILLIS.getFormatter(), EpochUnit.MICROS.getFormatterLocal() ),
+                nullValue() );
+    }
+
+    @Test
+    public void parseShouldReadInstantLikeFormatter()
+    {
+        for( final String text : new String[] { "1552154280123", "0", "-1", "-1500", "9999999999999" } )
+        {
+            assertThat( text, EpochUnit.MILLIS.parse( text ),
+                    equalTo( OffsetDateTime.parse( text, EpochUnit.MILLIS.getFormatter() ) ) );
+        }
+        assertThat( EpochUnit.MICROS.parse( "1552154280123456" ),
+                equalTo( OffsetDateTime.of( 2019, 3, 9, 17, 58, 0, 123456000, ZoneOffset.UTC ) ) );
+    }
+
+    @Test
+    public void parseShouldRejectInvalidNumbers()
+    {
+        for( final String text : new String[] { "", "-", "+1", "1.5", "1 ", "12345678901234567890",
+            "9223372036854775808", "99999999999999999" } )
+        {
+            assertThat( text, EpochUnit.SECONDS.parse( text ), nullValue() );
+        }
+    }
+
+    @Test
+    public void parseUnitsShouldGiveEpochSecondAndNano()
+    {
+        final long units = EpochUnit.MILLIS.parseUnits( "-1500" );
+
+        assertThat( units, equalTo( -1500L ) );
+        assertThat( EpochUnit.MILLIS.toEpochSecond( units ), equalTo( -2L ) );
+        assertThat( EpochUnit.MILLIS.toNano( units ), equalTo( 500000000 ) );
+        assertThat( EpochUnit.SECONDS.parseUnits( "1.5" ), equalTo( EpochUnit.INVALID ) );
+        assertThat( EpochUnit.SECONDS.parseUnits( "99999999999999999" ), equalTo( EpochUnit.INVALID ) );
+    }
+
+    @Test
+    public void appendToShouldWriteNumbersLikeFormatters()
+    {
+        for( final EpochUnit unit : EpochUnit.values() )
+        {
+            final StringBuilder instant = new StringBuilder();
+            unit.appendTo( instant, TIME.toEpochSecond(), TIME.getNano() );
+            final StringBuilder local = new StringBuilder();
+            unit.appendTo( local, TIME.toEpochSecond() + 3600, TIME.getNano() );
+
+            assertThat( instant.toString(), equalTo( TIME.format( unit.getFormatter() ) ) );
+            assertThat( local.toString(), equalTo( TIME.format( unit.getFormatterLocal() ) ) );
+        }
+        assertThat( TIME.format( EpochUnit.MICROS.getFormatter() ), equalTo( "1552154280123456" ) );
+        assertThat( TIME.format( EpochUnit.SECONDS.getFormatterLocal() ), equalTo( "1552157880" ) );
+    }
+}
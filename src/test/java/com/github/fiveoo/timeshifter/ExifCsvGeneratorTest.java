@@ -0,0 +1,107 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
+
+public class ExifCsvGeneratorTest
+{
+    @Test
+    public void writeCsvShouldWriteHeaderAndRowsLikeExifTool()
+        throws IOException
+    {
+        final ExifCsvGenerator cut = new ExifCsvGenerator( 3 );
+        cut.setExtraColumns( 1 );
+
+        final StringWriter out = new StringWriter();
+        cut.writeCsv( out );
+
+        final List<String> lines = Arrays.asList( out.toString().split( "\n" ) );
+        assertThat( lines, hasSize( 4 ) );
+        assertThat( lines.get( 0 ), equalTo( "SourceFile,GPSDateTime,DateTimeDigitized,Extra1" ) );
+        assertThat( lines.get( 1 ).matches(
+                "NewImages/DSC00000\\.jpg,2019:03:\\d\\d \\d\\d:\\d\\d:\\d\\dZ,2019:03:\\d\\d \\d\\d:\\d\\d:\\d\\d\\+01:00,[^,]+" ),
+                is( true ) );
+    }
+
+    @Test
+    public void rowsShouldBeTheSameForEachRun()
+    {
+        final ExifCsvGenerator cut = new ExifCsvGenerator( 100 );
+        cut.setZones( Arrays.asList( ZoneId.of( "Europe/Berlin" ), ZoneOffset.ofHours( -5 ) ) );
+
+        final List<String> first = cut.rows().map( Arrays::toString ).collect( Collectors.toList() );
+        final List<String> second = cut.rows().map( Arrays::toString ).collect( Collectors.toList() );
+
+        assertThat( second, equalTo( first ) );
+        assertThat( cut.createRow( 42 ), arrayContaining( cut.rows().skip( 42 ).findFirst().get() ) );
+    }
+
+    @Test
+    public void rowsShouldBeShiftableByConfiguration()
+        throws IOException
+    {
+        final MutableTimeshifterConfig config = new MutableTimeshifterConfig();
+        config.setInDateShiftFormat( "dd.MM.yyyy HH:mm:ss" );
+        config.setInDateShiftZone( ZoneId.of( "Asia/Tokyo" ) );
+        config.setInDateShiftIdx( 3 );
+        config.setInLinesSkip( 1 );
+        final ExifCsvGenerator cut = ExifCsvGenerator.forConfig( config, 1000 );
+        cut.setZones( Arrays.asList( ZoneId.of( "Europe/Berlin" ), ZoneId.of( "America/New_York" ) ) );
+        cut.setExtraColumns( 2 );
+
+        final AtomicInteger errors = new AtomicInteger();
+        final StringWriter csv = new StringWriter();
+        cut.writeCsv( csv );
+        final StringWriter out = new StringWriter();
+        new Timeshifter( config )
+        {
+            @Override
+            protected void reject( final CsvRow values, final RejectReason reason, final String detail )
+            {
+                errors.incrementAndGet();
+            }
+        }.shiftCsv( new StringReader( csv.toString() ), out );
+
+        assertThat( errors.get(), is( 0 ) );
+        assertThat( out.toString().split( "\n" ).length, is( 1000 ) );
+    }
+
+    @Test
+    public void errorRatioShouldProduceRowsFailingToShift()
+    {
+        final ExifCsvGenerator cut = new ExifCsvGenerator( 1000 );
+        cut.setErrorRatio( 0.25 );
+
+        final AtomicInteger errors = new AtomicInteger();
+        final StringWriter out = new StringWriter();
+        new Timeshifter( new MutableTimeshifterConfig() )
+        {
+            @Override
+            protected void reject( final CsvRow values, final RejectReason reason, final String detail )
+            {
+                errors.incrementAndGet();
+            }
+        }.shift( cut.rows(), out );
+
+        assertThat( out.toString().split( "\n" ).length + errors.get(), is( 1000 ) );
+        assertThat( errors.get() > 200 && errors.get() < 300, is( true ) );
+    }
+}
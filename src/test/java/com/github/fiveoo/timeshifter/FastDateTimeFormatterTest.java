@@ -0,0 +1,121 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import static org.junit.Assert.assertThat;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
+
+/**
+ * Compares the results of {@link FastDateTimeFormatter} with the ones of
+ * {@link DateTimeFormatter} for random date/times.
+ */
+public class FastDateTimeFormatterTest
+{
+    private static final DateTimeFormatter FORMATTER       = MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER;
+    private static final DateTimeFormatter FORMATTER_LOCAL = DateTimeFormatter.ofPattern( "yyyy:MM:dd HH:mm:ss" );
+
+    private final Random random = new Random( 20190315L );
+
+    private FastDateTimeFormatter cut;
+
+    @Before
+    public void setUp()
+    {
+        cut = FastDateTimeFormatter.forFormatters( FORMATTER, FORMATTER_LOCAL );
+    }
+
+    @Test
+    public void forFormattersShouldDetectSupportedLayouts()
+    {
+        assertThat( cut, notNullValue() );
+        assertThat( FastDateTimeFormatter.forFormatters( FORMATTER, FORMATTER ), nullValue() );
+        assertThat( FastDateTimeFormatter.forFormatters( DateTimeFormatter.ofPattern( "dd.MM.yyyy HH:mm:ssXXX" ),
+                FORMATTER_LOCAL ), nullValue() );
+    }
+
+    @Test
+    public void appendToShouldFormatExample()
+    {
+        final OffsetDateTime dateTime = OffsetDateTime.of( 2019, 3, 9, 18, 58, 0, 0, ZoneOffset.ofHours( 1 ) );
+        final StringBuilder out = new StringBuilder( "x" );
+
+        assertThat( cut.appendTo( out, dateTime.toEpochSecond(), 3600, true ), is( true ) );
+        out.append( ',' );
+        assertThat( cut.appendTo( out, dateTime.toEpochSecond(), 3600, false ), is( true ) );
+
+        assertThat( out.toString(), equalTo( "x2019:03:09 18:58:00+01:00,2019:03:09 18:58:00" ) );
+    }
+
+    @Test
+    public void appendToShouldPrintZeroOffsetAsZ()
+    {
+        final StringBuilder out = new StringBuilder();
+
+        cut.appendTo( out, 0, 0, true );
+
+        assertThat( out.toString(), equalTo( "1970:01:01 00:00:00Z" ) );
+    }
+
+    @Test
+    public void appendToOutsideSupportedYearsShouldAppendNothing()
+    {
+        final StringBuilder out = new StringBuilder();
+
+        assertThat( cut.appendTo( out, OffsetDateTime.of( 10000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC ).toEpochSecond(),
+                0, true ), is( false ) );
+        assertThat( cut.appendTo( out, OffsetDateTime.of( 0, 12, 31, 23, 0, 0, 0, ZoneOffset.UTC ).toEpochSecond(),
+                0, false ), is( false ) );
+        assertThat( out.length(), is( 0 ) );
+    }
+
+    @Test
+    public void appendToShouldMatchDateTimeFormatter()
+    {
+        final long min = OffsetDateTime.of( 1, 1, 2, 0, 0, 0, 0, ZoneOffset.UTC ).toEpochSecond();
+        final long max = OffsetDateTime.of( 9999, 12, 30, 0, 0, 0, 0, ZoneOffset.UTC ).toEpochSecond();
+        final long now = OffsetDateTime.of( 2019, 3, 9, 0, 0, 0, 0, ZoneOffset.UTC ).toEpochSecond();
+
+        final StringBuilder out = new StringBuilder();
+        for( int i = 0; i < 100_000; i++ )
+        {
+            final long epochSecond = random.nextBoolean() ? now + random.nextInt( 200 * 86400 )
+                    : min + (long) ( random.nextDouble() * ( max - min ) );
+            final ZoneOffset offset = randomOffset();
+            final OffsetDateTime dateTime = Instant.ofEpochSecond( epochSecond ).atOffset( offset );
+
+            out.setLength( 0 );
+            cut.appendTo( out, epochSecond, offset.getTotalSeconds(), true );
+            assertThat( out.toString(), equalTo( dateTime.format( FORMATTER ) ) );
+
+            out.setLength( 0 );
+            cut.appendTo( out, epochSecond, offset.getTotalSeconds(), false );
+            assertThat( out.toString(), equalTo( dateTime.format( FORMATTER_LOCAL ) ) );
+        }
+    }
+
+    private ZoneOffset randomOffset()
+    {
+        switch( random.nextInt( 4 ) )
+        {
+            case 0:
+                return ZoneOffset.UTC;
+            case 1:
+                return ZoneOffset.ofTotalSeconds( random.nextInt( 2 * 18 * 3600 + 1 ) - 18 * 3600 );
+            default:
+                return ZoneOffset.ofTotalSeconds( ( random.nextInt( 2 * 18 * 4 + 1 ) - 18 * 4 ) * 15 * 60 );
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
+
+/**
+ * Compares the results of {@link FastDateTimeParser} with the ones of
+ * java.time for random input.
+ */
+public class FastDateTimeParserTest
+{
+    private static final int ITERATIONS = 50_000;
+
+    private static final DateTimeFormatter LOCAL_FORMATTER = DateTimeFormatter.ofPattern( "yyyy:MM:dd HH:mm:ss" );
+
+    private final Random random = new Random( 20190315L );
+
+    @Test
+    public void forFormatterShouldDetectSupportedLayouts()
+    {
+        assertThat( FastDateTimeParser.forFormatter( MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER ).hasOffset(),
+                is( true ) );
+        assertThat( FastDateTimeParser.forFormatter( LOCAL_FORMATTER ).hasOffset(), is( false ) );
+        assertThat( FastDateTimeParser.forFormatter( DateTimeFormatter.ofPattern( "yyyy:MM:dd HH:mm:ssXXX" ) ),
+                sameInstance( FastDateTimeParser.forFormatter( MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER ) ) );
+    }
+
+    @Test
+    public void forFormatterShouldRejectOtherLayouts()
+    {
+        assertThat( FastDateTimeParser.forFormatter( null ), nullValue() );
+        assertThat( FastDateTimeParser.forFormatter( DateTimeFormatter.ofPattern( "yyyy-MM-dd HH:mm:ssXXX" ) ),
+                nullValue() );
+        assertThat( FastDateTimeParser.forFormatter( DateTimeFormatter.ofPattern( "yyyy:MM:dd HH:mm:ssxxx" ) ),
+                nullValue() );
+        assertThat( FastDateTimeParser.forFormatter( DateTimeFormatter.ISO_OFFSET_DATE_TIME ), nullValue() );
+        assertThat( FastDateTimeParser.forFormatter(
+                MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER.withResolverStyle( ResolverStyle.STRICT ) ),
+                nullValue() );
+        assertThat( FastDateTimeParser.forFormatter(
+                MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER.withZone( ZoneOffset.UTC ) ), nullValue() );
+    }
+
+    @Test
+    public void parseShouldHandleExamples()
+    {
+        final FastDateTimeParser parser =
+                FastDateTimeParser.forFormatter( MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER );
+
+        assertThat( parser.parseLocalEpochSecond( "1970:01:01 00:00:00Z" ), is( 0L ) );
+        assertThat( parser.parseOffsetSeconds( "1970:01:01 00:00:00Z" ), is( 0 ) );
+        assertThat( parser.parseLocalEpochSecond( "2019:03:09 18:57:30+01:00" ),
+                is( LocalDateTime.of( 2019, 3, 9, 18, 57, 30 ).toEpochSecond( ZoneOffset.UTC ) ) );
+        assertThat( parser.parseOffsetSeconds( "2019:03:09 18:57:30+01:00" ), is( 3600 ) );
+        assertThat( parser.parseOffsetSeconds( "2019:03:09 18:57:30-04:30" ), is( -16200 ) );
+        assertThat( parser.parseLocalEpochSecond( "2019:02:30 10:00:00Z" ),
+                is( LocalDateTime.of( 2019, 2, 28, 10, 0, 0 ).toEpochSecond( ZoneOffset.UTC ) ) );
+    }
+
+    @Test
+    public void parseShouldRejectInvalidText()
+    {
+        final FastDateTimeParser parser =
+                FastDateTimeParser.forFormatter( MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER );
+
+        assertThat( parser.parseLocalEpochSecond( "" ), is( FastDateTimeParser.INVALID ) );
+        assertThat( parser.parseLocalEpochSecond( "-not parseable date-" ), is( FastDateTimeParser.INVALID ) );
+        assertThat( parser.parseLocalEpochSecond( "2019:03:09 18:57:30" ), is( FastDateTimeParser.INVALID ) );
+        assertThat( parser.parseLocalEpochSecond( "2019:13:09 18:57:30Z" ), is( FastDateTimeParser.INVALID ) );
+        assertThat( parser.parseLocalEpochSecond( "2019:03:09 24:00:00Z" ), is( FastDateTimeParser.INVALID ) );
+        assertThat( parser.parseOffsetSeconds( "2019:03:09 18:57:30+18:01" ), is( FastDateTimeParser.INVALID_OFFSET ) );
+        assertThat( parser.parseOffsetSeconds( "2019:03:09 18:57:30+0100" ), is( FastDateTimeParser.INVALID_OFFSET ) );
+        assertThat( parser.parseOffsetSeconds( "2019:03:09 18:57:30z" ), is( FastDateTimeParser.INVALID_OFFSET ) );
+    }
+
+    @Test
+    public void parseOffsetShouldReadSuffixOnly()
+    {
+        final FastDateTimeParser parser =
+                FastDateTimeParser.forFormatter( MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER );
+
+        assertThat( parser.parseOffset( "2019:03:09 18:57:30+01:00" ), equalTo( ZoneOffset.ofHours( 1 ) ) );
+        assertThat( parser.parseOffset( "2019:03:09 18:57:30-04:30" ), equalTo( ZoneOffset.ofHoursMinutes( -4, -30 ) ) );
+        assertThat( parser.parseOffset( "2019:03:09 18:57:30Z" ), sameInstance( ZoneOffset.UTC ) );
+        assertThat( parser.parseOffset( "9999:99:99 99:99:99+05:45" ), equalTo( ZoneOffset.ofHoursMinutes( 5, 45 ) ) );
+    }
+
+    @Test
+    public void parseOffsetShouldInternOffsets()
+    {
+        final FastDateTimeParser parser =
+                FastDateTimeParser.forFormatter( MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER );
+
+        assertThat( parser.parseOffset( "2019:03:09 18:57:30+05:45" ),
+                sameInstance( parser.parseOffset( "2019:03:10 07:00:00+05:45" ) ) );
+    }
+
+    @Test
+    public void parseOffsetShouldRejectOffsetAtOtherPosition()
+    {
+        final FastDateTimeParser parser =
+                FastDateTimeParser.forFormatter( MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER );
+
+        assertThat( parser.parseOffset( "" ), nullValue() );
+        assertThat( parser.parseOffset( "2019:03:09 18:57:30" ), nullValue() );
+        assertThat( parser.parseOffset( "2019-03-09 18:57:30+01:00" ), nullValue() );
+        assertThat( parser.parseOffset( "19:03:09 18:57:30+01:00" ), nullValue() );
+        assertThat( parser.parseOffset( "2019:03:09 18:57:30+1:00" ), nullValue() );
+        assertThat( FastDateTimeParser.forFormatter( LOCAL_FORMATTER ).parseOffset( "2019:03:09 18:57:30Z" ),
+                nullValue() );
+    }
+
+    @Test
+    public void parseWithOffsetShouldMatchJavaTime()
+    {
+        final FastDateTimeParser parser =
+                FastDateTimeParser.forFormatter( MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER );
+
+        int handled = 0;
+        for( int i = 0; i < ITERATIONS; i++ )
+        {
+            final String text = randomText( true );
+
+            OffsetDateTime expected = null;
+            try
+            {
+                expected = OffsetDateTime.parse( text, MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER );
+            }
+            catch( final RuntimeException e )
+            {
+                // expected stays null
+            }
+
+            final long localEpochSecond = parser.parseLocalEpochSecond( text );
+            final int offsetSeconds = parser.parseOffsetSeconds( text );
+            if( localEpochSecond == FastDateTimeParser.INVALID || offsetSeconds == FastDateTimeParser.INVALID_OFFSET )
+            {
+                assertNotRegularForm( text, expected != null );
+                continue;
+            }
+
+            handled++;
+            assertThat( text, expected, notNullValue() );
+            assertThat( text, localEpochSecond, equalTo( expected.toLocalDateTime().toEpochSecond( ZoneOffset.UTC ) ) );
+            assertThat( text, offsetSeconds, equalTo( expected.getOffset().getTotalSeconds() ) );
+        }
+
+        assertThat( handled, greaterThan( ITERATIONS / 4 ) );
+    }
+
+    @Test
+    public void parseWithoutOffsetShouldMatchJavaTime()
+    {
+        final FastDateTimeParser parser = FastDateTimeParser.forFormatter( LOCAL_FORMATTER );
+
+        int handled = 0;
+        for( int i = 0; i < ITERATIONS; i++ )
+        {
+            final String text = randomText( false );
+
+            LocalDateTime expected = null;
+            try
+            {
+                expected = LocalDateTime.parse( text, LOCAL_FORMATTER );
+            }
+            catch( final RuntimeException e )
+            {
+                // expected stays null
+            }
+
+            final long localEpochSecond = parser.parseLocalEpochSecond( text );
+            if( localEpochSecond == FastDateTimeParser.INVALID )
+            {
+                assertNotRegularForm( text, expected != null );
+                continue;
+            }
+
+            handled++;
+            assertThat( text, expected, notNullValue() );
+            assertThat( text, localEpochSecond, equalTo( expected.toEpochSecond( ZoneOffset.UTC ) ) );
+        }
+
+        assertThat( handled, greaterThan( ITERATIONS / 4 ) );
+    }
+
+    /**
+     * Texts rejected by the fast parser but accepted by java.time must not be
+     * of the regular form the fast parser is meant for.
+     */
+    private static void assertNotRegularForm( final String text, final boolean parseableByJavaTime )
+    {
+        if( parseableByJavaTime && !text.startsWith( "0000" )
+                && text.matches( "[0-9]{4}:[0-9]{2}:[0-9]{2} ([01][0-9]|2[0-3]):[0-5][0-9]:[0-5][0-9].*" ) )
+        {
+            fail( "Regular text not handled by fast parser: " + text );
+        }
+    }
+
+    private String randomText( final boolean withOffset )
+    {
+        final StringBuilder b = new StringBuilder();
+        b.append( digits( random.nextInt( 10 ) == 0 ? random.nextInt( 10000 ) : 1900 + random.nextInt( 200 ), 4 ) );
+        b.append( ':' ).append( digits( random.nextInt( 10 ) == 0 ? random.nextInt( 100 ) : 1 + random.nextInt( 12 ), 2 ) );
+        b.append( ':' ).append( digits( random.nextInt( 10 ) == 0 ? random.nextInt( 100 ) : 1 + random.nextInt( 31 ), 2 ) );
+        b.append( ' ' ).append( digits( random.nextInt( 10 ) == 0 ? random.nextInt( 100 ) : random.nextInt( 24 ), 2 ) );
+        b.append( ':' ).append( digits( random.nextInt( 10 ) == 0 ? random.nextInt( 100 ) : random.nextInt( 60 ), 2 ) );
+        b.append( ':' ).append( digits( random.nextInt( 10 ) == 0 ? random.nextInt( 100 ) : random.nextInt( 60 ), 2 ) );
+        if( withOffset )
+        {
+            if( random.nextInt( 5 ) == 0 )
+            {
+                b.append( 'Z' );
+            }
+            else
+            {
+                b.append( random.nextBoolean() ? '+' : '-' );
+                b.append( digits( random.nextInt( 10 ) == 0 ? random.nextInt( 100 ) : random.nextInt( 19 ), 2 ) );
+                b.append( ':' );
+                b.append( digits( random.nextInt( 10 ) == 0 ? random.nextInt( 100 ) : random.nextInt( 4 ) * 15, 2 ) );
+            }
+        }
+
+        if( random.nextInt( 8 ) == 0 )
+        {
+            corrupt( b );
+        }
+
+        return b.toString();
+    }
+
+    private void corrupt( final StringBuilder b )
+    {
+        final String noise = "0123456789:+-Z z.٣";
+        switch( random.nextInt( 4 ) )
+        {
+            case 0:
+                b.setCharAt( random.nextInt( b.length() ), noise.charAt( random.nextInt( noise.length() ) ) );
+                break;
+            case 1:
+                b.setLength( random.nextInt( b.length() ) );
+                break;
+            case 2:
+                b.insert( random.nextInt( b.length() + 1 ), noise.charAt( random.nextInt( noise.length() ) ) );
+                break;
+            default:
+                b.deleteCharAt( random.nextInt( b.length() ) );
+                break;
+        }
+    }
+
+    private static String digits( final int value, final int width )
+    {
+        final String s = Integer.toString( value );
+        final StringBuilder b = new StringBuilder();
+        for( int i = s.length(); i < width; i++ )
+        {
+            b.append( '0' );
+        }
+
+        return b.append( s ).toString();
+    }
+}
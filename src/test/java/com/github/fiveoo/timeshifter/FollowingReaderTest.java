@@ -0,0 +1,145 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FollowingReaderTest
+{
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger  flushes = new AtomicInteger();
+    private final StringBuffer   text    = new StringBuffer();
+    private Path                 file;
+    private FollowingReader      cut;
+    private Thread               readerThread;
+    private volatile IOException error;
+
+    @Before
+    public void setUp()
+        throws IOException
+    {
+        file = folder.getRoot().toPath().resolve( "in.csv" );
+        append( file, "a\n" );
+        cut = new FollowingReader( file, flushes::incrementAndGet );
+        readerThread = new Thread( this::readAll );
+        readerThread.start();
+    }
+
+    @After
+    public void tearDown()
+        throws Exception
+    {
+        cut.stop();
+        readerThread.join( TIMEOUT_MILLIS );
+        cut.close();
+    }
+
+    @Test
+    public void readShouldReturnCompleteLinesAppendedLater()
+        throws Exception
+    {
+        awaitText( "a\n" );
+
+        append( file, "b,1\r\nc," );
+        awaitText( "a\nb,1\r\n" );
+
+        append( file, "2\n" );
+        awaitText( "a\nb,1\r\nc,2\n" );
+        assertThat( flushes.get(), greaterThan( 0 ) );
+    }
+
+    @Test
+    public void readShouldStartAgainAfterTruncation()
+        throws Exception
+    {
+        append( file, "bbbbbbbb\n" );
+        awaitText( "a\nbbbbbbbb\n" );
+
+        Files.write( file, "c\n".getBytes( StandardCharsets.UTF_8 ), StandardOpenOption.TRUNCATE_EXISTING );
+
+        awaitText( "a\nbbbbbbbb\nc\n" );
+    }
+
+    @Test
+    public void readShouldContinueWithNewFileAfterRotation()
+        throws Exception
+    {
+        awaitText( "a\n" );
+
+        append( file, "b" );
+        Files.move( file, file.resolveSibling( "in.csv.1" ) );
+        append( file, "c\n" );
+
+        awaitText( "a\nb\nc\n" );
+    }
+
+    @Test
+    public void readShouldEndAfterStopDroppingUnterminatedLine()
+        throws Exception
+    {
+        append( file, "b" );
+        awaitText( "a\n" );
+
+        cut.stop();
+        readerThread.join( TIMEOUT_MILLIS );
+
+        assertThat( readerThread.isAlive(), is( false ) );
+        assertThat( text.toString(), equalTo( "a\n" ) );
+        assertThat( error, is( (IOException) null ) );
+    }
+
+    private void readAll()
+    {
+        final char[] buffer = new char[16];
+        try
+        {
+            int count;
+            while( ( count = cut.read( buffer ) ) >= 0 )
+            {
+                text.append( buffer, 0, count );
+            }
+        }
+        catch( final IOException e )
+        {
+            error = e;
+        }
+    }
+
+    private void awaitText( final String expected )
+        throws InterruptedException
+    {
+        final long end = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while( !expected.equals( text.toString() ) && System.currentTimeMillis() < end )
+        {
+            Thread.sleep( 10 );
+        }
+
+        assertThat( text.toString(), equalTo( expected ) );
+    }
+
+    private static void append( final Path path, final String chars )
+        throws IOException
+    {
+        Files.write( path, chars.getBytes( StandardCharsets.UTF_8 ), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND );
+    }
+}
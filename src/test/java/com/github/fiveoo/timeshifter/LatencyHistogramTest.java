@@ -0,0 +1,64 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest
+{
+    @Test
+    public void getPercentileShouldBeExactForSmallValues()
+    {
+        final LatencyHistogram cut = new LatencyHistogram();
+        for( int i = 1; i <= 10; i++ )
+        {
+            cut.record( i );
+        }
+
+        assertThat( cut.getPercentile( 50 ), is( 5L ) );
+        assertThat( cut.getPercentile( 100 ), is( 10L ) );
+        assertThat( cut.getMax(), is( 10L ) );
+        assertThat( cut.getCount(), is( 10L ) );
+        assertThat( cut.getSum(), is( 55L ) );
+    }
+
+    @Test
+    public void getPercentileShouldBeWithinBucketPrecision()
+    {
+        final LatencyHistogram cut = new LatencyHistogram();
+        final Random random = new Random( 4711 );
+        for( int i = 0; i < 100000; i++ )
+        {
+            // uniformly distributed from 1 µs to 101 µs
+            cut.record( 1000 + random.nextInt( 100000 ) );
+        }
+
+        assertThat( cut.getPercentile( 50 ),
+                is( both( greaterThanOrEqualTo( 48000L ) ).and( lessThanOrEqualTo( 54000L ) ) ) );
+        assertThat( cut.getPercentile( 99 ),
+                is( both( greaterThanOrEqualTo( 97000L ) ).and( lessThanOrEqualTo( 101000L ) ) ) );
+    }
+
+    @Test
+    public void addShouldSumUpHistograms()
+    {
+        final LatencyHistogram first = new LatencyHistogram();
+        final LatencyHistogram second = new LatencyHistogram();
+        first.record( 100 );
+        second.record( Long.MAX_VALUE );
+        second.record( -1 );
+
+        first.add( second );
+
+        assertThat( first.getCount(), is( 3L ) );
+        assertThat( first.getPercentile( 34 ), is( both( greaterThanOrEqualTo( 100L ) ).and( lessThanOrEqualTo( 103L ) ) ) );
+        assertThat( first.getPercentile( 100 ), is( Long.MAX_VALUE ) );
+    }
+}
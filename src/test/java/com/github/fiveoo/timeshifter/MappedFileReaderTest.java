@@ -0,0 +1,96 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedFileReaderTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readShouldDecodeCharactersSplitAtWindowBoundaries()
+        throws IOException
+    {
+        final StringBuilder b = new StringBuilder();
+        for( int i = 0; i < 2000; i++ )
+        {
+            b.append( "Bilder/Äpfel_" ).append( i ).append( "_€_📷.jpg,2019:03:09 17:58:00Z\n" );
+        }
+        final String text = b.toString();
+        final Path path = write( text.getBytes( StandardCharsets.UTF_8 ) );
+
+        for( final int windowSize : new int[] { 16, 17, 18, 19, 1000, MappedFileReader.DEFAULT_WINDOW_SIZE } )
+        {
+            for( final int bufferSize : new int[] { 1, 2, 7, 8192 } )
+            {
+                assertThat( "window " + windowSize + ", buffer " + bufferSize, read( path, windowSize, bufferSize ),
+                        equalTo( text ) );
+            }
+        }
+    }
+
+    @Test
+    public void readShouldReturnEndOfInputForEmptyFile()
+        throws IOException
+    {
+        try (final Reader reader = new MappedFileReader( write( new byte[0] ) ))
+        {
+            assertThat( reader.read( new char[10], 0, 10 ), equalTo( -1 ) );
+        }
+    }
+
+    @Test( expected = MalformedInputException.class )
+    public void readShouldReportMalformedInput()
+        throws IOException
+    {
+        read( write( new byte[] { 'a', 'b', (byte) 0xC3 } ), 16, 10 );
+    }
+
+    @Test( expected = IOException.class )
+    public void readShouldFailAfterClose()
+        throws IOException
+    {
+        final Reader reader = new MappedFileReader( write( new byte[] { 'a' } ) );
+        reader.close();
+        reader.read();
+    }
+
+    private Path write( final byte[] content )
+        throws IOException
+    {
+        final Path path = folder.newFile().toPath();
+        Files.write( path, content );
+
+        return path;
+    }
+
+    private static String read( final Path path, final int windowSize, final int bufferSize )
+        throws IOException
+    {
+        final StringBuilder out = new StringBuilder();
+        try (final Reader reader = new MappedFileReader( path, StandardCharsets.UTF_8, windowSize ))
+        {
+            final char[] buffer = new char[bufferSize];
+            int count;
+            while( ( count = reader.read( buffer ) ) >= 0 )
+            {
+                out.append( buffer, 0, count );
+            }
+        }
+
+        return out.toString();
+    }
+}
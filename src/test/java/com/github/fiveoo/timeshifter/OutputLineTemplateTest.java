@@ -0,0 +1,96 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+
+import static org.junit.Assert.assertThat;
+
+import java.util.MissingFormatArgumentException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class OutputLineTemplateTest
+{
+    private static final String[] VALUES = new String[] { "infoData", "2019:03:13 09:14:27Z", "", "50%" };
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void compileWithNullShouldJoinAllFields()
+    {
+        assertThat( OutputLineTemplate.compile( null ).format( fields( VALUES ) ),
+                equalTo( "infoData,2019:03:13 09:14:27Z,,50%" + System.lineSeparator() ) );
+    }
+
+    @Test
+    public void compileWithNullShouldReturnEmptyLineWithoutFields()
+    {
+        assertThat( OutputLineTemplate.compile( null ).format( fields() ), equalTo( "" ) );
+    }
+
+    @Test
+    public void compiledTemplateShouldBehaveLikeStringFormat()
+    {
+        assertFormatsLikeStringFormat( "" );
+        assertFormatsLikeStringFormat( "The quick brown fox" );
+        assertFormatsLikeStringFormat( "%1$s" );
+        assertFormatsLikeStringFormat( "hugo %2$s egon \"%1$s\"%n" );
+        assertFormatsLikeStringFormat( "%4$s%4$s%% done%n%n" );
+        assertFormatsLikeStringFormat( "<li><a href=\"%1$s\">Image %1$s</a> taken on %2$s</li>%n" );
+    }
+
+    @Test
+    public void unsupportedSpecifiersShouldFallBackToFormatter()
+    {
+        assertFormatsLikeStringFormat( "%s, %s" );
+        assertFormatsLikeStringFormat( "%2$S" );
+        assertFormatsLikeStringFormat( "[%1$12s|%2$-25s]" );
+        assertFormatsLikeStringFormat( "%1$s %<s" );
+        assertFormatsLikeStringFormat( "%01$s" );
+    }
+
+    @Test
+    public void missingFieldShouldThrowSameExceptionAsFormatter()
+    {
+        thrown.expect( MissingFormatArgumentException.class );
+        thrown.expectMessage( "Format specifier '%5$s'" );
+
+        OutputLineTemplate.compile( "%1$s %5$s" ).format( fields( VALUES ) );
+    }
+
+    @Test
+    public void appendToShouldAppendToExistingContent()
+    {
+        final StringBuilder out = new StringBuilder( "abc" );
+
+        OutputLineTemplate.compile( "-%3$s-%1$s" ).appendTo( out, fields( VALUES ) );
+
+        assertThat( out.toString(), equalTo( "abc--infoData" ) );
+    }
+
+    private static void assertFormatsLikeStringFormat( final String pattern )
+    {
+        assertThat( pattern, OutputLineTemplate.compile( pattern ).format( fields( VALUES ) ),
+                equalTo( String.format( pattern, (Object[]) VALUES ) ) );
+    }
+
+    private static OutputLineTemplate.Fields fields( final String... values )
+    {
+        return new OutputLineTemplate.Fields()
+        {
+            @Override
+            public int size()
+            {
+                return values.length;
+            }
+
+            @Override
+            public void appendTo( final int idx, final StringBuilder out )
+            {
+                out.append( values[idx] );
+            }
+        };
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import org.junit.Test;
+
+public class ParallelGzipOutputStreamTest
+{
+    @Test
+    public void writeShouldCompressBlocksToOneGzipMember()
+        throws IOException
+    {
+        final StringBuilder b = new StringBuilder();
+        for( int i = 0; i < 20000; i++ )
+        {
+            b.append( "NewImages/DSC" ).append( i ).append( ".jpg,2019:03:09 17:58:00Z,2019:03:09 18:57:30+01:00\n" );
+        }
+        final byte[] data = b.toString().getBytes( StandardCharsets.UTF_8 );
+
+        for( final int threads : new int[] { 1, 4 } )
+        {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (final ParallelGzipOutputStream gzip =
+                    new ParallelGzipOutputStream( out, threads, Deflater.DEFAULT_COMPRESSION, 32 * 1024 ))
+            {
+                gzip.write( data, 0, 1000 );
+                gzip.write( data[1000] );
+                gzip.write( data, 1001, data.length - 1001 );
+            }
+
+            assertThat( "threads " + threads, gunzip( out.toByteArray() ), equalTo( data ) );
+            assertThat( out.size(), lessThan( data.length / 5 ) );
+        }
+    }
+
+    @Test
+    public void flushShouldWriteAllDataWrittenSoFar()
+        throws IOException, DataFormatException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try (final ParallelGzipOutputStream gzip =
+                new ParallelGzipOutputStream( out, 3, Deflater.DEFAULT_COMPRESSION, 32 * 1024 ))
+        {
+            for( int i = 0; i < 3000; i++ )
+            {
+                final byte[] line =
+                        ( "NewImages/DSC" + i + ".jpg,2019:03:09 17:58:00Z\n" ).getBytes( StandardCharsets.UTF_8 );
+                gzip.write( line );
+                data.write( line );
+                if( i % 100 == 0 )
+                {
+                    gzip.flush();
+
+                    assertThat( "line " + i, inflateFlushed( out.toByteArray() ), equalTo( data.toByteArray() ) );
+                }
+            }
+        }
+
+        assertThat( gunzip( out.toByteArray() ), equalTo( data.toByteArray() ) );
+    }
+
+    @Test
+    public void closeWithoutDataShouldWriteEmptyGzip()
+        throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ParallelGzipOutputStream( out, 2 ).close();
+
+        assertThat( gunzip( out.toByteArray() ).length, is( 0 ) );
+    }
+
+    @Test
+    public void writeAfterCloseShouldFail()
+        throws IOException
+    {
+        final ParallelGzipOutputStream gzip = new ParallelGzipOutputStream( new ByteArrayOutputStream(), 1 );
+        gzip.close();
+
+        try
+        {
+            gzip.write( 1 );
+            fail( "IOException expected" );
+        }
+        catch( final IOException e )
+        {
+            assertThat( e.getMessage(), is( "Stream closed" ) );
+        }
+    }
+
+    /**
+     * Inflates the deflate data after the GZIP header of an unfinished
+     * stream.
+     */
+    private static byte[] inflateFlushed( final byte[] compressed )
+        throws DataFormatException
+    {
+        final Inflater inflater = new Inflater( true );
+        try
+        {
+            inflater.setInput( Arrays.copyOfRange( compressed, 10, compressed.length ) );
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int count;
+            while( ( count = inflater.inflate( buffer ) ) > 0 )
+            {
+                out.write( buffer, 0, count );
+            }
+
+            return out.toByteArray();
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    private static byte[] gunzip( final byte[] compressed )
+        throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final InputStream in = new GZIPInputStream( new ByteArrayInputStream( compressed ) ))
+        {
+            final byte[] buffer = new byte[8192];
+            int count;
+            while( ( count = in.read( buffer ) ) >= 0 )
+            {
+                out.write( buffer, 0, count );
+            }
+        }
+
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
+
+public class ParallelTimeshifterTest
+{
+    @Rule
+    public TemporaryFolder           folder = new TemporaryFolder();
+
+    private MutableTimeshifterConfig config;
+    private String                   input;
+
+    @Before
+    public void setUp()
+    {
+        config = new MutableTimeshifterConfig();
+        config.setInLinesSkip( 1 );
+        config.setOutHeaderFormat( new String[] { "<header>%n" } );
+        config.setOutFooterFormat( new String[] { "<footer>%n" } );
+
+        final StringBuilder b = new StringBuilder( "SourceFile,GPSDateTime,DateTimeDigitized\n" );
+        for( int i = 0; i < 5000; i++ )
+        {
+            final int day = 1 + i % 28;
+            b.append( "\"NewImages/DSC" ).append( i ).append( i % 100 == 0 ? "\nwith line break" : "" );
+            b.append( ".jpg\",2019:03:" ).append( day < 10 ? "0" : "" ).append( day ).append( " 17:58:00Z," );
+            b.append( i % 250 == 0 ? "-not parseable date-" : "2019:03:09 18:57:30+0" + ( i % 10 ) + ":00" );
+            b.append( '\n' );
+        }
+        input = b.toString();
+    }
+
+    @Test
+    public void orderedShiftCsvShouldProduceSameOutputAsSequentialShift()
+        throws IOException
+    {
+        final String expected = shiftSequential();
+
+        final StringWriter out = new StringWriter();
+        new ParallelTimeshifter( new Timeshifter( config ), 3, true, 7 ).shiftCsv( new StringReader( input ), out );
+
+        assertThat( out.toString(), equalTo( expected ) );
+    }
+
+    @Test
+    public void unorderedShiftCsvShouldProduceSameLinesAsSequentialShift()
+        throws IOException
+    {
+        final String expected = shiftSequential();
+
+        final StringWriter out = new StringWriter();
+        new ParallelTimeshifter( new Timeshifter( config ), 4, false, 5 ).shiftCsv( new StringReader( input ), out );
+
+        final String[] lines = out.toString().split( System.lineSeparator() );
+        assertThat( lines[0], equalTo( "<header>" ) );
+        assertThat( lines[lines.length - 1], equalTo( "<footer>" ) );
+        assertThat( sortedLines( out.toString() ), equalTo( sortedLines( expected ) ) );
+    }
+
+    @Test
+    public void shiftCsvWithEmptyInputShouldWriteHeaderAndFooter()
+        throws IOException
+    {
+        final StringWriter out = new StringWriter();
+        new ParallelTimeshifter( new Timeshifter( config ), 2, true ).shiftCsv( new StringReader( "" ), out );
+
+        assertThat( out.toString(), equalTo( "<header>" + System.lineSeparator() + "<footer>" + System.lineSeparator() ) );
+    }
+
+    @Test
+    public void orderedShiftFileShouldProduceSameOutputAsSequentialShift()
+        throws IOException
+    {
+        final String expected = shiftSequential();
+
+        final StringWriter out = new StringWriter();
+        new ParallelTimeshifter( new Timeshifter( config ), 3, true, 7, 1000 ).shiftFile( writeInput(), out );
+
+        assertThat( out.toString(), equalTo( expected ) );
+    }
+
+    @Test
+    public void unorderedShiftFileShouldProduceSameLinesAsSequentialShift()
+        throws IOException
+    {
+        final String expected = shiftSequential();
+
+        final StringWriter out = new StringWriter();
+        new ParallelTimeshifter( new Timeshifter( config ), 4, false, 5, 333 ).shiftFile( writeInput(), out );
+
+        assertThat( sortedLines( out.toString() ), equalTo( sortedLines( expected ) ) );
+    }
+
+    @Test
+    public void shiftFileWithHeaderOnlyShouldWriteHeaderAndFooter()
+        throws IOException
+    {
+        input = "SourceFile,GPSDateTime,DateTimeDigitized\n";
+
+        final StringWriter out = new StringWriter();
+        new ParallelTimeshifter( new Timeshifter( config ), 2, true ).shiftFile( writeInput(), out );
+
+        assertThat( out.toString(), equalTo( "<header>" + System.lineSeparator() + "<footer>" + System.lineSeparator() ) );
+    }
+
+    private Path writeInput()
+        throws IOException
+    {
+        final Path path = folder.newFile( "input.csv" ).toPath();
+        Files.write( path, input.getBytes( StandardCharsets.UTF_8 ) );
+
+        return path;
+    }
+
+    private String shiftSequential()
+        throws IOException
+    {
+        final StringWriter out = new StringWriter();
+        new Timeshifter( config ).shiftCsv( new StringReader( input ), out );
+        assertThat( out.toString(), not( equalTo( "" ) ) );
+
+        return out.toString();
+    }
+
+    private static String sortedLines( final String text )
+    {
+        final String[] lines = text.split( System.lineSeparator() );
+        Arrays.sort( lines );
+
+        return String.join( "\n", lines );
+    }
+}
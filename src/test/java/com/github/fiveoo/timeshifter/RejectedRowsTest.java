@@ -0,0 +1,81 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RejectedRowsTest
+{
+    private final List<String> log = new ArrayList<>();
+
+    @Test
+    public void rejectShouldLogFirstRowsOfEachReasonOnly()
+        throws IOException
+    {
+        final RejectedRows cut = new RejectedRows( log::add, null, 2 );
+
+        for( int i = 0; i < 5; i++ )
+        {
+            cut.reject( CsvRow.of( "a" + i, "b" ), RejectReason.INVALID_DATE_TIME_TO_SHIFT, "detail" );
+        }
+        cut.reject( CsvRow.of( "c" ), RejectReason.TOO_FEW_FIELDS, "3 fields are required" );
+
+        assertThat( log, hasSize( 3 ) );
+        assertThat( log.get( 0 ),
+                equalTo( "Could not shift time of input data: a0,b  INVALID_DATE_TIME_TO_SHIFT: detail" ) );
+        assertThat( log.get( 1 ), endsWith( "(further rows rejected for this reason are summarized)" ) );
+        assertThat( log.get( 2 ),
+                equalTo( "Could not shift time of input data: c  TOO_FEW_FIELDS: 3 fields are required" ) );
+        assertThat( cut.getCount( RejectReason.INVALID_DATE_TIME_TO_SHIFT ), is( 5L ) );
+        assertThat( cut.getCount( RejectReason.TOO_FEW_FIELDS ), is( 1L ) );
+        assertThat( cut.getCount( RejectReason.ERROR ), is( 0L ) );
+    }
+
+    @Test
+    public void flushShouldLogSummaryOfUnreportedRows()
+        throws IOException
+    {
+        final RejectedRows cut = new RejectedRows( log::add, null, 1 );
+        for( int i = 0; i < 4; i++ )
+        {
+            cut.reject( CsvRow.of( "a" ), RejectReason.INVALID_OFFSET_DATE_TIME, "detail" );
+            cut.reject( CsvRow.of( "a" ), RejectReason.ERROR, "detail" );
+        }
+
+        cut.flush();
+        cut.flush();
+
+        assertThat( log, hasSize( 3 ) );
+        assertThat( log.get( 2 ), equalTo( "Further rows rejected: 3 x INVALID_OFFSET_DATE_TIME, 3 x ERROR" ) );
+    }
+
+    @Test
+    public void rejectShouldWriteAllRowsWithReasonToRejectWriter()
+        throws IOException
+    {
+        final StringWriter rejects = new StringWriter();
+        final RejectedRows cut = new RejectedRows( log::add, rejects, 0 );
+
+        cut.reject( CsvRow.of( "a,b", "say \"cheese\"", "" ), RejectReason.INVALID_DATE_TIME_TO_SHIFT,
+                "Text 'x' could not be parsed" );
+        cut.reject( CsvRow.of( "c" ), RejectReason.TOO_FEW_FIELDS, "3 fields are required, 1 given" );
+        cut.flush();
+
+        assertThat( rejects.toString().split( System.lineSeparator() ),
+                equalTo( new String[] {
+                    "\"a,b\",\"say \"\"cheese\"\"\",,INVALID_DATE_TIME_TO_SHIFT,Text 'x' could not be parsed",
+                    "c,TOO_FEW_FIELDS,\"3 fields are required, 1 given\"" } ) );
+        assertThat( log, contains( "Further rows rejected: 1 x TOO_FEW_FIELDS, 1 x INVALID_DATE_TIME_TO_SHIFT" ) );
+    }
+}
@@ -0,0 +1,241 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import static org.junit.Assert.assertThat;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
+
+public class ShiftPlanTest
+{
+    private static final OffsetDateTime TEST_NOW =
+            OffsetDateTime.of( 2019, 03, 22, 13, 50, 42, 47, ZoneOffset.ofHours( 1 ) );
+
+    private MutableTimeshifterConfig config;
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        config = new MutableTimeshifterConfig();
+    }
+
+    @Test
+    public void planShouldTakeValuesOfConfig()
+    {
+        config.setInDateShiftIdx( 3 );
+        config.setInDateOffsetIdx( 4 );
+        config.setInLinesSkip( 1 );
+        config.setInDateShiftZone( ZoneId.of( "Europe/Berlin" ) );
+        config.setOutHeaderFormat( new String[] { "head", "er" } );
+        config.setOutFooterFormat( new String[] { "footer" } );
+
+        final ShiftPlan plan = new ShiftPlan( config );
+
+        assertThat( plan.getInDateShiftIdx(), is( 3 ) );
+        assertThat( plan.getInDateOffsetIdx(), is( 4 ) );
+        assertThat( plan.getInLinesSkip(), is( 1 ) );
+        assertThat( plan.getInDateShiftZone(), equalTo( ZoneId.of( "Europe/Berlin" ) ) );
+        assertThat( plan.getOutHeaderFormat(), equalTo( "header" ) );
+        assertThat( plan.getOutFooterFormat(), equalTo( "footer" ) );
+    }
+
+    @Test
+    public void planShouldUseDefaultsOfConfigImplementingFirstReleaseMethodsOnly()
+    {
+        config.setInDateShiftIdx( 3 );
+        final TimeshifterConfig firstRelease = new FirstReleaseConfig( config );
+
+        final ShiftPlan plan = new ShiftPlan( firstRelease );
+
+        assertThat( plan.getInDateShiftColumns().size(), is( 1 ) );
+        assertThat( plan.getInDateShiftColumn().getIdx(), is( 3 ) );
+        assertThat( plan.isOutOffsetSeconds(), is( false ) );
+        assertThat( plan.getShiftCacheSize(), is( 0 ) );
+        assertThat( firstRelease.getRejectFileName(), nullValue() );
+        assertThat( firstRelease.getOutBufferSize(), is( BufferedChannelWriter.DEFAULT_BUFFER_SIZE ) );
+        assertThat( firstRelease.getThreads(), is( 1 ) );
+        assertThat( firstRelease.isUnordered(), is( false ) );
+    }
+
+    @Test
+    public void planShouldTakeAllColumnsToShift()
+    {
+        config.setInDateShiftColumnSpecs( "5;dd.MM.yyyy HH:mm:ss;Europe/Berlin", "3" );
+
+        final ShiftPlan plan = new ShiftPlan( config );
+
+        assertThat( plan.getInDateShiftColumns().size(), is( 3 ) );
+        assertThat( plan.getInDateShiftColumn().getIdx(), is( 1 ) );
+        assertThat( plan.getInDateShiftColumns().get( 1 ).getZoneTable(), notNullValue() );
+        assertThat( plan.getInDateShiftColumns().get( 2 ).getParser(), notNullValue() );
+        assertThat( plan.getRequiredFields(), is( 6 ) );
+    }
+
+    @Test
+    public void requiredFieldsShouldIgnoreOffsetFieldIfOffsetIsFixed()
+    {
+        config.setInDateOffsetIdx( 7 );
+        assertThat( new ShiftPlan( config ).getRequiredFields(), is( 8 ) );
+
+        config.setOutDateShiftedOffset( ZoneOffset.UTC );
+        assertThat( new ShiftPlan( config ).getRequiredFields(), is( 2 ) );
+    }
+
+    @Test
+    public void planWithoutOutDateShiftedOffsetShouldTakeOffsetFromField()
+    {
+        final ShiftPlan plan = new ShiftPlan( config );
+
+        assertThat( plan.isFixedOffset(), is( false ) );
+        assertThat( plan.getOutDateShiftedOffset(), nullValue() );
+    }
+
+    @Test
+    public void planWithOutDateShiftedOffsetShouldUseFixedOffset()
+    {
+        config.setOutDateShiftedOffset( ZoneOffset.ofHours( 2 ) );
+
+        final ShiftPlan plan = new ShiftPlan( config );
+
+        assertThat( plan.isFixedOffset(), is( true ) );
+        assertThat( plan.getOutDateShiftedOffset(), equalTo( ZoneOffset.ofHours( 2 ) ) );
+    }
+
+    @Test
+    public void planShouldCreateFormattersOnlyOnce()
+    {
+        config.setOutDateShiftedFormat( "dd.MM.yyyy HH:mmXXX" );
+
+        final ShiftPlan plan = new ShiftPlan( config );
+
+        assertThat( plan.getOutDateShiftedFormatter(), sameInstance( plan.getOutDateShiftedFormatter() ) );
+        assertThat( plan.getOutDateShiftedFormatterLocal(), sameInstance( plan.getOutDateShiftedFormatterLocal() ) );
+        assertThat( plan.getOutDateShiftedFormatter().format( TEST_NOW ), equalTo( "22.03.2019 13:50+01:00" ) );
+        assertThat( plan.getOutDateShiftedFormatterLocal().format( TEST_NOW ), equalTo( "22.03.2019 13:50" ) );
+    }
+
+    @Test
+    public void planShouldNotChangeWithConfig()
+    {
+        final ShiftPlan plan = new ShiftPlan( config );
+
+        config.setInDateShiftIdx( 7 );
+        config.setOutDateShiftedOffset( ZoneOffset.ofHours( 2 ) );
+
+        assertThat( plan.getInDateShiftIdx(), is( 1 ) );
+        assertThat( plan.isFixedOffset(), is( false ) );
+    }
+
+    /**
+     * Implements the methods of the first release of
+     * {@link TimeshifterConfig} only.
+     */
+    private static final class FirstReleaseConfig
+        implements
+            TimeshifterConfig
+    {
+        private final TimeshifterConfig config;
+
+        FirstReleaseConfig( final TimeshifterConfig config )
+        {
+            this.config = config;
+        }
+
+        @Override
+        public String getInputFileName()
+        {
+            return config.getInputFileName();
+        }
+
+        @Override
+        public DateTimeFormatter getInDateShiftFormatter()
+        {
+            return config.getInDateShiftFormatter();
+        }
+
+        @Override
+        public ZoneId getInDateShiftZone()
+        {
+            return config.getInDateShiftZone();
+        }
+
+        @Override
+        public int getInDateShiftIdx()
+        {
+            return config.getInDateShiftIdx();
+        }
+
+        @Override
+        public DateTimeFormatter getInDateOffsetFormatter()
+        {
+            return config.getInDateOffsetFormatter();
+        }
+
+        @Override
+        public int getInDateOffsetIdx()
+        {
+            return config.getInDateOffsetIdx();
+        }
+
+        @Override
+        public int getInLinesSkip()
+        {
+            return config.getInLinesSkip();
+        }
+
+        @Override
+        public String getOutputFileName()
+        {
+            return config.getOutputFileName();
+        }
+
+        @Override
+        public ZoneOffset getOutDateShiftedOffset()
+        {
+            return config.getOutDateShiftedOffset();
+        }
+
+        @Override
+        public DateTimeFormatter getOutDateShiftedFormatter()
+        {
+            return config.getOutDateShiftedFormatter();
+        }
+
+        @Override
+        public DateTimeFormatter getOutDateShiftedFormatterLocal()
+        {
+            return config.getOutDateShiftedFormatterLocal();
+        }
+
+        @Override
+        public String getOutputLineFormat()
+        {
+            return config.getOutputLineFormat();
+        }
+
+        @Override
+        public String getOutHeaderFormat()
+        {
+            return config.getOutHeaderFormat();
+        }
+
+        @Override
+        public String getOutFooterFormat()
+        {
+            return config.getOutFooterFormat();
+        }
+    }
+}
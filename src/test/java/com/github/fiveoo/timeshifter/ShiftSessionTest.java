@@ -0,0 +1,128 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import static org.junit.Assert.assertThat;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
+
+public class ShiftSessionTest
+{
+    private MutableTimeshifterConfig config;
+    private final List<String>       events = new ArrayList<>();
+
+    @Before
+    public void setUp()
+    {
+        config = new MutableTimeshifterConfig();
+        config.setOutHeaderFormat( new String[] { "head" } );
+        config.setOutFooterFormat( new String[] { "foot" } );
+    }
+
+    @Test
+    public void pushShouldPassShiftedRowsToSinkBetweenHeaderAndFooter()
+    {
+        final Timeshifter shifter = new Timeshifter( config );
+        final ShiftSession cut = shifter.openSession( new ShiftedRowSink()
+        {
+            @Override
+            public void beginBatch( final CharSequence header )
+            {
+                events.add( "begin " + header );
+            }
+
+            @Override
+            public void accept( final ShiftedRow row )
+            {
+                final StringBuilder b = new StringBuilder( row.getInput().get( 0 ) );
+                b.append( ' ' ).append( row.getEpochSecond( 0 ) ).append( ' ' ).append( row.getOffsetSeconds() )
+                        .append( ' ' );
+                row.appendShiftedTime( 0, false, b );
+                b.append( ' ' );
+                row.appendLine( b );
+                events.add( b.toString() );
+            }
+
+            @Override
+            public void endBatch( final CharSequence footer )
+            {
+                events.add( "end " + footer );
+            }
+        } );
+
+        final MutableCsvRow row = new MutableCsvRow( 1 );
+        cut.begin();
+        final boolean pushed =
+                cut.push( row.setAll( "a", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30" ) );
+        final boolean rejected = cut.push( row.clear().add( "b" ).add( "x" ).add( "2019:03:13 10:10:00+04:30" ) );
+        cut.end();
+
+        final long epochSecond = OffsetDateTime.parse( "2019-03-13T09:14:27Z" ).toEpochSecond();
+        assertThat( events,
+                contains( "begin head",
+                        "a " + epochSecond + " 16200 2019:03:13 13:44:27 a,2019:03:13 09:14:27Z,"
+                                + "2019:03:13 10:10:00+04:30,2019:03:13 13:44:27+04:30,2019:03:13 13:44:27"
+                                + System.lineSeparator(),
+                        "end foot" ) );
+        assertThat( pushed, is( true ) );
+        assertThat( rejected, is( false ) );
+        assertThat( shifter.getRejectedRows().getCount( RejectReason.INVALID_DATE_TIME_TO_SHIFT ), equalTo( 1L ) );
+    }
+
+    @Test
+    public void lineSessionShouldPassLinesShiftedByCache()
+    {
+        config.setShiftCacheSize( 16 );
+        final TimeshifterMetrics metrics = new TimeshifterMetrics();
+        final Timeshifter shifter = new Timeshifter( new ShiftPlan( config ), metrics );
+        final ShiftSession cut = shifter.openLineSession( row -> {
+            final StringBuilder b = new StringBuilder( row.getInput().get( 0 ) ).append( ' ' );
+            row.appendLine( b );
+            events.add( b.toString() );
+            try
+            {
+                row.getShiftedCount();
+                events.add( "shifted date/times given" );
+            }
+            catch( final IllegalStateException e )
+            {
+                // only the line is given
+            }
+        } );
+
+        final MutableCsvRow row = new MutableCsvRow( 1 );
+        for( int i = 0; i < 2; i++ )
+        {
+            assertThat( cut.push( row.setAll( "a", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30" ) ), is( true ) );
+        }
+
+        final String line = "a a,2019:03:13 09:14:27Z,2019:03:13 10:10:00+04:30,2019:03:13 13:44:27+04:30,"
+                + "2019:03:13 13:44:27" + System.lineSeparator();
+        assertThat( events, contains( line, line ) );
+        assertThat( metrics.getCacheHits(), equalTo( 1L ) );
+    }
+
+    @Test
+    public void pushShouldRejectRowIfSinkFails()
+    {
+        final Timeshifter shifter = new Timeshifter( config );
+        final ShiftSession cut = shifter.openSession( row -> {
+            throw new IllegalStateException( "sink" );
+        } );
+
+        cut.begin();
+        assertThat( cut.push( CsvRow.of( "a", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30" ) ), is( false ) );
+        cut.end();
+
+        assertThat( shifter.getRejectedRows().getCount( RejectReason.ERROR ), equalTo( 1L ) );
+    }
+}
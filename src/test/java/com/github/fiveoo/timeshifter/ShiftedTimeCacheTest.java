@@ -0,0 +1,53 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class ShiftedTimeCacheTest
+{
+    private final ShiftedTimeCache cut = new ShiftedTimeCache( 2 );
+
+    @Test
+    public void getShouldFindEntryByCharsOfFields()
+    {
+        cut.put( 0, "2019:03:13 09:14:27Z", "+04:30", "with", "local", 16200 );
+
+        final ShiftedTimeCache.Entry entry =
+                cut.get( 0, new StringBuilder( "2019:03:13 09:14:27Z" ), new StringBuilder( "+04:30" ) );
+
+        assertThat( entry, notNullValue() );
+        assertThat( entry.getWithOffset(), equalTo( "with" ) );
+        assertThat( entry.getLocal(), equalTo( "local" ) );
+        assertThat( entry.getOffsetSeconds(), equalTo( 16200 ) );
+    }
+
+    @Test
+    public void getShouldDistinguishColumnAndOffset()
+    {
+        cut.put( 0, "2019:03:13 09:14:27Z", null, "with", "local", 0 );
+
+        assertThat( cut.get( 0, "2019:03:13 09:14:27Z", null ), notNullValue() );
+        assertThat( cut.get( 1, "2019:03:13 09:14:27Z", null ), nullValue() );
+        assertThat( cut.get( 0, "2019:03:13 09:14:27Z", "+04:30" ), nullValue() );
+    }
+
+    @Test
+    public void putShouldEvictEntryNotReferencedSinceLastPass()
+    {
+        cut.put( 0, "a", null, "a", "a", 0 );
+        cut.put( 0, "b", null, "b", "b", 0 );
+        cut.get( 0, "a", null );
+
+        cut.put( 0, "c", null, "c", "c", 0 );
+
+        assertThat( cut.size(), equalTo( 2 ) );
+        assertThat( cut.get( 0, "a", null ), notNullValue() );
+        assertThat( cut.get( 0, "b", null ), nullValue() );
+        assertThat( cut.get( 0, "c", null ), notNullValue() );
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.github.fiveoo.timeshifter.TimeshifterMetrics.Stage;
+import com.github.fiveoo.timeshifter.cli.MutableTimeshifterConfig;
+
+public class TimeshifterMetricsTest
+{
+    private static final String INPUT = "NewImages/DSC00034.jpg,2019:03:09 17:58:00Z,2019:03:09 18:57:30+01:00\n"
+            + "NewImages/DSC00035.jpg,2019:03:10 13:59:36Z,2019:03:10 14:59:06+01:00\n"
+            + "NewImages/DSC00036.jpg,2019:03:10 13:59:36Z,2019:03:10 14:59\n" + "NewImages/DSC00037.jpg\n";
+
+    @Test
+    public void shiftCsvShouldRecordRowsAndStages()
+        throws IOException
+    {
+        final TimeshifterMetrics cut = new TimeshifterMetrics();
+
+        shiftCsv( cut );
+
+        assertThat( cut.getRowsIn(), is( 4L ) );
+        assertThat( cut.getRowsOut(), is( 2L ) );
+        assertThat( cut.getRowsFailed(), is( 2L ) );
+        assertThat( cut.getStageTimes( Stage.READ ).getCount(), is( 5L ) );
+        assertThat( cut.getStageTimes( Stage.PARSE ).getCount(), is( 2L ) );
+        assertThat( cut.getStageTimes( Stage.SHIFT ).getCount(), is( 2L ) );
+        assertThat( cut.getStageTimes( Stage.FORMAT ).getCount(), is( 2L ) );
+        // header, two lines, footer
+        assertThat( cut.getStageTimes( Stage.WRITE ).getCount(), is( 4L ) );
+    }
+
+    @Test
+    public void parallelShiftCsvShouldRecordRowsOfAllThreads()
+        throws IOException
+    {
+        final StringBuilder input = new StringBuilder();
+        for( int i = 0; i < 1000; i++ )
+        {
+            input.append( INPUT );
+        }
+        final TimeshifterMetrics cut = new TimeshifterMetrics();
+
+        new ParallelTimeshifter( createShifter( cut ), 4, true, 10 ).shiftCsv( new StringReader( input.toString() ),
+                new StringWriter() );
+
+        assertThat( cut.getRowsIn(), is( 4000L ) );
+        assertThat( cut.getRowsOut(), is( 2000L ) );
+        assertThat( cut.getStageTimes( Stage.FORMAT ).getCount(), is( 2000L ) );
+    }
+
+    @Test
+    public void toJsonShouldContainAllMetrics()
+        throws IOException
+    {
+        final TimeshifterMetrics cut = new TimeshifterMetrics();
+        shiftCsv( cut );
+        cut.addBytesIn( 42 );
+        cut.addBytesOut( 4711 );
+
+        final String json = cut.toJson();
+
+        assertThat( json, containsString( "\"rowsIn\": 4," ) );
+        assertThat( json, containsString( "\"rowsOut\": 2," ) );
+        assertThat( json,
+                containsString( "\"rowsFailed\": {\"INVALID_OFFSET_DATE_TIME\": 1, \"TOO_FEW_FIELDS\": 1}," ) );
+        assertThat( json, containsString( "\"bytesIn\": 42," ) );
+        assertThat( json, containsString( "\"bytesOut\": 4711," ) );
+        assertThat( json, containsString( "\"cacheHits\": 0," ) );
+        assertThat( json, containsString( "\"parse\": { \"count\": 2, \"totalMicros\": " ) );
+        assertThat( json, containsString( "\"write\": { \"count\": 4, " ) );
+    }
+
+    @Test
+    public void disabledShouldRecordNothing()
+        throws IOException
+    {
+        final TimeshifterMetrics cut = TimeshifterMetrics.DISABLED;
+
+        shiftCsv( cut );
+
+        assertThat( cut.isEnabled(), is( false ) );
+        assertThat( cut.getRowsIn(), is( 0L ) );
+        assertThat( cut.getRowsFailed(), is( 0L ) );
+        assertThat( cut.getStageTimes( Stage.READ ).getCount(), is( 0L ) );
+    }
+
+    @Test
+    public void countersOnlyShouldRecordRowsButNoStages()
+        throws IOException
+    {
+        final TimeshifterMetrics cut = TimeshifterMetrics.countersOnly();
+
+        shiftCsv( cut );
+
+        assertThat( cut.isEnabled(), is( true ) );
+        assertThat( cut.getRowsIn(), is( 4L ) );
+        assertThat( cut.getRowsOut(), is( 2L ) );
+        assertThat( cut.getRowsFailed(), is( 2L ) );
+        assertThat( cut.getStageTimes( Stage.READ ).getCount(), is( 0L ) );
+    }
+
+    private static void shiftCsv( final TimeshifterMetrics metrics )
+        throws IOException
+    {
+        createShifter( metrics ).shiftCsv( new StringReader( INPUT ), new StringWriter() );
+    }
+
+    private static Timeshifter createShifter( final TimeshifterMetrics metrics )
+    {
+        return new Timeshifter( new ShiftPlan( new MutableTimeshifterConfig() ), metrics )
+        {
+            @Override
+            protected void logError( final String msg )
+            {
+                // failures are counted by the metrics
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.fiveoo.timeshifter;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
@@ -8,15 +9,19 @@ import static org.junit.Assert.assertThat;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -80,6 +85,25 @@ public class TimeshifterTest
                         MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER ) ) );
     }
 
+    @Test
+    public void createShiftedTimeShouldParseOffsetWithCustomFormat()
+    {
+        config.setInDateOffsetFormat( "XXX yyyy-MM-dd HH:mm" );
+        cut = new Timeshifter( config );
+
+        assertThat( cut.createShiftedTime( "2019:03:13 09:14:27Z", "-04:30 2019-03-13 10:10" ),
+                equalTo( OffsetDateTime.parse( "2019:03:13 04:44:27-04:30",
+                        MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER ) ) );
+    }
+
+    @Test
+    public void createShiftedTimeWithNotParseableOffsetShouldThrowException()
+    {
+        thrown.expect( DateTimeParseException.class );
+
+        cut.createShiftedTime( "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+4:30" );
+    }
+
     @Test
     public void transformLinesShouldSkipNotParseableLines()
         throws IOException
@@ -105,6 +129,230 @@ public class TimeshifterTest
         assertThat( cut.transformLine( line ), equalTo( "" ) );
     }
 
+    @Test
+    public void transformLineShouldRejectNotParseableLinesByReason()
+        throws IOException
+    {
+        config.setInDateShiftFormat( "dd.MM.yyyy HH:mm:ssXXX" );
+        cut = new Timeshifter( config );
+
+        cut.transformLine( new String[] { "infoData", "13.03.2019 09:14:27Z" } );
+        cut.transformLine( new String[] { "infoData", "13.03.2019 09:14:27Z", "-not parseable date-" } );
+        cut.transformLine( new String[] { "infoData", "13.03.2019 09:14:27", "2019:03:13 10:10:00+04:30" } );
+        cut.transformLine( new String[] { "infoData", "13.03.2019 09:14:27Z trailing", "2019:03:13 10:10:00+04:30" } );
+
+        assertThat( cut.getRejectedRows().getCount( RejectReason.TOO_FEW_FIELDS ), equalTo( 1L ) );
+        assertThat( cut.getRejectedRows().getCount( RejectReason.INVALID_OFFSET_DATE_TIME ), equalTo( 1L ) );
+        assertThat( cut.getRejectedRows().getCount( RejectReason.INVALID_DATE_TIME_TO_SHIFT ), equalTo( 2L ) );
+    }
+
+    @Test
+    public void shiftCsvShouldWriteRejectedRowsToRejectWriter()
+        throws IOException
+    {
+        final StringWriter rejects = new StringWriter();
+        cut = new Timeshifter( new ShiftPlan( config ), TimeshifterMetrics.DISABLED, rejects );
+
+        cut.shiftCsv( new StringReader( "infoData,2019:03:13 09:14:27Z,2019:03:13 10:10:00+04:30\n"
+                + "infoData,-not parseable date-,2019:03:13 10:10:00+04:30\n" ), new StringWriter() );
+
+        assertThat( rejects.toString(),
+                equalTo( "infoData,-not parseable date-,2019:03:13 10:10:00+04:30,INVALID_DATE_TIME_TO_SHIFT,"
+                        + "Text '-not parseable date-' of field 1 could not be parsed" + System.lineSeparator() ) );
+    }
+
+    @Test
+    public void transformLineShouldShiftAllColumnsByOffsetOfRow()
+        throws IOException
+    {
+        config.setInDateShiftColumnSpecs( "3;dd.MM.yyyy HH:mm:ss;Europe/Berlin", "4;yyyy-MM-dd'T'HH:mm:ssXXX" );
+        cut = new Timeshifter( config );
+        final String[] line = new String[] { "infoData", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30",
+            "13.03.2019 10:14:27", "2019-03-13T09:14:27+00:00" };
+
+        assertThat( cut.transformLine( line ),
+                equalTo( "infoData,2019:03:13 09:14:27Z,2019:03:13 10:10:00+04:30,13.03.2019 10:14:27,"
+                        + "2019-03-13T09:14:27+00:00,2019:03:13 13:44:27+04:30,2019:03:13 13:44:27,"
+                        + "2019:03:13 13:44:27+04:30,2019:03:13 13:44:27,2019:03:13 13:44:27+04:30,2019:03:13 13:44:27"
+                        + System.lineSeparator() ) );
+    }
+
+    @Test
+    public void transformLineWithShiftCacheShouldReuseShiftedTimesOfRepeatedValues()
+        throws IOException
+    {
+        config.setInDateShiftColumnSpecs( "3;dd.MM.yyyy HH:mm:ss;Europe/Berlin" );
+        final String[][] lines = new String[][] {
+            { "a", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30", "13.03.2019 10:14:27" },
+            { "b", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30", "13.03.2019 10:14:27" },
+            { "c", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+02:00", "13.03.2019 10:14:27" },
+            { "d", "2019:03:13 09:14:27Z", "not parseable", "13.03.2019 10:14:27" },
+            { "e", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30", "-" } };
+        final Timeshifter uncached = new Timeshifter( config );
+        config.setShiftCacheSize( 16 );
+        final TimeshifterMetrics metrics = new TimeshifterMetrics();
+        cut = new Timeshifter( new ShiftPlan( config ), metrics );
+
+        for( final String[] line : lines )
+        {
+            assertThat( cut.transformLine( line ), equalTo( uncached.transformLine( line ) ) );
+        }
+
+        assertThat( metrics.getCacheHits(), equalTo( 3L ) );
+        assertThat( metrics.getCacheMisses(), equalTo( 6L ) );
+        assertThat( cut.getRejectedRows().getCount( RejectReason.INVALID_OFFSET_DATE_TIME ), equalTo( 1L ) );
+        assertThat( cut.getRejectedRows().getCount( RejectReason.INVALID_DATE_TIME_TO_SHIFT ), equalTo( 1L ) );
+    }
+
+    @Test
+    public void shiftStreamShouldUseCacheOfShiftedTimes()
+    {
+        config.setShiftCacheSize( 64 );
+        final TimeshifterMetrics metrics = new TimeshifterMetrics();
+        cut = new Timeshifter( new ShiftPlan( config ), metrics );
+        final String[] line = new String[] { "infoData", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30" };
+        final StringWriter out = new StringWriter();
+
+        cut.shift( Collections.nCopies( 1000, line ).stream(), out );
+
+        assertThat( metrics.getCacheHits(), equalTo( 999L ) );
+        assertThat( metrics.getCacheMisses(), equalTo( 1L ) );
+        assertThat( out.toString().split( System.lineSeparator() ).length, equalTo( 1000 ) );
+    }
+
+    @Test
+    public void shiftStreamShouldReturnHeaderLinesAndFooter()
+    {
+        config.setOutHeaderFormat( new String[] { "head" } );
+        config.setOutFooterFormat( new String[] { "foot" } );
+        config.setOutputLineFormat( "%1$s %4$s" );
+        cut = new Timeshifter( config );
+        final List<String[]> rows = Arrays.asList(
+                new String[] { "a", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30" },
+                new String[] { "b", "invalid", "2019:03:13 10:10:00+04:30" },
+                new String[] { "c", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30" } );
+
+        final List<String> lines;
+        try (Stream<String> shifted = cut.shift( rows.stream() ))
+        {
+            lines = shifted.collect( Collectors.toList() );
+        }
+
+        assertThat( lines, contains( "head", "a 2019:03:13 13:44:27+04:30", "c 2019:03:13 13:44:27+04:30", "foot" ) );
+        assertThat( cut.getRejectedRows().getCount( RejectReason.INVALID_DATE_TIME_TO_SHIFT ), equalTo( 1L ) );
+    }
+
+    @Test
+    public void transformLineShouldShiftEpochNumbersAndAddOffsetSeconds()
+        throws IOException
+    {
+        config.setInDateShiftFormat( "epochMillis" );
+        config.setOutDateShiftedFormat( "epochSeconds" );
+        config.setOutOffsetSeconds( true );
+        final String[] line = new String[] { "infoData", "1552470867123", "2019:03:13 10:10:00+04:30" };
+        final String expected = "infoData,1552470867123,2019:03:13 10:10:00+04:30,1552470867,1552487067,16200"
+                + System.lineSeparator();
+
+        assertThat( new Timeshifter( config ).transformLine( line ), equalTo( expected ) );
+        config.setShiftCacheSize( 16 );
+        cut = new Timeshifter( config );
+        cut.transformLine( line );
+        assertThat( cut.transformLine( line ), equalTo( expected ) );
+    }
+
+    @Test
+    public void shiftAllShouldShiftColumnsOfEpochSeconds()
+    {
+        final OffsetDateTime first = OffsetDateTime.parse( "2019-03-13T09:14:27Z" );
+        final long[] epochSeconds = { first.toEpochSecond(), first.toEpochSecond() + 86400 };
+        final long[] localEpochSeconds = new long[2];
+
+        cut.shiftAll( epochSeconds, new int[] { 16200, -3600 }, localEpochSeconds );
+
+        assertThat( localEpochSeconds[0], equalTo( first.toEpochSecond() + 16200 ) );
+        assertThat( localEpochSeconds[1], equalTo( first.toEpochSecond() + 86400 - 3600 ) );
+
+        config.setOutDateShiftedOffset( ZoneOffset.ofHours( 2 ) );
+        new Timeshifter( config ).shiftAll( epochSeconds, null, epochSeconds );
+
+        assertThat( epochSeconds[0], equalTo( first.toEpochSecond() + 7200 ) );
+    }
+
+    @Test
+    public void shiftAllShouldParseAndShiftColumnsOfText()
+    {
+        final long first = OffsetDateTime.parse( "2019-03-13T09:14:27Z" ).toEpochSecond();
+        final CharSequence[] dateTimes =
+            { "2019:03:13 09:14:27Z", " 2019:03:13 09:14:27+01:00 ", "garbage", "2019:03:13 09:14:27Z" };
+        final CharSequence[] offsetFields = { "2019:03:13 10:10:00+04:30", "2019:03:13 10:10:00-04:30",
+            "2019:03:13 10:10:00Z", "2019:03:13 10:10:00+4:30" };
+        final long[] epochSeconds = new long[4];
+        final int[] nanos = new int[4];
+        final int[] offsetSeconds = new int[4];
+
+        assertThat( cut.shiftAll( 0, dateTimes, offsetFields, epochSeconds, nanos, offsetSeconds ), equalTo( 2 ) );
+
+        assertThat( epochSeconds[0], equalTo( first ) );
+        assertThat( offsetSeconds[0], equalTo( 16200 ) );
+        assertThat( epochSeconds[1], equalTo( first - 3600 ) );
+        assertThat( offsetSeconds[1], equalTo( -16200 ) );
+        assertThat( offsetSeconds[2], equalTo( FastDateTimeParser.INVALID_OFFSET ) );
+        assertThat( offsetSeconds[3], equalTo( FastDateTimeParser.INVALID_OFFSET ) );
+        final StringBuilder out = new StringBuilder();
+        cut.appendShiftedTime( epochSeconds[0], nanos[0], offsetSeconds[0], true, out );
+        assertThat( out.toString(), equalTo( "2019:03:13 13:44:27+04:30" ) );
+    }
+
+    @Test
+    public void shiftAllShouldParseEpochNumbersToFixedOffset()
+    {
+        config.setInDateShiftFormat( "epochMillis" );
+        config.setOutDateShiftedOffset( ZoneOffset.ofHours( 2 ) );
+        final long[] epochSeconds = new long[2];
+        final int[] nanos = new int[2];
+        final int[] offsetSeconds = new int[2];
+
+        assertThat( new Timeshifter( config ).shiftAll( 0, new CharSequence[] { "1552154280123", "-1500" }, null,
+                epochSeconds, nanos, offsetSeconds ), equalTo( 0 ) );
+
+        assertThat( epochSeconds[0], equalTo( 1552154280L ) );
+        assertThat( nanos[0], equalTo( 123000000 ) );
+        assertThat( epochSeconds[1], equalTo( -2L ) );
+        assertThat( nanos[1], equalTo( 500000000 ) );
+        assertThat( offsetSeconds[1], equalTo( 7200 ) );
+    }
+
+    @Test
+    public void appendShiftedTimeShouldFormatPrimitiveTimestamp()
+    {
+        final OffsetDateTime shiftedTime = OffsetDateTime.parse( "2019-03-13T13:44:27.5+04:30" );
+        final StringBuilder out = new StringBuilder();
+
+        cut.appendShiftedTime( shiftedTime.toEpochSecond(), shiftedTime.getNano(), 16200, true, out );
+        out.append( ',' );
+        cut.appendShiftedTime( shiftedTime.toEpochSecond(), shiftedTime.getNano(), 16200, false, out );
+        config.setOutDateShiftedFormat( "yyyy-MM-dd HH:mm:ss.SSS" );
+        out.append( ',' );
+        new Timeshifter( config ).appendShiftedTime( shiftedTime.toEpochSecond(), shiftedTime.getNano(), 16200,
+                false, out );
+
+        assertThat( out.toString(), equalTo( "2019:03:13 13:44:27+04:30,2019:03:13 13:44:27,2019-03-13 13:44:27.500" ) );
+    }
+
+    @Test
+    public void transformLineShouldRejectRowIfAnyColumnIsNotParseable()
+        throws IOException
+    {
+        config.setInDateShiftColumnSpecs( "3" );
+        cut = new Timeshifter( config );
+
+        cut.transformLine( new String[] { "infoData", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30" } );
+        cut.transformLine( new String[] { "infoData", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30", "" } );
+
+        assertThat( cut.getRejectedRows().getCount( RejectReason.TOO_FEW_FIELDS ), equalTo( 1L ) );
+        assertThat( cut.getRejectedRows().getCount( RejectReason.INVALID_DATE_TIME_TO_SHIFT ), equalTo( 1L ) );
+    }
+
     @Test
     public void transformLineShouldUseDefaultFormat()
         throws IOException
@@ -123,6 +371,7 @@ public class TimeshifterTest
         final String[] line = new String[] { "infoData", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30" };
 
         config.setOutputLineFormat( "hugo %4$s egon \"%1$s\"" );
+        cut = new Timeshifter( config );
 
         assertThat( cut.transformLine( line ), equalTo( "hugo 2019:03:13 13:44:27+04:30 egon \"infoData\"" ) );
     }
@@ -135,6 +384,7 @@ public class TimeshifterTest
         thrown.expectMessage( "11 fields are required but" );
 
         config.setInDateShiftIdx( 10 );
+        cut = new Timeshifter( config );
 
         final String[] values = new String[] { "infoData", "2019:03:13 09:14:27Z" };
 
@@ -149,6 +399,7 @@ public class TimeshifterTest
         thrown.expectMessage( "9 fields are required but" );
 
         config.setInDateOffsetIdx( 8 );
+        cut = new Timeshifter( config );
 
         final String[] values = new String[] { "infoData", "2019:03:13 09:14:27Z" };
 
@@ -160,6 +411,7 @@ public class TimeshifterTest
         throws IOException
     {
         config.setOutDateShiftedOffset( ZoneOffset.ofHoursMinutes( 2, 20 ) );
+        cut = new Timeshifter( config );
 
         final String[] values = new String[] { "infoData", "2019:03:13 09:14:27Z" };
 
@@ -172,6 +424,7 @@ public class TimeshifterTest
         throws IOException
     {
         config.setOutDateShiftedOffset( ZoneOffset.ofHoursMinutes( 2, 20 ) );
+        cut = new Timeshifter( config );
 
         final String[] values = new String[] { "infoData", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30" };
 
@@ -186,6 +439,7 @@ public class TimeshifterTest
         config.setOutDateShiftedOffset( ZoneOffset.ofHoursMinutes( 2, 20 ) );
         config.setInDateShiftFormat( "yyyy:MM:dd HH:mm:ss" );
         config.setInDateShiftZone( ZoneId.of( "Europe/Berlin" ) );
+        cut = new Timeshifter( config );
 
         final String[] values = new String[] { "infoData", "2019:03:13 09:14:27", "2019:03:13 10:10:00+04:30" };
 
@@ -193,6 +447,35 @@ public class TimeshifterTest
                 MutableTimeshifterConfig.DEFAULT_DATE_TIME_FORMATTER ) ) );
     }
 
+    @Test
+    public void createShiftedTimeShouldUseInputTZWithCustomFormat()
+        throws IOException
+    {
+        config.setOutDateShiftedOffset( ZoneOffset.ofHoursMinutes( 2, 20 ) );
+        config.setInDateShiftFormat( "dd.MM.yyyy HH:mm:ss.SSS" );
+        config.setInDateShiftZone( ZoneId.of( "Europe/Berlin" ) );
+        cut = new Timeshifter( config );
+
+        final String[] values = new String[] { "infoData", "31.03.2019 02:30:00.250" };
+
+        assertThat( cut.createShiftedTime( values ), equalTo( OffsetDateTime.of( 2019, 3, 31, 3, 50, 0, 250_000_000,
+                ZoneOffset.ofHoursMinutes( 2, 20 ) ) ) );
+    }
+
+    @Test
+    public void configChangesAfterCreationShouldNotAffectShifter()
+        throws IOException
+    {
+        final String[] line = new String[] { "infoData", "2019:03:13 09:14:27Z", "2019:03:13 10:10:00+04:30" };
+
+        config.setOutputLineFormat( "hugo %4$s egon \"%1$s\"" );
+        config.setOutDateShiftedOffset( ZoneOffset.ofHoursMinutes( 2, 20 ) );
+
+        assertThat( cut.transformLine( line ),
+                equalTo( "infoData,2019:03:13 09:14:27Z,2019:03:13 10:10:00+04:30,2019:03:13 13:44:27+04:30,2019:03:13 13:44:27"
+                        + System.lineSeparator() ) );
+    }
+
     @Test
     public void sanitizeFieldWithNullShouldReturnEmptyString()
     {
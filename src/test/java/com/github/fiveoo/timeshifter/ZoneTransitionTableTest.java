@@ -0,0 +1,125 @@
+package com.github.fiveoo.timeshifter;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import static org.junit.Assert.assertThat;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares the results of {@link ZoneTransitionTable} with the ones of
+ * {@link ZonedDateTime}.
+ */
+public class ZoneTransitionTableTest
+{
+    private static final ZoneId BERLIN = ZoneId.of( "Europe/Berlin" );
+
+    private final Random random = new Random( 20190315L );
+
+    @Test
+    public void gapShouldMoveLocalTimeForward()
+    {
+        final ZoneTransitionTable cut = ZoneTransitionTable.of( BERLIN );
+        final long local = LocalDateTime.of( 2019, 3, 31, 2, 30 ).toEpochSecond( ZoneOffset.UTC );
+
+        assertThat( cut.getOffsetSeconds( local ), is( 7200 ) );
+        assertThat( cut.toEpochSecond( local ),
+                is( ZonedDateTime.of( 2019, 3, 31, 3, 30, 0, 0, BERLIN ).toEpochSecond() ) );
+    }
+
+    @Test
+    public void overlapShouldUseEarlierOffset()
+    {
+        final ZoneTransitionTable cut = ZoneTransitionTable.of( BERLIN );
+        final long local = LocalDateTime.of( 2019, 10, 27, 2, 30 ).toEpochSecond( ZoneOffset.UTC );
+
+        assertThat( cut.getOffsetSeconds( local ), is( 7200 ) );
+        assertThat( cut.toEpochSecond( local ), is( local - 7200 ) );
+    }
+
+    @Test
+    public void fixedOffsetShouldBeResolved()
+    {
+        final ZoneTransitionTable cut = ZoneTransitionTable.of( ZoneOffset.ofHoursMinutes( 5, 45 ) );
+        final long local = LocalDateTime.of( 2019, 10, 27, 2, 30 ).toEpochSecond( ZoneOffset.UTC );
+
+        assertThat( cut.getOffsetSeconds( local ), is( 20700 ) );
+        assertThat( cut.toEpochSecond( local ), is( local - 20700 ) );
+    }
+
+    @Test
+    public void dateTimesOutsideRangeShouldBeResolvedByRules()
+    {
+        final ZoneTransitionTable cut = ZoneTransitionTable.of( BERLIN, 2000, 2001 );
+
+        assertAsZonedDateTime( cut, LocalDateTime.of( 1850, 6, 1, 12, 0 ) );
+        assertAsZonedDateTime( cut, LocalDateTime.of( 2019, 3, 31, 2, 30 ) );
+        assertAsZonedDateTime( cut, LocalDateTime.of( 2019, 10, 27, 2, 30 ) );
+    }
+
+    @Test
+    public void allZonesShouldMatchZonedDateTimeAroundTransitions()
+    {
+        for( final String zoneId : ZoneId.getAvailableZoneIds() )
+        {
+            final ZoneId zone = ZoneId.of( zoneId );
+            final ZoneRules rules = zone.getRules();
+            final ZoneTransitionTable cut = ZoneTransitionTable.of( zone, 1950, 2050 );
+
+            ZoneOffsetTransition transition =
+                    rules.nextTransition( LocalDateTime.of( 1950, 1, 1, 0, 0 ).toInstant( ZoneOffset.UTC ) );
+            while( transition != null && transition.getDateTimeBefore().getYear() < 2050 )
+            {
+                for( final LocalDateTime local : new LocalDateTime[] { transition.getDateTimeBefore(),
+                        transition.getDateTimeAfter() } )
+                {
+                    assertAsZonedDateTime( cut, local.minusSeconds( 1 ) );
+                    assertAsZonedDateTime( cut, local );
+                    assertAsZonedDateTime( cut, local.plusSeconds( 1 ) );
+                    assertAsZonedDateTime( cut, local.plusSeconds( random.nextInt( 7200 ) - 3600 ) );
+                }
+                transition = rules.nextTransition( transition.getInstant() );
+            }
+        }
+    }
+
+    @Test
+    public void randomDateTimesShouldMatchZonedDateTime()
+    {
+        final long min = LocalDateTime.of( 1900, 1, 1, 0, 0 ).toEpochSecond( ZoneOffset.UTC );
+        final long max = LocalDateTime.of( 2100, 1, 1, 0, 0 ).toEpochSecond( ZoneOffset.UTC );
+        final String[] zoneIds = ZoneId.getAvailableZoneIds().toArray( new String[0] );
+
+        for( int z = 0; z < 50; z++ )
+        {
+            final ZoneTransitionTable cut = ZoneTransitionTable.of( ZoneId.of( zoneIds[random.nextInt( zoneIds.length )] ) );
+            for( int i = 0; i < 1000; i++ )
+            {
+                assertAsZonedDateTime( cut, LocalDateTime
+                        .ofInstant( Instant.ofEpochSecond( min + (long) ( random.nextDouble() * ( max - min ) ) ),
+                                ZoneOffset.UTC ) );
+            }
+        }
+    }
+
+    private static void assertAsZonedDateTime( final ZoneTransitionTable cut, final LocalDateTime local )
+    {
+        final ZonedDateTime expected = local.atZone( cut.getZone() );
+        final long localEpochSecond = local.toEpochSecond( ZoneOffset.UTC );
+
+        assertThat( cut.getZone() + " " + local, cut.toEpochSecond( localEpochSecond ),
+                equalTo( expected.toEpochSecond() ) );
+        assertThat( cut.getZone() + " " + local, cut.getOffsetSeconds( localEpochSecond ),
+                equalTo( expected.getOffset().getTotalSeconds() ) );
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.fiveoo.timeshifter.cli;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.fiveoo.timeshifter.BatchTimeshifter.Job;
+import com.github.fiveoo.timeshifter.TimeshifterException;
+
+public class BatchParametersTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private Path            root;
+    private BatchParameters cut;
+
+    @Before
+    public void setUp()
+        throws IOException
+    {
+        root = folder.getRoot().toPath();
+        for( final String file : Arrays.asList( "a/1.csv", "a/2.csv", "a/x.txt", "b/1.csv", "b/c/3.csv" ) )
+        {
+            Files.createDirectories( root.resolve( file ).getParent() );
+            Files.write( root.resolve( file ), Collections.singletonList( file ) );
+        }
+        cut = new BatchParameters();
+    }
+
+    @Test
+    public void createJobsShouldExpandGlobPatternInOrderOfNames()
+        throws IOException
+    {
+        cut.setInputs( Collections.singletonList( root + "/*/*.csv" ) );
+
+        final List<Job> jobs = cut.createJobs();
+
+        assertThat( inputs( jobs ), contains( "a/1.csv", "a/2.csv", "b/1.csv" ) );
+        assertThat( jobs.get( 0 ).getOutput(), nullValue() );
+    }
+
+    @Test
+    public void createJobsShouldExpandRecursiveGlobPatternAndDirectories()
+        throws IOException
+    {
+        cut.setInputs( Arrays.asList( root + "/b/**.csv", root + "/a" ) );
+
+        assertThat( inputs( cut.createJobs() ), contains( "b/1.csv", "b/c/3.csv", "a/1.csv", "a/2.csv", "a/x.txt" ) );
+    }
+
+    @Test
+    public void createJobsShouldKeepRelativePathsInOutDir()
+        throws IOException
+    {
+        cut.setInputs( Collections.singletonList( root + "/**/1.csv" ) );
+        cut.setOutDirName( root.resolve( "out" ).toString() );
+
+        final List<Job> jobs = cut.createJobs();
+
+        assertThat( jobs.get( 0 ).getOutput(), equalTo( root.resolve( "out/a/1.csv" ) ) );
+        assertThat( jobs.get( 1 ).getOutput(), equalTo( root.resolve( "out/b/1.csv" ) ) );
+    }
+
+    @Test
+    public void createJobsShouldReadManifest()
+        throws IOException
+    {
+        final Path manifest = Files.write( root.resolve( "manifest.txt" ),
+                Arrays.asList( "# input and output", "b/c/3.csv\tout/3.csv", "", "a/2.csv" ), StandardCharsets.UTF_8 );
+        cut.setManifestFileName( manifest.toString() );
+
+        final List<Job> jobs = cut.createJobs();
+
+        assertThat( inputs( jobs ), contains( "b/c/3.csv", "a/2.csv" ) );
+        assertThat( jobs.get( 0 ).getOutput(), equalTo( root.resolve( "out/3.csv" ) ) );
+        assertThat( jobs.get( 1 ).getOutput(), nullValue() );
+    }
+
+    @Test
+    public void createJobsShouldRejectOutputOverwritingInput()
+        throws IOException
+    {
+        cut.setInputs( Collections.singletonList( root + "/a/*.csv" ) );
+        cut.setOutDirName( root.resolve( "a" ).toString() );
+
+        thrown.expect( TimeshifterException.class );
+        thrown.expectMessage( "Output would overwrite input file" );
+
+        cut.createJobs();
+    }
+
+    @Test
+    public void createJobsWithoutMatchingFilesShouldThrowException()
+        throws IOException
+    {
+        cut.setInputs( Collections.singletonList( root + "/*.xyz" ) );
+
+        thrown.expect( TimeshifterException.class );
+        thrown.expectMessage( "No input files found" );
+
+        cut.createJobs();
+    }
+
+    private List<String> inputs( final List<Job> jobs )
+    {
+        return jobs.stream().map( job -> root.relativize( job.getInput() ).toString() ).collect( Collectors.toList() );
+    }
+}
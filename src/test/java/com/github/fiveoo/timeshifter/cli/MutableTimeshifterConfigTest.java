@@ -8,12 +8,18 @@ import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.github.fiveoo.timeshifter.EpochUnit;
+import com.github.fiveoo.timeshifter.ShiftColumn;
+
 public class MutableTimeshifterConfigTest
 {
     private static final OffsetDateTime TEST_NOW =
@@ -40,6 +46,24 @@ public class MutableTimeshifterConfigTest
         assertThat( cut.getInDateOffsetIdx(), is( 2 ) );
     }
 
+    @Test
+    public void getOutBufferSizeWOSetShouldReturnDefaultValue()
+    {
+        assertThat( cut.getOutBufferSize(), is( 64 * 1024 ) );
+    }
+
+    @Test
+    public void getThreadsWOSetShouldReturnDefaultValue()
+    {
+        assertThat( cut.getThreads(), is( 1 ) );
+    }
+
+    @Test
+    public void isUnorderedWOSetShouldReturnDefaultValue()
+    {
+        assertThat( cut.isUnordered(), is( false ) );
+    }
+
     @Test
     public void getInDateShiftFormatterWOSetFormatShouldReturnDefaultFormatter()
     {
@@ -156,6 +180,29 @@ public class MutableTimeshifterConfigTest
         assertThat( formatter.format( TEST_NOW ), equalTo( "22-03-2019  42-50-13" ) );
     }
 
+    @Test
+    public void getOutDateShiftedFormattersWithEpochFormatShouldWriteNumbers()
+    {
+        cut.setOutDateShiftedFormat( "epochMillis" );
+
+        assertThat( cut.getOutDateShiftedFormatter().format( TEST_NOW ), equalTo( "1553259042000" ) );
+        assertThat( cut.getOutDateShiftedFormatterLocal().format( TEST_NOW ), equalTo( "1553262642000" ) );
+    }
+
+    @Test
+    public void getInDateShiftColumnsWithEpochFormatShouldIgnoreZone()
+    {
+        cut.setInDateShiftFormat( "epochSeconds" );
+        cut.setInDateShiftZone( ZoneId.of( "Europe/Berlin" ) );
+
+        final ShiftColumn column = cut.getInDateShiftColumns().get( 0 );
+
+        assertThat( column.getEpochUnit(), is( EpochUnit.SECONDS ) );
+        assertThat( column.getZone(), nullValue() );
+        assertThat( OffsetDateTime.parse( "1553259042", column.getFormatter() ).toInstant(),
+                equalTo( TEST_NOW.withNano( 0 ).toInstant() ) );
+    }
+
     @Test
     public void getOutHeaderFormatWOSetShouldReturnNull()
     {
@@ -199,4 +246,44 @@ public class MutableTimeshifterConfigTest
 
         assertThat( cut.getOutFooterFormat(), equalTo( "f1f2f3" ) );
     }
+
+    @Test
+    public void getInDateShiftColumnsWOSetShouldReturnInDateShiftColumnOnly()
+    {
+        cut.setInDateShiftZone( ZoneId.of( "Asia/Tokyo" ) );
+
+        final List<ShiftColumn> columns = cut.getInDateShiftColumns();
+
+        assertThat( columns.size(), is( 1 ) );
+        assertThat( columns.get( 0 ).getIdx(), is( 1 ) );
+        assertThat( columns.get( 0 ).getZone(), equalTo( ZoneId.of( "Asia/Tokyo" ) ) );
+    }
+
+    @Test
+    public void getInDateShiftColumnsShouldParseFurtherColumnsWithDefaults()
+    {
+        cut.setInDateShiftFormat( "dd.MM.yyyy HH:mm:ssXXX" );
+        cut.setInDateShiftColumnSpecs( "3", "4;EEE, dd MMM yyyy HH:mm:ss;Europe/Berlin", "5;;UTC" );
+
+        final List<ShiftColumn> columns = cut.getInDateShiftColumns();
+
+        assertThat( columns.size(), is( 4 ) );
+        assertThat( columns.get( 1 ).getIdx(), is( 3 ) );
+        assertThat( columns.get( 1 ).getFormatter().format( TEST_NOW ), equalTo( "22.03.2019 13:50:42+01:00" ) );
+        assertThat( columns.get( 1 ).getZone(), nullValue() );
+        assertThat( columns.get( 2 ).getIdx(), is( 4 ) );
+        assertThat( columns.get( 2 ).getFormatter().withLocale( Locale.ENGLISH ).format( TEST_NOW ),
+                equalTo( "Fri, 22 Mar 2019 13:50:42" ) );
+        assertThat( columns.get( 2 ).getZone(), equalTo( ZoneId.of( "Europe/Berlin" ) ) );
+        assertThat( columns.get( 3 ).getFormatter().format( TEST_NOW ), equalTo( "22.03.2019 13:50:42+01:00" ) );
+        assertThat( columns.get( 3 ).getZone(), equalTo( ZoneId.of( "UTC" ) ) );
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void getInDateShiftColumnsWithInvalidIndexShouldThrowException()
+    {
+        cut.setInDateShiftColumnSpecs( "x;yyyy" );
+
+        cut.getInDateShiftColumns();
+    }
 }
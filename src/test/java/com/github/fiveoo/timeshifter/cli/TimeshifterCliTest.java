@@ -1,5 +1,6 @@
 package com.github.fiveoo.timeshifter.cli;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
@@ -7,25 +8,45 @@ import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.Reader;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import com.github.fiveoo.timeshifter.BinaryRecordReader;
+import com.github.fiveoo.timeshifter.TimeshifterException;
 import com.github.robtimus.filesystems.memory.MemoryFileSystemProvider;
 
 public class TimeshifterCliTest
 {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     private Path           dataFolder;
     private Path           exampleValidPath;
     private TimeshifterCli cut;
@@ -88,6 +109,305 @@ public class TimeshifterCliTest
                         + System.lineSeparator() ) );
     }
 
+    @Test
+    public void runApplIsProcessingInputFileToOutputFileInParallel()
+        throws Exception
+    {
+        final Path outPath = dataFolder.resolve( "out.txt" );
+        final int parseResult = cut.parseParameters( null, "-i", exampleValidPath.toUri().toString(), "-o",
+                outPath.toUri().toString(), "--threads", "4" );
+
+        assertThat( parseResult, equalTo( 0 ) );
+
+        cut.runAppl( null, null );
+
+        final List<String> outLines = Files.readAllLines( outPath, StandardCharsets.UTF_8 );
+        assertThat( outLines, contains(
+                "NewImages/DSC00034.jpg,2019:03:09 17:58:00Z,2019:03:09 18:57:30+01:00,2019:03:09 18:58:00+01:00,2019:03:09 18:58:00",
+                "NewImages/DSC00035.jpg,2019:03:10 13:59:36Z,2019:03:10 14:59:06+01:00,2019:03:10 14:59:36+01:00,2019:03:10 14:59:36" ) );
+    }
+
+    @Test
+    public void runApplIsProcessingMappedInputFile()
+        throws Exception
+    {
+        final Path inPath = tempFolder.newFile( "in.txt" ).toPath();
+        Files.copy( exampleValidPath, inPath, StandardCopyOption.REPLACE_EXISTING );
+        final Path outPath = tempFolder.getRoot().toPath().resolve( "out.txt" );
+        final int parseResult = cut.parseParameters( null, "-i", inPath.toString(), "-o", outPath.toString() );
+
+        assertThat( parseResult, equalTo( 0 ) );
+
+        cut.runAppl( null, null );
+
+        final List<String> outLines = Files.readAllLines( outPath, StandardCharsets.UTF_8 );
+        assertThat( outLines, contains(
+                "NewImages/DSC00034.jpg,2019:03:09 17:58:00Z,2019:03:09 18:57:30+01:00,2019:03:09 18:58:00+01:00,2019:03:09 18:58:00",
+                "NewImages/DSC00035.jpg,2019:03:10 13:59:36Z,2019:03:10 14:59:06+01:00,2019:03:10 14:59:36+01:00,2019:03:10 14:59:36" ) );
+    }
+
+    @Test
+    public void runApplIsClosingInputFileIfOutputFileCantBeCreated()
+        throws Exception
+    {
+        final Path inPath = tempFolder.newFile( "in.txt" ).toPath();
+        Files.copy( exampleValidPath, inPath, StandardCopyOption.REPLACE_EXISTING );
+        final Path outPath = tempFolder.getRoot().toPath().resolve( "missing" ).resolve( "out.txt" );
+        final AtomicBoolean closed = new AtomicBoolean();
+        cut = new TimeshifterCli()
+        {
+            @Override
+            protected Reader createReader( final Path path )
+                throws IOException
+            {
+                return new FilterReader( super.createReader( path ) )
+                {
+                    @Override
+                    public void close()
+                        throws IOException
+                    {
+                        closed.set( true );
+                        super.close();
+                    }
+                };
+            }
+        };
+        assertThat( cut.parseParameters( null, "-i", inPath.toString(), "-o", outPath.toString() ), equalTo( 0 ) );
+
+        try
+        {
+            cut.runAppl( null, null );
+            fail( "NoSuchFileException expected" );
+        }
+        catch( final NoSuchFileException e )
+        {
+            assertThat( closed.get(), equalTo( true ) );
+        }
+    }
+
+    @Test
+    public void runApplIsProcessingGzipInputFileToGzipOutputFile()
+        throws Exception
+    {
+        final Path inPath = dataFolder.resolve( "in.csv.gz" );
+        try (OutputStream out = new GZIPOutputStream( Files.newOutputStream( inPath ) ))
+        {
+            Files.copy( exampleValidPath, out );
+        }
+        final Path outPath = dataFolder.resolve( "out.csv.gz" );
+        final int parseResult =
+                cut.parseParameters( null, "-i", inPath.toUri().toString(), "-o", outPath.toUri().toString() );
+
+        assertThat( parseResult, equalTo( 0 ) );
+
+        cut.runAppl( null, null );
+
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader( new GZIPInputStream( Files.newInputStream( outPath ) ), StandardCharsets.UTF_8 )))
+        {
+            assertThat( in.lines().collect( Collectors.toList() ), contains(
+                    "NewImages/DSC00034.jpg,2019:03:09 17:58:00Z,2019:03:09 18:57:30+01:00,2019:03:09 18:58:00+01:00,2019:03:09 18:58:00",
+                    "NewImages/DSC00035.jpg,2019:03:10 13:59:36Z,2019:03:10 14:59:06+01:00,2019:03:10 14:59:36+01:00,2019:03:10 14:59:36" ) );
+        }
+    }
+
+    @Test
+    public void runApplIsWritingBinaryRecords()
+        throws Exception
+    {
+        final Path inPath = tempFolder.newFile( "in.txt" ).toPath();
+        Files.copy( exampleValidPath, inPath, StandardCopyOption.REPLACE_EXISTING );
+        final Path outPath = tempFolder.getRoot().toPath().resolve( "out.bin" );
+        final int parseResult = cut.parseParameters( null, "-i", inPath.toString(), "-o", outPath.toString(),
+                "--outBinary", "-ohf", "header" );
+
+        assertThat( parseResult, equalTo( 0 ) );
+
+        cut.runAppl( null, null );
+
+        try (BinaryRecordReader in = new BinaryRecordReader( outPath ))
+        {
+            assertThat( in.getShiftedColumnCount(), equalTo( 1 ) );
+            assertThat( in.next(), equalTo( true ) );
+            assertThat( in.getShiftedTime( 0 ), equalTo( OffsetDateTime.parse( "2019-03-09T18:58:00+01:00" ) ) );
+            assertThat( in.getField( 0 ), equalTo( "NewImages/DSC00034.jpg" ) );
+            assertThat( in.next(), equalTo( true ) );
+            assertThat( in.getField( 0 ), equalTo( "NewImages/DSC00035.jpg" ) );
+            assertThat( in.next(), equalTo( false ) );
+        }
+    }
+
+    @Test
+    public void runApplIsRecordingCheckpointsAndDeletingThemWhenFinished()
+        throws Exception
+    {
+        final Path inPath = tempFolder.newFile( "in.txt" ).toPath();
+        Files.copy( exampleValidPath, inPath, StandardCopyOption.REPLACE_EXISTING );
+        final Path outPath = tempFolder.getRoot().toPath().resolve( "out.txt" );
+        final Path checkpointPath = tempFolder.getRoot().toPath().resolve( "out.checkpoint" );
+        final int parseResult = cut.parseParameters( null, "-i", inPath.toString(), "-o", outPath.toString(),
+                "--checkpoint", checkpointPath.toString(), "--resume" );
+
+        assertThat( parseResult, equalTo( 0 ) );
+        assertThat( cut.isDaemonRequest(), equalTo( false ) );
+
+        cut.runAppl( null, null );
+
+        assertThat( Files.readAllLines( outPath, StandardCharsets.UTF_8 ), hasSize( 2 ) );
+        assertThat( Files.exists( checkpointPath ), equalTo( false ) );
+    }
+
+    @Test(expected = TimeshifterException.class)
+    public void runApplWithCheckpointIsRequiringOutputFile()
+        throws Exception
+    {
+        final int parseResult = cut.parseParameters( null, "-i", exampleValidPath.toUri().toString(),
+                "--checkpoint", "out.checkpoint" );
+
+        assertThat( parseResult, equalTo( 0 ) );
+
+        cut.runAppl( null, null );
+    }
+
+    @Test
+    public void runApplIsWritingMetricsFile()
+        throws Exception
+    {
+        final Path outPath = dataFolder.resolve( "out.txt" );
+        final Path metricsPath = dataFolder.resolve( "metrics.json" );
+        final int parseResult = cut.parseParameters( null, "-i", exampleValidPath.toUri().toString(), "-o",
+                outPath.toUri().toString(), "--metricsFile", metricsPath.toUri().toString() );
+
+        assertThat( parseResult, equalTo( 0 ) );
+
+        cut.runAppl( null, null );
+
+        final String metrics = new String( Files.readAllBytes( metricsPath ), StandardCharsets.UTF_8 );
+        // the header line is counted as failed row
+        assertThat( metrics, containsString( "\"rowsIn\": 3," ) );
+        assertThat( metrics, containsString( "\"rowsOut\": 2," ) );
+        assertThat( metrics, containsString( "\"rowsFailed\": {\"INVALID_OFFSET_DATE_TIME\": 1}," ) );
+        assertThat( metrics, containsString( "\"bytesIn\": " + Files.size( exampleValidPath ) + "," ) );
+        assertThat( metrics, containsString( "\"bytesOut\": " + Files.size( outPath ) + "," ) );
+    }
+
+    @Test
+    public void runApplIsWritingRejectFile()
+        throws Exception
+    {
+        final Path outPath = dataFolder.resolve( "out.txt" );
+        final Path rejectPath = dataFolder.resolve( "rejects.csv" );
+        final int parseResult = cut.parseParameters( null, "-i", exampleValidPath.toUri().toString(), "-o",
+                outPath.toUri().toString(), "--rejectFile", rejectPath.toUri().toString() );
+
+        assertThat( parseResult, equalTo( 0 ) );
+
+        cut.runAppl( null, null );
+
+        final List<String> rejectLines = Files.readAllLines( rejectPath, StandardCharsets.UTF_8 );
+        assertThat( rejectLines, contains( "SourceFile,GPSDateTime,DateTimeDigitized,INVALID_OFFSET_DATE_TIME,"
+                + "Text 'DateTimeDigitized' could not be parsed" ) );
+    }
+
+    @Test
+    public void runBatchIsMergingFilesAndPrintingSummary()
+        throws Exception
+    {
+        Files.copy( exampleValidPath, dataFolder.resolve( "exampleInputValid2.txt" ) );
+        final Path outPath = dataFolder.resolve( "out.csv" );
+        assertThat( cut.parseParameters( null, "--batch", dataFolder.toUri() + "/*.txt", "-t", "2", "-o",
+                outPath.toUri().toString() ), equalTo( 0 ) );
+
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        try (final PrintStream errStream = new PrintStream( err, true, "UTF-8" ))
+        {
+            cut.runBatch( null, errStream );
+        }
+
+        assertThat( Files.readAllLines( outPath, StandardCharsets.UTF_8 ), hasSize( 4 ) );
+        final String summary = new String( err.toByteArray(), StandardCharsets.UTF_8 );
+        assertThat( summary, containsString( "exampleInputValid2.txt: 3 rows in, 2 rows out, 1 rows failed, " ) );
+        assertThat( summary, containsString( "2 files (0 failed): 6 rows in, 4 rows out, 2 rows failed, " ) );
+    }
+
+    @Test
+    public void runGenerateIsWritingShiftableData()
+        throws Exception
+    {
+        final Path generatedPath = dataFolder.resolve( "generated.csv" );
+        assertThat( cut.parseParameters( null, "--generate", "100", "--genExtraColumns", "1", "-o",
+                generatedPath.toUri().toString() ), equalTo( 0 ) );
+        cut.runGenerate( null );
+
+        final Path outPath = dataFolder.resolve( "out.txt" );
+        cut = new TimeshifterCli();
+        assertThat( cut.parseParameters( null, "-i", generatedPath.toUri().toString(), "-o",
+                outPath.toUri().toString(), "-ils", "1" ), equalTo( 0 ) );
+        cut.runAppl( null, null );
+
+        final List<String> outLines = Files.readAllLines( outPath, StandardCharsets.UTF_8 );
+        assertThat( outLines, hasSize( 100 ) );
+        assertThat( outLines.get( 0 ).split( "," ).length, equalTo( 6 ) );
+    }
+
+    @Test
+    public void runApplIsShiftingSeveralColumnsInOnePass()
+        throws Exception
+    {
+        final String[] columns = { "-isc", "3;dd.MM.yyyy, HH:mm:ss;Europe/Berlin", "-isc", "4" };
+        final Path generatedPath = dataFolder.resolve( "generated.csv" );
+        assertThat( cut.parseParameters( null, concat( columns, "--generate", "100", "-o",
+                generatedPath.toUri().toString() ) ), equalTo( 0 ) );
+        cut.runGenerate( null );
+
+        final Path outPath = dataFolder.resolve( "out.txt" );
+        cut = new TimeshifterCli();
+        assertThat( cut.parseParameters( null, concat( columns, "-i", generatedPath.toUri().toString(), "-o",
+                outPath.toUri().toString(), "-ils", "1", "-olf", "%6$s|%8$s|%10$s%n" ) ), equalTo( 0 ) );
+        cut.runAppl( null, null );
+
+        final List<String> outLines = Files.readAllLines( outPath, StandardCharsets.UTF_8 );
+        assertThat( outLines, hasSize( 100 ) );
+        for( final String line : outLines )
+        {
+            final String[] shifted = line.split( "\\|" );
+            assertThat( shifted[1], equalTo( shifted[0] ) );
+            assertThat( shifted[2], equalTo( shifted[0] ) );
+        }
+    }
+
+    @Test
+    public void parseParametersWithInvalidShiftColumnIsReportingError()
+        throws Exception
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final PrintStream baos = new PrintStream( out ))
+        {
+            assertThat( cut.parseParameters( baos, "-isc", "3;yyyy;Mars/Olympus" ), equalTo( -1 ) );
+        }
+
+        assertThat( new String( out.toByteArray() ), containsString( "should be <idx>[;<format>[;<zone>]]" ) );
+    }
+
+    @Test
+    public void runBenchmarkIsPrintingResults()
+        throws Exception
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final PrintStream baos = new PrintStream( out, true, "UTF-8" ))
+        {
+            assertThat( cut.parseParameters( null, "--benchmark", "1000", "--genErrorRatio", "0.5" ),
+                    equalTo( 0 ) );
+            cut.runBenchmark( baos );
+        }
+
+        final String result = new String( out.toByteArray(), StandardCharsets.UTF_8 );
+        assertThat( result, containsString( "rows:       1000 (" ) );
+        assertThat( result, containsString( "rows/s" ) );
+        assertThat( result, containsString( "p99" ) );
+        assertThat( result, containsString( "MB peak" ) );
+    }
+
     @Test
     public void parseParametersIsShowingHelp()
         throws Exception
@@ -118,4 +438,12 @@ public class TimeshifterCliTest
         assertThat( output, containsString( "Shows this help" ) );
         assertThat( output.length(), greaterThan( 1500 ) );
     }
+
+    private static String[] concat( final String[] first, final String... second )
+    {
+        final String[] result = Arrays.copyOf( first, first.length + second.length );
+        System.arraycopy( second, 0, result, first.length, second.length );
+
+        return result;
+    }
 }
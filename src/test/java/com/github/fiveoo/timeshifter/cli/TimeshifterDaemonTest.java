@@ -0,0 +1,344 @@
+package com.github.fiveoo.timeshifter.cli;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.robtimus.filesystems.memory.MemoryFileSystemProvider;
+
+public class TimeshifterDaemonTest
+{
+    private static final String LINE_1 =
+            "NewImages/DSC00034.jpg,2019:03:09 17:58:00Z,2019:03:09 18:57:30+01:00,2019:03:09 18:58:00+01:00,2019:03:09 18:58:00";
+    private static final String LINE_2 =
+            "NewImages/DSC00035.jpg,2019:03:10 13:59:36Z,2019:03:10 14:59:06+01:00,2019:03:10 14:59:36+01:00,2019:03:10 14:59:36";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path                  tokenFile;
+    private TimeshifterDaemon     daemon;
+    private TimeshifterClient     cut;
+    private ByteArrayOutputStream out;
+    private ByteArrayOutputStream err;
+
+    @Before
+    public void setup()
+        throws IOException
+    {
+        tokenFile = folder.getRoot().toPath().resolve( "daemon.token" );
+        daemon = new TimeshifterDaemon( 0, tokenFile );
+        final Thread thread = new Thread( () -> {
+            try
+            {
+                daemon.run();
+            }
+            catch( final IOException e )
+            {
+                throw new IllegalStateException( e );
+            }
+        } );
+        thread.setDaemon( true );
+        thread.start();
+
+        cut = new TimeshifterClient( daemon.getPort(), tokenFile );
+        out = new ByteArrayOutputStream();
+        err = new ByteArrayOutputStream();
+    }
+
+    @After
+    public void tearDown()
+        throws IOException
+    {
+        daemon.close();
+    }
+
+    @Test
+    public void runShouldShiftStdinToStdout()
+        throws IOException
+    {
+        for( int i = 0; i < 2; i++ )
+        {
+            out.reset();
+            assertThat( run( Arrays.asList( "-ils", "1" ) ), is( 0 ) );
+
+            assertThat( new String( out.toByteArray(), StandardCharsets.UTF_8 ),
+                    equalTo( LINE_1 + System.lineSeparator() + LINE_2 + System.lineSeparator() ) );
+        }
+    }
+
+    @Test
+    public void runShouldReadParameterFileAndFilesLocally()
+        throws IOException
+    {
+        MemoryFileSystemProvider.clear();
+        final Path dataFolder = Paths.get( URI.create( "memory:/timeshifterData" ) );
+        Files.createDirectories( dataFolder );
+        final Path inPath = dataFolder.resolve( "in.txt" );
+        Files.copy( getClass().getResourceAsStream( "exampleInputValid.txt" ), inPath,
+                StandardCopyOption.REPLACE_EXISTING );
+        final Path outPath = dataFolder.resolve( "out.txt" );
+        final Path paramPath = Files.createTempFile( "timeshifter", ".params" );
+        try
+        {
+            Files.write( paramPath, Arrays.asList( "# skip header", "-ils", "1", "", "-o", outPath.toUri().toString() ),
+                    StandardCharsets.UTF_8 );
+
+            assertThat( cut.run( Arrays.asList( "-i", inPath.toUri().toString(), "@" + paramPath ), null, out,
+                    new PrintStream( err ) ), is( 0 ) );
+        }
+        finally
+        {
+            Files.delete( paramPath );
+        }
+
+        assertThat( Files.readAllLines( outPath, StandardCharsets.UTF_8 ), contains( LINE_1, LINE_2 ) );
+        assertThat( out.size(), is( 0 ) );
+    }
+
+    @Test
+    public void runShouldPassGzipFilesCompressed()
+        throws IOException
+    {
+        final Path inPath = folder.getRoot().toPath().resolve( "in.csv.gz" );
+        try (OutputStream gzip = new GZIPOutputStream( Files.newOutputStream( inPath ) ))
+        {
+            gzip.write( readExample() );
+        }
+        final Path outPath = folder.getRoot().toPath().resolve( "out.csv.gz" );
+
+        assertThat( cut.run( Arrays.asList( "-ils", "1", "-i", inPath.toString(), "-o", outPath.toString() ), null, out,
+                new PrintStream( err ) ), is( 0 ) );
+
+        try (BufferedReader shifted = new BufferedReader( new InputStreamReader(
+                new GZIPInputStream( Files.newInputStream( outPath ) ), StandardCharsets.UTF_8 ) ))
+        {
+            assertThat( shifted.lines().collect( Collectors.toList() ), contains( LINE_1, LINE_2 ) );
+        }
+    }
+
+    @Test
+    public void runShouldPassShiftErrorsToStderr()
+        throws IOException
+    {
+        assertThat( run( Collections.<String> emptyList() ), is( 0 ) );
+
+        assertThat( new String( err.toByteArray(), StandardCharsets.UTF_8 ),
+                containsString( "Could not shift time of input data: SourceFile,GPSDateTime,DateTimeDigitized" ) );
+    }
+
+    @Test
+    public void runShouldReportInvalidParameters()
+        throws IOException
+    {
+        assertThat( run( Arrays.asList( "-hugo" ) ), is( -1 ) );
+        assertThat( new String( err.toByteArray(), StandardCharsets.UTF_8 ),
+                containsString( "Was passed main parameter '-hugo'" ) );
+    }
+
+    @Test
+    public void runShouldRejectDaemonParameters()
+        throws IOException
+    {
+        assertThat( run( Arrays.asList( "--daemon", "4711" ) ), is( -1 ) );
+        assertThat( new String( err.toByteArray(), StandardCharsets.UTF_8 ),
+                containsString( "not allowed for requests sent to the daemon" ) );
+    }
+
+    @Test
+    public void runShouldShowHelp()
+        throws IOException
+    {
+        assertThat( run( Arrays.asList( "-h" ) ), is( 0 ) );
+        assertThat( new String( err.toByteArray(), StandardCharsets.UTF_8 ), containsString( "Shows this help" ) );
+        assertThat( out.size(), is( 0 ) );
+    }
+
+    @Test
+    public void daemonShouldNotReadParameterFilesOfRequests()
+        throws IOException
+    {
+        final Path secret = folder.newFile( "secret.txt" ).toPath();
+        Files.write( secret, Arrays.asList( "secret-line-1", "secret-line-2" ), StandardCharsets.UTF_8 );
+
+        final String response = sendRaw( readToken(), "@" + secret );
+
+        assertThat( response, containsString( "Was passed main parameter '@" ) );
+        assertThat( response, not( containsString( "secret-line" ) ) );
+    }
+
+    @Test
+    public void daemonShouldDenyRequestsWithoutToken()
+        throws IOException
+    {
+        final String response = sendRaw( "0123", "-ils", "1" );
+
+        assertThat( response, containsString( "Access denied" ) );
+        assertThat( response, not( containsString( "NewImages" ) ) );
+    }
+
+    @Test
+    public void daemonShouldRejectTooLongTokenLine()
+        throws IOException
+    {
+        final String response = send( ( repeat( 'a', 1000 ) + "\n" ).getBytes( StandardCharsets.UTF_8 ), false );
+
+        assertThat( response, containsString( "Request line longer than 64 bytes" ) );
+    }
+
+    @Test
+    public void daemonShouldRejectTooLongParameterLine()
+        throws IOException
+    {
+        final byte[] request =
+                ( readToken() + "\n-ol\n" + repeat( 'x', 5000 ) + "\n" ).getBytes( StandardCharsets.UTF_8 );
+
+        final String response = send( request, false );
+
+        assertThat( response, containsString( "Request line longer than 4096 bytes" ) );
+    }
+
+    @Test( timeout = 10000 )
+    public void daemonShouldCloseConnectionNotSendingRequest()
+        throws IOException
+    {
+        daemon.setRequestTimeoutMillis( 200 );
+
+        assertThat( send( new byte[0], false ), not( containsString( "NewImages" ) ) );
+    }
+
+    @Test
+    public void daemonShouldCreateTokenFileOnlyOwnerCanRead()
+        throws IOException
+    {
+        if( tokenFile.getFileSystem().supportedFileAttributeViews().contains( "posix" ) )
+        {
+            assertThat( PosixFilePermissions.toString( Files.getPosixFilePermissions( tokenFile ) ),
+                    equalTo( "rw-------" ) );
+        }
+
+        daemon.close();
+        assertThat( Files.exists( tokenFile ), is( false ) );
+    }
+
+    private String readToken()
+        throws IOException
+    {
+        return new String( Files.readAllBytes( tokenFile ), StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Sends the lines of a request followed by the example data bypassing the
+     * client.
+     *
+     * @return the whole response
+     */
+    private String sendRaw( final String... lines )
+        throws IOException
+    {
+        final ByteArrayOutputStream request = new ByteArrayOutputStream();
+        for( final String line : lines )
+        {
+            request.write( ( line + "\n" ).getBytes( StandardCharsets.UTF_8 ) );
+        }
+        request.write( '\n' );
+        request.write( readExample() );
+
+        return send( request.toByteArray(), true );
+    }
+
+    /**
+     * @param endRequest <code>false</code> to keep the output open, so the
+     *            daemon decides when to end the connection
+     * @return the whole response
+     */
+    private String send( final byte[] request, final boolean endRequest )
+        throws IOException
+    {
+        try (final Socket socket = new Socket( InetAddress.getLoopbackAddress(), daemon.getPort() ))
+        {
+            socket.getOutputStream().write( request );
+            if( endRequest )
+            {
+                socket.shutdownOutput();
+            }
+
+            final ByteArrayOutputStream response = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[1024];
+            int read;
+            while( ( read = socket.getInputStream().read( buffer ) ) >= 0 )
+            {
+                response.write( buffer, 0, read );
+            }
+
+            return new String( response.toByteArray(), StandardCharsets.UTF_8 );
+        }
+    }
+
+    private static String repeat( final char c, final int count )
+    {
+        final char[] chars = new char[count];
+        Arrays.fill( chars, c );
+
+        return new String( chars );
+    }
+
+    private int run( final List<String> args )
+        throws IOException
+    {
+        final byte[] input = readExample();
+
+        return cut.run( args, new ByteArrayInputStream( input ), out, new PrintStream( err ) );
+    }
+
+    private byte[] readExample()
+        throws IOException
+    {
+        final ByteArrayOutputStream example = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int read;
+        try (InputStream in = getClass().getResourceAsStream( "exampleInputValid.txt" ))
+        {
+            while( ( read = in.read( buffer ) ) >= 0 )
+            {
+                example.write( buffer, 0, read );
+            }
+        }
+
+        return example.toByteArray();
+    }
+}